@@ -2,13 +2,18 @@ package com.petcare;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class PetcareAdminApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(PetcareAdminApplication.class, args);
+        SpringApplication app = new SpringApplication(PetcareAdminApplication.class);
+        // 启动耗时报告：设置环境变量 PETCARE_STARTUP_REPORT=true 后，可通过 /actuator/startup 查看各启动步骤耗时
+        String report = System.getProperty("petcare.startup.report", System.getenv("PETCARE_STARTUP_REPORT"));
+        if (Boolean.parseBoolean(report)) {
+            app.setApplicationStartup(new BufferingApplicationStartup(4096));
+        }
+        app.run(args);
     }
 }
-
-
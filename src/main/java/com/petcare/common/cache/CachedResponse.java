@@ -0,0 +1,29 @@
+package com.petcare.common.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 缓存接口响应（或报表等服务方法的返回值），直到所依赖的表发生变更
+ * 以 name + 全部参数为键；tags 为依赖的表名（DataChangedEvent.TABLE_*，收入记录随宠物一并通知，依赖收入时声明 pets），
+ * 这些表的任一变更事件（含其他实例经 InvalidationBus 转发的）都会使已缓存的响应失效。
+ * 只缓存正常返回的结果，抛出异常时不缓存
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CachedResponse {
+
+    /**
+     * 缓存名称，作为指标标签，取值应为有限集合（如接口名）
+     */
+    String value();
+
+    /**
+     * 依赖的表
+     */
+    String[] tags();
+}
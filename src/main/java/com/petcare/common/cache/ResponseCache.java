@@ -0,0 +1,162 @@
+package com.petcare.common.cache;
+
+import com.petcare.common.event.DataChangedEvent;
+import com.petcare.common.event.InvalidationBus;
+import com.petcare.common.event.InvalidationBusStatusEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 按表版本失效的响应缓存
+ * 每张表一个递增的版本号，表的变更事件提交后版本号加一；缓存条目记录计算前读到的各依赖表版本号之和，
+ * 读取时之和不变即命中（版本号只增不减，任一依赖表变更都会使之和变大）。
+ * 计算期间发生的变更会使刚写入的条目在下次读取时失效，不会把旧结果当成新结果。
+ * 条目数超过 max-entries 时淘汰最久未访问的条目；失效通知连接断开期间可能漏掉其他实例的变更，此时不使用缓存。
+ * 只读事务走副本时，主库提交后副本可能稍有延迟，max-age-seconds 限制此时缓存旧结果的最长时间。
+ * 指标 petcare.response.cache{name, result=hit|miss} 记录各接口的命中与未命中次数，
+ * petcare.response.cache.hit.ratio{name} 为累计命中率
+ */
+@Component
+public class ResponseCache {
+
+    private final InvalidationBus invalidationBus;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxAgeNanos;
+
+    private final ConcurrentMap<String, AtomicLong> tagVersions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<>();
+    // 按访问顺序排列，读写均需持有锁
+    private final LinkedHashMap<String, Entry> entries;
+
+    public ResponseCache(InvalidationBus invalidationBus, MeterRegistry meterRegistry,
+                         @Value("${petcare.response-cache.enabled:true}") boolean enabled,
+                         @Value("${petcare.response-cache.max-entries:256}") int maxEntries,
+                         @Value("${petcare.response-cache.max-age-seconds:300}") long maxAgeSeconds) {
+        this.invalidationBus = invalidationBus;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(Math.max(1, maxAgeSeconds));
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ResponseCache.this.maxEntries;
+            }
+        };
+        Gauge.builder("petcare.response.cache.size", this, ResponseCache::size)
+                .description("已缓存的响应数").register(meterRegistry);
+    }
+
+    /**
+     * @param name     缓存名称
+     * @param key      参数
+     * @param tags     依赖的表
+     * @param supplier 未命中时的计算，返回值会被多个请求共享，调用方不应再修改
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String name, String key, String[] tags, Supplier<T> supplier) {
+        Stats counters = stats(name);
+        if (!enabled || !invalidationBus.isConnected()) {
+            counters.misses.increment();
+            return supplier.get();
+        }
+        String entryKey = name + '\u0000' + key;
+        // 先读版本再计算：计算期间的变更会使版本之和变大，写入的条目随即过期
+        long version = version(tags);
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(entryKey);
+            if (entry != null && entry.version == version && now - entry.storedAt < maxAgeNanos) {
+                counters.hits.increment();
+                return (T) entry.value;
+            }
+        }
+        counters.misses.increment();
+        T value = supplier.get();
+        synchronized (entries) {
+            entries.put(entryKey, new Entry(value, version, now));
+        }
+        return value;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        tagVersions.computeIfAbsent(event.getTable(), t -> new AtomicLong()).incrementAndGet();
+    }
+
+    @EventListener
+    public void onBusStatus(InvalidationBusStatusEvent event) {
+        // 断开期间可能漏掉其他实例的变更
+        clear();
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private long version(String[] tags) {
+        long sum = 0;
+        for (String tag : tags) {
+            sum += tagVersions.computeIfAbsent(tag, t -> new AtomicLong()).get();
+        }
+        return sum;
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private Stats stats(String name) {
+        return stats.computeIfAbsent(name, n -> new Stats(n, meterRegistry));
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long version;
+        private final long storedAt;
+
+        private Entry(Object value, long version, long storedAt) {
+            this.value = value;
+            this.version = version;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private static final class Stats {
+        private final Counter hits;
+        private final Counter misses;
+
+        private Stats(String name, MeterRegistry meterRegistry) {
+            this.hits = Counter.builder("petcare.response.cache").tag("name", name).tag("result", "hit")
+                    .description("命中缓存的请求数").register(meterRegistry);
+            this.misses = Counter.builder("petcare.response.cache").tag("name", name).tag("result", "miss")
+                    .description("未命中缓存、实际计算的请求数").register(meterRegistry);
+            Gauge.builder("petcare.response.cache.hit.ratio", this, Stats::hitRatio).tag("name", name)
+                    .description("累计命中率").register(meterRegistry);
+        }
+
+        private double hitRatio() {
+            double total = hits.count() + misses.count();
+            return total == 0 ? 0 : hits.count() / total;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.petcare.common.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 舱壁隔离
+ * 一组接口使用独立的有界线程池与等待队列：请求线程（Tomcat 工作线程）提交任务后立即释放，任务在池内线程上执行。
+ * 每个任务同一时刻最多持有一个数据库连接，线程数即这组接口可占用的连接上限，其余连接留给其他接口。
+ * 队列已满时直接拒绝；排队加执行超过 timeout 时以超时结束，尚未开始的任务不再执行。两者均抛出 BulkheadFullException。
+ * 指标 petcare.bulkhead.active / petcare.bulkhead.queued{name} 为执行中与排队的任务数，
+ * petcare.bulkhead.rejected{name, reason=full|timeout} 为拒绝次数
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final long retryAfterSeconds;
+    private final Counter timedOut;
+
+    /**
+     * @param threads           线程数（连接预算）
+     * @param queueCapacity     等待队列长度
+     * @param timeoutMillis     请求从提交到完成的最长时间
+     * @param retryAfterSeconds 拒绝时建议客户端等待的秒数
+     */
+    public Bulkhead(String name, int threads, int queueCapacity, long timeoutMillis, long retryAfterSeconds,
+                    MeterRegistry meterRegistry) {
+        this.name = name;
+        this.timeoutMillis = timeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        Counter full = rejectedCounter(meterRegistry, "full");
+        this.timedOut = rejectedCounter(meterRegistry, "timeout");
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), new CustomizableThreadFactory("bulkhead-" + name + "-"),
+                (task, pool) -> {
+                    full.increment();
+                    throw new BulkheadFullException("请求较多，请 " + retryAfterSeconds + " 秒后重试",
+                            retryAfterSeconds);
+                });
+        Gauge.builder("petcare.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount).tag("name", name)
+                .description("舱壁内执行中的任务数").register(meterRegistry);
+        Gauge.builder("petcare.bulkhead.queued", executor, e -> e.getQueue().size()).tag("name", name)
+                .description("舱壁内排队的任务数").register(meterRegistry);
+    }
+
+    /**
+     * 提交任务，结果（或异常）写入返回的 DeferredResult；队列已满时直接抛出 BulkheadFullException
+     */
+    public <T> DeferredResult<T> submit(Supplier<T> task) {
+        return await(execute(task), Function.identity());
+    }
+
+    /**
+     * 提交任务并返回其结果；队列已满时直接抛出 BulkheadFullException。
+     * 返回的 CompletableFuture 被取消时，仍在排队的任务移出队列，不再占用线程与连接
+     */
+    public <T> CompletableFuture<T> execute(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        FutureTask<Void> work = new FutureTask<>(() -> {
+            try {
+                future.complete(task.get());
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+            }
+        }, null);
+        executor.execute(work);
+        future.whenComplete((value, error) -> {
+            if (future.isCancelled() && work.cancel(false)) {
+                executor.remove(work);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 以 DeferredResult 等待 future 的结果，超过 timeout 时以 BulkheadFullException 结束；
+     * 超时或连接出错时取消 future
+     */
+    public <T, R> DeferredResult<R> await(CompletableFuture<T> future, Function<? super T, ? extends R> mapper) {
+        DeferredResult<R> result = new DeferredResult<>(timeoutMillis);
+        future.whenComplete((value, error) -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            if (error != null) {
+                result.setErrorResult(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                return;
+            }
+            try {
+                result.setResult(mapper.apply(value));
+            } catch (RuntimeException e) {
+                result.setErrorResult(e);
+            }
+        });
+        result.onTimeout(() -> {
+            future.cancel(false);
+            timedOut.increment();
+            result.setErrorResult(new BulkheadFullException("请求处理超时，请 " + retryAfterSeconds + " 秒后重试",
+                    retryAfterSeconds));
+        });
+        result.onError(e -> future.cancel(false));
+        return result;
+    }
+
+    /**
+     * 供 Spring MVC 执行 Callable / StreamingResponseBody 等异步处理，与 submit 共用线程与队列
+     */
+    public AsyncTaskExecutor asyncTaskExecutor() {
+        return new TaskExecutorAdapter(executor);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("petcare.bulkhead.rejected").tag("name", name).tag("reason", reason)
+                .description("舱壁拒绝的请求数（full 队列已满、timeout 超时）").register(meterRegistry);
+    }
+}
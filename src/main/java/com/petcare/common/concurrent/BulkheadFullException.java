@@ -0,0 +1,18 @@
+package com.petcare.common.concurrent;
+
+/**
+ * 舱壁已满或排队超时，请求未被执行；响应 503 并通过 Retry-After 提示客户端稍后重试
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public BulkheadFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,115 @@
+package com.petcare.common.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 相同请求合并（single-flight）
+ * 同一 name + key 同时只启动一次计算，计算期间到达的相同请求不再启动，等待并共享结果（包括异常）；
+ * 计算结束即移除，不做缓存，之后的请求重新计算。
+ * 指标 petcare.singleflight.calls{name, result=executed|coalesced} 记录实际执行与被合并的次数
+ */
+@Component
+public class SingleFlight {
+
+    private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter[]> counters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 没有进行中的相同计算时调用 starter 启动计算（例如提交到舱壁线程池），否则直接加入进行中的计算。
+     * 每个调用方拿到各自的 CompletableFuture，可单独取消（如请求超时）；全部调用方都取消后才取消计算本身，
+     * 尚未开始执行的计算因此不会白白执行。starter 抛出的异常（如舱壁已满）直接抛给调用方
+     *
+     * @param name    计算名称，作为指标标签，取值应为有限集合（如接口名）
+     * @param key     请求参数，与 name 共同决定哪些请求可以合并
+     * @param starter 启动实际计算，结果会被多个请求共享，调用方不应再修改
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> execute(String name, String key, Supplier<CompletableFuture<T>> starter) {
+        String flightKey = name + '\u0000' + key;
+        Flight created = new Flight();
+        Flight flight = inFlight.compute(flightKey, (k, current) -> {
+            // 已完成但尚未移除的计算不再加入
+            Flight joined = current != null && !current.result.isDone() ? current : created;
+            joined.waiters++;
+            return joined;
+        });
+
+        if (flight != created) {
+            counters(name)[1].increment();
+        } else {
+            counters(name)[0].increment();
+            flight.result.whenComplete((value, error) -> inFlight.remove(flightKey, flight));
+            CompletableFuture<T> work;
+            try {
+                work = starter.get();
+            } catch (RuntimeException | Error e) {
+                flight.result.completeExceptionally(e);
+                throw e;
+            }
+            work.whenComplete((value, error) -> {
+                if (error != null) {
+                    flight.result.completeExceptionally(error);
+                } else {
+                    flight.result.complete(value);
+                }
+            });
+            flight.result.whenComplete((value, error) -> {
+                if (flight.result.isCancelled()) {
+                    work.cancel(false);
+                }
+            });
+        }
+
+        CompletableFuture<T> own = (CompletableFuture<T>) flight.result.copy();
+        own.whenComplete((value, error) -> {
+            if (own.isCancelled()) {
+                leave(flightKey, flight);
+            }
+        });
+        return own;
+    }
+
+    private void leave(String flightKey, Flight flight) {
+        boolean[] abandoned = {false};
+        inFlight.computeIfPresent(flightKey, (k, current) -> {
+            if (current != flight || --current.waiters > 0) {
+                return current;
+            }
+            abandoned[0] = true;
+            return null;
+        });
+        // 在 compute 之外取消：取消时的回调会再次修改 inFlight
+        if (abandoned[0]) {
+            flight.result.cancel(false);
+        }
+    }
+
+    private Counter[] counters(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter[]{
+                Counter.builder("petcare.singleflight.calls").tag("name", n).tag("result", "executed")
+                        .description("实际执行的计算次数").register(meterRegistry),
+                Counter.builder("petcare.singleflight.calls").tag("name", n).tag("result", "coalesced")
+                        .description("合并到进行中计算、未重复执行的请求数").register(meterRegistry)
+        });
+    }
+
+    /**
+     * 进行中的计算；waiters 只在 inFlight 对该键的 compute 内读写
+     */
+    private static final class Flight {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private int waiters;
+    }
+}
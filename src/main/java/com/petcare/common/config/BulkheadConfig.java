@@ -0,0 +1,35 @@
+package com.petcare.common.config;
+
+import com.petcare.common.concurrent.Bulkhead;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 报表与预约接口的舱壁隔离
+ * 财务报表（/api/finance 下的统计与订单详情）在独立的线程池中执行，最多同时占用 threads 个数据库连接，
+ * 预约、入住、容量等接口仍在 Tomcat 工作线程上同步执行，使用其余的连接，报表再多也不会把它们挤出连接池
+ */
+@Configuration(proxyBeanMethods = false)
+public class BulkheadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkheadConfig.class);
+
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead reportBulkhead(MeterRegistry meterRegistry,
+                                   @Value("${petcare.bulkhead.reports.threads:2}") int threads,
+                                   @Value("${petcare.bulkhead.reports.queue-capacity:50}") int queueCapacity,
+                                   @Value("${petcare.bulkhead.reports.timeout-ms:60000}") long timeoutMillis,
+                                   @Value("${petcare.bulkhead.reports.retry-after-seconds:5}") long retryAfterSeconds,
+                                   @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        // 至少给其他接口留一个连接
+        int budget = Math.max(1, Math.min(threads, poolSize - 1));
+        if (budget < threads) {
+            log.warn("petcare.bulkhead.reports.threads={} 不小于连接池大小 {}，按 {} 执行", threads, poolSize, budget);
+        }
+        return new Bulkhead("reports", budget, queueCapacity, timeoutMillis, retryAfterSeconds, meterRegistry);
+    }
+}
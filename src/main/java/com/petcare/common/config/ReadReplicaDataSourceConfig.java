@@ -0,0 +1,79 @@
+package com.petcare.common.config;
+
+import com.petcare.common.datasource.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * 只读副本数据源配置
+ * 仅在配置了 petcare.datasource.replica.url 时启用；未配置时沿用 Spring Boot 默认的单数据源（即回退到主库）
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "petcare.datasource.replica", name = "url")
+public class ReadReplicaDataSourceConfig {
+
+    /**
+     * 副本获取连接的默认超时（毫秒）：副本不可用时尽快回退主库，而不是等满 Hikari 默认的 30 秒
+     */
+    static final long REPLICA_CONNECTION_TIMEOUT_MS = 3000;
+
+    /**
+     * 主库连接池，沿用 spring.datasource 与 spring.datasource.hikari 配置
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * 只读副本连接池，连接参数与池配置分别取自 petcare.datasource.replica 与 petcare.datasource.replica.hikari；
+     * connection-timeout 未配置时取 REPLICA_CONNECTION_TIMEOUT_MS
+     */
+    @Bean
+    @ConfigurationProperties("petcare.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(Environment environment) {
+        // 单独绑定而不注册为 Bean，避免与 Spring Boot 的 DataSourceProperties 产生歧义
+        DataSourceProperties properties = Binder.get(environment)
+                .bind("petcare.datasource.replica", DataSourceProperties.class)
+                .get();
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        // 先设默认值，随后的 @ConfigurationProperties 绑定会覆盖显式配置的值
+        dataSource.setConnectionTimeout(REPLICA_CONNECTION_TIMEOUT_MS);
+        return dataSource;
+    }
+
+    /**
+     * 对外暴露的数据源：延迟到第一条语句执行时才获取连接，此时事务的只读标记已经确定，路由才能生效
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica);
+        routing.afterPropertiesSet();
+        // 显式给出默认值，避免启动时为探测连接属性而提前建立连接；
+        // 带参构造函数会立即执行 afterPropertiesSet 并探测，因此先设置默认值再设置目标数据源
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        proxy.setTargetDataSource(routing);
+        return proxy;
+    }
+}
@@ -0,0 +1,51 @@
+package com.petcare.common.config;
+
+import com.petcare.common.cache.CachedResponse;
+import com.petcare.common.cache.ResponseCache;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * 为标注 @CachedResponse 的方法织入响应缓存
+ * 与 @Transactional 使用同一个自动代理，顺序在事务之前：命中缓存时不开启事务、不占用数据库连接
+ */
+@Configuration(proxyBeanMethods = false)
+public class ResponseCacheConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor responseCacheAdvisor(ObjectProvider<ResponseCache> responseCache) {
+        MethodInterceptor interceptor = invocation -> {
+            CachedResponse cached = AnnotatedElementUtils.findMergedAnnotation(invocation.getMethod(), CachedResponse.class);
+            if (cached == null) {
+                return invocation.proceed();
+            }
+            String key = Arrays.stream(invocation.getArguments()).map(String::valueOf).collect(Collectors.joining(","));
+            return responseCache.getObject().get(cached.value(), key, cached.tags(), () -> {
+                try {
+                    return invocation.proceed();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        };
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(CachedResponse.class), interceptor);
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
@@ -0,0 +1,14 @@
+package com.petcare.common.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 启用定时任务；设置 petcare.jobs.enabled=false 时本实例不执行任何定时触发，手动触发不受影响
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "petcare.jobs.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,36 @@
+package com.petcare.common.config;
+
+import com.petcare.common.concurrent.Bulkhead;
+import com.petcare.common.web.ResponseFormatArgumentResolver;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Spring MVC 扩展配置
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final Bulkhead reportBulkhead;
+
+    public WebMvcConfig(Bulkhead reportBulkhead) {
+        this.reportBulkhead = reportBulkhead;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new ResponseFormatArgumentResolver());
+    }
+
+    /**
+     * 目前只有报表接口异步输出（流式订单详情），与报表舱壁共用线程与队列
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(reportBulkhead.asyncTaskExecutor());
+    }
+}
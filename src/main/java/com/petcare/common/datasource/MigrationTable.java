@@ -0,0 +1,66 @@
+package com.petcare.common.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 由 db/migration 脚本创建的可选表
+ * 表不存在时对应功能降级运行；未建表时每分钟重新检查一次，执行迁移脚本后无需重启
+ */
+public class MigrationTable {
+
+    private static final Logger log = LoggerFactory.getLogger(MigrationTable.class);
+
+    private static final long RECHECK_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String table;
+    private final String script;
+    private final String missingEffect;
+
+    private volatile boolean available;
+    private volatile long checkedAt;
+
+    /**
+     * @param table         表名，只接受代码中的常量
+     * @param script        db/migration 下的建表脚本文件名
+     * @param missingEffect 表不存在时的降级说明，写入告警日志
+     */
+    public MigrationTable(JdbcTemplate jdbcTemplate, String table, String script, String missingEffect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.table = table;
+        this.script = script;
+        this.missingEffect = missingEffect;
+    }
+
+    /**
+     * 表是否存在；不存在时距上次检查超过一分钟才重新查询
+     */
+    public boolean isAvailable() {
+        if (available) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now - checkedAt < RECHECK_MILLIS) {
+            return false;
+        }
+        // 检查完成后才记录检查时间：并发的首次调用各自查询，不会在结果出来前被当作表不存在
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass('" + table + "') IS NOT NULL", Boolean.class);
+        available = Boolean.TRUE.equals(exists);
+        checkedAt = now;
+        if (!available) {
+            log.warn("{} 表不存在，{}；执行 db/migration/{} 后自动生效", table, missingEffect, script);
+        }
+        return available;
+    }
+
+    /**
+     * 最近一次检查的结果，不查询数据库
+     */
+    public boolean wasAvailable() {
+        return available;
+    }
+}
@@ -0,0 +1,113 @@
+package com.petcare.common.event;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 业务数据变更事件
+ * 由写路径在修改数据后发布，监听方通过 @TransactionalEventListener 在事务提交前后处理（无事务时立即处理）；
+ * 多实例部署时由 InvalidationBus 经 PostgreSQL NOTIFY 转发到其他实例
+ */
+public class DataChangedEvent {
+
+    public static final String TABLE_PETS = "pets";
+    public static final String TABLE_COSTS = "costs";
+    public static final String TABLE_SETTINGS = "settings";
+    public static final String TABLE_FINANCE_MONTHS = "finance_month_snapshots";
+    public static final String TABLE_PETS_HISTORY = "pets_history";
+    // 收入记录的变更随所属宠物的 pets 事件通知，此表名只用于操作审计
+    public static final String TABLE_INCOMES = "incomes";
+
+    /**
+     * 变更类型：新增或修改统一为 UPSERT，删除为 DELETE
+     */
+    public enum Op {
+        UPSERT, DELETE
+    }
+
+    private final String table;
+    private final Op op;
+    private final List<String> keys;
+    private final boolean remote;
+
+    public DataChangedEvent(String table, Op op, Collection<?> keys) {
+        this(table, op, keys, false);
+    }
+
+    /**
+     * @param remote 是否为其他实例通过 InvalidationBus 转发的变更；keys 为空表示整表变更
+     */
+    public DataChangedEvent(String table, Op op, Collection<?> keys, boolean remote) {
+        this.table = table;
+        this.op = op;
+        this.keys = keys.stream().map(String::valueOf).collect(Collectors.toUnmodifiableList());
+        this.remote = remote;
+    }
+
+    /**
+     * 宠物记录新增或修改，其收入记录随宠物一并视为已变更
+     */
+    public static DataChangedEvent pets(Collection<Long> ids) {
+        return new DataChangedEvent(TABLE_PETS, Op.UPSERT, ids);
+    }
+
+    public static DataChangedEvent petDeleted(Long id) {
+        return new DataChangedEvent(TABLE_PETS, Op.DELETE, List.of(id));
+    }
+
+    public static DataChangedEvent cost(Long id) {
+        return new DataChangedEvent(TABLE_COSTS, Op.UPSERT, List.of(id));
+    }
+
+    public static DataChangedEvent costDeleted(Long id) {
+        return new DataChangedEvent(TABLE_COSTS, Op.DELETE, List.of(id));
+    }
+
+    public static DataChangedEvent setting(String key) {
+        return new DataChangedEvent(TABLE_SETTINGS, Op.UPSERT, List.of(key));
+    }
+
+    /**
+     * 月份结账（UPSERT）或重开（DELETE），主键为 yyyy-MM
+     */
+    public static DataChangedEvent financeMonth(String month, boolean closed) {
+        return new DataChangedEvent(TABLE_FINANCE_MONTHS, closed ? Op.UPSERT : Op.DELETE, List.of(month));
+    }
+
+    /**
+     * 订单归档到历史分区，主键为分区月份 yyyy-MM；归档前后报表结果不变，只用于失效已归档范围的缓存
+     */
+    public static DataChangedEvent historyArchived(String month) {
+        return new DataChangedEvent(TABLE_PETS_HISTORY, Op.UPSERT, List.of(month));
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    /**
+     * 变更行的主键，统一为字符串（settings 表主键为配置键）
+     */
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * 其他实例的变更只用于失效本地缓存，不再写变更日志或转发
+     */
+    public boolean isRemote() {
+        return remote;
+    }
+
+    /**
+     * 数字主键表（pets、costs）的主键
+     */
+    public List<Long> getIds() {
+        return keys.stream().map(Long::valueOf).collect(Collectors.toList());
+    }
+}
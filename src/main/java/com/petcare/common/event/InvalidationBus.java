@@ -0,0 +1,211 @@
+package com.petcare.common.event;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 跨实例缓存失效总线（PostgreSQL LISTEN/NOTIFY）
+ * 发送：本地 DataChangedEvent 在事务提交前于同一事务内执行 pg_notify，PostgreSQL 仅在提交后投递，回滚时不发送。
+ * 接收：每个实例在连接池之外持有一个专用连接 LISTEN，收到其他实例的通知后以 remote=true 的 DataChangedEvent 在本地重新发布。
+ * 连接断开时发布 InvalidationBusStatusEvent(false)，按退避间隔重连，成功后发布 InvalidationBusStatusEvent(true)
+ */
+@Component
+public class InvalidationBus implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+
+    static final String CHANNEL = "petcare_invalidation";
+
+    // NOTIFY 负载上限为 8000 字节，超出时只通知整表变更
+    private static final int MAX_PAYLOAD_BYTES = 7000;
+    private static final String ALL_KEYS = "*";
+
+    private static final long POLL_MILLIS = 1000;
+    private static final long HEALTH_CHECK_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final DataSourceProperties dataSourceProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile Connection listenConnection;
+    private Thread listenerThread;
+
+    public InvalidationBus(DataSourceProperties dataSourceProperties, JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+                           @Value("${petcare.invalidation.enabled:true}") boolean enabled) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 是否正在接收其他实例的变更通知；未启用总线时视为单实例部署，始终返回 true
+     */
+    public boolean isConnected() {
+        return !enabled || connected;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        if (!enabled || event.isRemote()) {
+            return;
+        }
+        String payload = encode(event);
+        // 处于业务事务中时加入该事务，随提交投递；否则单独开启事务立即投递
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.queryForObject("SELECT count(pg_notify(?, ?))", Long.class, CHANNEL, payload));
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "petcare-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Connection conn = listenConnection;
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+                // 关闭时忽略
+            }
+        }
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listenLoop() {
+        long backoff = POLL_MILLIS;
+        while (running) {
+            try (Connection conn = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                listenConnection = conn;
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = conn.unwrap(PGConnection.class);
+                setConnected(true);
+                backoff = POLL_MILLIS;
+                long lastCheck = System.currentTimeMillis();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                    // 长时间没有通知时主动探测，及时发现被网络设备静默断开的连接
+                    if (System.currentTimeMillis() - lastCheck > HEALTH_CHECK_MILLIS) {
+                        try (Statement st = conn.createStatement()) {
+                            st.execute("SELECT 1");
+                        }
+                        lastCheck = System.currentTimeMillis();
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (running) {
+                    log.warn("失效通知监听连接异常，{} ms 后重连: {}", backoff, e.getMessage());
+                }
+            } finally {
+                listenConnection = null;
+                setConnected(false);
+            }
+            if (running) {
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void setConnected(boolean value) {
+        if (connected == value) {
+            return;
+        }
+        connected = value;
+        if (!running) {
+            // 停止时断开属于正常关闭
+            return;
+        }
+        log.info(value ? "失效通知监听已连接，节点 {}" : "失效通知监听已断开，节点 {}", nodeId);
+        try {
+            eventPublisher.publishEvent(new InvalidationBusStatusEvent(value));
+        } catch (RuntimeException e) {
+            log.warn("处理失效通知连接状态变化失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 负载格式：节点ID|表名|变更类型|主键1,主键2,...（主键为 * 表示整表）
+     */
+    private String encode(DataChangedEvent event) {
+        String prefix = nodeId + '|' + event.getTable() + '|' + event.getOp().name() + '|';
+        String payload = prefix + String.join(",", event.getKeys());
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            return prefix + ALL_KEYS;
+        }
+        return payload;
+    }
+
+    private void dispatch(String payload) {
+        String[] parts = payload.split("\\|", 4);
+        if (parts.length != 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            List<String> keys = ALL_KEYS.equals(parts[3]) || parts[3].isEmpty()
+                    ? List.of() : Arrays.asList(parts[3].split(","));
+            eventPublisher.publishEvent(new DataChangedEvent(parts[1], DataChangedEvent.Op.valueOf(parts[2]), keys, true));
+        } catch (RuntimeException e) {
+            // 单条通知处理失败不影响后续通知
+            log.warn("处理失效通知失败 [{}]: {}", payload, e.getMessage());
+        }
+    }
+}
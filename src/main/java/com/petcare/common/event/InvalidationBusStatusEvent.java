@@ -0,0 +1,18 @@
+package com.petcare.common.event;
+
+/**
+ * 失效通知连接状态变化
+ * 断开期间可能错过其他实例的变更，本地缓存应停用或缩短有效期；重新连接后应全量刷新
+ */
+public class InvalidationBusStatusEvent {
+
+    private final boolean connected;
+
+    public InvalidationBusStatusEvent(boolean connected) {
+        this.connected = connected;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+}
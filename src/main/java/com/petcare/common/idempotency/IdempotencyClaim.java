@@ -0,0 +1,34 @@
+package com.petcare.common.idempotency;
+
+/**
+ * 按 Idempotency-Key 领取执行权的结果
+ */
+public record IdempotencyClaim(Type type, StoredResponse response) {
+
+    public enum Type {
+        /**
+         * 首次请求，由当前请求执行，结束后调用 complete 或 release
+         */
+        EXECUTE,
+        /**
+         * 已有结果，原样返回 response
+         */
+        REPLAY,
+        /**
+         * 同一个 key 已用于内容不同的请求
+         */
+        MISMATCH,
+        /**
+         * 首次请求在等待时间内仍未结束
+         */
+        IN_PROGRESS
+    }
+
+    static IdempotencyClaim of(Type type) {
+        return new IdempotencyClaim(type, null);
+    }
+
+    static IdempotencyClaim replay(StoredResponse response) {
+        return new IdempotencyClaim(Type.REPLAY, response);
+    }
+}
@@ -0,0 +1,248 @@
+package com.petcare.common.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petcare.common.web.ApiResponse;
+import com.petcare.common.web.GlobalExceptionHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Idempotency-Key 处理
+ * 只处理小程序会重试的预约写入：新增预约、入住、离店及批量入住、批量离店（均为 POST），其他请求即使带该请求头也直接放行，
+ * 批量导入等流式请求不会被读入内存。
+ * 带该请求头的请求按“方法 + 路径 + key”只执行一次：
+ * 首次请求正常执行并记录响应，之后相同的请求直接返回记录的响应（响应头 Idempotent-Replayed: true），不再进入业务代码；
+ * 首次请求尚未结束时，重复请求等待其结果。执行抛出异常、返回 5xx 或由 GlobalExceptionHandler 按未预期异常处理
+ * （以 HTTP 200 返回失败响应）时不记录，客户端可用同一个 key 重试；参数错误与业务规则拒绝照常记录。
+ * 同一个 key 的请求体不同时返回 422，等待超时返回 409；请求体需读入内存计算指纹，超过 max-body-bytes 时返回 413
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    // 新增预约、单个与批量入住/离店
+    private static final Pattern IDEMPOTENT_PATHS =
+            Pattern.compile("/api/pets(/batch/(checkin|checkout)|/[^/]+/(checkin|checkout))?");
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxBodyBytes;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public IdempotencyFilter(IdempotencyStore store, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                             @Value("${petcare.idempotency.enabled:true}") boolean enabled,
+                             @Value("${petcare.idempotency.max-body-bytes:65536}") int maxBodyBytes) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxBodyBytes = Math.max(0, maxBodyBytes);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || request.getHeader(HEADER) == null || !"POST".equals(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !IDEMPOTENT_PATHS.matcher(path).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, HEADER + " 长度应为 1~" + MAX_KEY_LENGTH + " 个字符");
+            return;
+        }
+        byte[] body = readBody(request);
+        if (body == null) {
+            writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, "带 " + HEADER + " 的请求体不能超过 " + maxBodyBytes + " 字节");
+            return;
+        }
+        String scopedKey = request.getMethod() + ' ' + request.getRequestURI() + ' ' + key;
+        String fingerprint = fingerprint(request, body);
+
+        IdempotencyClaim claim;
+        try {
+            claim = store.claim(scopedKey, fingerprint);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("等待相同 " + HEADER + " 的请求时被中断", e);
+        }
+        count(claim.type());
+        switch (claim.type()) {
+            case REPLAY -> replay(response, claim.response());
+            case MISMATCH -> writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " 已用于内容不同的请求");
+            case IN_PROGRESS -> writeError(response, HttpStatus.CONFLICT, "相同 " + HEADER + " 的请求仍在处理中，请稍后重试");
+            case EXECUTE -> execute(request, response, chain, body, scopedKey);
+        }
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain chain, byte[] body,
+                         String scopedKey) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), wrapper);
+            if (wrapper.getStatus() < 500 && request.getAttribute(GlobalExceptionHandler.UNEXPECTED_ERROR_ATTRIBUTE) == null) {
+                store.complete(scopedKey, new StoredResponse(wrapper.getStatus(), wrapper.getContentType(),
+                        wrapper.getContentAsByteArray()));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                store.release(scopedKey);
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    /**
+     * 读取请求体，超过 maxBodyBytes 时返回 null（最多多读 1 字节即停止）
+     */
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            return null;
+        }
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        return body.length > maxBodyBytes ? null : body;
+    }
+
+    private static void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.fail(message));
+    }
+
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (request.getQueryString() != null) {
+                digest.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void count(IdempotencyClaim.Type type) {
+        String result = type.name().toLowerCase(Locale.ROOT);
+        counters.computeIfAbsent(result, r -> Counter.builder("petcare.idempotency.requests").tag("result", r)
+                .description("带 Idempotency-Key 的写请求数（execute 执行、replay 返回已记录的响应）")
+                .register(meterRegistry)).increment();
+    }
+
+    /**
+     * 请求体已在过滤器中读出，之后的读取返回同一份内容
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // 内容已全部在内存中，立即通知可读，读完后通知结束
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), encoding));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
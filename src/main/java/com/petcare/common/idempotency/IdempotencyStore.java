@@ -0,0 +1,239 @@
+package com.petcare.common.idempotency;
+
+import com.petcare.common.datasource.MigrationTable;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotency-Key 的执行记录
+ * 本地保存在按访问顺序淘汰的有界 Map 中，超过有效期的记录视为不存在；同一个 key 的并发请求等待首个请求的结果。
+ * petcare.idempotency.shared=true 且已建表时，本地未命中的 key 再到 idempotency_keys 表中领取，
+ * 多个实例之间同样只执行一次：领取成功的实例执行并写回响应，其他实例轮询该行直到写回或超时
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    // 首个请求执行超过该时间仍未写回（实例宕机等）时，其他实例可重新领取
+    private static final long IN_PROGRESS_LEASE_SECONDS = 60;
+    private static final long POLL_MILLIS = 50;
+
+    private static final String CLAIM_SQL =
+            "INSERT INTO idempotency_keys (idem_key, fingerprint, created_at) VALUES (?, ?, now()) " +
+            "ON CONFLICT (idem_key) DO UPDATE SET fingerprint = EXCLUDED.fingerprint, status = NULL, " +
+            "  content_type = NULL, body = NULL, created_at = now() " +
+            "WHERE idempotency_keys.created_at < now() - make_interval(secs => ?) " +
+            "   OR (idempotency_keys.status IS NULL AND idempotency_keys.created_at < now() - make_interval(secs => ?)) " +
+            "RETURNING idem_key";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MigrationTable keysTable;
+    private final boolean shared;
+    private final long ttlNanos;
+    private final long ttlSeconds;
+    private final long waitTimeoutNanos;
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                            @Value("${petcare.idempotency.shared:false}") boolean shared,
+                            @Value("${petcare.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${petcare.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                            @Value("${petcare.idempotency.wait-timeout-ms:10000}") long waitTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.keysTable = new MigrationTable(jdbcTemplate, "idempotency_keys", "005_idempotency_keys.sql", "Idempotency-Key 只在本实例内生效");
+        this.shared = shared;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlSeconds = Math.max(1, ttlSeconds);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(this.ttlSeconds);
+        this.waitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, waitTimeoutMillis));
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyStore.this.maxEntries;
+            }
+        };
+        Gauge.builder("petcare.idempotency.keys", this, IdempotencyStore::size)
+                .description("本地保存的 Idempotency-Key 数").register(meterRegistry);
+    }
+
+    /**
+     * 领取 key 的执行权；key 正在执行时最多等待 wait-timeout-ms
+     * @param fingerprint 请求内容摘要，同一个 key 的内容不同时返回 MISMATCH
+     */
+    public IdempotencyClaim claim(String key, String fingerprint) throws InterruptedException {
+        long deadline = System.nanoTime() + waitTimeoutNanos;
+        while (true) {
+            Entry entry;
+            boolean created = false;
+            long now = System.nanoTime();
+            synchronized (entries) {
+                entry = entries.get(key);
+                if (entry == null || now - entry.createdAt > ttlNanos) {
+                    entry = new Entry(fingerprint, now);
+                    entries.put(key, entry);
+                    created = true;
+                }
+            }
+            if (created) {
+                return isSharedAvailable() ? claimShared(key, entry, deadline) : IdempotencyClaim.of(IdempotencyClaim.Type.EXECUTE);
+            }
+            if (!entry.fingerprint.equals(fingerprint)) {
+                return IdempotencyClaim.of(IdempotencyClaim.Type.MISMATCH);
+            }
+            StoredResponse response;
+            try {
+                response = entry.result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return IdempotencyClaim.of(IdempotencyClaim.Type.IN_PROGRESS);
+            } catch (ExecutionException e) {
+                response = null;
+            }
+            if (response != null) {
+                return IdempotencyClaim.replay(response);
+            }
+            // 首个请求失败后已释放，重新领取
+        }
+    }
+
+    /**
+     * 保存执行结果并唤醒等待中的重复请求
+     */
+    public void complete(String key, StoredResponse response) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (shared && keysTable.wasAvailable()) {
+            try {
+                jdbcTemplate.update("UPDATE idempotency_keys SET status = ?, content_type = ?, body = decode(?, 'base64') " +
+                                "WHERE idem_key = ?", response.status(), response.contentType(),
+                        Base64.getEncoder().encodeToString(response.body()), key);
+            } catch (DataAccessException e) {
+                log.warn("写回 Idempotency-Key 执行结果失败: {}", key, e);
+            }
+        }
+        if (entry != null) {
+            entry.result.complete(response);
+        }
+    }
+
+    /**
+     * 执行失败时释放 key，之后的重试重新执行
+     */
+    public void release(String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.remove(key);
+        }
+        if (shared && keysTable.wasAvailable()) {
+            try {
+                jdbcTemplate.update("DELETE FROM idempotency_keys WHERE idem_key = ? AND status IS NULL", key);
+            } catch (DataAccessException e) {
+                log.warn("释放 Idempotency-Key 失败: {}", key, e);
+            }
+        }
+        if (entry != null) {
+            entry.result.complete(null);
+        }
+    }
+
+    /**
+     * 清理共享表中过期的记录；本地记录在访问时按有效期判断，并由容量上限淘汰
+     */
+    @Scheduled(fixedDelay = 10, initialDelay = 10, timeUnit = TimeUnit.MINUTES)
+    public void purgeExpired() {
+        if (!isSharedAvailable()) {
+            return;
+        }
+        int deleted = jdbcTemplate.update(
+                "DELETE FROM idempotency_keys WHERE created_at < now() - make_interval(secs => ?)", ttlSeconds);
+        log.debug("清理过期的 Idempotency-Key {} 条", deleted);
+    }
+
+    /**
+     * 本地首次出现的 key 到共享表领取；其他实例正在执行时轮询等待其写回结果
+     */
+    private IdempotencyClaim claimShared(String key, Entry entry, long deadline) throws InterruptedException {
+        while (true) {
+            List<String> claimed = jdbcTemplate.queryForList(CLAIM_SQL, String.class,
+                    key, entry.fingerprint, ttlSeconds, IN_PROGRESS_LEASE_SECONDS);
+            if (!claimed.isEmpty()) {
+                return IdempotencyClaim.of(IdempotencyClaim.Type.EXECUTE);
+            }
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT fingerprint, status, content_type, body FROM idempotency_keys WHERE idem_key = ?", key);
+            if (!rows.isEmpty()) {
+                Map<String, Object> row = rows.get(0);
+                if (!entry.fingerprint.equals(row.get("fingerprint"))) {
+                    forget(key, entry);
+                    return IdempotencyClaim.of(IdempotencyClaim.Type.MISMATCH);
+                }
+                if (row.get("status") != null) {
+                    StoredResponse response = new StoredResponse(((Number) row.get("status")).intValue(),
+                            (String) row.get("content_type"), (byte[]) row.get("body"));
+                    entry.result.complete(response);
+                    return IdempotencyClaim.replay(response);
+                }
+            }
+            // 行不存在说明执行失败已释放，下一轮重新领取
+            if (System.nanoTime() >= deadline) {
+                forget(key, entry);
+                return IdempotencyClaim.of(IdempotencyClaim.Type.IN_PROGRESS);
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+    }
+
+    /**
+     * 本实例未执行该 key，移除本地占位，等待中的本地请求随后重新领取
+     */
+    private void forget(String key, Entry entry) {
+        synchronized (entries) {
+            entries.remove(key, entry);
+        }
+        entry.result.complete(null);
+    }
+
+    private boolean isSharedAvailable() {
+        if (!shared) {
+            return false;
+        }
+        return keysTable.isAvailable();
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+        final String fingerprint;
+        final long createdAt;
+        // 执行结果；执行失败被释放时为 null
+        final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+
+        Entry(String fingerprint, long createdAt) {
+            this.fingerprint = fingerprint;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.petcare.common.idempotency;
+
+/**
+ * 首次执行时记录的响应，重复请求原样返回
+ */
+public record StoredResponse(int status, String contentType, byte[] body) {
+}
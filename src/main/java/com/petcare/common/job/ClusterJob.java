@@ -0,0 +1,23 @@
+package com.petcare.common.job;
+
+/**
+ * 集群内只需一个实例执行的后台任务（预计算、汇总、数据修复等）
+ * 实现类注册为 Bean，由 JobScheduler 统一加锁执行并记录指标；定时触发在实现类中用 @Scheduled 调用 JobScheduler.run
+ */
+public interface ClusterJob {
+    /**
+     * 任务名称，同时作为锁名、指标标签与管理接口路径参数，应保持稳定
+     */
+    String name();
+
+    /**
+     * 任务说明
+     */
+    String description();
+
+    /**
+     * 执行任务
+     * @return 处理的记录数
+     */
+    long execute();
+}
@@ -0,0 +1,16 @@
+package com.petcare.common.job;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * 跨实例互斥锁
+ * 多个实例同时调用时只有一个实例执行，其余实例立即返回而不等待
+ */
+public interface ClusterLock {
+    /**
+     * 获取名为 name 的锁并执行 work，执行结束后释放
+     * @return work 的返回值；锁已被其他实例（或本实例的其他线程）持有时返回空
+     */
+    <T> Optional<T> tryWithLock(String name, Supplier<T> work);
+}
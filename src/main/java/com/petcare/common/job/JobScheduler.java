@@ -0,0 +1,188 @@
+package com.petcare.common.job;
+
+import com.petcare.common.web.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 后台任务执行器
+ * 每次执行先获取以任务名命名的 ClusterLock，集群内同一任务同时只有一个实例执行，其余实例记为 skipped。
+ * 指标：petcare.job.duration{job, result}（耗时）、petcare.job.rows{job}（处理记录数）、
+ * petcare.job.last.success{job}（本实例最近一次成功的 Unix 秒数）
+ */
+@Component
+public class JobScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(JobScheduler.class);
+
+    static final String TRIGGER_SCHEDULE = "schedule";
+    static final String TRIGGER_MANUAL = "manual";
+
+    private final ObjectProvider<ClusterJob> jobs;
+    private final ClusterLock clusterLock;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, JobState> states = new ConcurrentHashMap<>();
+
+    public JobScheduler(ObjectProvider<ClusterJob> jobs, ClusterLock clusterLock, MeterRegistry meterRegistry) {
+        this.jobs = jobs;
+        this.clusterLock = clusterLock;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 定时触发：在调用线程中同步执行
+     */
+    public JobStatus runScheduled(String name) {
+        return run(find(name), TRIGGER_SCHEDULE);
+    }
+
+    /**
+     * 手动触发：提交到后台线程后立即返回当前状态；本实例正在执行时拒绝
+     */
+    public JobStatus trigger(String name) {
+        ClusterJob job = find(name);
+        JobState state = state(job);
+        synchronized (state) {
+            if (state.status.isRunning() || state.queued) {
+                throw new BusinessException("任务 " + name + " 正在执行");
+            }
+            state.queued = true;
+        }
+        // 手动触发在单独的后台线程执行，不占用请求线程；同一任务同时最多一个此类线程
+        Thread thread = new Thread(() -> run(job, TRIGGER_MANUAL), "petcare-job-" + name);
+        thread.setDaemon(true);
+        thread.start();
+        return state.snapshot();
+    }
+
+    public JobStatus status(String name) {
+        return state(find(name)).snapshot();
+    }
+
+    public List<JobStatus> list() {
+        return jobs.orderedStream()
+                .map(job -> state(job).snapshot())
+                .sorted(Comparator.comparing(JobStatus::getName))
+                .collect(Collectors.toList());
+    }
+
+    private JobStatus run(ClusterJob job, String trigger) {
+        JobState state = state(job);
+        synchronized (state) {
+            state.queued = false;
+            if (state.status.isRunning()) {
+                // 本实例上一次执行尚未结束（如定时触发与手动触发重叠）
+                return state.snapshot();
+            }
+            state.status.setRunning(true);
+        }
+        long begin = System.nanoTime();
+        LocalDateTime startedAt = LocalDateTime.now();
+        String result;
+        Long rows = null;
+        String error = null;
+        try {
+            Optional<Long> executed = clusterLock.tryWithLock(job.name(), job::execute);
+            if (executed.isPresent()) {
+                result = "success";
+                rows = executed.get();
+            } else {
+                result = "skipped";
+            }
+        } catch (RuntimeException e) {
+            result = "failed";
+            error = e.getMessage();
+            log.warn("后台任务 {} 执行失败", job.name(), e);
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+
+        Timer.builder("petcare.job.duration").tag("job", job.name()).tag("result", result)
+                .description("后台任务执行耗时").register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        synchronized (state) {
+            JobStatus status = state.status;
+            status.setRunning(false);
+            status.setLastResult(result);
+            status.setLastTrigger(trigger);
+            status.setLastStartedAt(startedAt);
+            status.setLastFinishedAt(LocalDateTime.now());
+            status.setLastDurationMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            status.setLastRows(rows);
+            status.setLastError(error);
+            if (!"skipped".equals(result)) {
+                status.setRunCount(status.getRunCount() + 1);
+            }
+            if ("success".equals(result)) {
+                status.setLastSuccessAt(status.getLastFinishedAt());
+                state.lastSuccessEpochSecond.set(status.getLastFinishedAt().atZone(ZoneId.systemDefault()).toEpochSecond());
+                state.rows.increment(rows != null ? rows : 0);
+            }
+        }
+        if (!"skipped".equals(result)) {
+            log.info("后台任务 {} {}（{}），耗时 {} ms，处理 {} 条", job.name(), result, trigger,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), rows);
+        }
+        return state.snapshot();
+    }
+
+    private ClusterJob find(String name) {
+        return jobs.orderedStream()
+                .filter(job -> job.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new BusinessException("任务不存在: " + name));
+    }
+
+    private JobState state(ClusterJob job) {
+        return states.computeIfAbsent(job.name(), n -> new JobState(job, meterRegistry));
+    }
+
+    private static final class JobState {
+        private final JobStatus status = new JobStatus();
+        private final AtomicLong lastSuccessEpochSecond = new AtomicLong();
+        private final Counter rows;
+        private boolean queued;
+
+        private JobState(ClusterJob job, MeterRegistry meterRegistry) {
+            status.setName(job.name());
+            status.setDescription(job.description());
+            rows = Counter.builder("petcare.job.rows").tag("job", job.name())
+                    .description("后台任务累计处理的记录数").register(meterRegistry);
+            meterRegistry.gauge("petcare.job.last.success", Tags.of("job", job.name()),
+                    lastSuccessEpochSecond);
+        }
+
+        private synchronized JobStatus snapshot() {
+            JobStatus copy = new JobStatus();
+            copy.setName(status.getName());
+            copy.setDescription(status.getDescription());
+            copy.setRunning(status.isRunning() || queued);
+            copy.setLastResult(status.getLastResult());
+            copy.setLastTrigger(status.getLastTrigger());
+            copy.setLastStartedAt(status.getLastStartedAt());
+            copy.setLastFinishedAt(status.getLastFinishedAt());
+            copy.setLastDurationMillis(status.getLastDurationMillis());
+            copy.setLastRows(status.getLastRows());
+            copy.setLastError(status.getLastError());
+            copy.setLastSuccessAt(status.getLastSuccessAt());
+            copy.setRunCount(status.getRunCount());
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.petcare.common.job;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 后台任务在本实例上的执行状态
+ */
+@Data
+@Schema(description = "后台任务执行状态（本实例）")
+public class JobStatus {
+
+    @Schema(description = "任务名称", example = "income-sync")
+    private String name;
+
+    @Schema(description = "任务说明")
+    private String description;
+
+    @Schema(description = "本实例是否正在执行", example = "false")
+    private boolean running;
+
+    @Schema(description = "最近一次结果：success 成功、failed 失败、skipped 其他实例正在执行", example = "success")
+    private String lastResult;
+
+    @Schema(description = "最近一次触发方式：schedule 定时、manual 手动", example = "schedule")
+    private String lastTrigger;
+
+    @Schema(description = "最近一次开始时间")
+    private LocalDateTime lastStartedAt;
+
+    @Schema(description = "最近一次结束时间")
+    private LocalDateTime lastFinishedAt;
+
+    @Schema(description = "最近一次耗时（毫秒）", example = "120")
+    private Long lastDurationMillis;
+
+    @Schema(description = "最近一次处理的记录数", example = "500")
+    private Long lastRows;
+
+    @Schema(description = "最近一次失败原因")
+    private String lastError;
+
+    @Schema(description = "本实例最近一次成功的时间")
+    private LocalDateTime lastSuccessAt;
+
+    @Schema(description = "本实例累计执行次数（不含跳过）", example = "3")
+    private long runCount;
+}
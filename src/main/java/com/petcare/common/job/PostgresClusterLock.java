@@ -0,0 +1,66 @@
+package com.petcare.common.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * 基于 PostgreSQL 会话级咨询锁（pg_try_advisory_lock）的跨实例互斥锁
+ * 锁由单独借出的连接持有到 work 结束；实例崩溃或连接断开时数据库自动释放，不会遗留死锁。
+ * 执行期间额外占用一个连接池连接，work 本身的查询使用其他连接
+ */
+@Component
+public class PostgresClusterLock implements ClusterLock {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresClusterLock.class);
+
+    // 定时任务锁的命名空间（双整数键的第一个值，与容量准入的按天锁互不冲突）
+    private static final int LOCK_NAMESPACE = 0x4A4F4253;
+
+    private final DataSource dataSource;
+
+    public PostgresClusterLock(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public <T> Optional<T> tryWithLock(String name, Supplier<T> work) {
+        // 不在事务内借连接，读写分离时路由到主库
+        try (Connection conn = dataSource.getConnection()) {
+            if (!lock(conn, "SELECT pg_try_advisory_lock(?, ?)", name)) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.ofNullable(work.get());
+            } finally {
+                try {
+                    lock(conn, "SELECT pg_advisory_unlock(?, ?)", name);
+                } catch (SQLException e) {
+                    // 解锁失败通常是连接已断开：连接池会丢弃该连接，会话结束时锁随之释放
+                    log.warn("释放任务锁 {} 失败: {}", name, e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("获取任务锁 " + name + " 失败", e);
+        }
+    }
+
+    private static boolean lock(Connection conn, String sql, String name) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, LOCK_NAMESPACE);
+            ps.setInt(2, name.hashCode());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
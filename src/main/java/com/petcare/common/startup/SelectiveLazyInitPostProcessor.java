@@ -0,0 +1,69 @@
+package com.petcare.common.startup;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 按包名延迟初始化非请求链路上的 Bean（如 springdoc/Swagger）
+ * 通过 petcare.startup.lazy-init.enabled=true 开启，缩短容器冷启动时间；被延迟的 Bean 在首次使用时才创建
+ */
+@Component
+public class SelectiveLazyInitPostProcessor implements BeanFactoryPostProcessor, EnvironmentAware {
+
+    private boolean enabled;
+    private List<String> packages;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.enabled = environment.getProperty("petcare.startup.lazy-init.enabled", Boolean.class, false);
+        String configured = environment.getProperty("petcare.startup.lazy-init.packages", "org.springdoc");
+        this.packages = Arrays.stream(configured.split(","))
+                .map(String::trim)
+                .filter(p -> !p.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+        if (!enabled || packages.isEmpty()) {
+            return;
+        }
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            if (definition.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE || definition.isAbstract()) {
+                continue;
+            }
+            if (matches(definitionSource(definition))) {
+                definition.setLazyInit(true);
+            }
+        }
+    }
+
+    /**
+     * Bean 的来源类：普通 Bean 取其类名，@Bean 方法定义的 Bean 取声明该方法的配置类
+     */
+    private static String definitionSource(BeanDefinition definition) {
+        if (definition instanceof AnnotatedBeanDefinition annotated) {
+            MethodMetadata factoryMethod = annotated.getFactoryMethodMetadata();
+            if (factoryMethod != null) {
+                return factoryMethod.getDeclaringClassName();
+            }
+        }
+        return definition.getBeanClassName();
+    }
+
+    private boolean matches(String className) {
+        return className != null && packages.stream().anyMatch(className::startsWith);
+    }
+}
@@ -0,0 +1,62 @@
+package com.petcare.common.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 启动耗时统计
+ * 记录从 JVM 启动到应用就绪、到第一个请求处理完成的耗时（指标 petcare.startup.first.request），
+ * 并支持 AppCDS 训练运行：petcare.startup.exit-on-refresh=true 时在容器刷新完成后直接退出
+ */
+@Component
+public class StartupTimingListener {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimingListener.class);
+
+    private final Environment environment;
+    private final AtomicLong firstRequestMillis = new AtomicLong(-1);
+
+    public StartupTimingListener(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        TimeGauge.builder("petcare.startup.first.request", firstRequestMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("从JVM启动到第一个请求处理完成的耗时，尚未收到请求时为-1")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onRefreshed(ContextRefreshedEvent event) {
+        if (environment.getProperty("petcare.startup.exit-on-refresh", Boolean.class, false)) {
+            log.info("训练运行完成，容器刷新耗时 {} ms，退出以生成类数据共享归档", sinceJvmStart());
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        log.info("应用就绪，距JVM启动 {} ms", sinceJvmStart());
+    }
+
+    @EventListener
+    public void onRequestHandled(ServletRequestHandledEvent event) {
+        if (firstRequestMillis.get() < 0 && firstRequestMillis.compareAndSet(-1, sinceJvmStart())) {
+            log.info("首个请求 {} 处理完成，距JVM启动 {} ms", event.getRequestUrl(), firstRequestMillis.get());
+        }
+    }
+
+    private static long sinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
@@ -0,0 +1,13 @@
+package com.petcare.common.startup;
+
+/**
+ * 启动预热步骤
+ * 由 WarmupRunner 在应用开始接收流量之前依次执行（按 @Order 排序），失败只记录日志，不影响启动
+ */
+public interface Warmup {
+
+    /**
+     * @param iterations 合成数据上重复计算的轮数，用于让 JIT 提前编译热点循环
+     */
+    void warmUp(int iterations) throws Exception;
+}
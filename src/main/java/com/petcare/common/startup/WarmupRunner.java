@@ -0,0 +1,95 @@
+package com.petcare.common.startup;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 启动预热
+ * ApplicationRunner 在应用就绪之前执行，Spring Boot 在全部 Runner 结束后才将就绪状态切换为 ACCEPTING_TRAFFIC：
+ * 预热期间 /actuator/health/readiness 返回 503（OUT_OF_SERVICE），负载均衡只把流量路由到已预热的实例。
+ * 依次完成：各连接池建满连接；执行各模块的 Warmup（热点 Mapper 语句各执行一次、在合成数据上重复报表与容量计算）。
+ * 预热耗时记录为指标 petcare.startup.warmup
+ */
+@Component
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private final ObjectProvider<HikariDataSource> dataSources;
+    private final ObjectProvider<Warmup> warmups;
+    private final boolean enabled;
+    private final int iterations;
+    private final AtomicLong warmupMillis = new AtomicLong(-1);
+
+    public WarmupRunner(ObjectProvider<HikariDataSource> dataSources, ObjectProvider<Warmup> warmups,
+                        MeterRegistry meterRegistry,
+                        @Value("${petcare.startup.warmup.enabled:true}") boolean enabled,
+                        @Value("${petcare.startup.warmup.iterations:200}") int iterations) {
+        this.dataSources = dataSources;
+        this.warmups = warmups;
+        this.enabled = enabled;
+        this.iterations = Math.max(1, iterations);
+        TimeGauge.builder("petcare.startup.warmup", warmupMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("启动预热耗时，未预热时为-1")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long begin = System.currentTimeMillis();
+        dataSources.orderedStream().forEach(this::fillPool);
+        warmups.orderedStream().forEach(warmup -> {
+            long stepBegin = System.currentTimeMillis();
+            try {
+                warmup.warmUp(iterations);
+                log.info("预热 {} 完成，耗时 {} ms", warmup.getClass().getSimpleName(), System.currentTimeMillis() - stepBegin);
+            } catch (Exception e) {
+                // 预热只影响首批请求的耗时，失败不阻止实例就绪
+                log.warn("预热 {} 失败: {}", warmup.getClass().getSimpleName(), e.getMessage());
+            }
+        });
+        warmupMillis.set(System.currentTimeMillis() - begin);
+        log.info("启动预热完成，耗时 {} ms", warmupMillis.get());
+    }
+
+    /**
+     * 同时借出连接直到连接池上限，之后全部归还为空闲连接，首批并发请求无需再建立连接
+     */
+    private void fillPool(HikariDataSource dataSource) {
+        List<Connection> borrowed = new ArrayList<>();
+        try {
+            while (borrowed.size() < dataSource.getMaximumPoolSize()) {
+                borrowed.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            log.warn("连接池 {} 预热失败: {}", dataSource.getPoolName(), e.getMessage());
+        } finally {
+            for (Connection connection : borrowed) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("归还预热连接失败", e);
+                }
+            }
+        }
+        log.info("连接池 {} 已建立 {} 个连接", dataSource.getPoolName(), borrowed.size());
+    }
+}
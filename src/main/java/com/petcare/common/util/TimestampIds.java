@@ -0,0 +1,19 @@
+package com.petcare.common.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 毫秒时间戳ID生成
+ * 与小程序 Date.now() 生成的ID同一格式，同一毫秒内的并发请求顺延到下一个值，保证进程内不重复
+ */
+public final class TimestampIds {
+
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private TimestampIds() {
+    }
+
+    public static long next() {
+        return LAST.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,11 @@
+package com.petcare.common.web;
+
+/**
+ * 业务规则校验失败，消息直接返回给前端
+ */
+public class BusinessException extends RuntimeException {
+
+    public BusinessException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,10 @@
 package com.petcare.common.web;
 
+import com.petcare.common.concurrent.BulkheadFullException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -9,15 +14,35 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    /**
+     * 请求属性：处理过程中发生了未预期的异常（数据库不可用、连接池超时、死锁等）。
+     * 这类失败仍以 HTTP 200 返回 ApiResponse.fail，幂等过滤器据此不记录响应，客户端可用同一个 key 重试
+     */
+    public static final String UNEXPECTED_ERROR_ATTRIBUTE = GlobalExceptionHandler.class.getName() + ".UNEXPECTED_ERROR";
+
     @ExceptionHandler({IllegalArgumentException.class, HttpMessageNotReadableException.class, BindException.class, MethodArgumentNotValidException.class})
     public ApiResponse<Void> handleBadRequest(Exception e) {
         return ApiResponse.fail("请求参数错误: " + e.getMessage());
     }
 
+    @ExceptionHandler(BusinessException.class)
+    public ApiResponse<Void> handleBusiness(BusinessException e) {
+        return ApiResponse.fail(e.getMessage());
+    }
+
+    /**
+     * 负载过高主动拒绝：返回 503，客户端按 Retry-After 退避后重试
+     */
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<ApiResponse<Void>> handleBulkheadFull(BulkheadFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(ApiResponse.fail(e.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
-    public ApiResponse<Void> handleGeneric(Exception e) {
+    public ApiResponse<Void> handleGeneric(Exception e, HttpServletRequest request) {
+        request.setAttribute(UNEXPECTED_ERROR_ATTRIBUTE, Boolean.TRUE);
         return ApiResponse.fail("服务器异常: " + e.getMessage());
     }
 }
-
-
@@ -0,0 +1,29 @@
+package com.petcare.common.web;
+
+import java.util.Locale;
+
+/**
+ * 日历与时间序列接口的响应格式
+ * 请求参数 format=columnar 或 Accept 包含 {@link #COLUMNAR_MEDIA_TYPE} 时返回列式格式，否则返回逐行对象
+ */
+public enum ResponseFormat {
+
+    /**
+     * 每天/每月一个对象，字段名逐项重复
+     */
+    ROWS,
+
+    /**
+     * 起始日期加并列的数组，第 i 个元素对应起始日期之后第 i 天/月
+     */
+    COLUMNAR;
+
+    public static final String COLUMNAR_MEDIA_TYPE = "application/vnd.petcare.columnar+json";
+
+    public static ResponseFormat resolve(String format, String accept) {
+        if (format != null && !format.isEmpty()) {
+            return "columnar".equals(format.toLowerCase(Locale.ROOT)) ? COLUMNAR : ROWS;
+        }
+        return accept != null && accept.contains(COLUMNAR_MEDIA_TYPE) ? COLUMNAR : ROWS;
+    }
+}
@@ -0,0 +1,31 @@
+package com.petcare.common.web;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * 为控制器方法的 ResponseFormat 参数解析请求要求的响应格式
+ * 同一地址的响应随 Accept 变化，响应头加上 Vary: Accept，避免浏览器或代理缓存混用两种格式
+ */
+public class ResponseFormatArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.getParameterType() == ResponseFormat.class;
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        HttpServletResponse response = webRequest.getNativeResponse(HttpServletResponse.class);
+        if (response != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return ResponseFormat.resolve(webRequest.getParameter("format"), webRequest.getHeader(HttpHeaders.ACCEPT));
+    }
+}
@@ -3,12 +3,15 @@ package com.petcare.finance.controller;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.petcare.common.web.ApiResponse;
 import com.petcare.finance.model.Cost;
+import com.petcare.finance.model.vo.CostAnalytics;
 import com.petcare.finance.service.CostService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.YearMonth;
 import java.util.List;
 
 /**
@@ -39,6 +42,7 @@ public class CostController {
 
     @Operation(summary = "查询成本记录", description = "支持按月份查询成本记录")
     @GetMapping
+    @Transactional(readOnly = true)
     public ApiResponse<List<Cost>> list(
             @Parameter(description = "成本月份", example = "2025-09") @RequestParam(required = false) String costMonth) {
         LambdaQueryWrapper<Cost> qw = new LambdaQueryWrapper<>();
@@ -48,6 +52,13 @@ public class CostController {
         List<Cost> costs = costService.list(qw);
         return ApiResponse.success(costs);
     }
-}
-
 
+    @Operation(summary = "成本分析", description = "按月份区间统计每月各项成本及较上月的增减，一次分组查询完成，最多 120 个月")
+    @GetMapping("/analytics")
+    @Transactional(readOnly = true)
+    public ApiResponse<CostAnalytics> analytics(
+            @Parameter(description = "开始月份", example = "2025-01") @RequestParam String from,
+            @Parameter(description = "结束月份", example = "2025-12") @RequestParam String to) {
+        return ApiResponse.success(costService.analytics(YearMonth.parse(from), YearMonth.parse(to)));
+    }
+}
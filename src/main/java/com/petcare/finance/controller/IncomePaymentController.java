@@ -0,0 +1,41 @@
+package com.petcare.finance.controller;
+
+import com.petcare.common.web.ApiResponse;
+import com.petcare.finance.model.IncomePayment;
+import com.petcare.finance.service.IncomePaymentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 收款流水接口
+ * 每次收款（或冲正）追加一条流水，收入记录的已结算金额同步累加
+ */
+@Tag(name = "收款流水", description = "收入记录的收款与冲正流水")
+@RestController
+@RequestMapping("/api/incomes/{incomeId}/payments")
+public class IncomePaymentController {
+    private final IncomePaymentService incomePaymentService;
+
+    public IncomePaymentController(IncomePaymentService incomePaymentService) {
+        this.incomePaymentService = incomePaymentService;
+    }
+
+    @Operation(summary = "登记收款", description = "追加一笔收款，amount 为负数表示冲正；累加后已结算金额不得小于0或大于总金额")
+    @PostMapping
+    public ApiResponse<IncomePayment> record(@Parameter(description = "收入记录ID") @PathVariable Long incomeId,
+                                             @RequestBody IncomePayment payment) {
+        return ApiResponse.success(incomePaymentService.record(incomeId, payment.getAmount(), payment.getRemark()));
+    }
+
+    @Operation(summary = "查询收款流水", description = "按登记顺序返回收入记录的全部流水")
+    @GetMapping
+    @Transactional(readOnly = true)
+    public ApiResponse<List<IncomePayment>> list(@Parameter(description = "收入记录ID") @PathVariable Long incomeId) {
+        return ApiResponse.success(incomePaymentService.listByIncome(incomeId));
+    }
+}
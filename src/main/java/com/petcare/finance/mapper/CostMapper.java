@@ -2,10 +2,49 @@ package com.petcare.finance.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.petcare.finance.model.Cost;
+import com.petcare.finance.model.vo.MonthlyCostStats;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+
+import java.math.BigDecimal;
+import java.util.List;
 
 @Mapper
 public interface CostMapper extends BaseMapper<Cost> {
-}
 
+    /**
+     * 指定月份（yyyy-MM）的全部成本记录
+     */
+    @Select("SELECT * FROM costs WHERE cost_month = #{month}")
+    List<Cost> selectByMonth(@Param("month") String month);
 
+    /**
+     * [from, to]（yyyy-MM）内有成本记录的月份，每月的记录数与各项成本之和，按月份升序；
+     * 一次分组查询，各项成本之和写入 costs，空值按 0 计
+     */
+    @Select("SELECT cost_month AS month, count(*) AS record_count, " +
+            "  coalesce(sum(water_fee), 0) AS water_fee, coalesce(sum(electricity_fee), 0) AS electricity_fee, " +
+            "  coalesce(sum(rent_fee), 0) AS rent_fee, coalesce(sum(other_fee), 0) AS other_fee, " +
+            "  coalesce(sum(total_cost), 0) AS total_cost " +
+            "FROM costs WHERE cost_month BETWEEN #{from} AND #{to} AND cost_month ~ '^[0-9]{4}-[0-9]{2}$' " +
+            "GROUP BY cost_month ORDER BY cost_month")
+    @Results({
+            @Result(property = "month", column = "month"),
+            @Result(property = "recordCount", column = "record_count"),
+            @Result(property = "costs.waterFee", column = "water_fee"),
+            @Result(property = "costs.electricityFee", column = "electricity_fee"),
+            @Result(property = "costs.rentFee", column = "rent_fee"),
+            @Result(property = "costs.otherCostFee", column = "other_fee"),
+            @Result(property = "costs.totalCost", column = "total_cost")
+    })
+    List<MonthlyCostStats> selectMonthlySums(@Param("from") String from, @Param("to") String to);
+
+    /**
+     * 全部成本记录的总成本
+     */
+    @Select("SELECT coalesce(sum(total_cost), 0) FROM costs")
+    BigDecimal sumTotalCost();
+}
@@ -2,10 +2,66 @@ package com.petcare.finance.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.petcare.finance.model.Income;
+import com.petcare.finance.model.vo.MonthlyAmount;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
 
 @Mapper
 public interface IncomeMapper extends BaseMapper<Income> {
-}
 
+    /**
+     * 原子累加已结算金额，累加后需满足 0 ≤ settled_amount ≤ total_amount；
+     * expected 不为空时仅在当前已结算金额等于 expected 时更新
+     * @return 更新行数，0 表示记录不存在、超出范围或已被其他请求修改
+     */
+    @Update("<script>" +
+            "UPDATE incomes SET settled_amount = settled_amount + #{amount}, updated_at = now() " +
+            "WHERE id = #{id} AND settled_amount + #{amount} BETWEEN 0 AND total_amount" +
+            "<if test='expected != null'> AND settled_amount = #{expected}</if>" +
+            "</script>")
+    int addSettled(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("expected") BigDecimal expected);
+
+    /**
+     * 按月汇总已结算金额：与月份有交集的订单按该月过夜天数占订单总天数的比例（保留4位）分摊已结算金额
+     * @param fromMonth 起始月份第一天
+     * @param toMonth   结束月份第一天
+     */
+    @Select("SELECT to_char(m, 'YYYY-MM') AS month, " +
+            "  coalesce(sum(i.settled_amount * round((LEAST(p.end_date, (m + interval '1 month - 1 day')::date) " +
+            "    - GREATEST(p.start_date, m::date))::numeric / NULLIF(p.end_date - p.start_date, 0), 4)), 0) AS amount " +
+            "FROM generate_series(#{fromMonth}::date, #{toMonth}::date, interval '1 month') AS m " +
+            "LEFT JOIN pets p ON p.start_date <= (m + interval '1 month - 1 day')::date AND p.end_date >= m::date " +
+            "LEFT JOIN incomes i ON i.pet_id = p.id " +
+            "GROUP BY m ORDER BY m")
+    List<MonthlyAmount> selectSettledByMonth(@Param("fromMonth") LocalDate fromMonth, @Param("toMonth") LocalDate toMonth);
 
+    /**
+     * 与 selectSettledByMonth 相同，含开始日期不早于 historyFrom 的已归档订单及其收入记录
+     */
+    @Select("SELECT to_char(m, 'YYYY-MM') AS month, " +
+            "  coalesce(sum(i.settled_amount * round((LEAST(p.end_date, (m + interval '1 month - 1 day')::date) " +
+            "    - GREATEST(p.start_date, m::date))::numeric / NULLIF(p.end_date - p.start_date, 0), 4)), 0) AS amount " +
+            "FROM generate_series(#{fromMonth}::date, #{toMonth}::date, interval '1 month') AS m " +
+            "LEFT JOIN (SELECT id, start_date, end_date FROM pets UNION ALL " +
+            "  SELECT id, start_date, end_date FROM pets_history WHERE start_date >= #{historyFrom}::date " +
+            "    AND start_date < (#{toMonth}::date + interval '1 month')) p " +
+            "  ON p.start_date <= (m + interval '1 month - 1 day')::date AND p.end_date >= m::date " +
+            "LEFT JOIN (SELECT pet_id, settled_amount FROM incomes UNION ALL " +
+            "  SELECT pet_id, settled_amount FROM incomes_history WHERE start_date >= #{historyFrom}::date " +
+            "    AND start_date < (#{toMonth}::date + interval '1 month')) i ON i.pet_id = p.id " +
+            "GROUP BY m ORDER BY m")
+    List<MonthlyAmount> selectSettledByMonthWithHistory(@Param("fromMonth") LocalDate fromMonth, @Param("toMonth") LocalDate toMonth,
+                                                        @Param("historyFrom") LocalDate historyFrom);
+
+    /**
+     * 热表中全部收入记录的总金额
+     */
+    @Select("SELECT coalesce(sum(total_amount), 0) FROM incomes")
+    BigDecimal sumTotalAmount();
+}
@@ -0,0 +1,9 @@
+package com.petcare.finance.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.petcare.finance.model.IncomePayment;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface IncomePaymentMapper extends BaseMapper<IncomePayment> {
+}
@@ -1,6 +1,8 @@
 package com.petcare.finance.model;
 
+import com.baomidou.mybatisplus.annotation.FieldStrategy;
 import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import com.petcare.common.model.BaseEntity;
@@ -38,6 +40,8 @@ public class Income extends BaseEntity {
     @Schema(description = "入住天数", example = "2")
     private Integer daysStayed;
     
+    // 只通过 IncomePaymentService 追加流水变更，updateById 不写入该列，避免用旧值覆盖并发入账
+    @TableField(updateStrategy = FieldStrategy.NEVER)
     @Schema(description = "已结算金额", example = "0.00")
     private BigDecimal settledAmount;
     
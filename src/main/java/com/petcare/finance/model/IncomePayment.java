@@ -0,0 +1,34 @@
+package com.petcare.finance.model;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 收款流水实体，只追加不修改；冲正以负数金额追加
+ */
+@Data
+@TableName("income_payments")
+@Schema(description = "收款流水")
+public class IncomePayment {
+    @TableId(type = IdType.AUTO)
+    @Schema(description = "流水ID", example = "1")
+    private Long id;
+
+    @Schema(description = "收入记录ID", example = "1710000000001")
+    private Long incomeId;
+
+    @Schema(description = "本次入账金额，负数表示冲正", example = "100.00")
+    private BigDecimal amount;
+
+    @Schema(description = "备注", example = "微信收款")
+    private String remark;
+
+    @Schema(description = "入账时间", example = "2025-09-12 10:30:00")
+    private LocalDateTime paidAt;
+}
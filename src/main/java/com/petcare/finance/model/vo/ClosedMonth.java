@@ -0,0 +1,29 @@
+package com.petcare.finance.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已结账月份
+ */
+@Data
+@Schema(description = "已结账月份")
+public class ClosedMonth {
+
+    @Schema(description = "月份", example = "2025-08")
+    private String month;
+
+    @Schema(description = "结账时间")
+    private LocalDateTime closedAt;
+
+    @Schema(description = "快照原始大小（字节）", example = "48213")
+    private int rawBytes;
+
+    @Schema(description = "快照压缩后大小（字节）", example = "6120")
+    private int storedBytes;
+
+    @Schema(description = "该月订单统计（该月没有过夜订单时为空）")
+    private MonthlyOrderStats orderStats;
+}
@@ -0,0 +1,26 @@
+package com.petcare.finance.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 成本分析
+ */
+@Data
+@Schema(description = "月份区间内的成本分析")
+public class CostAnalytics {
+
+    @Schema(description = "起始月份", example = "2025-01")
+    private String from;
+
+    @Schema(description = "结束月份", example = "2025-12")
+    private String to;
+
+    @Schema(description = "区间内每个月的成本与环比增减，按月份升序，没有成本记录的月份各项为 0")
+    private List<MonthlyCostStats> months;
+
+    @Schema(description = "区间内各项成本合计")
+    private MonthlyCosts total;
+}
@@ -0,0 +1,21 @@
+package com.petcare.finance.model.vo;
+
+import lombok.Data;
+
+/**
+ * 已结账月份的报表快照，结账时计算一次，之后直接读取
+ */
+@Data
+public class MonthSnapshot {
+
+    private String month;
+
+    private MonthlyFinanceStats stats;
+
+    /**
+     * 该月没有过夜订单时为空（月度订单统计中不出现该月）
+     */
+    private MonthlyOrderStats orderStats;
+
+    private MonthlyOrderDetailResponse detail;
+}
@@ -0,0 +1,20 @@
+package com.petcare.finance.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 按月汇总的金额
+ */
+@Data
+@Schema(description = "按月汇总的金额")
+public class MonthlyAmount {
+
+    @Schema(description = "月份", example = "2025-09")
+    private String month;
+
+    @Schema(description = "金额", example = "3200.00")
+    private BigDecimal amount;
+}
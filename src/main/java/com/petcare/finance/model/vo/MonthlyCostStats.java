@@ -0,0 +1,24 @@
+package com.petcare.finance.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 单月成本分析
+ */
+@Data
+@Schema(description = "单月成本分析")
+public class MonthlyCostStats {
+
+    @Schema(description = "月份", example = "2025-09")
+    private String month;
+
+    @Schema(description = "成本记录数", example = "3")
+    private Integer recordCount;
+
+    @Schema(description = "各项成本之和")
+    private MonthlyCosts costs;
+
+    @Schema(description = "各项成本较上月的增减（本月减上月）")
+    private MonthlyCosts change;
+}
@@ -0,0 +1,29 @@
+package com.petcare.finance.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 月度成本数据
+ */
+@Data
+@Schema(description = "月度成本明细")
+public class MonthlyCosts {
+
+    @Schema(description = "水费", example = "120.00")
+    private BigDecimal waterFee;
+
+    @Schema(description = "电费", example = "380.00")
+    private BigDecimal electricityFee;
+
+    @Schema(description = "房租", example = "3000.00")
+    private BigDecimal rentFee;
+
+    @Schema(description = "其他成本", example = "200.00")
+    private BigDecimal otherCostFee;
+
+    @Schema(description = "总成本", example = "3700.00")
+    private BigDecimal totalCost;
+}
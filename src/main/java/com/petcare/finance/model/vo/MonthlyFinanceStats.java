@@ -0,0 +1,32 @@
+package com.petcare.finance.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 月度财务统计数据
+ */
+@Data
+@Schema(description = "月度财务统计")
+public class MonthlyFinanceStats {
+
+    @Schema(description = "统计月份", example = "2025-09")
+    private String month;
+
+    @Schema(description = "总收入（跨月订单按过夜天数分摊）", example = "32000.00")
+    private BigDecimal totalIncome;
+
+    @Schema(description = "已入账金额", example = "28000.00")
+    private BigDecimal settledAmount;
+
+    @Schema(description = "待入账金额", example = "4000.00")
+    private BigDecimal unsettledAmount;
+
+    @Schema(description = "总成本", example = "4500.00")
+    private BigDecimal totalCost;
+
+    @Schema(description = "净利润", example = "27500.00")
+    private BigDecimal netProfit;
+}
@@ -0,0 +1,26 @@
+package com.petcare.finance.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 月度订单详情响应数据
+ */
+@Data
+@Schema(description = "月度订单详情")
+public class MonthlyOrderDetailResponse {
+
+    @Schema(description = "月份", example = "2025-09")
+    private String month;
+
+    @Schema(description = "该月成本明细")
+    private MonthlyCosts monthlyCosts;
+
+    @Schema(description = "该月订单（跨月订单只包含该月部分）")
+    private List<OrderDetail> orders;
+
+    @Schema(description = "该月汇总")
+    private MonthlySummary summary;
+}
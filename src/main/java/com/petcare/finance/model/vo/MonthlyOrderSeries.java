@@ -0,0 +1,51 @@
+package com.petcare.finance.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 月度订单统计序列（列式格式）
+ * 数组的第 i 个元素对应 startMonth 之后第 i 个月；区间内没有订单的月份不统计成本，各项为 0
+ */
+@Schema(description = "月度订单统计序列（列式）")
+public record MonthlyOrderSeries(
+        @Schema(description = "第一个月份，没有订单时为 null", example = "2025-01") String startMonth,
+        @Schema(description = "每月有过夜的订单数") int[] orderCount,
+        @Schema(description = "每月总收入") BigDecimal[] totalIncome,
+        @Schema(description = "每月总成本") BigDecimal[] totalCost,
+        @Schema(description = "每月总利润") BigDecimal[] totalProfit) {
+
+    /**
+     * @param stats 按月份升序排列的月度统计
+     */
+    public static MonthlyOrderSeries of(List<MonthlyOrderStats> stats) {
+        if (stats.isEmpty()) {
+            return new MonthlyOrderSeries(null, new int[0], new BigDecimal[0], new BigDecimal[0], new BigDecimal[0]);
+        }
+        YearMonth start = YearMonth.parse(stats.get(0).getMonth());
+        int length = (int) ChronoUnit.MONTHS.between(start, YearMonth.parse(stats.get(stats.size() - 1).getMonth())) + 1;
+        int[] orderCount = new int[length];
+        BigDecimal[] totalIncome = zeros(length);
+        BigDecimal[] totalCost = zeros(length);
+        BigDecimal[] totalProfit = zeros(length);
+        for (MonthlyOrderStats month : stats) {
+            int i = (int) ChronoUnit.MONTHS.between(start, YearMonth.parse(month.getMonth()));
+            orderCount[i] = month.getOrderCount();
+            totalIncome[i] = month.getTotalIncome();
+            totalCost[i] = month.getTotalCost();
+            totalProfit[i] = month.getTotalProfit();
+        }
+        return new MonthlyOrderSeries(start.toString(), orderCount, totalIncome, totalCost, totalProfit);
+    }
+
+    private static BigDecimal[] zeros(int length) {
+        BigDecimal[] values = new BigDecimal[length];
+        Arrays.fill(values, BigDecimal.ZERO);
+        return values;
+    }
+}
@@ -0,0 +1,29 @@
+package com.petcare.finance.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 月度订单统计数据
+ */
+@Data
+@Schema(description = "月度订单统计")
+public class MonthlyOrderStats {
+
+    @Schema(description = "月份", example = "2025-09")
+    private String month;
+
+    @Schema(description = "该月有过夜的订单数", example = "86")
+    private Integer orderCount;
+
+    @Schema(description = "该月总收入", example = "32000.00")
+    private BigDecimal totalIncome;
+
+    @Schema(description = "该月总成本", example = "4500.00")
+    private BigDecimal totalCost;
+
+    @Schema(description = "该月总利润", example = "27500.00")
+    private BigDecimal totalProfit;
+}
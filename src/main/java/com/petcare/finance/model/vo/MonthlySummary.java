@@ -0,0 +1,23 @@
+package com.petcare.finance.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 月度汇总数据
+ */
+@Data
+@Schema(description = "月度汇总")
+public class MonthlySummary {
+
+    @Schema(description = "总收入", example = "32000.00")
+    private BigDecimal totalIncome;
+
+    @Schema(description = "总成本", example = "4500.00")
+    private BigDecimal totalCost;
+
+    @Schema(description = "净利润", example = "27500.00")
+    private BigDecimal netProfit;
+}
@@ -0,0 +1,48 @@
+package com.petcare.finance.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 订单在某月内的详情数据
+ */
+@Data
+@Schema(description = "订单在该月内的详情")
+public class OrderDetail {
+
+    @Schema(description = "宠物ID", example = "1710000000001")
+    private Long petId;
+
+    @Schema(description = "宠物姓名", example = "豆豆")
+    private String petName;
+
+    @Schema(description = "该月内的开始日期", example = "2025-09-01")
+    private LocalDate startDate;
+
+    @Schema(description = "该月内的结束日期", example = "2025-09-05")
+    private LocalDate endDate;
+
+    @Schema(description = "该月内的过夜天数", example = "4")
+    private Integer daysInMonth;
+
+    @Schema(description = "每日费用", example = "120.00")
+    private BigDecimal dailyFee;
+
+    @Schema(description = "按天数比例分摊到该月的其他费用", example = "10.00")
+    private BigDecimal otherFee;
+
+    @Schema(description = "该月收入", example = "490.00")
+    private BigDecimal totalIncome;
+
+    @Schema(description = "订单原始开始日期", example = "2025-08-28")
+    private LocalDate originalStartDate;
+
+    @Schema(description = "订单原始结束日期", example = "2025-09-05")
+    private LocalDate originalEndDate;
+
+    @Schema(description = "是否跨月订单", example = "true")
+    private Boolean isCrossMonth;
+}
@@ -0,0 +1,23 @@
+package com.petcare.finance.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 总体财务统计数据
+ */
+@Data
+@Schema(description = "总体财务统计")
+public class TotalFinanceStats {
+
+    @Schema(description = "总收入", example = "650000.00")
+    private BigDecimal totalIncome;
+
+    @Schema(description = "总成本", example = "98000.00")
+    private BigDecimal totalCost;
+
+    @Schema(description = "总利润", example = "552000.00")
+    private BigDecimal totalProfit;
+}
@@ -2,8 +2,31 @@ package com.petcare.finance.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.petcare.finance.model.Cost;
+import com.petcare.finance.model.vo.CostAnalytics;
+import com.petcare.finance.model.vo.MonthlyCostStats;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
 
 public interface CostService extends IService<Cost> {
-}
+    /**
+     * 指定月份（yyyy-MM）的全部成本记录
+     */
+    List<Cost> listByMonth(String month);
 
+    /**
+     * [from, to] 内有成本记录的月份及其各项成本之和（按月份升序），由数据库一次分组汇总
+     */
+    List<MonthlyCostStats> sumByMonth(YearMonth from, YearMonth to);
 
+    /**
+     * [from, to] 内每个月的各项成本与较上月的增减，以及区间合计；只执行一次分组查询
+     */
+    CostAnalytics analytics(YearMonth from, YearMonth to);
+
+    /**
+     * 全部成本记录的总成本，由数据库汇总
+     */
+    BigDecimal sumTotalCost();
+}
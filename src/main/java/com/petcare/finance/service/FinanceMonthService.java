@@ -0,0 +1,50 @@
+package com.petcare.finance.service;
+
+import com.petcare.finance.model.vo.ClosedMonth;
+import com.petcare.finance.model.vo.MonthSnapshot;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 月度结账
+ * 已结账月份的报表保存为快照，之后直接读取不再计算；只有早于当前月的月份可以结账。
+ * 写入前按涉及的月份调用 checkWritable：与结账互斥，涉及已结账月份时按配置拒绝写入或重开该月
+ */
+public interface FinanceMonthService {
+    /**
+     * 快照表是否已创建；未创建时结账不可用，写入不受限制
+     */
+    boolean isEnabled();
+
+    /**
+     * 已结账月份（按月份升序）
+     */
+    List<ClosedMonth> listClosed();
+
+    Optional<MonthSnapshot> findSnapshot(YearMonth month);
+
+    /**
+     * 结账第一步（须在事务内）：独占该月的写入锁并确认尚未结账，之后计算的报表不会被并发写入改变
+     */
+    void lockForClosing(YearMonth month);
+
+    /**
+     * 结账第二步（须在 lockForClosing 的同一事务内）：压缩保存快照
+     */
+    ClosedMonth saveSnapshot(MonthSnapshot snapshot);
+
+    /**
+     * 删除快照重新开放该月，返回该月此前是否已结账
+     */
+    boolean reopen(YearMonth month);
+
+    /**
+     * 写入影响 [from, to] 所在各月报表的数据前调用（须在写事务内），锁持有到事务结束
+     */
+    void checkWritable(LocalDate from, LocalDate to);
+
+    void checkWritable(YearMonth month);
+}
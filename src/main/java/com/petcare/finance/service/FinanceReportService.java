@@ -0,0 +1,46 @@
+package com.petcare.finance.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.petcare.finance.model.vo.ClosedMonth;
+import com.petcare.finance.model.vo.MonthlyFinanceStats;
+import com.petcare.finance.model.vo.MonthlyOrderDetailResponse;
+import com.petcare.finance.model.vo.MonthlyOrderStats;
+import com.petcare.finance.model.vo.TotalFinanceStats;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * 财务报表
+ * 已结账月份直接返回结账快照，只有未结账的月份按原始数据计算
+ */
+public interface FinanceReportService {
+    /**
+     * 月度财务统计，month 格式为 yyyy-MM
+     */
+    MonthlyFinanceStats monthlyStats(String month);
+
+    TotalFinanceStats totalStats();
+
+    /**
+     * 各月订单统计，跨月订单在对应月份都计算，按月份升序
+     */
+    List<MonthlyOrderStats> monthlyOrders();
+
+    /**
+     * 月度订单详情，month 格式为 yyyy-MM
+     */
+    MonthlyOrderDetailResponse monthlyOrdersDetail(String month);
+
+    /**
+     * 将月度订单详情以 JSON 写出，结构与 monthlyOrdersDetail 相同；
+     * 订单按ID分批读取、逐条写出，汇总在订单之后写出，内存占用与订单数无关
+     */
+    void writeMonthlyOrdersDetail(String month, JsonGenerator generator) throws IOException;
+
+    /**
+     * 计算并保存该月的报表快照，已结账或不早于当前月时抛出 BusinessException
+     */
+    ClosedMonth closeMonth(YearMonth month);
+}
@@ -0,0 +1,35 @@
+package com.petcare.finance.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.petcare.finance.model.Income;
+import com.petcare.finance.model.IncomePayment;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 收款流水
+ * 已结算金额只通过追加流水变更：流水插入与 incomes.settled_amount 的原子累加在同一事务内完成
+ */
+public interface IncomePaymentService extends IService<IncomePayment> {
+    /**
+     * 追加一笔入账（负数为冲正），累加后已结算金额超出 [0, 总金额] 时抛出 BusinessException
+     */
+    IncomePayment record(Long incomeId, BigDecimal amount, String remark);
+
+    /**
+     * 将已结算金额调整为 target，差额记为一笔流水。
+     * 以 income 中读到的已结算金额为前提，期间被其他请求修改时抛出 BusinessException，避免覆盖对方的入账
+     */
+    void settleTo(Income income, BigDecimal target, String remark);
+
+    /**
+     * 新建收入记录（如批量导入）时，将初始已结算金额记为期初流水
+     */
+    void recordOpening(List<Income> incomes);
+
+    /**
+     * 按入账顺序列出收入记录的流水
+     */
+    List<IncomePayment> listByIncome(Long incomeId);
+}
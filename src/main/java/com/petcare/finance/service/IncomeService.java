@@ -2,8 +2,20 @@ package com.petcare.finance.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.petcare.finance.model.Income;
+import com.petcare.finance.model.vo.MonthlyAmount;
 
-public interface IncomeService extends IService<Income> {
-}
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
 
+public interface IncomeService extends IService<Income> {
+    /**
+     * 按月汇总已结算金额（跨月订单按过夜天数比例分摊，含已归档订单），一次分组查询返回 [from, to] 内的每个月
+     */
+    List<MonthlyAmount> sumSettledByMonth(YearMonth from, YearMonth to);
 
+    /**
+     * 全部收入记录（含已归档）的总金额
+     */
+    BigDecimal sumTotalAmount();
+}
@@ -0,0 +1,63 @@
+package com.petcare.finance.service.impl;
+
+import com.petcare.finance.model.Cost;
+import com.petcare.finance.model.vo.MonthlyCosts;
+
+import java.math.BigDecimal;
+
+/**
+ * 各项成本合计，一次遍历同时累加水费、电费、房租、其他成本与总成本，空值按 0 计
+ * 月度订单详情累加单条成本记录，成本分析累加各月汇总
+ */
+final class CostAccumulator {
+
+    private BigDecimal waterFee = BigDecimal.ZERO;
+    private BigDecimal electricityFee = BigDecimal.ZERO;
+    private BigDecimal rentFee = BigDecimal.ZERO;
+    private BigDecimal otherCostFee = BigDecimal.ZERO;
+    private BigDecimal totalCost = BigDecimal.ZERO;
+
+    CostAccumulator add(Cost cost) {
+        return add(cost.getWaterFee(), cost.getElectricityFee(), cost.getRentFee(), cost.getOtherFee(), cost.getTotalCost());
+    }
+
+    CostAccumulator add(MonthlyCosts costs) {
+        return add(costs.getWaterFee(), costs.getElectricityFee(), costs.getRentFee(), costs.getOtherCostFee(), costs.getTotalCost());
+    }
+
+    MonthlyCosts toMonthlyCosts() {
+        MonthlyCosts costs = new MonthlyCosts();
+        costs.setWaterFee(waterFee);
+        costs.setElectricityFee(electricityFee);
+        costs.setRentFee(rentFee);
+        costs.setOtherCostFee(otherCostFee);
+        costs.setTotalCost(totalCost);
+        return costs;
+    }
+
+    /**
+     * 各项成本之差 current - previous
+     */
+    static MonthlyCosts difference(MonthlyCosts current, MonthlyCosts previous) {
+        MonthlyCosts change = new MonthlyCosts();
+        change.setWaterFee(current.getWaterFee().subtract(previous.getWaterFee()));
+        change.setElectricityFee(current.getElectricityFee().subtract(previous.getElectricityFee()));
+        change.setRentFee(current.getRentFee().subtract(previous.getRentFee()));
+        change.setOtherCostFee(current.getOtherCostFee().subtract(previous.getOtherCostFee()));
+        change.setTotalCost(current.getTotalCost().subtract(previous.getTotalCost()));
+        return change;
+    }
+
+    private CostAccumulator add(BigDecimal water, BigDecimal electricity, BigDecimal rent, BigDecimal other, BigDecimal total) {
+        waterFee = plus(waterFee, water);
+        electricityFee = plus(electricityFee, electricity);
+        rentFee = plus(rentFee, rent);
+        otherCostFee = plus(otherCostFee, other);
+        totalCost = plus(totalCost, total);
+        return this;
+    }
+
+    private static BigDecimal plus(BigDecimal sum, BigDecimal value) {
+        return value != null ? sum.add(value) : sum;
+    }
+}
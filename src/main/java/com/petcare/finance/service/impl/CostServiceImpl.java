@@ -1,19 +1,107 @@
 package com.petcare.finance.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.petcare.common.event.DataChangedEvent;
+import com.petcare.common.web.BusinessException;
 import com.petcare.finance.mapper.CostMapper;
 import com.petcare.finance.model.Cost;
+import com.petcare.finance.model.vo.CostAnalytics;
+import com.petcare.finance.model.vo.MonthlyCostStats;
+import com.petcare.finance.model.vo.MonthlyCosts;
 import com.petcare.finance.service.CostService;
+import com.petcare.finance.service.FinanceMonthService;
+import com.petcare.system.service.AuditLogService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class CostServiceImpl extends ServiceImpl<CostMapper, Cost> implements CostService {
+
+    // 成本分析最多覆盖的月数
+    private static final int MAX_ANALYTICS_MONTHS = 120;
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final FinanceMonthService financeMonthService;
+    private final AuditLogService auditLogService;
+
+    public CostServiceImpl(ApplicationEventPublisher eventPublisher, FinanceMonthService financeMonthService,
+                           AuditLogService auditLogService) {
+        this.eventPublisher = eventPublisher;
+        this.financeMonthService = financeMonthService;
+        this.auditLogService = auditLogService;
+    }
+
+    @Override
+    public List<Cost> listByMonth(String month) {
+        return baseMapper.selectByMonth(month);
+    }
+
+    @Override
+    public List<MonthlyCostStats> sumByMonth(YearMonth from, YearMonth to) {
+        return baseMapper.selectMonthlySums(from.toString(), to.toString());
+    }
+
+    @Override
+    public CostAnalytics analytics(YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new BusinessException("开始月份不能晚于结束月份: " + from + " ~ " + to);
+        }
+        if (from.plusMonths(MAX_ANALYTICS_MONTHS).isBefore(to.plusMonths(1))) {
+            throw new BusinessException("成本分析最多支持 " + MAX_ANALYTICS_MONTHS + " 个月");
+        }
+        // 多查开始月份的上一个月，用于计算第一个月的增减
+        Map<String, MonthlyCostStats> sums = sumByMonth(from.minusMonths(1), to).stream()
+                .collect(Collectors.toMap(MonthlyCostStats::getMonth, Function.identity()));
+
+        List<MonthlyCostStats> months = new ArrayList<>();
+        CostAccumulator total = new CostAccumulator();
+        MonthlyCosts previous = costsOf(sums.get(from.minusMonths(1).toString()));
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            MonthlyCostStats found = sums.get(month.toString());
+            MonthlyCostStats stats = new MonthlyCostStats();
+            stats.setMonth(month.toString());
+            stats.setRecordCount(found != null ? found.getRecordCount() : 0);
+            stats.setCosts(costsOf(found));
+            stats.setChange(CostAccumulator.difference(stats.getCosts(), previous));
+            total.add(stats.getCosts());
+            months.add(stats);
+            previous = stats.getCosts();
+        }
+
+        CostAnalytics analytics = new CostAnalytics();
+        analytics.setFrom(from.toString());
+        analytics.setTo(to.toString());
+        analytics.setMonths(months);
+        analytics.setTotal(total.toMonthlyCosts());
+        return analytics;
+    }
+
+    /**
+     * 该月各项成本之和，没有成本记录的月份各项为 0
+     */
+    private static MonthlyCosts costsOf(MonthlyCostStats stats) {
+        return stats != null ? stats.getCosts() : new CostAccumulator().toMonthlyCosts();
+    }
+
+    @Override
+    public BigDecimal sumTotalCost() {
+        return baseMapper.sumTotalCost();
+    }
     
     @Override
+    @Transactional
     public boolean save(Cost entity) {
         // 设置默认成本月份为当前月份
         if (entity.getCostMonth() == null) {
@@ -37,8 +125,38 @@ public class CostServiceImpl extends ServiceImpl<CostMapper, Cost> implements Co
             }
             entity.setTotalCost(totalCost);
         }
-        return super.save(entity);
+        checkMonthWritable(entity.getCostMonth());
+        boolean saved = super.save(entity);
+        if (saved && entity.getId() != null) {
+            auditLogService.record(DataChangedEvent.TABLE_COSTS, entity.getId(), AuditLogService.Action.CREATE, null, entity);
+            eventPublisher.publishEvent(DataChangedEvent.cost(entity.getId()));
+        }
+        return saved;
     }
-}
 
+    @Override
+    @Transactional
+    public boolean removeById(Serializable id) {
+        Cost existing = getById(id);
+        if (existing != null) {
+            checkMonthWritable(existing.getCostMonth());
+        }
+        boolean removed = super.removeById(id);
+        if (removed && id instanceof Long) {
+            auditLogService.record(DataChangedEvent.TABLE_COSTS, id, AuditLogService.Action.DELETE, existing, null);
+            eventPublisher.publishEvent(DataChangedEvent.costDeleted((Long) id));
+        }
+        return removed;
+    }
 
+    private void checkMonthWritable(String costMonth) {
+        YearMonth month;
+        try {
+            month = YearMonth.parse(costMonth);
+        } catch (RuntimeException e) {
+            // 月度报表按 yyyy-MM 匹配成本月份，格式不符的记录不计入任何月份
+            return;
+        }
+        financeMonthService.checkWritable(month);
+    }
+}
@@ -0,0 +1,354 @@
+package com.petcare.finance.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petcare.common.datasource.MigrationTable;
+import com.petcare.common.event.DataChangedEvent;
+import com.petcare.common.event.InvalidationBus;
+import com.petcare.common.event.InvalidationBusStatusEvent;
+import com.petcare.common.web.BusinessException;
+import com.petcare.finance.model.vo.ClosedMonth;
+import com.petcare.finance.model.vo.MonthSnapshot;
+import com.petcare.finance.model.vo.MonthlyOrderStats;
+import com.petcare.finance.service.FinanceMonthService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 月度结账实现
+ * 每个月对应一把 PostgreSQL 事务级咨询锁：写入方按月升序加共享锁，结账与重开加独占锁，
+ * 结账时计算的报表不会混入未提交的写入，结账提交后的写入一定能看到该月已结账。
+ * 当前月及以后的月份不能结账，写入只涉及这些月份时不访问数据库。
+ * 已结账月份列表与快照缓存在本实例内，结账、重开（含其他实例经 InvalidationBus 转发的）时清空；
+ * 失效通知连接断开期间不使用缓存
+ */
+@Service
+public class FinanceMonthServiceImpl implements FinanceMonthService {
+
+    private static final Logger log = LoggerFactory.getLogger(FinanceMonthServiceImpl.class);
+
+    /**
+     * 涉及已结账月份的写入：reject 拒绝（默认），reopen 删除快照重开该月后继续写入
+     */
+    enum WritePolicy {
+        REJECT, REOPEN
+    }
+
+    // 咨询锁双整数键的第一部分（"FMON"），第二部分为 year * 12 + month - 1
+    private static final int MONTH_LOCK_NAMESPACE = 0x464D4F4E;
+
+    private static final String LOCK_SHARED_SQL =
+            "SELECT count(pg_advisory_xact_lock_shared(?, m)) FROM generate_series(?, ?) AS m";
+    private static final String LOCK_EXCLUSIVE_SQL = "SELECT count(pg_advisory_xact_lock(?, ?))";
+    private static final String SELECT_CLOSED_SQL =
+            "SELECT month FROM finance_month_snapshots WHERE month BETWEEN ? AND ? ORDER BY month";
+    private static final String LIST_SQL =
+            "SELECT month, closed_at, raw_bytes, octet_length(payload) AS stored_bytes, order_stats "
+            + "FROM finance_month_snapshots ORDER BY month";
+    // 连接使用 simple 查询模式时 bytea 参数无法直接绑定，压缩结果以 base64 文本传入
+    private static final String INSERT_SQL =
+            "INSERT INTO finance_month_snapshots (month, payload, raw_bytes, order_stats, closed_at) "
+            + "VALUES (?, decode(?, 'base64'), ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MigrationTable snapshotsTable;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InvalidationBus invalidationBus;
+    private final WritePolicy writePolicy;
+
+    // 缓存只在读取期间没有发生结账或重开时写入，避免较旧的读取结果覆盖失效
+    private final AtomicLong generation = new AtomicLong();
+    private volatile List<ClosedMonth> closedCache;
+    private final Map<YearMonth, MonthSnapshot> snapshotCache = new ConcurrentHashMap<>();
+    // 当前事务内已加锁并确认可写的月份，同一事务多次写入同一月份时不再重复查询
+    private final Object checkedMonthsKey = new Object();
+
+    public FinanceMonthServiceImpl(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                   ApplicationEventPublisher eventPublisher, InvalidationBus invalidationBus,
+                                   @Value("${petcare.finance.closed-month-writes:reject}") String writePolicy) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotsTable = new MigrationTable(jdbcTemplate, "finance_month_snapshots", "003_finance_month_snapshots.sql", "月度结账未启用");
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.invalidationBus = invalidationBus;
+        this.writePolicy = WritePolicy.valueOf(writePolicy.trim().toUpperCase());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return snapshotsTable.isAvailable();
+    }
+
+    @Override
+    public List<ClosedMonth> listClosed() {
+        if (!snapshotsTable.isAvailable()) {
+            return List.of();
+        }
+        List<ClosedMonth> cached = closedCache;
+        if (cached != null && invalidationBus.isConnected()) {
+            return cached;
+        }
+        long expected = generation.get();
+        List<ClosedMonth> loaded = List.copyOf(jdbcTemplate.query(LIST_SQL, (rs, rowNum) -> toClosedMonth(rs)));
+        if (generation.get() == expected) {
+            closedCache = loaded;
+        }
+        return loaded;
+    }
+
+    @Override
+    public Optional<MonthSnapshot> findSnapshot(YearMonth month) {
+        // 先查已结账月份列表（通常命中缓存），未结账的月份不读取快照表
+        String key = month.toString();
+        if (listClosed().stream().noneMatch(closed -> closed.getMonth().equals(key))) {
+            return Optional.empty();
+        }
+        boolean cacheable = invalidationBus.isConnected();
+        MonthSnapshot cached = cacheable ? snapshotCache.get(month) : null;
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long expected = generation.get();
+        List<byte[]> payloads = jdbcTemplate.queryForList(
+                "SELECT payload FROM finance_month_snapshots WHERE month = ?", byte[].class, key);
+        if (payloads.isEmpty()) {
+            return Optional.empty();
+        }
+        MonthSnapshot snapshot = decode(payloads.get(0));
+        if (cacheable && generation.get() == expected) {
+            snapshotCache.put(month, snapshot);
+        }
+        return Optional.of(snapshot);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockForClosing(YearMonth month) {
+        requireEnabled();
+        if (!month.isBefore(YearMonth.now())) {
+            throw new BusinessException("只能结账当前月之前的月份: " + month);
+        }
+        jdbcTemplate.queryForObject(LOCK_EXCLUSIVE_SQL, Long.class, MONTH_LOCK_NAMESPACE, lockKey(month));
+        if (!jdbcTemplate.queryForList(SELECT_CLOSED_SQL, String.class, month.toString(), month.toString()).isEmpty()) {
+            throw new BusinessException(month + " 已结账");
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public ClosedMonth saveSnapshot(MonthSnapshot snapshot) {
+        byte[] json;
+        String orderStats;
+        try {
+            json = objectMapper.writeValueAsBytes(snapshot);
+            orderStats = snapshot.getOrderStats() != null ? objectMapper.writeValueAsString(snapshot.getOrderStats()) : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("报表快照序列化失败", e);
+        }
+        byte[] payload = gzip(json);
+        LocalDateTime closedAt = LocalDateTime.now();
+        jdbcTemplate.update(INSERT_SQL, snapshot.getMonth(), Base64.getEncoder().encodeToString(payload), json.length,
+                orderStats, Timestamp.valueOf(closedAt));
+        eventPublisher.publishEvent(DataChangedEvent.financeMonth(snapshot.getMonth(), true));
+
+        ClosedMonth closed = new ClosedMonth();
+        closed.setMonth(snapshot.getMonth());
+        closed.setClosedAt(closedAt);
+        closed.setRawBytes(json.length);
+        closed.setStoredBytes(payload.length);
+        closed.setOrderStats(snapshot.getOrderStats());
+        log.info("{} 已结账，快照 {} 字节（压缩前 {} 字节）", snapshot.getMonth(), payload.length, json.length);
+        return closed;
+    }
+
+    @Override
+    @Transactional
+    public boolean reopen(YearMonth month) {
+        requireEnabled();
+        jdbcTemplate.queryForObject(LOCK_EXCLUSIVE_SQL, Long.class, MONTH_LOCK_NAMESPACE, lockKey(month));
+        boolean reopened = delete(month);
+        if (reopened) {
+            log.info("{} 已重开", month);
+        }
+        return reopened;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = BusinessException.class)
+    public void checkWritable(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            return;
+        }
+        LocalDate first = from.isBefore(to) ? from : to;
+        LocalDate last = from.isBefore(to) ? to : from;
+        checkRange(YearMonth.from(first), YearMonth.from(last));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = BusinessException.class)
+    public void checkWritable(YearMonth month) {
+        if (month != null) {
+            checkRange(month, month);
+        }
+    }
+
+    /**
+     * 拒绝时不回滚调用方事务，批量导入可只跳过涉及已结账月份的行
+     */
+    private void checkRange(YearMonth first, YearMonth last) {
+        YearMonth lastClosable = YearMonth.now().minusMonths(1);
+        if (first.isAfter(lastClosable) || !snapshotsTable.isAvailable()) {
+            return;
+        }
+        if (last.isAfter(lastClosable)) {
+            last = lastClosable;
+        }
+        Set<YearMonth> checked = checkedInTransaction();
+        boolean allChecked = true;
+        for (YearMonth m = first; !m.isAfter(last); m = m.plusMonths(1)) {
+            if (!checked.contains(m)) {
+                allChecked = false;
+                break;
+            }
+        }
+        if (allChecked) {
+            return;
+        }
+
+        // 共享锁与其他写入并行，只与该月的结账、重开互斥
+        jdbcTemplate.queryForObject(LOCK_SHARED_SQL, Long.class, MONTH_LOCK_NAMESPACE, lockKey(first), lockKey(last));
+        List<String> closed = jdbcTemplate.queryForList(SELECT_CLOSED_SQL, String.class, first.toString(), last.toString());
+        if (!closed.isEmpty()) {
+            if (writePolicy == WritePolicy.REJECT) {
+                throw new BusinessException("涉及已结账月份 " + String.join("、", closed) + "，请先重开该月再修改");
+            }
+            for (String month : closed) {
+                delete(YearMonth.parse(month));
+                log.info("{} 已结账，因写入涉及该月自动重开", month);
+            }
+        }
+        for (YearMonth m = first; !m.isAfter(last); m = m.plusMonths(1)) {
+            checked.add(m);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<YearMonth> checkedInTransaction() {
+        Set<YearMonth> checked = (Set<YearMonth>) TransactionSynchronizationManager.getResource(checkedMonthsKey);
+        if (checked == null) {
+            checked = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(checkedMonthsKey, checked);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(checkedMonthsKey);
+                }
+            });
+        }
+        return checked;
+    }
+
+    private boolean delete(YearMonth month) {
+        boolean deleted = jdbcTemplate.update("DELETE FROM finance_month_snapshots WHERE month = ?", month.toString()) > 0;
+        if (deleted) {
+            eventPublisher.publishEvent(DataChangedEvent.financeMonth(month.toString(), false));
+        }
+        return deleted;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        if (DataChangedEvent.TABLE_FINANCE_MONTHS.equals(event.getTable())) {
+            clearCaches();
+        }
+    }
+
+    @EventListener
+    public void onBusStatus(InvalidationBusStatusEvent event) {
+        // 断开期间可能漏掉其他实例的结账或重开
+        clearCaches();
+    }
+
+    private void clearCaches() {
+        generation.incrementAndGet();
+        closedCache = null;
+        snapshotCache.clear();
+    }
+
+    private ClosedMonth toClosedMonth(ResultSet rs) throws SQLException {
+        ClosedMonth closed = new ClosedMonth();
+        closed.setMonth(rs.getString("month"));
+        closed.setClosedAt(rs.getTimestamp("closed_at").toLocalDateTime());
+        closed.setRawBytes(rs.getInt("raw_bytes"));
+        closed.setStoredBytes(rs.getInt("stored_bytes"));
+        String orderStats = rs.getString("order_stats");
+        if (orderStats != null) {
+            try {
+                closed.setOrderStats(objectMapper.readValue(orderStats, MonthlyOrderStats.class));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(closed.getMonth() + " 的订单统计快照无法解析", e);
+            }
+        }
+        return closed;
+    }
+
+    private MonthSnapshot decode(byte[] payload) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return objectMapper.readValue(in, MonthSnapshot.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("报表快照解压失败", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("报表快照压缩失败", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static int lockKey(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    private void requireEnabled() {
+        if (!snapshotsTable.isAvailable()) {
+            throw new BusinessException("月度结账未启用：请先执行 db/migration/003_finance_month_snapshots.sql");
+        }
+    }
+}
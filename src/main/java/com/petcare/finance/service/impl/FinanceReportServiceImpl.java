@@ -0,0 +1,497 @@
+package com.petcare.finance.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.petcare.common.cache.CachedResponse;
+import com.petcare.common.event.DataChangedEvent;
+import com.petcare.finance.model.Cost;
+import com.petcare.finance.model.vo.ClosedMonth;
+import com.petcare.finance.model.vo.MonthSnapshot;
+import com.petcare.finance.model.vo.MonthlyAmount;
+import com.petcare.finance.model.vo.MonthlyCosts;
+import com.petcare.finance.model.vo.MonthlyFinanceStats;
+import com.petcare.finance.model.vo.MonthlyOrderDetailResponse;
+import com.petcare.finance.model.vo.MonthlyOrderStats;
+import com.petcare.finance.model.vo.MonthlySummary;
+import com.petcare.finance.model.vo.OrderDetail;
+import com.petcare.finance.model.vo.TotalFinanceStats;
+import com.petcare.finance.service.CostService;
+import com.petcare.finance.service.FinanceMonthService;
+import com.petcare.finance.service.FinanceReportService;
+import com.petcare.finance.service.IncomeService;
+import com.petcare.pet.model.Pet;
+import com.petcare.pet.service.PetService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 财务报表实现
+ * 跨月订单按该月过夜天数计算收入，其他费用按天数比例分摊；
+ * 已结账月份读取 FinanceMonthService 中的快照，月度订单统计只查询结束日期不早于最早未结账月份的订单
+ */
+@Service
+public class FinanceReportServiceImpl implements FinanceReportService {
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    // 统计依赖的表：收入记录随宠物一并通知；已结账月份读取快照，结账与重开也会改变结果；
+    // 归档不改变统计结果，但其他实例在收到归档通知前可能按旧的归档范围漏查历史分区
+    private static final String PETS = DataChangedEvent.TABLE_PETS;
+    private static final String COSTS = DataChangedEvent.TABLE_COSTS;
+    private static final String MONTHS = DataChangedEvent.TABLE_FINANCE_MONTHS;
+    private static final String HISTORY = DataChangedEvent.TABLE_PETS_HISTORY;
+
+    private final PetService petService;
+    private final IncomeService incomeService;
+    private final CostService costService;
+    private final FinanceMonthService financeMonthService;
+    private final Counter fromSnapshot;
+    private final Counter computed;
+    // 流式输出订单详情时每批读取的订单数
+    private final int streamBatchSize;
+
+    public FinanceReportServiceImpl(PetService petService, IncomeService incomeService, CostService costService,
+                                    FinanceMonthService financeMonthService, MeterRegistry meterRegistry,
+                                    @Value("${petcare.finance.stream-batch-size:500}") int streamBatchSize) {
+        this.petService = petService;
+        this.incomeService = incomeService;
+        this.costService = costService;
+        this.financeMonthService = financeMonthService;
+        this.streamBatchSize = streamBatchSize;
+        this.fromSnapshot = Counter.builder("petcare.finance.report.months").tag("source", "snapshot")
+                .description("直接读取结账快照的月度报表月份数").register(meterRegistry);
+        this.computed = Counter.builder("petcare.finance.report.months").tag("source", "computed")
+                .description("按原始数据计算的月度报表月份数").register(meterRegistry);
+    }
+
+    @Override
+    @CachedResponse(value = "monthly-stats", tags = {PETS, COSTS, MONTHS, HISTORY})
+    @Transactional(readOnly = true)
+    public MonthlyFinanceStats monthlyStats(String month) {
+        Optional<MonthSnapshot> snapshot = financeMonthService.findSnapshot(YearMonth.parse(month));
+        if (snapshot.isPresent()) {
+            fromSnapshot.increment();
+            return snapshot.get().getStats();
+        }
+        computed.increment();
+        return computeMonthlyStats(month);
+    }
+
+    @Override
+    @CachedResponse(value = "total-stats", tags = {PETS, COSTS, HISTORY})
+    @Transactional(readOnly = true)
+    public TotalFinanceStats totalStats() {
+        // 1. 计算总收入（使用incomes表的数据，确保与宠物详情一致）
+        BigDecimal totalIncome = calculateTotalIncomeFromIncomes();
+
+        // 2. 计算总成本（所有成本记录的总和）
+        BigDecimal totalCost = calculateTotalCost();
+
+        // 3. 计算总利润
+        BigDecimal totalProfit = totalIncome.subtract(totalCost);
+
+        TotalFinanceStats stats = new TotalFinanceStats();
+        stats.setTotalIncome(totalIncome);
+        stats.setTotalCost(totalCost);
+        stats.setTotalProfit(totalProfit);
+        return stats;
+    }
+
+    @Override
+    @CachedResponse(value = "monthly-orders", tags = {PETS, COSTS, MONTHS, HISTORY})
+    @Transactional(readOnly = true)
+    public List<MonthlyOrderStats> monthlyOrders() {
+        List<ClosedMonth> closedMonths = financeMonthService.listClosed();
+        Set<String> closed = closedMonths.stream().map(ClosedMonth::getMonth).collect(Collectors.toSet());
+
+        // 已结账月份取快照中的订单统计；结束日期早于最早未结账月份的订单只落在已结账月份，无需查询
+        // 没有已结账月份时从最早的订单起查询全部订单；早于归档范围的月份由 PetService 合并历史分区
+        LocalDate earliest = petService.earliestStartDate();
+        List<Pet> pets = List.of();
+        if (earliest != null) {
+            YearMonth firstOpen = YearMonth.from(earliest);
+            while (closed.contains(firstOpen.toString())) {
+                firstOpen = firstOpen.plusMonths(1);
+            }
+            pets = petService.listEndingFrom(firstOpen.atDay(1));
+        }
+
+        Map<String, MonthlyOrderStats> monthlyStatsMap = accumulateOrderStats(pets, month -> !closed.contains(month));
+        computed.increment(monthlyStatsMap.size());
+        for (ClosedMonth month : closedMonths) {
+            fromSnapshot.increment();
+            if (month.getOrderStats() != null) {
+                monthlyStatsMap.put(month.getMonth(), month.getOrderStats());
+            }
+        }
+
+        // 转换为List并按月份排序
+        List<MonthlyOrderStats> result = new ArrayList<>(monthlyStatsMap.values());
+        result.sort((a, b) -> a.getMonth().compareTo(b.getMonth()));
+        return result;
+    }
+
+    @Override
+    @CachedResponse(value = "monthly-orders-detail", tags = {PETS, COSTS, MONTHS, HISTORY})
+    @Transactional(readOnly = true)
+    public MonthlyOrderDetailResponse monthlyOrdersDetail(String month) {
+        Optional<MonthSnapshot> snapshot = financeMonthService.findSnapshot(YearMonth.parse(month));
+        if (snapshot.isPresent()) {
+            fromSnapshot.increment();
+            return snapshot.get().getDetail();
+        }
+        computed.increment();
+        return computeMonthlyOrdersDetail(month);
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void writeMonthlyOrdersDetail(String month, JsonGenerator generator) throws IOException {
+        Optional<MonthSnapshot> snapshot = financeMonthService.findSnapshot(YearMonth.parse(month));
+        if (snapshot.isPresent()) {
+            fromSnapshot.increment();
+            generator.writeObject(snapshot.get().getDetail());
+            return;
+        }
+        computed.increment();
+        writeComputedMonthlyOrdersDetail(month, generator);
+    }
+
+    @Override
+    @Transactional
+    public ClosedMonth closeMonth(YearMonth month) {
+        // 先独占该月的写入锁，之后计算的报表与快照保存之间不会插入新的写入
+        financeMonthService.lockForClosing(month);
+        String key = month.format(MONTH_FORMAT);
+        LocalDate monthStart = month.atDay(1);
+        LocalDate monthEnd = month.atEndOfMonth();
+
+        MonthSnapshot snapshot = new MonthSnapshot();
+        snapshot.setMonth(key);
+        snapshot.setStats(computeMonthlyStats(key));
+        snapshot.setDetail(computeMonthlyOrdersDetail(key));
+        List<Pet> pets = petService.listOverlapping(monthStart, monthEnd);
+        snapshot.setOrderStats(accumulateOrderStats(pets, key::equals).get(key));
+        return financeMonthService.saveSnapshot(snapshot);
+    }
+
+    private MonthlyFinanceStats computeMonthlyStats(String month) {
+
+        // 解析月份，获取该月的开始和结束日期
+        LocalDate monthStart = LocalDate.parse(month + "-01", DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        LocalDate monthEnd = monthStart.withDayOfMonth(monthStart.lengthOfMonth());
+
+        // 1. 计算总收入（处理跨月份订单）
+        BigDecimal totalIncome = calculateMonthlyIncome(monthStart, monthEnd);
+
+        // 2. 计算已入账金额
+        BigDecimal settledAmount = calculateSettledAmount(monthStart);
+
+        // 3. 计算待入账金额
+        BigDecimal unsettledAmount = totalIncome.subtract(settledAmount);
+
+        // 4. 计算总成本
+        BigDecimal totalCost = calculateMonthlyCost(month);
+
+        // 5. 计算净利润
+        BigDecimal netProfit = totalIncome.subtract(totalCost);
+
+        MonthlyFinanceStats stats = new MonthlyFinanceStats();
+        stats.setMonth(month);
+        stats.setTotalIncome(totalIncome);
+        stats.setSettledAmount(settledAmount);
+        stats.setUnsettledAmount(unsettledAmount);
+        stats.setTotalCost(totalCost);
+        stats.setNetProfit(netProfit);
+
+        return stats;
+    }
+
+    /**
+     * 按月汇总订单数与收入（只统计 includeMonth 接受的月份），再补充各月成本与利润
+     */
+    private Map<String, MonthlyOrderStats> accumulateOrderStats(List<Pet> pets, Predicate<String> includeMonth) {
+        Map<String, MonthlyOrderStats> monthlyStatsMap = accumulateOrderIncome(pets, includeMonth);
+
+        // 计算每个月的总成本和总利润
+        for (MonthlyOrderStats stats : monthlyStatsMap.values()) {
+            // 计算该月的总成本
+            BigDecimal monthCost = calculateMonthlyCost(stats.getMonth());
+            stats.setTotalCost(monthCost);
+
+            // 计算总利润
+            BigDecimal totalProfit = stats.getTotalIncome().subtract(monthCost);
+            stats.setTotalProfit(totalProfit);
+        }
+        return monthlyStatsMap;
+    }
+
+    /**
+     * 按月汇总订单数与收入：跨月订单按各月过夜天数计算收入，其他费用按天数比例分摊
+     */
+    static Map<String, MonthlyOrderStats> accumulateOrderIncome(List<Pet> pets, Predicate<String> includeMonth) {
+        // 使用Map来存储每个月的统计数据
+        Map<String, MonthlyOrderStats> monthlyStatsMap = new HashMap<>();
+
+        for (Pet pet : pets) {
+            // 获取订单的开始和结束月份
+            String startMonth = pet.getStartDate().format(MONTH_FORMAT);
+            String endMonth = pet.getEndDate().format(MONTH_FORMAT);
+
+            // 计算订单的总收入（按过夜计算）
+            long totalDays = ChronoUnit.DAYS.between(pet.getStartDate(), pet.getEndDate());
+
+            // 处理订单跨越的所有月份
+            LocalDate currentMonth = LocalDate.parse(startMonth + "-01", DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+            LocalDate endMonthDate = LocalDate.parse(endMonth + "-01", DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+
+            while (!currentMonth.isAfter(endMonthDate)) {
+                String currentMonthStr = currentMonth.format(MONTH_FORMAT);
+                if (!includeMonth.test(currentMonthStr)) {
+                    currentMonth = currentMonth.plusMonths(1);
+                    continue;
+                }
+
+                // 计算该月在该订单中的实际日期范围
+                LocalDate monthStart = currentMonth;
+                LocalDate monthEnd = currentMonth.withDayOfMonth(currentMonth.lengthOfMonth());
+                LocalDate orderStartInMonth = pet.getStartDate().isBefore(monthStart) ? monthStart : pet.getStartDate();
+                LocalDate orderEndInMonth = pet.getEndDate().isAfter(monthEnd) ? monthEnd : pet.getEndDate();
+
+                // 计算在该月的天数（按过夜计算）
+                long daysInMonth = ChronoUnit.DAYS.between(orderStartInMonth, orderEndInMonth);
+
+                // 只有当该月有实际天数时才计算订单数和收入
+                if (daysInMonth > 0 && totalDays > 0) {
+                    // 获取或创建该月的统计数据
+                    MonthlyOrderStats monthStats = monthlyStatsMap.computeIfAbsent(currentMonthStr, k -> {
+                        MonthlyOrderStats stats = new MonthlyOrderStats();
+                        stats.setMonth(k);
+                        stats.setOrderCount(0);
+                        stats.setTotalIncome(BigDecimal.ZERO);
+                        return stats;
+                    });
+                    monthStats.setOrderCount(monthStats.getOrderCount() + 1);
+
+                    // 计算该月的收入（每日费用 × 天数 + 按比例分配的其他费用）
+                    BigDecimal dailyIncomeInMonth = pet.getDailyFee().multiply(BigDecimal.valueOf(daysInMonth));
+                    BigDecimal otherFeeRatio = BigDecimal.valueOf(daysInMonth).divide(BigDecimal.valueOf(totalDays), 4, BigDecimal.ROUND_HALF_UP);
+                    BigDecimal proportionalOtherFee = pet.getOtherFee().multiply(otherFeeRatio);
+                    BigDecimal monthIncome = dailyIncomeInMonth.add(proportionalOtherFee);
+
+                    monthStats.setTotalIncome(monthStats.getTotalIncome().add(monthIncome));
+                }
+
+                // 移动到下一个月
+                currentMonth = currentMonth.plusMonths(1);
+            }
+        }
+        return monthlyStatsMap;
+    }
+
+    private MonthlyOrderDetailResponse computeMonthlyOrdersDetail(String month) {
+
+        // 解析月份，获取该月的开始和结束日期
+        LocalDate monthStart = LocalDate.parse(month + "-01", DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        LocalDate monthEnd = monthStart.withDayOfMonth(monthStart.lengthOfMonth());
+
+        // 查询所有与指定月份有重叠的宠物订单
+        List<Pet> pets = petService.listOverlapping(monthStart, monthEnd);
+
+        // 查询该月的所有成本记录
+        MonthlyCosts monthlyCosts = sumMonthlyCosts(costService.listByMonth(month));
+
+        // 创建订单详情列表
+        List<OrderDetail> orderDetails = new ArrayList<>();
+        BigDecimal totalIncome = BigDecimal.ZERO;
+
+        for (Pet pet : pets) {
+            OrderDetail detail = toOrderDetail(pet, monthStart, monthEnd);
+            totalIncome = totalIncome.add(detail.getTotalIncome());
+            orderDetails.add(detail);
+        }
+
+        // 按宠物ID排序
+        orderDetails.sort((a, b) -> a.getPetId().compareTo(b.getPetId()));
+
+        // 创建响应对象
+        MonthlyOrderDetailResponse response = new MonthlyOrderDetailResponse();
+        response.setMonth(month);
+        response.setMonthlyCosts(monthlyCosts);
+        response.setOrders(orderDetails);
+        response.setSummary(monthlySummary(totalIncome, monthlyCosts.getTotalCost()));
+
+        return response;
+    }
+
+    /**
+     * 按 monthlyOrdersDetail 的结构逐个字段写出，订单按ID分批读取后逐条写出，汇总在订单之后写出
+     */
+    private void writeComputedMonthlyOrdersDetail(String month, JsonGenerator generator) throws IOException {
+        LocalDate monthStart = LocalDate.parse(month + "-01", DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        LocalDate monthEnd = monthStart.withDayOfMonth(monthStart.lengthOfMonth());
+        MonthlyCosts monthlyCosts = sumMonthlyCosts(costService.listByMonth(month));
+
+        generator.writeStartObject();
+        generator.writeStringField("month", month);
+        generator.writeObjectField("monthlyCosts", monthlyCosts);
+        generator.writeArrayFieldStart("orders");
+        BigDecimal totalIncome = BigDecimal.ZERO;
+        long afterId = Long.MIN_VALUE;
+        List<Pet> batch;
+        do {
+            batch = petService.listOverlappingAfter(monthStart, monthEnd, afterId, streamBatchSize);
+            for (Pet pet : batch) {
+                OrderDetail detail = toOrderDetail(pet, monthStart, monthEnd);
+                totalIncome = totalIncome.add(detail.getTotalIncome());
+                generator.writeObject(detail);
+                afterId = pet.getId();
+            }
+        } while (batch.size() == streamBatchSize);
+        generator.writeEndArray();
+        generator.writeObjectField("summary", monthlySummary(totalIncome, monthlyCosts.getTotalCost()));
+        generator.writeEndObject();
+    }
+
+    /**
+     * 订单在该月内的详情：按该月过夜天数计算收入，其他费用按天数比例分摊
+     */
+    static OrderDetail toOrderDetail(Pet pet, LocalDate monthStart, LocalDate monthEnd) {
+        // 计算该订单在指定月份内的实际日期范围
+        LocalDate orderStartInMonth = pet.getStartDate().isBefore(monthStart) ? monthStart : pet.getStartDate();
+        LocalDate orderEndInMonth = pet.getEndDate().isAfter(monthEnd) ? monthEnd : pet.getEndDate();
+
+        // 计算在指定月份内的天数（按过夜计算）
+        long daysInMonth = ChronoUnit.DAYS.between(orderStartInMonth, orderEndInMonth);
+
+        // 计算订单的总天数（按过夜计算）
+        long totalOrderDays = ChronoUnit.DAYS.between(pet.getStartDate(), pet.getEndDate());
+
+        // 计算该月份的收入
+        BigDecimal dailyIncome = pet.getDailyFee().multiply(BigDecimal.valueOf(daysInMonth));
+
+        // 按比例分配其他费用
+        BigDecimal otherFeeRatio = BigDecimal.valueOf(daysInMonth).divide(BigDecimal.valueOf(totalOrderDays), 4, BigDecimal.ROUND_HALF_UP);
+        BigDecimal proportionalOtherFee = pet.getOtherFee().multiply(otherFeeRatio);
+
+        BigDecimal monthIncome = dailyIncome.add(proportionalOtherFee);
+
+        // 创建订单详情
+        OrderDetail detail = new OrderDetail();
+        detail.setPetId(pet.getId());
+        detail.setPetName(pet.getName());
+        detail.setStartDate(orderStartInMonth);
+        detail.setEndDate(orderEndInMonth);
+        detail.setDaysInMonth((int) daysInMonth);
+        detail.setDailyFee(pet.getDailyFee());
+        detail.setOtherFee(proportionalOtherFee);
+        detail.setTotalIncome(monthIncome);
+        detail.setOriginalStartDate(pet.getStartDate());
+        detail.setOriginalEndDate(pet.getEndDate());
+        detail.setIsCrossMonth(!pet.getStartDate().format(MONTH_FORMAT).equals(pet.getEndDate().format(MONTH_FORMAT)));
+        return detail;
+    }
+
+    /**
+     * 汇总该月各项成本，一次遍历
+     */
+    private static MonthlyCosts sumMonthlyCosts(List<Cost> monthlyCostList) {
+        CostAccumulator accumulator = new CostAccumulator();
+        monthlyCostList.forEach(accumulator::add);
+        return accumulator.toMonthlyCosts();
+    }
+
+    private static MonthlySummary monthlySummary(BigDecimal totalIncome, BigDecimal totalCost) {
+        MonthlySummary summary = new MonthlySummary();
+        summary.setTotalIncome(totalIncome);
+        summary.setTotalCost(totalCost);
+        summary.setNetProfit(totalIncome.subtract(totalCost));
+        return summary;
+    }
+
+    /**
+     * 从incomes表计算总收入（确保与宠物详情一致），由数据库汇总，已归档部分取归档时记录的总额
+     */
+    private BigDecimal calculateTotalIncomeFromIncomes() {
+        return incomeService.sumTotalAmount();
+    }
+
+    /**
+     * 计算总成本（所有成本记录），由数据库汇总
+     */
+    private BigDecimal calculateTotalCost() {
+        return costService.sumTotalCost();
+    }
+
+    /**
+     * 计算指定月份的收入（处理跨月份订单）
+     */
+    private BigDecimal calculateMonthlyIncome(LocalDate monthStart, LocalDate monthEnd) {
+        // 查询所有与指定月份有重叠的宠物订单
+        List<Pet> pets = petService.listOverlapping(monthStart, monthEnd);
+
+        BigDecimal totalIncome = BigDecimal.ZERO;
+
+        for (Pet pet : pets) {
+            // 计算该订单在指定月份内的天数
+            LocalDate orderStart = pet.getStartDate().isBefore(monthStart) ? monthStart : pet.getStartDate();
+            LocalDate orderEnd = pet.getEndDate().isAfter(monthEnd) ? monthEnd : pet.getEndDate();
+
+            // 计算在指定月份内的天数（按过夜计算）
+            long daysInMonth = ChronoUnit.DAYS.between(orderStart, orderEnd);
+
+            // 计算该订单在指定月份内的收入
+            BigDecimal dailyIncome = pet.getDailyFee().multiply(BigDecimal.valueOf(daysInMonth));
+
+            // 如果订单跨越月份，需要按比例分配其他费用
+            long totalOrderDays = ChronoUnit.DAYS.between(pet.getStartDate(), pet.getEndDate());
+            BigDecimal otherFeeRatio = BigDecimal.valueOf(daysInMonth).divide(BigDecimal.valueOf(totalOrderDays), 4, BigDecimal.ROUND_HALF_UP);
+            BigDecimal proportionalOtherFee = pet.getOtherFee().multiply(otherFeeRatio);
+
+            totalIncome = totalIncome.add(dailyIncome).add(proportionalOtherFee);
+        }
+
+        return totalIncome;
+    }
+
+    /**
+     * 计算指定月份的已入账金额
+     * 与月份有交集的订单按该月过夜天数占比分摊已结算金额，由数据库一次分组汇总
+     */
+    private BigDecimal calculateSettledAmount(LocalDate monthStart) {
+        YearMonth month = YearMonth.from(monthStart);
+        return incomeService.sumSettledByMonth(month, month).stream()
+                .map(MonthlyAmount::getAmount)
+                .findFirst()
+                .orElse(BigDecimal.ZERO);
+    }
+
+    /**
+     * 计算指定月份的总成本
+     */
+    private BigDecimal calculateMonthlyCost(String month) {
+        List<Cost> costs = costService.listByMonth(month);
+
+        return costs.stream()
+                .map(Cost::getTotalCost)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,153 @@
+package com.petcare.finance.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.petcare.common.datasource.MigrationTable;
+import com.petcare.common.event.DataChangedEvent;
+import com.petcare.common.web.BusinessException;
+import com.petcare.finance.mapper.IncomeMapper;
+import com.petcare.finance.mapper.IncomePaymentMapper;
+import com.petcare.finance.model.Income;
+import com.petcare.finance.model.IncomePayment;
+import com.petcare.finance.service.FinanceMonthService;
+import com.petcare.finance.service.IncomePaymentService;
+import com.petcare.pet.mapper.PetMapper;
+import com.petcare.pet.model.Pet;
+import com.petcare.system.service.AuditLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 收款流水实现
+ * 入账只执行一条 UPDATE incomes SET settled_amount = settled_amount + ? 与一条 INSERT，
+ * 不需要先读后写；并发入账在行锁上排队，范围校验在 UPDATE 条件中完成。
+ * income_payments 表未创建时仍累加已结算金额，只是不记录流水
+ */
+@Service
+public class IncomePaymentServiceImpl extends ServiceImpl<IncomePaymentMapper, IncomePayment> implements IncomePaymentService {
+
+    private static final Logger log = LoggerFactory.getLogger(IncomePaymentServiceImpl.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO income_payments (income_id, amount, remark, paid_at) VALUES (?, ?, ?, ?)";
+
+    private final IncomeMapper incomeMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final MigrationTable paymentsTable;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PetMapper petMapper;
+    private final FinanceMonthService financeMonthService;
+    private final AuditLogService auditLogService;
+
+    public IncomePaymentServiceImpl(IncomeMapper incomeMapper, JdbcTemplate jdbcTemplate,
+                                    ApplicationEventPublisher eventPublisher, PetMapper petMapper,
+                                    FinanceMonthService financeMonthService, AuditLogService auditLogService) {
+        this.incomeMapper = incomeMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.paymentsTable = new MigrationTable(jdbcTemplate, "income_payments", "002_income_payments.sql", "入账不记录流水");
+        this.eventPublisher = eventPublisher;
+        this.petMapper = petMapper;
+        this.financeMonthService = financeMonthService;
+        this.auditLogService = auditLogService;
+    }
+
+    @Override
+    @Transactional
+    public IncomePayment record(Long incomeId, BigDecimal amount, String remark) {
+        if (amount == null || amount.signum() == 0) {
+            throw new BusinessException("入账金额不能为空或0");
+        }
+        boolean updated = incomeMapper.addSettled(incomeId, amount, null) > 0;
+        // 累加成功时本事务已持有该行的行锁，读到的就是累加后的结果；失败时读取用于提示
+        Income income = incomeMapper.selectById(incomeId);
+        if (income == null) {
+            throw new BusinessException("收入记录不存在: " + incomeId);
+        }
+        if (!updated) {
+            throw new BusinessException("入账后已结算金额需在 0 与总金额之间，当前已结算 "
+                    + income.getSettledAmount() + "，总金额 " + income.getTotalAmount());
+        }
+        // 已入账金额按订单过夜天数分摊到各月，订单涉及已结账月份时该月报表会改变
+        Pet pet = petMapper.selectById(income.getPetId());
+        if (pet != null) {
+            financeMonthService.checkWritable(pet.getStartDate(), pet.getEndDate());
+        }
+        IncomePayment payment = append(incomeId, amount, remark);
+        // 审计只记录已结算金额的变化，入账前的值由累加后的结果倒推
+        Income before = new Income();
+        before.setSettledAmount(income.getSettledAmount().subtract(amount));
+        Income after = new Income();
+        after.setSettledAmount(income.getSettledAmount());
+        auditLogService.record(DataChangedEvent.TABLE_INCOMES, incomeId, AuditLogService.Action.UPDATE, before, after);
+        eventPublisher.publishEvent(DataChangedEvent.pets(List.of(income.getPetId())));
+        return payment;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void settleTo(Income income, BigDecimal target, String remark) {
+        BigDecimal current = income.getSettledAmount() != null ? income.getSettledAmount() : BigDecimal.ZERO;
+        BigDecimal delta = target.subtract(current);
+        if (delta.signum() == 0) {
+            return;
+        }
+        if (incomeMapper.addSettled(income.getId(), delta, current) == 0) {
+            Income latest = incomeMapper.selectById(income.getId());
+            if (latest != null && latest.getSettledAmount() != null && latest.getSettledAmount().compareTo(current) != 0) {
+                throw new BusinessException("已结算金额已被其他请求修改，请刷新后重试");
+            }
+            throw new BusinessException("已结算金额需在 0 与总金额之间");
+        }
+        append(income.getId(), delta, remark);
+        income.setSettledAmount(target);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordOpening(List<Income> incomes) {
+        if (!paymentsTable.isAvailable()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = incomes.stream()
+                .filter(income -> income.getSettledAmount() != null && income.getSettledAmount().signum() != 0)
+                .map(income -> new Object[]{income.getId(), income.getSettledAmount(), "期初余额", now})
+                .collect(Collectors.toList());
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+    }
+
+    @Override
+    public List<IncomePayment> listByIncome(Long incomeId) {
+        if (!paymentsTable.isAvailable()) {
+            throw new BusinessException("收款流水未启用：请先执行 db/migration/002_income_payments.sql");
+        }
+        return list(new LambdaQueryWrapper<IncomePayment>()
+                .eq(IncomePayment::getIncomeId, incomeId)
+                .orderByAsc(IncomePayment::getId));
+    }
+
+    private IncomePayment append(Long incomeId, BigDecimal amount, String remark) {
+        IncomePayment payment = new IncomePayment();
+        payment.setIncomeId(incomeId);
+        payment.setAmount(amount);
+        payment.setRemark(remark);
+        payment.setPaidAt(LocalDateTime.now());
+        if (paymentsTable.isAvailable()) {
+            baseMapper.insert(payment);
+        }
+        return payment;
+    }
+}
@@ -3,11 +3,35 @@ package com.petcare.finance.service.impl;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.petcare.finance.mapper.IncomeMapper;
 import com.petcare.finance.model.Income;
+import com.petcare.finance.model.vo.MonthlyAmount;
 import com.petcare.finance.service.IncomeService;
+import com.petcare.pet.service.PetArchiveService;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
 @Service
 public class IncomeServiceImpl extends ServiceImpl<IncomeMapper, Income> implements IncomeService {
-}
 
+    private final PetArchiveService petArchiveService;
+
+    public IncomeServiceImpl(PetArchiveService petArchiveService) {
+        this.petArchiveService = petArchiveService;
+    }
 
+    @Override
+    public List<MonthlyAmount> sumSettledByMonth(YearMonth from, YearMonth to) {
+        LocalDate historyFrom = petArchiveService.historyStartBound(from.atDay(1), to.atEndOfMonth());
+        return historyFrom == null ? baseMapper.selectSettledByMonth(from.atDay(1), to.atDay(1))
+                : baseMapper.selectSettledByMonthWithHistory(from.atDay(1), to.atDay(1), historyFrom);
+    }
+
+    @Override
+    public BigDecimal sumTotalAmount() {
+        // 已归档部分取归档时记录的总额，不扫描历史表
+        return baseMapper.sumTotalAmount().add(petArchiveService.archivedIncomeTotal());
+    }
+}
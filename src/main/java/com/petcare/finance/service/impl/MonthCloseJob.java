@@ -0,0 +1,91 @@
+package com.petcare.finance.service.impl;
+
+import com.petcare.common.job.ClusterJob;
+import com.petcare.common.job.JobScheduler;
+import com.petcare.finance.model.vo.ClosedMonth;
+import com.petcare.finance.service.FinanceMonthService;
+import com.petcare.finance.service.FinanceReportService;
+import com.petcare.pet.service.PetService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 月度自动结账任务
+ * 从最早有订单或成本的月份起，结账除最近 keep-open-months 个已结束月份之外的所有未结账月份，
+ * 保留的月份用于补录迟到的成本与收款。默认不定时触发（cron 为 "-"），可通过 /api/admin/jobs 手动执行
+ */
+@Component
+public class MonthCloseJob implements ClusterJob {
+
+    static final String NAME = "finance-month-close";
+
+    private static final String EARLIEST_COST_MONTH_SQL =
+            "SELECT to_date(min(cost_month), 'YYYY-MM') FROM costs WHERE cost_month ~ '^[0-9]{4}-[0-9]{2}$'";
+
+    private final FinanceReportService financeReportService;
+    private final FinanceMonthService financeMonthService;
+    private final PetService petService;
+    private final JdbcTemplate jdbcTemplate;
+    private final JobScheduler jobScheduler;
+    private final int keepOpenMonths;
+
+    public MonthCloseJob(FinanceReportService financeReportService, FinanceMonthService financeMonthService,
+                         PetService petService, JdbcTemplate jdbcTemplate, JobScheduler jobScheduler,
+                         @Value("${petcare.jobs.month-close.keep-open-months:1}") int keepOpenMonths) {
+        this.financeReportService = financeReportService;
+        this.financeMonthService = financeMonthService;
+        this.petService = petService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobScheduler = jobScheduler;
+        this.keepOpenMonths = Math.max(0, keepOpenMonths);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String description() {
+        return "结账最近 " + keepOpenMonths + " 个已结束月份之前的所有未结账月份";
+    }
+
+    @Override
+    public long execute() {
+        if (!financeMonthService.isEnabled()) {
+            return 0;
+        }
+        // 最早的订单（含已归档订单）与最早的成本月份中较早者
+        LocalDate earliest = petService.earliestStartDate();
+        LocalDate earliestCost = jdbcTemplate.queryForObject(EARLIEST_COST_MONTH_SQL, LocalDate.class);
+        if (earliest == null || (earliestCost != null && earliestCost.isBefore(earliest))) {
+            earliest = earliestCost;
+        }
+        if (earliest == null) {
+            return 0;
+        }
+        Set<String> closed = financeMonthService.listClosed().stream().map(ClosedMonth::getMonth).collect(Collectors.toSet());
+        YearMonth last = YearMonth.now().minusMonths(1L + keepOpenMonths);
+        long count = 0;
+        // 每个月单独一个事务，中途失败时已结账的月份保留
+        for (YearMonth month = YearMonth.from(earliest); !month.isAfter(last); month = month.plusMonths(1)) {
+            if (!closed.contains(month.toString())) {
+                financeReportService.closeMonth(month);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Scheduled(cron = "${petcare.jobs.month-close.cron:-}")
+    public void scheduled() {
+        jobScheduler.runScheduled(NAME);
+    }
+}
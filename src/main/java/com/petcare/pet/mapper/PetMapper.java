@@ -1,11 +1,249 @@
 package com.petcare.pet.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.petcare.finance.model.Income;
 import com.petcare.pet.model.Pet;
+import com.petcare.pet.model.vo.DailyCapacityCount;
+import com.petcare.pet.model.vo.PetListFilter;
+import com.petcare.pet.model.vo.PetListTotals;
+import com.petcare.pet.model.vo.PetStatusChange;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 宠物记录
+ * 带收入汇总的查询与写入在一条语句内完成：寄养天数按过夜计算，总金额与已入账金额取该宠物所有收入记录之和，
+ * 寄养费用取第一条非空 total_fee，无收入记录时金额为 0。
+ * 写入语句以 @Select 执行以取回 RETURNING 结果，需刷新会话缓存，避免同一事务内之后的查询读到旧结果。
+ * 高频查询（列表、容量、财务报表）使用固定文本的语句，不在每次请求时由条件构造器拼接 SQL
+ */
 @Mapper
 public interface PetMapper extends BaseMapper<Pet> {
-}
 
+    String ENRICHED_COLUMNS = "p.*, GREATEST(p.end_date - p.start_date, 0) AS stay_days, " +
+            "coalesce(s.total_amount, 0) AS total_amount, coalesce(s.settled_amount, 0) AS settled_amount, s.total_fee ";
+
+    String INCOME_TOTALS = "sum(total_amount) AS total_amount, sum(settled_amount) AS settled_amount, " +
+            "(array_agg(total_fee) FILTER (WHERE total_fee IS NOT NULL))[1] AS total_fee ";
+
+    String INCOME_COLUMNS = "total_amount, settled_amount, total_fee";
+
+    String PET_COLUMNS = "id, name, breed, gender, age, neutered, start_date, end_date, daily_fee, other_fee, remark, status, " +
+            "created_at, updated_at";
+
+    // 已归档订单只查开始日期不早于 historyFrom 的历史分区，其余分区由 PostgreSQL 裁剪
+    String HISTORY_OVERLAPPING = "SELECT " + PET_COLUMNS + " FROM pets_history WHERE start_date >= #{historyFrom}::date " +
+            "AND start_date <= #{to}::date AND end_date >= #{from}::date ";
+
+    // 列表筛选条件：语句文本固定，未传的条件以 NULL 参数跳过
+    String LIST_FILTER = "WHERE (#{f.status}::varchar IS NULL OR status = #{f.status}::varchar) " +
+            "AND (#{f.statuses}::varchar IS NULL OR status = ANY(string_to_array(#{f.statuses}::varchar, ','))) " +
+            "AND (#{f.startDate}::date IS NULL OR start_date >= #{f.startDate}::date) " +
+            "AND (#{f.endDate}::date IS NULL OR end_date <= #{f.endDate}::date) ";
+
+    /**
+     * 查询宠物及其收入汇总
+     */
+    @Select("SELECT " + ENRICHED_COLUMNS + "FROM pets p " +
+            "LEFT JOIN LATERAL (SELECT " + INCOME_TOTALS + "FROM incomes WHERE pet_id = p.id) s ON true " +
+            "WHERE p.id = #{id}")
+    Pet selectWithIncome(@Param("id") Long id);
+
+    /**
+     * 宠物列表分页，带收入汇总，按ID排序；limit 为 null 时不限条数
+     */
+    @Select("SELECT " + ENRICHED_COLUMNS + "FROM (SELECT * FROM pets " + LIST_FILTER +
+            "  ORDER BY id LIMIT #{limit} OFFSET #{offset}) p " +
+            "LEFT JOIN LATERAL (SELECT " + INCOME_TOTALS + "FROM incomes WHERE pet_id = p.id) s ON true " +
+            "ORDER BY p.id")
+    List<Pet> selectListPage(@Param("f") PetListFilter filter, @Param("limit") Long limit, @Param("offset") long offset);
+
+    /**
+     * 宠物列表筛选条件下的记录数
+     */
+    @Select("SELECT count(*) FROM pets " + LIST_FILTER)
+    long countList(@Param("f") PetListFilter filter);
+
+    /**
+     * 按列表筛选条件汇总全部记录的记录数、寄养天数与收入金额
+     */
+    @Select("WITH p AS (SELECT id, start_date, end_date FROM pets " + LIST_FILTER + "), " +
+            "i AS (SELECT pet_id, sum(total_amount) AS total_amount, sum(settled_amount) AS settled_amount " +
+            "  FROM incomes WHERE pet_id IN (SELECT id FROM p) GROUP BY pet_id) " +
+            "SELECT count(*) AS pet_count, coalesce(sum(GREATEST(p.end_date - p.start_date, 0)), 0) AS total_stay_days, " +
+            "  coalesce(sum(i.total_amount), 0) AS total_amount, coalesce(sum(i.settled_amount), 0) AS total_settled_amount " +
+            "FROM p LEFT JOIN i ON i.pet_id = p.id")
+    PetListTotals selectListTotals(@Param("f") PetListFilter filter);
+
+    /**
+     * 与 [from, to] 闭区间有交集的全部订单（不限状态）
+     */
+    @Select("SELECT * FROM pets WHERE start_date <= #{to}::date AND end_date >= #{from}::date")
+    List<Pet> selectOverlapping(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 与 [from, to] 闭区间有交集、ID大于 afterId 的订单（不限状态），按ID取前 limit 条，用于分批读取
+     */
+    @Select("SELECT * FROM pets WHERE start_date <= #{to}::date AND end_date >= #{from}::date AND id > (#{afterId})::bigint " +
+            "ORDER BY id LIMIT #{limit}")
+    List<Pet> selectOverlappingAfter(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                     @Param("afterId") long afterId, @Param("limit") int limit);
 
+    /**
+     * 与 [from, to] 闭区间有交集的全部订单，含开始日期不早于 historyFrom 的已归档订单
+     */
+    @Select("SELECT " + PET_COLUMNS + " FROM pets WHERE start_date <= #{to}::date AND end_date >= #{from}::date " +
+            "UNION ALL " + HISTORY_OVERLAPPING)
+    List<Pet> selectOverlappingWithHistory(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                           @Param("historyFrom") LocalDate historyFrom);
+
+    /**
+     * 与 selectOverlappingAfter 相同，含开始日期不早于 historyFrom 的已归档订单
+     */
+    @Select("SELECT * FROM (SELECT " + PET_COLUMNS + " FROM pets WHERE start_date <= #{to}::date AND end_date >= #{from}::date " +
+            "  AND id > (#{afterId})::bigint " +
+            "  UNION ALL " + HISTORY_OVERLAPPING + "AND id > (#{afterId})::bigint) p " +
+            "ORDER BY id LIMIT #{limit}")
+    List<Pet> selectOverlappingAfterWithHistory(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                                @Param("historyFrom") LocalDate historyFrom,
+                                                @Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 与 [from, to] 闭区间有交集的预约与在住订单
+     */
+    @Select("SELECT * FROM pets WHERE start_date <= #{to}::date AND end_date >= #{from}::date " +
+            "AND status IN ('booked', 'checkedIn')")
+    List<Pet> selectActiveOverlapping(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * [from, to] 内每天的预约与在住数量，没有订单的日期数量为 0
+     */
+    @Select("SELECT d::date AS date, " +
+            "  count(p.id) FILTER (WHERE p.status = 'booked') AS booked_count, " +
+            "  count(p.id) FILTER (WHERE p.status = 'checkedIn') AS checked_in_count " +
+            "FROM generate_series(#{from}::date, #{to}::date, interval '1 day') AS d " +
+            "LEFT JOIN pets p ON p.start_date <= d::date AND p.end_date >= d::date AND p.status IN ('booked', 'checkedIn') " +
+            "GROUP BY d ORDER BY d")
+    List<DailyCapacityCount> countActiveByDate(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 结束日期不早于 date 的全部订单
+     */
+    @Select("SELECT * FROM pets WHERE end_date >= #{date}::date")
+    List<Pet> selectEndingFrom(@Param("date") LocalDate date);
+
+    /**
+     * 结束日期不早于 date 的全部订单，含开始日期不早于 historyFrom 的已归档订单
+     */
+    @Select("SELECT " + PET_COLUMNS + " FROM pets WHERE end_date >= #{date}::date " +
+            "UNION ALL SELECT " + PET_COLUMNS + " FROM pets_history WHERE start_date >= #{historyFrom}::date AND end_date >= #{date}::date")
+    List<Pet> selectEndingFromWithHistory(@Param("date") LocalDate date, @Param("historyFrom") LocalDate historyFrom);
+
+    /**
+     * 热表中最早的开始日期，没有订单时为 null
+     */
+    @Select("SELECT min(start_date) FROM pets")
+    LocalDate selectEarliestStartDate();
+
+    /**
+     * 新增宠物并在同一语句内创建收入记录（该宠物已有收入记录时不再创建），返回带收入汇总的宠物记录。
+     * 插入的收入记录对同一语句的查询不可见，汇总时由 RETURNING 结果与已有记录合并
+     */
+    @Select("WITH p AS (" +
+            "  INSERT INTO pets (id, name, breed, gender, age, neutered, start_date, end_date, daily_fee, other_fee, remark, status, created_at, updated_at) " +
+            "  VALUES (#{pet.id}, #{pet.name}, #{pet.breed}, #{pet.gender}, #{pet.age}, #{pet.neutered}, #{pet.startDate}, #{pet.endDate}, " +
+            "    #{pet.dailyFee}, #{pet.otherFee}, #{pet.remark}, #{pet.status}, #{pet.createdAt}, #{pet.updatedAt}) RETURNING *), " +
+            "i AS (" +
+            "  INSERT INTO incomes (id, pet_id, daily_fee, other_fee, total_fee, days_stayed, total_amount, settled_amount, remark, created_at, updated_at) " +
+            "  SELECT #{income.id}::bigint, p.id, #{income.dailyFee}::numeric, #{income.otherFee}::numeric, #{income.totalFee}::numeric, " +
+            "    #{income.daysStayed}::integer, #{income.totalAmount}::numeric, #{income.settledAmount}::numeric, #{income.remark}::varchar, " +
+            "    #{income.createdAt}::timestamp, #{income.updatedAt}::timestamp " +
+            "  FROM p WHERE NOT EXISTS (SELECT 1 FROM incomes WHERE pet_id = p.id) RETURNING " + INCOME_COLUMNS + ") " +
+            "SELECT " + ENRICHED_COLUMNS + "FROM p " +
+            "LEFT JOIN LATERAL (SELECT " + INCOME_TOTALS + "FROM (SELECT " + INCOME_COLUMNS + " FROM i " +
+            "  UNION ALL SELECT " + INCOME_COLUMNS + " FROM incomes WHERE pet_id = p.id) x) s ON true")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    Pet insertWithIncome(@Param("pet") Pet pet, @Param("income") Income income);
+
+    /**
+     * 修改宠物状态，返回修改后带收入汇总的记录与修改前的状态；记录不存在时返回 null。
+     * 先锁定该行再读取原状态，并发修改时读到的是前一个提交的状态
+     */
+    @Select("WITH old AS (SELECT id, status FROM pets WHERE id = #{id} FOR UPDATE), " +
+            "p AS (UPDATE pets SET status = #{status}, updated_at = #{updatedAt} FROM old WHERE pets.id = old.id " +
+            "  RETURNING pets.*, old.status AS previous_status) " +
+            "SELECT " + ENRICHED_COLUMNS + "FROM p " +
+            "LEFT JOIN LATERAL (SELECT " + INCOME_TOTALS + "FROM incomes WHERE pet_id = p.id) s ON true")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    PetStatusChange updateStatus(@Param("id") Long id, @Param("status") String status, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 离店结算：更新该宠物最早的一条收入记录，没有则新建，返回带收入汇总的宠物记录。
+     * 写入的收入记录对同一语句的查询不可见，汇总时用 RETURNING 结果替换其旧值
+     */
+    @Select("WITH target AS (SELECT id FROM incomes WHERE pet_id = #{income.petId} ORDER BY id LIMIT 1 FOR UPDATE), " +
+            "upd AS (" +
+            "  UPDATE incomes SET daily_fee = #{income.dailyFee}, other_fee = #{income.otherFee}, days_stayed = #{income.daysStayed}, " +
+            "    total_amount = #{income.totalAmount}, remark = #{income.remark}, updated_at = #{income.updatedAt} " +
+            "  WHERE id IN (SELECT id FROM target) RETURNING id, " + INCOME_COLUMNS + "), " +
+            "ins AS (" +
+            "  INSERT INTO incomes (id, pet_id, daily_fee, other_fee, total_fee, days_stayed, total_amount, settled_amount, remark, created_at, updated_at) " +
+            "  SELECT #{income.id}::bigint, #{income.petId}::bigint, #{income.dailyFee}::numeric, #{income.otherFee}::numeric, NULL::numeric, " +
+            "    #{income.daysStayed}::integer, #{income.totalAmount}::numeric, 0, #{income.remark}::varchar, " +
+            "    #{income.createdAt}::timestamp, #{income.updatedAt}::timestamp " +
+            "  WHERE NOT EXISTS (SELECT 1 FROM target) RETURNING id, " + INCOME_COLUMNS + "), " +
+            "written AS (SELECT * FROM upd UNION ALL SELECT * FROM ins) " +
+            "SELECT " + ENRICHED_COLUMNS + "FROM pets p " +
+            "LEFT JOIN LATERAL (SELECT " + INCOME_TOTALS + "FROM (SELECT " + INCOME_COLUMNS + " FROM written " +
+            "  UNION ALL SELECT " + INCOME_COLUMNS + " FROM incomes WHERE pet_id = p.id AND id NOT IN (SELECT id FROM written)) x) s ON true " +
+            "WHERE p.id = #{income.petId}")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    Pet settleCheckout(@Param("income") Income income);
+
+    /**
+     * 批量修改宠物状态，返回修改后带收入汇总的记录与各自修改前的状态，不存在的ID不返回。
+     * 按ID顺序加锁，避免两个批量请求交叉加锁死锁
+     */
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    @Select("<script>WITH old AS (SELECT id, status FROM pets WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> ORDER BY id FOR UPDATE), " +
+            "p AS (UPDATE pets SET status = #{status}, updated_at = #{updatedAt} FROM old WHERE pets.id = old.id " +
+            "  RETURNING pets.*, old.status AS previous_status) " +
+            "SELECT " + ENRICHED_COLUMNS + "FROM p " +
+            "LEFT JOIN LATERAL (SELECT " + INCOME_TOTALS + "FROM incomes WHERE pet_id = p.id) s ON true</script>")
+    List<PetStatusChange> updateStatusBatch(@Param("ids") Collection<Long> ids, @Param("status") String status,
+                                            @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 批量离店结算：每只宠物更新其最早的一条收入记录，没有则新建，返回带收入汇总的宠物记录
+     */
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    @Select("<script>WITH v (id, pet_id, daily_fee, other_fee, days_stayed, total_amount, remark, created_at, updated_at) AS (VALUES " +
+            "<foreach collection='incomes' item='i' separator=','>(#{i.id}::bigint, #{i.petId}::bigint, #{i.dailyFee}::numeric, " +
+            "#{i.otherFee}::numeric, #{i.daysStayed}::integer, #{i.totalAmount}::numeric, #{i.remark}::varchar, " +
+            "#{i.createdAt}::timestamp, #{i.updatedAt}::timestamp)</foreach>), " +
+            "target AS (SELECT pet_id, min(id) AS id FROM incomes WHERE pet_id IN (SELECT pet_id FROM v) GROUP BY pet_id), " +
+            "upd AS (" +
+            "  UPDATE incomes SET daily_fee = v.daily_fee, other_fee = v.other_fee, days_stayed = v.days_stayed, " +
+            "    total_amount = v.total_amount, remark = v.remark, updated_at = v.updated_at " +
+            "  FROM v JOIN target ON target.pet_id = v.pet_id WHERE incomes.id = target.id " +
+            "  RETURNING incomes.id, incomes.pet_id, incomes.total_amount, incomes.settled_amount, incomes.total_fee), " +
+            "ins AS (" +
+            "  INSERT INTO incomes (id, pet_id, daily_fee, other_fee, total_fee, days_stayed, total_amount, settled_amount, remark, created_at, updated_at) " +
+            "  SELECT v.id, v.pet_id, v.daily_fee, v.other_fee, NULL::numeric, v.days_stayed, v.total_amount, 0, v.remark, v.created_at, v.updated_at " +
+            "  FROM v WHERE NOT EXISTS (SELECT 1 FROM target WHERE target.pet_id = v.pet_id) " +
+            "  RETURNING id, pet_id, " + INCOME_COLUMNS + "), " +
+            "written AS (SELECT * FROM upd UNION ALL SELECT * FROM ins) " +
+            "SELECT " + ENRICHED_COLUMNS + "FROM pets p " +
+            "LEFT JOIN LATERAL (SELECT " + INCOME_TOTALS + "FROM (SELECT " + INCOME_COLUMNS + " FROM written WHERE pet_id = p.id " +
+            "  UNION ALL SELECT " + INCOME_COLUMNS + " FROM incomes WHERE pet_id = p.id AND id NOT IN (SELECT id FROM written)) x) s ON true " +
+            "WHERE p.id IN (SELECT pet_id FROM v)</script>")
+    List<Pet> settleCheckoutBatch(@Param("incomes") Collection<Income> incomes);
+}
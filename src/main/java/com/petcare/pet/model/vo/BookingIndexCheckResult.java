@@ -0,0 +1,43 @@
+package com.petcare.pet.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预约区间索引一致性检查结果
+ */
+@Data
+@Schema(description = "预约区间索引一致性检查结果")
+public class BookingIndexCheckResult {
+
+    @Schema(description = "索引中的预约数", example = "42")
+    private int indexedCount;
+
+    @Schema(description = "数据库中未离店的预约数", example = "42")
+    private int databaseCount;
+
+    @Schema(description = "数据库中存在但索引缺失的预约ID（最多列出20个）")
+    private List<Long> missingIds = new ArrayList<>();
+
+    @Schema(description = "索引中存在但数据库已离店或删除的预约ID（最多列出20个）")
+    private List<Long> staleIds = new ArrayList<>();
+
+    @Schema(description = "姓名、状态或起止日期与数据库不一致的预约ID（最多列出20个）")
+    private List<Long> mismatchedIds = new ArrayList<>();
+
+    @Schema(description = "差异总数", example = "0")
+    private int differenceCount;
+
+    @Schema(description = "是否已用数据库结果修复索引", example = "false")
+    private boolean repaired;
+
+    @Schema(description = "检查耗时（毫秒）", example = "15")
+    private long elapsedMillis;
+
+    public boolean isConsistent() {
+        return differenceCount == 0;
+    }
+}
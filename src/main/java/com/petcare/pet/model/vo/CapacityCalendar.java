@@ -0,0 +1,19 @@
+package com.petcare.pet.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+
+/**
+ * 月容量日历（列式格式）
+ * 数组的第 i 个元素对应 startDate 之后第 i 天
+ */
+@Schema(description = "月容量日历（列式）")
+public record CapacityCalendar(
+        @Schema(description = "月份", example = "2025-10") String month,
+        @Schema(description = "最大容量", example = "20") int maxCapacity,
+        @Schema(description = "第一天", example = "2025-10-01") LocalDate startDate,
+        @Schema(description = "每天的预约数量") int[] bookedCount,
+        @Schema(description = "每天的在住数量") int[] checkedInCount,
+        @Schema(description = "每天的可用容量") int[] availableCount) {
+}
@@ -0,0 +1,22 @@
+package com.petcare.pet.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 某一天的预约与在住数量
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyCapacityCount {
+
+    private LocalDate date;
+
+    private long bookedCount;
+
+    private long checkedInCount;
+}
@@ -0,0 +1,45 @@
+package com.petcare.pet.model.vo;
+
+import com.petcare.pet.model.Pet;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量入住/离店结果
+ */
+@Data
+@Schema(description = "批量入住/离店结果")
+public class PetBatchResult {
+
+    @Schema(description = "处理成功的宠物数", example = "20")
+    private int updatedCount;
+
+    @Schema(description = "处理后的宠物记录（含寄养天数与收入汇总），按请求中的顺序")
+    private List<Pet> pets = new ArrayList<>();
+
+    @Schema(description = "不存在的宠物ID")
+    private List<Long> notFoundIds = new ArrayList<>();
+
+    @Schema(description = "未处理的宠物及原因（如已离店的宠物重新入住时容量已满）")
+    private List<Rejection> rejected = new ArrayList<>();
+
+    /**
+     * 未处理的宠物
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "未处理的宠物")
+    public static class Rejection {
+        @Schema(description = "宠物ID", example = "1710000000001")
+        private Long petId;
+
+        @Schema(description = "原因", example = "容量已满：2025-10-01 已达到最大容量 10")
+        private String message;
+    }
+}
@@ -0,0 +1,56 @@
+package com.petcare.pet.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量导入结果
+ * 包含导入统计与逐行错误报告
+ */
+@Data
+@Schema(description = "批量导入结果")
+public class PetImportResult {
+
+    @Schema(description = "读取的总行数", example = "10000")
+    private int totalRows;
+
+    @Schema(description = "成功导入的行数", example = "9998")
+    private int importedRows;
+
+    @Schema(description = "失败的行数", example = "2")
+    private int failedRows;
+
+    @Schema(description = "导入耗时（毫秒）", example = "3200")
+    private long elapsedMillis;
+
+    @Schema(description = "逐行错误报告")
+    private List<RowError> errors = new ArrayList<>();
+
+    public void addError(int rowNumber, Long petId, String message) {
+        errors.add(new RowError(rowNumber, petId, message));
+        failedRows++;
+    }
+
+    /**
+     * 单行错误信息
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "导入错误行")
+    public static class RowError {
+        @Schema(description = "行号（JSON为数组下标+1，CSV为数据行序号）", example = "12")
+        private int row;
+
+        @Schema(description = "宠物ID（如可解析）", example = "1710000000001")
+        private Long petId;
+
+        @Schema(description = "错误原因", example = "结束日期不能早于开始日期")
+        private String message;
+    }
+}
@@ -0,0 +1,32 @@
+package com.petcare.pet.model.vo;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 宠物列表筛选条件，为空的条件不参与筛选
+ */
+@Data
+public class PetListFilter {
+
+    /**
+     * 单个状态
+     */
+    private String status;
+
+    /**
+     * 多个状态（逗号分隔）
+     */
+    private String statuses;
+
+    /**
+     * 开始日期不早于
+     */
+    private LocalDate startDate;
+
+    /**
+     * 结束日期不晚于
+     */
+    private LocalDate endDate;
+}
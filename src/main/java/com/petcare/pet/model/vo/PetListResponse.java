@@ -9,7 +9,7 @@ import java.math.BigDecimal;
 
 /**
  * 宠物列表响应对象
- * 包含分页数据和统计信息
+ * 包含分页数据和统计信息；统计为筛选条件下全部记录的汇总，不限于当前页
  */
 @Data
 @Schema(description = "宠物列表响应")
@@ -30,38 +30,33 @@ public class PetListResponse {
     @Schema(description = "每页大小")
     private Long size;
     
-    @Schema(description = "总寄养天数")
+    @Schema(description = "总寄养天数（筛选条件下全部记录）")
     private Integer totalStayDays;
     
-    @Schema(description = "总费用")
+    @Schema(description = "总费用（筛选条件下全部记录）")
     private BigDecimal totalAmount;
     
-    @Schema(description = "已入账总金额")
+    @Schema(description = "已入账总金额（筛选条件下全部记录）")
     private BigDecimal totalSettledAmount;
     
-    @Schema(description = "未入账总金额")
+    @Schema(description = "未入账总金额（筛选条件下全部记录）")
     private BigDecimal totalUnsettledAmount;
     
-    public PetListResponse(Page<Pet> page) {
+    /**
+     * @param totals 筛选条件下全部记录的汇总，为 null 时不返回汇总字段
+     */
+    public PetListResponse(Page<Pet> page, PetListTotals totals) {
         this.records = page;
         this.total = page.getTotal();
         this.pages = page.getPages();
         this.current = page.getCurrent();
         this.size = page.getSize();
-        
-        // 计算统计信息
-        this.totalStayDays = page.getRecords().stream()
-                .mapToInt(pet -> pet.getStayDays() != null ? pet.getStayDays() : 0)
-                .sum();
-        
-        this.totalAmount = page.getRecords().stream()
-                .map(pet -> pet.getTotalAmount() != null ? pet.getTotalAmount() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        this.totalSettledAmount = page.getRecords().stream()
-                .map(pet -> pet.getSettledAmount() != null ? pet.getSettledAmount() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        this.totalUnsettledAmount = this.totalAmount.subtract(this.totalSettledAmount);
+
+        if (totals != null) {
+            this.totalStayDays = totals.getTotalStayDays();
+            this.totalAmount = totals.getTotalAmount();
+            this.totalSettledAmount = totals.getTotalSettledAmount();
+            this.totalUnsettledAmount = this.totalAmount.subtract(this.totalSettledAmount);
+        }
     }
 }
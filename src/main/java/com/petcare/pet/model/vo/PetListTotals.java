@@ -0,0 +1,26 @@
+package com.petcare.pet.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 宠物列表筛选条件下全部记录的汇总
+ */
+@Data
+@Schema(description = "宠物列表汇总")
+public class PetListTotals {
+
+    @Schema(description = "记录数", example = "120")
+    private Long petCount;
+
+    @Schema(description = "总寄养天数（按过夜计算）", example = "356")
+    private Integer totalStayDays;
+
+    @Schema(description = "总费用", example = "42800.00")
+    private BigDecimal totalAmount;
+
+    @Schema(description = "已入账总金额", example = "30000.00")
+    private BigDecimal totalSettledAmount;
+}
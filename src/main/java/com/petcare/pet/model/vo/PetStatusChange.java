@@ -0,0 +1,17 @@
+package com.petcare.pet.model.vo;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.petcare.pet.model.Pet;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 修改状态后的宠物记录（含收入汇总），附带修改前的状态用于审计，不返回给前端
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class PetStatusChange extends Pet {
+
+    @JsonIgnore
+    private String previousStatus;
+}
@@ -0,0 +1,38 @@
+package com.petcare.pet.service;
+
+import com.petcare.pet.model.Pet;
+import com.petcare.pet.model.vo.BookingIndexCheckResult;
+import com.petcare.pet.model.vo.DailyCapacityCount;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 未离店预约（booked、checkedIn）的内存区间索引
+ */
+public interface BookingIndexService {
+    /**
+     * 索引是否已完成预热；未就绪时调用方应回退为查询数据库
+     */
+    boolean isReady();
+
+    /**
+     * 查询与 [from, to] 闭区间有交集的未离店预约，返回的记录仅包含ID、姓名、状态和起止日期
+     */
+    List<Pet> findOverlapping(LocalDate from, LocalDate to);
+
+    /**
+     * 统计 [from, to] 内每天的预约与在住数量
+     */
+    List<DailyCapacityCount> countByDate(LocalDate from, LocalDate to);
+
+    /**
+     * 从数据库全量重建索引
+     */
+    void rebuild();
+
+    /**
+     * 与数据库逐条比对索引内容，repair 为 true 且存在差异时用数据库结果替换索引
+     */
+    BookingIndexCheckResult verify(boolean repair);
+}
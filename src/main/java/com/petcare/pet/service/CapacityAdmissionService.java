@@ -0,0 +1,26 @@
+package com.petcare.pet.service;
+
+import com.petcare.pet.model.Pet;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预约容量准入控制
+ */
+public interface CapacityAdmissionService {
+    /**
+     * 在当前写事务内锁定 [startDate, endDate] 的每一天并按数据库复核占用（与容量查询接口相同，结束日期当天也占用），
+     * 任一天加上本预约后超过 max_capacity 时抛出 BusinessException（不会把事务标记为仅回滚，调用方可捕获后继续写入其他数据）；
+     * petId 为修改中的预约时不计入其原有占用
+     */
+    void admit(Long petId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 批量准入（如导入的一个块）：在当前写事务内按日期升序一次锁定 bookings 覆盖的全部日期，
+     * 再按 (start_date, id) 顺序逐条复核，通过的预约计入后续预约的占用。
+     * 返回被拒绝的预约ID与原因，其余预约均已准入，调用方应在同一事务内写入
+     */
+    Map<Long, String> admitAll(List<Pet> bookings);
+}
@@ -0,0 +1,39 @@
+package com.petcare.pet.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 历史订单归档
+ * 已离店且结束日期早于归档期限的订单及其收入记录移入按开始月份分区的 pets_history、incomes_history，
+ * 列表、容量与收入同步只处理热表；报表按日期范围判断是否需要查询历史分区
+ */
+public interface PetArchiveService {
+    /**
+     * 历史表是否已创建；未创建时不归档，全部查询只访问热表
+     */
+    boolean isEnabled();
+
+    /**
+     * 归档结束日期早于 cutoff 的已离店订单及其收入记录，每个开始月份单独一个事务
+     * @return 归档的订单数
+     */
+    long archive(LocalDate cutoff);
+
+    /**
+     * 与 [from, to] 闭区间有交集的已归档订单的开始日期下限，查询历史表时据此裁剪分区；
+     * 返回 null 表示该范围内没有已归档订单，只需查询热表
+     * @param to 为 null 时不限结束日期
+     */
+    LocalDate historyStartBound(LocalDate from, LocalDate to);
+
+    /**
+     * 已归档订单的最早开始日期，没有时为 null
+     */
+    LocalDate earliestStartDate();
+
+    /**
+     * 已归档收入记录的总金额
+     */
+    BigDecimal archivedIncomeTotal();
+}
@@ -0,0 +1,14 @@
+package com.petcare.pet.service;
+
+import com.petcare.pet.model.vo.PetImportResult;
+
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * 宠物预约批量导入
+ */
+public interface PetImportService {
+    PetImportResult importJson(InputStream in);
+    PetImportResult importCsv(Reader reader);
+}
@@ -2,13 +2,77 @@ package com.petcare.pet.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.petcare.pet.model.Pet;
+import com.petcare.pet.model.vo.PetBatchResult;
+import com.petcare.pet.model.vo.DailyCapacityCount;
+import com.petcare.pet.model.vo.PetListFilter;
+import com.petcare.pet.model.vo.PetListResponse;
+
+import java.time.LocalDate;
+import java.util.List;
 
 public interface PetService extends IService<Pet> {
-    boolean checkIn(Long id);
-    boolean checkOutAndCreateIncome(Long id);
-    boolean savePetWithIncome(Pet pet);
+    /**
+     * 查询宠物及其收入汇总（寄养天数、总金额、已入账金额、寄养费用）
+     */
+    Pet getWithIncome(Long id);
+    /**
+     * 宠物列表分页，记录带收入汇总
+     * @param withTotals 是否汇总筛选条件下全部记录（不分页）的寄养天数、总费用与已入账金额
+     */
+    PetListResponse listPage(PetListFilter filter, long page, long size, boolean withTotals);
+    /**
+     * 与 [from, to] 闭区间有交集的全部订单（不限状态，含已归档订单）
+     */
+    List<Pet> listOverlapping(LocalDate from, LocalDate to);
+    /**
+     * 与 [from, to] 闭区间有交集、ID大于 afterId 的订单（含已归档订单），按ID取前 limit 条
+     */
+    List<Pet> listOverlappingAfter(LocalDate from, LocalDate to, long afterId, int limit);
+    /**
+     * 与 [from, to] 闭区间有交集的预约与在住订单
+     */
+    List<Pet> listActiveOverlapping(LocalDate from, LocalDate to);
+    /**
+     * [from, to] 内每天的预约与在住数量
+     */
+    List<DailyCapacityCount> countActiveByDate(LocalDate from, LocalDate to);
+    /**
+     * 结束日期不早于 date 的全部订单（含已归档订单）
+     */
+    List<Pet> listEndingFrom(LocalDate date);
+    /**
+     * 最早的开始日期（含已归档订单），没有订单时为 null
+     */
+    LocalDate earliestStartDate();
+    /**
+     * 已离店的宠物重新入住时经过容量准入，容量已满时抛出 BusinessException
+     * @return 入住后带收入汇总的记录，宠物不存在时为 null
+     */
+    Pet checkIn(Long id);
+    /**
+     * @return 离店结算后带收入汇总的记录，宠物不存在时为 null
+     */
+    Pet checkOutAndCreateIncome(Long id);
+    /**
+     * 批量入住，一条语句修改状态并返回带收入汇总的记录；
+     * 已离店的宠物整批经过容量准入，容量已满的不入住，在 rejected 中返回原因
+     */
+    PetBatchResult checkInBatch(List<Long> ids);
+    /**
+     * 批量离店，按单个离店的计费规则在同一事务内批量更新或新建收入记录
+     */
+    PetBatchResult checkOutBatch(List<Long> ids);
+    /**
+     * @return 新增后带收入汇总的记录
+     */
+    Pet savePetWithIncome(Pet pet);
     boolean updatePetWithIncome(Pet pet);
-    boolean syncAllPetsToIncome();
+    /**
+     * 按宠物当前数据重新计算热表中的全部收入记录，已记录一口价的沿用一口价；
+     * 只写入、审计并通知实际变化的记录，涉及已结账月份或已结算金额超过新总金额的记录跳过
+     * @return 收入记录有变化的宠物数
+     */
+    int syncAllPetsToIncome();
 }
 
 
@@ -0,0 +1,57 @@
+package com.petcare.pet.service.impl;
+
+import com.petcare.common.job.ClusterJob;
+import com.petcare.common.job.JobScheduler;
+import com.petcare.pet.service.PetArchiveService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * 历史订单归档任务
+ * 将结束日期早于最近 horizon-months 个月的已离店订单及其收入记录移入历史分区表，热表只保留近期订单。
+ * 默认不定时触发（cron 为 "-"），可通过 /api/admin/jobs 手动执行
+ */
+@Component
+public class BookingArchiveJob implements ClusterJob {
+
+    static final String NAME = "booking-archive";
+
+    private final PetArchiveService petArchiveService;
+    private final JobScheduler jobScheduler;
+    private final int horizonMonths;
+
+    public BookingArchiveJob(PetArchiveService petArchiveService, JobScheduler jobScheduler,
+                             @Value("${petcare.jobs.booking-archive.horizon-months:12}") int horizonMonths) {
+        this.petArchiveService = petArchiveService;
+        this.jobScheduler = jobScheduler;
+        this.horizonMonths = Math.max(1, horizonMonths);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String description() {
+        return "归档 " + horizonMonths + " 个月之前结束的已离店订单及其收入记录";
+    }
+
+    @Override
+    public long execute() {
+        if (!petArchiveService.isEnabled()) {
+            return 0;
+        }
+        LocalDate cutoff = YearMonth.now().minusMonths(horizonMonths).atDay(1);
+        return petArchiveService.archive(cutoff);
+    }
+
+    @Scheduled(cron = "${petcare.jobs.booking-archive.cron:-}")
+    public void scheduled() {
+        jobScheduler.runScheduled(NAME);
+    }
+}
@@ -0,0 +1,236 @@
+package com.petcare.pet.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.petcare.common.event.DataChangedEvent;
+import com.petcare.common.event.InvalidationBusStatusEvent;
+import com.petcare.pet.mapper.PetMapper;
+import com.petcare.pet.model.Pet;
+import com.petcare.pet.model.vo.BookingIndexCheckResult;
+import com.petcare.pet.model.vo.DailyCapacityCount;
+import com.petcare.pet.service.BookingIndexService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 预约区间索引实现
+ * 应用就绪后从数据库预热；写路径发布的 DataChangedEvent 在事务提交后按ID回读数据库增量维护，
+ * 变更只追加到快照的增量中，不逐次重建；查询读取不可变快照，不加锁。
+ * 其他实例的变更经 InvalidationBus 转发为 remote 事件后同样回读；失效通知连接断开期间可能漏掉变更，
+ * 此时停用索引，重新连接后全量重建
+ */
+@Service
+public class BookingIndexServiceImpl implements BookingIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingIndexServiceImpl.class);
+
+    private static final int MAX_REPORTED_IDS = 20;
+
+    private final PetMapper petMapper;
+    private final boolean enabled;
+
+    // 写入方持有 lock 修改 bookings 并发布新快照；回读数据库也在锁内，避免较旧的读取结果覆盖较新的
+    private final Object lock = new Object();
+    private final Map<Long, Pet> bookings = new HashMap<>();
+    private volatile BookingIntervalIndex snapshot = BookingIntervalIndex.EMPTY;
+    private volatile boolean ready;
+    private volatile boolean busDisconnected;
+
+    public BookingIndexServiceImpl(PetMapper petMapper,
+                                   @Value("${petcare.booking-index.enabled:true}") boolean enabled) {
+        this.petMapper = petMapper;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // 预热失败不影响启动，查询继续走数据库，可通过一致性检查接口修复
+            log.warn("预约区间索引预热失败，容量查询将回退为数据库查询: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        // 预热完成前的变更同样回读：预热在锁内读库，先后顺序不影响最终结果
+        if (!enabled || !DataChangedEvent.TABLE_PETS.equals(event.getTable())) {
+            return;
+        }
+        if (event.getKeys().isEmpty()) {
+            // 其他实例的整表变更（负载过长时不再逐条列出主键）
+            if (event.isRemote()) {
+                rebuildQuietly();
+            }
+            return;
+        }
+        List<Long> ids = event.getIds();
+        try {
+            synchronized (lock) {
+                Map<Long, Pet> current = new HashMap<>();
+                for (Pet pet : petMapper.selectList(activeBookingsQuery().in(Pet::getId, ids))) {
+                    current.put(pet.getId(), pet);
+                }
+                // 查不到的ID视为已离店或已删除
+                Map<Long, Pet> changed = new HashMap<>();
+                for (Long id : ids) {
+                    Pet pet = current.get(id);
+                    if (pet != null) {
+                        bookings.put(id, pet);
+                    } else {
+                        bookings.remove(id);
+                    }
+                    changed.put(id, pet);
+                }
+                snapshot = snapshot.withChanges(changed, bookings.values());
+            }
+        } catch (RuntimeException e) {
+            // 无法确认最新状态时停用索引，避免返回过期的容量数据
+            ready = false;
+            log.warn("预约区间索引增量更新失败，已停用索引，等待重建: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onBusStatus(InvalidationBusStatusEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!event.isConnected()) {
+            busDisconnected = true;
+            ready = false;
+            log.warn("失效通知连接已断开，预约区间索引暂停使用，容量查询回退为数据库查询");
+        } else if (busDisconnected) {
+            // 首次连接时由应用就绪预热，无需重建
+            busDisconnected = false;
+            rebuildQuietly();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready && !busDisconnected;
+    }
+
+    @Override
+    public List<Pet> findOverlapping(LocalDate from, LocalDate to) {
+        return snapshot.overlapping(from, to);
+    }
+
+    @Override
+    public List<DailyCapacityCount> countByDate(LocalDate from, LocalDate to) {
+        return snapshot.countByDate(from, to);
+    }
+
+    @Override
+    public void rebuild() {
+        long begin = System.currentTimeMillis();
+        synchronized (lock) {
+            replaceAll(loadActiveBookings());
+        }
+        log.info("预约区间索引已重建，共 {} 条未离店预约，耗时 {} ms", bookings.size(), System.currentTimeMillis() - begin);
+    }
+
+    @Override
+    public BookingIndexCheckResult verify(boolean repair) {
+        long begin = System.currentTimeMillis();
+        BookingIndexCheckResult result = new BookingIndexCheckResult();
+        synchronized (lock) {
+            Map<Long, Pet> database = loadActiveBookings();
+            // 比对快照实际返回的内容（基础数组加增量），而不只是写入方维护的 bookings
+            Map<Long, Pet> indexed = new HashMap<>();
+            for (Pet pet : snapshot.overlapping(LocalDate.MIN, LocalDate.MAX)) {
+                indexed.put(pet.getId(), pet);
+            }
+            result.setIndexedCount(indexed.size());
+            result.setDatabaseCount(database.size());
+
+            int differences = 0;
+            for (Pet expected : database.values()) {
+                Pet actual = indexed.get(expected.getId());
+                if (actual == null) {
+                    differences++;
+                    addLimited(result.getMissingIds(), expected.getId());
+                } else if (!sameBooking(actual, expected)) {
+                    differences++;
+                    addLimited(result.getMismatchedIds(), expected.getId());
+                }
+            }
+            for (Long id : indexed.keySet()) {
+                if (!database.containsKey(id)) {
+                    differences++;
+                    addLimited(result.getStaleIds(), id);
+                }
+            }
+            result.setDifferenceCount(differences);
+
+            // 未就绪（预热或增量更新失败）时也允许通过修复重新启用索引
+            if (repair && (differences > 0 || !ready)) {
+                replaceAll(database);
+                result.setRepaired(true);
+            }
+        }
+        if (result.getDifferenceCount() > 0) {
+            log.warn("预约区间索引与数据库不一致，差异 {} 条，已修复: {}", result.getDifferenceCount(), result.isRepaired());
+        }
+        result.setElapsedMillis(System.currentTimeMillis() - begin);
+        return result;
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            ready = false;
+            log.warn("预约区间索引重建失败，已停用索引: {}", e.getMessage());
+        }
+    }
+
+    private void replaceAll(Map<Long, Pet> database) {
+        bookings.clear();
+        bookings.putAll(database);
+        snapshot = BookingIntervalIndex.build(bookings.values());
+        ready = enabled;
+    }
+
+    private Map<Long, Pet> loadActiveBookings() {
+        Map<Long, Pet> result = new HashMap<>();
+        for (Pet pet : petMapper.selectList(activeBookingsQuery())) {
+            result.put(pet.getId(), pet);
+        }
+        return result;
+    }
+
+    private static LambdaQueryWrapper<Pet> activeBookingsQuery() {
+        return new LambdaQueryWrapper<Pet>()
+                .select(Pet::getId, Pet::getName, Pet::getStatus, Pet::getStartDate, Pet::getEndDate)
+                .in(Pet::getStatus, "booked", "checkedIn");
+    }
+
+    private static boolean sameBooking(Pet a, Pet b) {
+        return Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getStatus(), b.getStatus())
+                && Objects.equals(a.getStartDate(), b.getStartDate())
+                && Objects.equals(a.getEndDate(), b.getEndDate());
+    }
+
+    private static void addLimited(List<Long> ids, Long id) {
+        if (ids.size() < MAX_REPORTED_IDS) {
+            ids.add(id);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.petcare.pet.service.impl;
+
+import com.petcare.pet.model.Pet;
+import com.petcare.pet.model.vo.DailyCapacityCount;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 预约区间索引（不可变快照）
+ * 按开始日期排序的数组上构建隐式平衡二叉树，每个节点记录子树内的最大结束日期，
+ * 区间重叠查询为 O(log n + k)，区间均按 [start_date, end_date] 闭区间处理。
+ * 写入不重建数组：上次重建后变更过的预约记在少量的增量中，查询时跳过数组内的旧记录、补上增量中的当前记录，
+ * 增量超过 MAX_CHANGES 条时才整体重建
+ */
+final class BookingIntervalIndex {
+
+    static final BookingIntervalIndex EMPTY = build(List.of());
+
+    private static final int MAX_CHANGES = 256;
+
+    private static final Comparator<Pet> BY_START = Comparator.comparing(Pet::getStartDate).thenComparing(Pet::getId);
+
+    private final long[] ids;
+    private final String[] names;
+    private final String[] statuses;
+    private final long[] starts;
+    private final long[] ends;
+    // maxEnds[mid] 为以 mid 为根的子树 [lo, hi) 内的最大结束日期
+    private final long[] maxEnds;
+    // 上次重建后变更过的预约ID，数组中这些ID的记录已过期；changes 为其中仍未离店的当前记录
+    private final Set<Long> changedIds;
+    private final List<Pet> changes;
+
+    private BookingIntervalIndex(int size) {
+        this.ids = new long[size];
+        this.names = new String[size];
+        this.statuses = new String[size];
+        this.starts = new long[size];
+        this.ends = new long[size];
+        this.maxEnds = new long[size];
+        this.changedIds = Set.of();
+        this.changes = List.of();
+    }
+
+    /**
+     * 与 base 共用数组，只替换增量
+     */
+    private BookingIntervalIndex(BookingIntervalIndex base, Set<Long> changedIds, List<Pet> changes) {
+        this.ids = base.ids;
+        this.names = base.names;
+        this.statuses = base.statuses;
+        this.starts = base.starts;
+        this.ends = base.ends;
+        this.maxEnds = base.maxEnds;
+        this.changedIds = changedIds;
+        this.changes = changes;
+    }
+
+    /**
+     * 由预约记录构建索引，开始或结束日期为空的记录忽略
+     */
+    static BookingIntervalIndex build(Collection<Pet> bookings) {
+        List<Pet> sorted = new ArrayList<>(bookings.size());
+        for (Pet pet : bookings) {
+            if (pet.getStartDate() != null && pet.getEndDate() != null) {
+                sorted.add(pet);
+            }
+        }
+        sorted.sort(BY_START);
+
+        BookingIntervalIndex index = new BookingIntervalIndex(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            Pet pet = sorted.get(i);
+            index.ids[i] = pet.getId();
+            index.names[i] = pet.getName();
+            index.statuses[i] = pet.getStatus();
+            index.starts[i] = pet.getStartDate().toEpochDay();
+            index.ends[i] = pet.getEndDate().toEpochDay();
+        }
+        index.augment(0, sorted.size());
+        return index;
+    }
+
+    private long augment(int lo, int hi) {
+        if (lo >= hi) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(ends[mid], Math.max(augment(lo, mid), augment(mid + 1, hi)));
+        maxEnds[mid] = max;
+        return max;
+    }
+
+    /**
+     * 返回应用变更后的新快照，当前快照不变。
+     * changed 为变更后的记录（值为 null 表示已离店或已删除）；累积的变更超过上限时按 all（变更后的全部预约）重建
+     */
+    BookingIntervalIndex withChanges(Map<Long, Pet> changed, Collection<Pet> all) {
+        Set<Long> nextIds = new HashSet<>(changedIds);
+        nextIds.addAll(changed.keySet());
+        if (nextIds.size() > MAX_CHANGES) {
+            return build(all);
+        }
+        Map<Long, Pet> current = new HashMap<>();
+        for (Pet pet : changes) {
+            current.put(pet.getId(), pet);
+        }
+        changed.forEach((id, pet) -> {
+            if (pet != null && pet.getStartDate() != null && pet.getEndDate() != null) {
+                current.put(id, copy(pet));
+            } else {
+                current.remove(id);
+            }
+        });
+        return new BookingIntervalIndex(this, Collections.unmodifiableSet(nextIds), List.copyOf(current.values()));
+    }
+
+    /**
+     * 查询与 [from, to] 有交集的预约（start_date <= to 且 end_date >= from），按开始日期升序返回
+     */
+    List<Pet> overlapping(LocalDate from, LocalDate to) {
+        List<Pet> result = new ArrayList<>();
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        collect(0, ids.length, fromDay, toDay, result);
+        if (!changes.isEmpty()) {
+            boolean added = false;
+            for (Pet pet : changes) {
+                if (pet.getStartDate().toEpochDay() <= toDay && pet.getEndDate().toEpochDay() >= fromDay) {
+                    result.add(copy(pet));
+                    added = true;
+                }
+            }
+            if (added) {
+                result.sort(BY_START);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 统计 [from, to] 内每天的预约（booked）与在住（checkedIn）数量，开始与结束日期当天均计入
+     */
+    List<DailyCapacityCount> countByDate(LocalDate from, LocalDate to) {
+        // 一次取出与区间有交集的所有预约与在住订单
+        List<Pet> overlappedPets = overlapping(from, to);
+        List<DailyCapacityCount> counts = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDate current = day;
+            long bookedCount = overlappedPets.stream()
+                    .filter(p -> "booked".equals(p.getStatus()))
+                    .filter(p -> !p.getStartDate().isAfter(current) && !p.getEndDate().isBefore(current))
+                    .count();
+            long checkedInCount = overlappedPets.stream()
+                    .filter(p -> "checkedIn".equals(p.getStatus()))
+                    .filter(p -> !p.getStartDate().isAfter(current) && !p.getEndDate().isBefore(current))
+                    .count();
+            counts.add(new DailyCapacityCount(day, bookedCount, checkedInCount));
+        }
+        return counts;
+    }
+
+    private void collect(int lo, int hi, long from, long to, List<Pet> result) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        // 子树内所有预约都在 from 之前结束
+        if (maxEnds[mid] < from) {
+            return;
+        }
+        collect(lo, mid, from, to, result);
+        // 右侧开始日期都不早于当前节点，当前节点已在 to 之后开始时右子树无需再看
+        if (starts[mid] > to) {
+            return;
+        }
+        if (ends[mid] >= from && !changedIds.contains(ids[mid])) {
+            result.add(toPet(mid));
+        }
+        collect(mid + 1, hi, from, to, result);
+    }
+
+    /**
+     * 以新对象返回，调用方可以自由修改而不影响索引
+     */
+    private Pet toPet(int i) {
+        Pet pet = new Pet();
+        pet.setId(ids[i]);
+        pet.setName(names[i]);
+        pet.setStatus(statuses[i]);
+        pet.setStartDate(LocalDate.ofEpochDay(starts[i]));
+        pet.setEndDate(LocalDate.ofEpochDay(ends[i]));
+        return pet;
+    }
+
+    private static Pet copy(Pet source) {
+        Pet pet = new Pet();
+        pet.setId(source.getId());
+        pet.setName(source.getName());
+        pet.setStatus(source.getStatus());
+        pet.setStartDate(source.getStartDate());
+        pet.setEndDate(source.getEndDate());
+        return pet;
+    }
+}
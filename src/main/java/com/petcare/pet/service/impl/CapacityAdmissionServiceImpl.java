@@ -0,0 +1,183 @@
+package com.petcare.pet.service.impl;
+
+import com.petcare.common.web.BusinessException;
+import com.petcare.pet.model.Pet;
+import com.petcare.pet.service.CapacityAdmissionService;
+import com.petcare.system.mapper.SettingMapper;
+import com.petcare.system.model.Setting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 容量准入控制实现
+ * 与容量查询接口规则相同：预约占用 [start_date, end_date] 闭区间内的每一天，结束日期当天也算在店内。
+ * 每一天对应一把 PostgreSQL 事务级咨询锁（按日期分段），同一天的并发写入串行化、互不相交的预约并行执行，
+ * 多实例部署同样有效；所有事务按日期升序加锁（批量准入先合并全部预约的日期再一次加锁），不会互相死锁。
+ * 是否满员只以加锁后的数据库复核为准：内存预约索引异步更新、可能滞后于其他实例已提交的写入，不参与准入判断
+ */
+@Service
+public class CapacityAdmissionServiceImpl implements CapacityAdmissionService {
+
+    // 咨询锁双整数键的第一部分，第二部分为 epochDay
+    private static final int DAY_LOCK_NAMESPACE = 0x43415031;
+
+    private static final String LOCK_DAYS_SQL =
+            "SELECT count(pg_advisory_xact_lock(?, d)) FROM generate_series(?, ?) AS d";
+
+    private static final String FULL_DAYS_SQL =
+            "SELECT d::date AS day FROM generate_series(?::date, ?::date, interval '1 day') AS d " +
+            "LEFT JOIN pets p ON p.status IN ('booked', 'checkedIn') AND p.id <> ? " +
+            "AND p.start_date <= d::date AND p.end_date >= d::date " +
+            "GROUP BY d HAVING count(p.id) >= ? ORDER BY d";
+
+    private static final String DAILY_COUNTS_SQL =
+            "SELECT d::date AS day, count(p.id) AS occupied FROM generate_series(:from::date, :to::date, interval '1 day') AS d " +
+            "LEFT JOIN pets p ON p.status IN ('booked', 'checkedIn') AND p.id NOT IN (:ids) " +
+            "AND p.start_date <= d::date AND p.end_date >= d::date " +
+            "GROUP BY d";
+
+    private static final int MAX_REPORTED_DAYS = 5;
+    private static final int DEFAULT_MAX_CAPACITY = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final SettingMapper settingMapper;
+    private final Counter admitted;
+    private final Counter rejected;
+
+    public CapacityAdmissionServiceImpl(JdbcTemplate jdbcTemplate, SettingMapper settingMapper, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.settingMapper = settingMapper;
+        this.admitted = Counter.builder("petcare.capacity.admission").tag("result", "admitted")
+                .description("容量准入通过的预约写入次数").register(meterRegistry);
+        this.rejected = Counter.builder("petcare.capacity.admission").tag("result", "rejected")
+                .description("因容量已满被拒绝的预约写入次数").register(meterRegistry);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = BusinessException.class)
+    public void admit(Long petId, LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            return;
+        }
+        long excludedId = petId != null ? petId : -1L;
+        int maxCapacity = getMaxCapacity();
+
+        // 锁定每一天后按数据库复核，锁持有到事务结束，期间其他写入同一天的事务等待
+        lockDays(startDate.toEpochDay(), endDate.toEpochDay());
+        List<LocalDate> full = jdbcTemplate.queryForList(FULL_DAYS_SQL, LocalDate.class,
+                startDate, endDate, excludedId, maxCapacity);
+        if (!full.isEmpty()) {
+            rejected.increment();
+            throw new BusinessException(fullMessage(full, maxCapacity));
+        }
+        admitted.increment();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, String> admitAll(List<Pet> bookings) {
+        List<Pet> sorted = new ArrayList<>();
+        for (Pet pet : bookings) {
+            if (pet.getStartDate() != null && pet.getEndDate() != null && !pet.getEndDate().isBefore(pet.getStartDate())) {
+                sorted.add(pet);
+            }
+        }
+        if (sorted.isEmpty()) {
+            return Map.of();
+        }
+        // 先开始的预约先准入：之后每条预约新增的日期都不早于已持有的锁，与单条写入的升序加锁一致
+        sorted.sort(Comparator.comparing(Pet::getStartDate).thenComparing(Pet::getId));
+
+        // 各预约的日期合并为互不相交的区间后按升序一次锁定，锁持有到事务结束
+        long from = sorted.get(0).getStartDate().toEpochDay();
+        long lockStart = from;
+        long lockEnd = sorted.get(0).getEndDate().toEpochDay();
+        long to = lockEnd;
+        for (Pet pet : sorted) {
+            long start = pet.getStartDate().toEpochDay();
+            long end = pet.getEndDate().toEpochDay();
+            if (start > lockEnd + 1) {
+                lockDays(lockStart, lockEnd);
+                lockStart = start;
+                lockEnd = end;
+            } else {
+                lockEnd = Math.max(lockEnd, end);
+            }
+            to = Math.max(to, end);
+        }
+        lockDays(lockStart, lockEnd);
+
+        int maxCapacity = getMaxCapacity();
+        Map<Long, Long> occupied = new HashMap<>();
+        namedJdbcTemplate.query(DAILY_COUNTS_SQL, new MapSqlParameterSource()
+                        .addValue("from", LocalDate.ofEpochDay(from))
+                        .addValue("to", LocalDate.ofEpochDay(to))
+                        .addValue("ids", sorted.stream().map(Pet::getId).collect(Collectors.toList())),
+                rs -> {
+                    occupied.put(rs.getObject("day", LocalDate.class).toEpochDay(), rs.getLong("occupied"));
+                });
+
+        Map<Long, String> rejections = new LinkedHashMap<>();
+        for (Pet pet : sorted) {
+            long start = pet.getStartDate().toEpochDay();
+            long end = pet.getEndDate().toEpochDay();
+            List<LocalDate> full = new ArrayList<>();
+            for (long day = start; day <= end; day++) {
+                if (occupied.getOrDefault(day, 0L) >= maxCapacity) {
+                    full.add(LocalDate.ofEpochDay(day));
+                }
+            }
+            if (!full.isEmpty()) {
+                rejected.increment();
+                rejections.put(pet.getId(), fullMessage(full, maxCapacity));
+                continue;
+            }
+            for (long day = start; day <= end; day++) {
+                occupied.merge(day, 1L, Long::sum);
+            }
+            admitted.increment();
+        }
+        return rejections;
+    }
+
+    private void lockDays(long firstDay, long lastDay) {
+        jdbcTemplate.queryForObject(LOCK_DAYS_SQL, Long.class, DAY_LOCK_NAMESPACE, (int) firstDay, (int) lastDay);
+    }
+
+    private static String fullMessage(List<LocalDate> fullDays, int maxCapacity) {
+        String dates = fullDays.stream().limit(MAX_REPORTED_DAYS).map(LocalDate::toString).collect(Collectors.joining("、"));
+        if (fullDays.size() > MAX_REPORTED_DAYS) {
+            dates += " 等" + fullDays.size() + "天";
+        }
+        return "容量已满：" + dates + " 已达到最大容量 " + maxCapacity;
+    }
+
+    private int getMaxCapacity() {
+        Setting setting = settingMapper.selectByKey("max_capacity");
+        if (setting != null && setting.getValue() != null) {
+            try {
+                return Integer.parseInt(setting.getValue().trim());
+            } catch (NumberFormatException e) {
+                // 配置值非法时按默认容量处理，与容量查询接口一致
+            }
+        }
+        return DEFAULT_MAX_CAPACITY;
+    }
+}
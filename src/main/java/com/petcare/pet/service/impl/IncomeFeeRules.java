@@ -0,0 +1,35 @@
+package com.petcare.pet.service.impl;
+
+import com.petcare.pet.model.Pet;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 收入计费规则
+ * 与 savePetWithIncome 保持一致：按过夜天数计费，例如：20-23号 = 3个晚上
+ */
+final class IncomeFeeRules {
+
+    private IncomeFeeRules() {
+    }
+
+    /**
+     * 计算过夜天数，结束日期早于开始日期时按0处理
+     */
+    static long overnightDays(LocalDate startDate, LocalDate endDate) {
+        return Math.max(0, ChronoUnit.DAYS.between(startDate, endDate));
+    }
+
+    /**
+     * 计算预约总金额：传入了totalFee则使用totalFee + 其他费用，否则使用 日均费用 × 过夜天数 + 其他费用
+     */
+    static BigDecimal bookingTotalAmount(Pet pet, long overnightDays) {
+        BigDecimal otherFee = pet.getOtherFee() != null ? pet.getOtherFee() : BigDecimal.ZERO;
+        if (pet.getTotalFee() != null) {
+            return pet.getTotalFee().add(otherFee);
+        }
+        return pet.getDailyFee().multiply(BigDecimal.valueOf(overnightDays)).add(otherFee);
+    }
+}
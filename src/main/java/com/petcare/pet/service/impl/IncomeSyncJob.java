@@ -0,0 +1,47 @@
+package com.petcare.pet.service.impl;
+
+import com.petcare.common.job.ClusterJob;
+import com.petcare.common.job.JobScheduler;
+import com.petcare.pet.service.PetService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 收入记录全量同步任务
+ * 按宠物当前的日期与费用重新计算全部收入记录，修复历史数据或批量改价后的不一致；
+ * 只写入实际变化的记录，涉及已结账月份或已结算金额超过新总金额的记录跳过。
+ * 默认不定时触发（cron 为 "-"），可通过 /api/admin/jobs 手动执行
+ */
+@Component
+public class IncomeSyncJob implements ClusterJob {
+
+    static final String NAME = "income-sync";
+
+    private final PetService petService;
+    private final JobScheduler jobScheduler;
+
+    public IncomeSyncJob(PetService petService, JobScheduler jobScheduler) {
+        this.petService = petService;
+        this.jobScheduler = jobScheduler;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String description() {
+        return "按宠物当前的日期与费用重新计算全部收入记录";
+    }
+
+    @Override
+    public long execute() {
+        return petService.syncAllPetsToIncome();
+    }
+
+    @Scheduled(cron = "${petcare.jobs.income-sync.cron:-}")
+    public void scheduled() {
+        jobScheduler.runScheduled(NAME);
+    }
+}
@@ -0,0 +1,199 @@
+package com.petcare.pet.service.impl;
+
+import com.petcare.common.datasource.MigrationTable;
+import com.petcare.common.event.DataChangedEvent;
+import com.petcare.common.event.InvalidationBus;
+import com.petcare.common.event.InvalidationBusStatusEvent;
+import com.petcare.pet.service.PetArchiveService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 历史订单归档实现
+ * 每个开始月份一条语句完成：从热表删除订单及其收入记录，写入对应的历史分区，并在 history_archive_runs 记录
+ * 本次归档的订单数、日期范围、最长寄养天数与收入总额。查询只读取 history_archive_runs 的汇总判断是否需要历史分区：
+ * 范围起点晚于已归档订单的最晚结束日期时只查热表，否则以"起点 - 最长寄养天数"作为历史表开始日期下限裁剪分区。
+ * 汇总缓存在本实例内，归档（含其他实例经 InvalidationBus 转发的）时清空；失效通知连接断开期间不使用缓存
+ */
+@Service
+public class PetArchiveServiceImpl implements PetArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(PetArchiveServiceImpl.class);
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String PET_COLUMNS =
+            "id, name, breed, gender, age, neutered, start_date, end_date, daily_fee, other_fee, remark, status, created_at, updated_at";
+    private static final String INCOME_COLUMNS =
+            "id, pet_id, start_date, daily_fee, other_fee, total_fee, total_amount, days_stayed, settled_amount, remark, created_at, updated_at";
+
+    private static final String SELECT_MONTHS_SQL =
+            "SELECT DISTINCT date_trunc('month', start_date)::date FROM pets "
+            + "WHERE status = 'checkedOut' AND end_date < ?::date ORDER BY 1";
+    private static final String CREATE_PARTITION_SQL =
+            "CREATE TABLE IF NOT EXISTS %s_%s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')";
+    // 同一语句内删除与写入，中途失败时整月回滚；没有可归档的订单时不记录
+    private static final String MOVE_SQL =
+            "WITH moved AS (DELETE FROM pets WHERE start_date >= ?::date AND start_date < ?::date "
+            + "  AND status = 'checkedOut' AND end_date < ?::date RETURNING *), "
+            + "moved_incomes AS (DELETE FROM incomes i USING moved WHERE i.pet_id = moved.id "
+            + "  RETURNING i.id, i.pet_id, moved.start_date, i.daily_fee, i.other_fee, i.total_fee, i.total_amount, "
+            + "  i.days_stayed, i.settled_amount, i.remark, i.created_at, i.updated_at), "
+            + "pets_written AS (INSERT INTO pets_history (" + PET_COLUMNS + ") SELECT " + PET_COLUMNS + " FROM moved RETURNING id), "
+            + "incomes_written AS (INSERT INTO incomes_history (" + INCOME_COLUMNS + ") SELECT " + INCOME_COLUMNS
+            + "  FROM moved_incomes RETURNING total_amount) "
+            + "INSERT INTO history_archive_runs (partition_month, cutoff, pet_count, income_count, min_start_date, max_end_date, "
+            + "  max_stay_days, income_total) "
+            + "SELECT ?, ?::date, (SELECT count(*) FROM pets_written), (SELECT count(*) FROM incomes_written), "
+            + "  (SELECT min(start_date) FROM moved), (SELECT max(end_date) FROM moved), "
+            + "  (SELECT max(end_date - start_date) FROM moved), (SELECT coalesce(sum(total_amount), 0) FROM incomes_written) "
+            + "WHERE EXISTS (SELECT 1 FROM moved) RETURNING pet_count";
+    private static final String SUMMARY_SQL =
+            "SELECT coalesce(sum(pet_count), 0) AS pet_count, min(min_start_date) AS min_start_date, "
+            + "max(max_end_date) AS max_end_date, coalesce(max(max_stay_days), 0) AS max_stay_days, "
+            + "coalesce(sum(income_total), 0) AS income_total FROM history_archive_runs";
+
+    private static final Summary EMPTY = new Summary(0, null, null, 0, BigDecimal.ZERO);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MigrationTable archiveRunsTable;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InvalidationBus invalidationBus;
+    private final Counter hotOnly;
+    private final Counter withHistory;
+
+    // 缓存只在读取期间没有发生归档时写入，避免较旧的读取结果覆盖失效
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Summary summaryCache;
+
+    public PetArchiveServiceImpl(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                 ApplicationEventPublisher eventPublisher, InvalidationBus invalidationBus,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiveRunsTable = new MigrationTable(jdbcTemplate, "history_archive_runs", "006_booking_history.sql", "历史订单归档未启用");
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.invalidationBus = invalidationBus;
+        this.hotOnly = Counter.builder("petcare.history.queries").tag("scope", "hot")
+                .description("只需查询热表的订单范围查询次数").register(meterRegistry);
+        this.withHistory = Counter.builder("petcare.history.queries").tag("scope", "history")
+                .description("需要同时查询历史分区的订单范围查询次数").register(meterRegistry);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return archiveRunsTable.isAvailable();
+    }
+
+    @Override
+    public long archive(LocalDate cutoff) {
+        long archived = 0;
+        for (LocalDate monthStart : jdbcTemplate.queryForList(SELECT_MONTHS_SQL, LocalDate.class, cutoff)) {
+            YearMonth month = YearMonth.from(monthStart);
+            Integer count = transactionTemplate.execute(status -> archiveMonth(month, cutoff));
+            archived += count != null ? count : 0;
+        }
+        return archived;
+    }
+
+    private int archiveMonth(YearMonth month, LocalDate cutoff) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        String suffix = month.format(PARTITION_SUFFIX);
+        jdbcTemplate.execute(String.format(CREATE_PARTITION_SQL, "pets_history", suffix, "pets_history", from, to));
+        jdbcTemplate.execute(String.format(CREATE_PARTITION_SQL, "incomes_history", suffix, "incomes_history", from, to));
+        List<Integer> moved = jdbcTemplate.queryForList(MOVE_SQL, Integer.class, from, to, cutoff, month.toString(), cutoff);
+        if (moved.isEmpty()) {
+            return 0;
+        }
+        eventPublisher.publishEvent(DataChangedEvent.historyArchived(month.toString()));
+        log.info("{} 开始的已离店订单已归档 {} 条（结束日期早于 {}）", month, moved.get(0), cutoff);
+        return moved.get(0);
+    }
+
+    @Override
+    public LocalDate historyStartBound(LocalDate from, LocalDate to) {
+        Summary summary = summary();
+        if (summary.petCount == 0 || from.isAfter(summary.maxEndDate)
+                || (to != null && to.isBefore(summary.minStartDate))) {
+            hotOnly.increment();
+            return null;
+        }
+        withHistory.increment();
+        // 与 from 之后有交集的已归档订单，开始日期不早于 from 减去最长寄养天数
+        LocalDate bound = from.minusDays(summary.maxStayDays);
+        return bound.isBefore(summary.minStartDate) ? summary.minStartDate : bound;
+    }
+
+    @Override
+    public LocalDate earliestStartDate() {
+        return summary().minStartDate;
+    }
+
+    @Override
+    public BigDecimal archivedIncomeTotal() {
+        return summary().incomeTotal;
+    }
+
+    private Summary summary() {
+        if (!archiveRunsTable.isAvailable()) {
+            return EMPTY;
+        }
+        Summary cached = summaryCache;
+        if (cached != null && invalidationBus.isConnected()) {
+            return cached;
+        }
+        long expected = generation.get();
+        Summary loaded = jdbcTemplate.queryForObject(SUMMARY_SQL, (rs, rowNum) -> new Summary(
+                rs.getLong("pet_count"),
+                rs.getObject("min_start_date", LocalDate.class),
+                rs.getObject("max_end_date", LocalDate.class),
+                Math.max(0, rs.getInt("max_stay_days")),
+                rs.getBigDecimal("income_total")));
+        if (generation.get() == expected) {
+            summaryCache = loaded;
+        }
+        return loaded;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        if (DataChangedEvent.TABLE_PETS_HISTORY.equals(event.getTable())) {
+            clearCache();
+        }
+    }
+
+    @EventListener
+    public void onBusStatus(InvalidationBusStatusEvent event) {
+        // 断开期间可能漏掉其他实例的归档
+        clearCache();
+    }
+
+    private void clearCache() {
+        generation.incrementAndGet();
+        summaryCache = null;
+    }
+
+    /**
+     * 已归档订单的汇总
+     */
+    private record Summary(long petCount, LocalDate minStartDate, LocalDate maxEndDate, int maxStayDays,
+                           BigDecimal incomeTotal) {
+    }
+}
@@ -0,0 +1,434 @@
+package com.petcare.pet.service.impl;
+
+import cn.hutool.core.text.csv.CsvReadConfig;
+import cn.hutool.core.text.csv.CsvReader;
+import cn.hutool.core.text.csv.CsvRow;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petcare.common.event.DataChangedEvent;
+import com.petcare.common.util.TimestampIds;
+import com.petcare.common.web.BusinessException;
+import com.petcare.finance.model.Income;
+import com.petcare.finance.service.FinanceMonthService;
+import com.petcare.finance.service.IncomePaymentService;
+import com.petcare.pet.model.Pet;
+import com.petcare.pet.model.vo.PetImportResult;
+import com.petcare.pet.service.CapacityAdmissionService;
+import com.petcare.pet.service.PetImportService;
+import com.petcare.system.service.AuditLogService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 宠物预约批量导入实现
+ * 流式读取 JSON 数组或 CSV，逐行校验后按块（chunk）在独立事务中以 JDBC 批量写入 pets 与 incomes；
+ * 预约与入住状态的行与单条新增一样经过容量准入，整块一次加锁复核，容量已满的行逐行报错
+ */
+@Service
+public class PetImportServiceImpl implements PetImportService {
+
+    private static final String INSERT_PET_PREFIX =
+            "INSERT INTO pets (id, name, breed, gender, age, neutered, start_date, end_date, daily_fee, other_fee, remark, status, created_at, updated_at) VALUES ";
+
+    private static final String PET_VALUES = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_INCOME_SQL =
+            "INSERT INTO incomes (id, pet_id, daily_fee, other_fee, total_fee, total_amount, days_stayed, settled_amount, remark, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // 显式指定参数类型：simple 查询模式下驱动无法查询参数元数据，空值参数需要已知类型
+    private static final int[] PET_ARG_TYPES = {
+            Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.VARCHAR, Types.DATE,
+            Types.DATE, Types.NUMERIC, Types.NUMERIC, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP, Types.TIMESTAMP
+    };
+
+    private static final int[] INCOME_ARG_TYPES = {
+            Types.BIGINT, Types.BIGINT, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.INTEGER,
+            Types.NUMERIC, Types.VARCHAR, Types.TIMESTAMP, Types.TIMESTAMP
+    };
+
+    private static final Set<String> IMPORTABLE_STATUSES = Set.of("booked", "checkedIn", "checkedOut");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IncomePaymentService incomePaymentService;
+    private final FinanceMonthService financeMonthService;
+    private final CapacityAdmissionService capacityAdmissionService;
+    private final AuditLogService auditLogService;
+    private final int chunkSize;
+
+    public PetImportServiceImpl(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher, IncomePaymentService incomePaymentService,
+                                FinanceMonthService financeMonthService, CapacityAdmissionService capacityAdmissionService,
+                                AuditLogService auditLogService,
+                                @Value("${petcare.import.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.incomePaymentService = incomePaymentService;
+        this.financeMonthService = financeMonthService;
+        this.capacityAdmissionService = capacityAdmissionService;
+        this.auditLogService = auditLogService;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @Override
+    public PetImportResult importJson(InputStream in) {
+        long begin = System.currentTimeMillis();
+        PetImportResult result = new PetImportResult();
+        List<PendingRow> chunk = new ArrayList<>(chunkSize);
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("导入数据必须是JSON数组");
+            }
+            int rowNumber = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                rowNumber++;
+                // 先读成树再转换，单行格式错误不影响后续行的解析
+                JsonNode node = parser.readValueAsTree();
+                Pet pet;
+                try {
+                    pet = objectMapper.treeToValue(node, Pet.class);
+                } catch (JsonProcessingException e) {
+                    result.addError(rowNumber, null, "数据格式错误: " + e.getOriginalMessage());
+                    continue;
+                }
+                acceptRow(rowNumber, pet, result, chunk);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取导入数据失败", e);
+        }
+        flush(chunk, result);
+        result.setElapsedMillis(System.currentTimeMillis() - begin);
+        return result;
+    }
+
+    @Override
+    public PetImportResult importCsv(Reader reader) {
+        long begin = System.currentTimeMillis();
+        PetImportResult result = new PetImportResult();
+        List<PendingRow> chunk = new ArrayList<>(chunkSize);
+        CsvReadConfig config = CsvReadConfig.defaultConfig();
+        config.setContainsHeader(true);
+        config.setSkipEmptyRows(true);
+        int[] rowNumber = {0};
+        new CsvReader(reader, config).read(row -> {
+            rowNumber[0]++;
+            Pet pet;
+            try {
+                pet = parseCsvRow(row);
+            } catch (RuntimeException e) {
+                result.addError(rowNumber[0], null, "数据格式错误: " + e.getMessage());
+                return;
+            }
+            acceptRow(rowNumber[0], pet, result, chunk);
+        });
+        flush(chunk, result);
+        result.setElapsedMillis(System.currentTimeMillis() - begin);
+        return result;
+    }
+
+    /**
+     * 校验单行并加入当前块，块满时写库
+     */
+    private void acceptRow(int rowNumber, Pet pet, PetImportResult result, List<PendingRow> chunk) {
+        result.setTotalRows(result.getTotalRows() + 1);
+        String error = validate(pet);
+        if (error != null) {
+            result.addError(rowNumber, pet.getId(), error);
+            return;
+        }
+        Income income = buildIncome(pet);
+        // 与数据库约束保持一致：已结算金额不得大于总金额
+        if (income.getSettledAmount().compareTo(income.getTotalAmount()) > 0) {
+            result.addError(rowNumber, pet.getId(), "已结算金额不能大于总金额");
+            return;
+        }
+        chunk.add(new PendingRow(rowNumber, pet, income));
+        if (chunk.size() >= chunkSize) {
+            flush(chunk, result);
+        }
+    }
+
+    private String validate(Pet pet) {
+        if (pet.getName() == null || pet.getName().trim().isEmpty()) {
+            return "宠物姓名不能为空";
+        }
+        if (pet.getStartDate() == null || pet.getEndDate() == null) {
+            return "开始日期和结束日期不能为空";
+        }
+        if (pet.getEndDate().isBefore(pet.getStartDate())) {
+            return "结束日期不能早于开始日期";
+        }
+        if (pet.getDailyFee() == null && pet.getTotalFee() == null) {
+            return "每日费用和寄养总费用不能同时为空";
+        }
+        if (isNegative(pet.getDailyFee()) || isNegative(pet.getOtherFee()) || isNegative(pet.getTotalFee())
+                || isNegative(pet.getInputSettledAmount())) {
+            return "费用不能为负数";
+        }
+        if (pet.getStatus() == null || pet.getStatus().trim().isEmpty()) {
+            pet.setStatus("booked");
+        } else {
+            pet.setStatus(pet.getStatus().trim());
+            if (!IMPORTABLE_STATUSES.contains(pet.getStatus())) {
+                return "状态值无效，只支持 'booked'、'checkedIn' 或 'checkedOut'";
+            }
+        }
+        return null;
+    }
+
+    private static boolean isOccupying(String status) {
+        return "booked".equals(status) || "checkedIn".equals(status);
+    }
+
+    private static boolean isNegative(BigDecimal value) {
+        return value != null && value.signum() < 0;
+    }
+
+    private Income buildIncome(Pet pet) {
+        LocalDateTime now = LocalDateTime.now();
+        if (pet.getId() == null) {
+            pet.setId(TimestampIds.next());
+        }
+        pet.setCreatedAt(now);
+        pet.setUpdatedAt(now);
+
+        long overnightDays = IncomeFeeRules.overnightDays(pet.getStartDate(), pet.getEndDate());
+        Income income = new Income();
+        income.setId(TimestampIds.next());
+        income.setPetId(pet.getId());
+        income.setDailyFee(pet.getDailyFee());
+        income.setOtherFee(pet.getOtherFee());
+        income.setTotalFee(pet.getTotalFee());
+        income.setDaysStayed((int) overnightDays);
+        income.setTotalAmount(IncomeFeeRules.bookingTotalAmount(pet, overnightDays));
+        income.setSettledAmount(pet.getInputSettledAmount() != null ? pet.getInputSettledAmount() : BigDecimal.ZERO);
+        income.setRemark(pet.getRemark());
+        income.setCreatedAt(now);
+        income.setUpdatedAt(now);
+        return income;
+    }
+
+    /**
+     * 在一个事务内批量写入当前块，失败时整块回滚并逐行记录错误
+     */
+    private void flush(List<PendingRow> chunk, PetImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<PendingRow> rows = new ArrayList<>(chunk);
+        chunk.clear();
+
+        // 同一文件内重复的ID只保留第一行
+        Set<Long> seen = new HashSet<>();
+        List<PendingRow> unique = new ArrayList<>(rows.size());
+        for (PendingRow row : rows) {
+            if (seen.add(row.pet.getId())) {
+                unique.add(row);
+            } else {
+                result.addError(row.rowNumber, row.pet.getId(), "导入数据中宠物ID重复");
+            }
+        }
+
+        // 块内的行错误在事务提交后才计入结果，整块回滚时统一按写入失败报告
+        PetImportResult chunkResult = new PetImportResult();
+        try {
+            Integer imported = transactionTemplate.execute(status -> writeChunk(unique, chunkResult));
+            result.setImportedRows(result.getImportedRows() + (imported != null ? imported : 0));
+            chunkResult.getErrors().forEach(error -> result.addError(error.getRow(), error.getPetId(), error.getMessage()));
+        } catch (RuntimeException e) {
+            String message = "批量写入失败: " + e.getMessage();
+            unique.forEach(row -> result.addError(row.rowNumber, row.pet.getId(), message));
+        }
+    }
+
+    private int writeChunk(List<PendingRow> rows, PetImportResult result) {
+        Set<Long> existingIds = findExistingPetIds(rows);
+        List<PendingRow> writable = new ArrayList<>(rows.size());
+        for (PendingRow row : rows) {
+            if (existingIds.contains(row.pet.getId())) {
+                result.addError(row.rowNumber, row.pet.getId(), "宠物ID已存在");
+                continue;
+            }
+            // 涉及已结账月份的行单独报错，不影响同一块内的其他行
+            try {
+                financeMonthService.checkWritable(row.pet.getStartDate(), row.pet.getEndDate());
+            } catch (BusinessException e) {
+                result.addError(row.rowNumber, row.pet.getId(), e.getMessage());
+                continue;
+            }
+            writable.add(row);
+        }
+
+        // 占用容量的行整块一次准入，容量已满的行单独报错
+        Map<Long, String> rejections = capacityAdmissionService.admitAll(writable.stream()
+                .filter(row -> isOccupying(row.pet.getStatus()))
+                .map(row -> row.pet)
+                .collect(Collectors.toList()));
+        List<PendingRow> toInsert = new ArrayList<>(writable.size());
+        for (PendingRow row : writable) {
+            String rejection = rejections.get(row.pet.getId());
+            if (rejection != null) {
+                result.addError(row.rowNumber, row.pet.getId(), rejection);
+            } else {
+                toInsert.add(row);
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return 0;
+        }
+
+        // ON CONFLICT 跳过的行（并发写入同一ID）不在 RETURNING 结果中，不再写收入记录
+        Set<Long> insertedIds = insertPets(toInsert);
+        List<PendingRow> inserted = new ArrayList<>(insertedIds.size());
+        for (PendingRow row : toInsert) {
+            if (insertedIds.contains(row.pet.getId())) {
+                inserted.add(row);
+            } else {
+                result.addError(row.rowNumber, row.pet.getId(), "宠物ID已存在");
+            }
+        }
+        if (inserted.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_INCOME_SQL, inserted.stream()
+                .map(row -> incomeArgs(row.income))
+                .collect(Collectors.toList()), INCOME_ARG_TYPES);
+        // 导入时已结算的金额记为期初流水
+        incomePaymentService.recordOpening(inserted.stream().map(row -> row.income).collect(Collectors.toList()));
+        // 与单条新增相同记录审计，块事务提交后才入队
+        inserted.forEach(row -> auditLogService.record(DataChangedEvent.TABLE_PETS, row.pet.getId(),
+                AuditLogService.Action.CREATE, null, row.pet));
+        // 在块事务内发布，提交后才会被处理；整块回滚时不通知
+        eventPublisher.publishEvent(DataChangedEvent.pets(inserted.stream()
+                .map(row -> row.pet.getId())
+                .collect(Collectors.toList())));
+        return inserted.size();
+    }
+
+    /**
+     * 以一条多行 INSERT 写入，返回实际写入的ID。
+     * 批量执行（reWriteBatchedInserts）对每行只返回 SUCCESS_NO_INFO，无法区分被 ON CONFLICT 跳过的行
+     */
+    private Set<Long> insertPets(List<PendingRow> rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PET_PREFIX);
+        Object[] args = new Object[rows.size() * PET_ARG_TYPES.length];
+        int[] argTypes = new int[args.length];
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(PET_VALUES);
+            System.arraycopy(petArgs(rows.get(i).pet), 0, args, i * PET_ARG_TYPES.length, PET_ARG_TYPES.length);
+            System.arraycopy(PET_ARG_TYPES, 0, argTypes, i * PET_ARG_TYPES.length, PET_ARG_TYPES.length);
+        }
+        sql.append(" ON CONFLICT (id) DO NOTHING RETURNING id");
+        return new HashSet<>(jdbcTemplate.query(sql.toString(), args, argTypes, (rs, rowNum) -> rs.getLong(1)));
+    }
+
+    private Set<Long> findExistingPetIds(List<PendingRow> rows) {
+        MapSqlParameterSource params = new MapSqlParameterSource("ids",
+                rows.stream().map(row -> row.pet.getId()).collect(Collectors.toList()));
+        return new HashSet<>(namedJdbcTemplate.queryForList("SELECT id FROM pets WHERE id IN (:ids)", params, Long.class));
+    }
+
+    private static Object[] petArgs(Pet pet) {
+        return new Object[]{
+                pet.getId(), pet.getName().trim(), pet.getBreed(), pet.getGender(), pet.getAge(), pet.getNeutered(),
+                pet.getStartDate(), pet.getEndDate(), pet.getDailyFee(), pet.getOtherFee(), pet.getRemark(),
+                pet.getStatus(), Timestamp.valueOf(pet.getCreatedAt()), Timestamp.valueOf(pet.getUpdatedAt())
+        };
+    }
+
+    private static Object[] incomeArgs(Income income) {
+        return new Object[]{
+                income.getId(), income.getPetId(), income.getDailyFee(), income.getOtherFee(), income.getTotalFee(),
+                income.getTotalAmount(), income.getDaysStayed(), income.getSettledAmount(), income.getRemark(),
+                Timestamp.valueOf(income.getCreatedAt()), Timestamp.valueOf(income.getUpdatedAt())
+        };
+    }
+
+    /**
+     * CSV 表头与 Pet 字段同名，另支持 settledAmount 列表示已结算金额
+     */
+    private static Pet parseCsvRow(CsvRow row) {
+        Pet pet = new Pet();
+        pet.setId(parseLong(row.getByName("id")));
+        pet.setName(blankToNull(row.getByName("name")));
+        pet.setBreed(blankToNull(row.getByName("breed")));
+        pet.setGender(blankToNull(row.getByName("gender")));
+        String age = blankToNull(row.getByName("age"));
+        pet.setAge(age != null ? Integer.valueOf(age) : null);
+        pet.setNeutered(blankToNull(row.getByName("neutered")));
+        pet.setStartDate(parseDate(row.getByName("startDate")));
+        pet.setEndDate(parseDate(row.getByName("endDate")));
+        pet.setDailyFee(parseDecimal(row.getByName("dailyFee")));
+        pet.setOtherFee(parseDecimal(row.getByName("otherFee")));
+        pet.setTotalFee(parseDecimal(row.getByName("totalFee")));
+        pet.setInputSettledAmount(parseDecimal(row.getByName("settledAmount")));
+        pet.setRemark(blankToNull(row.getByName("remark")));
+        pet.setStatus(blankToNull(row.getByName("status")));
+        return pet;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    private static Long parseLong(String value) {
+        String v = blankToNull(value);
+        return v != null ? Long.valueOf(v) : null;
+    }
+
+    private static LocalDate parseDate(String value) {
+        String v = blankToNull(value);
+        return v != null ? LocalDate.parse(v) : null;
+    }
+
+    private static BigDecimal parseDecimal(String value) {
+        String v = blankToNull(value);
+        return v != null ? new BigDecimal(v) : null;
+    }
+
+    /**
+     * 已通过校验、等待写库的行
+     */
+    private static final class PendingRow {
+        private final int rowNumber;
+        private final Pet pet;
+        private final Income income;
+
+        private PendingRow(int rowNumber, Pet pet, Income income) {
+            this.rowNumber = rowNumber;
+            this.pet = pet;
+            this.income = income;
+        }
+    }
+}
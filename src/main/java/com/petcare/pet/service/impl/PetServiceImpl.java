@@ -1,112 +1,258 @@
 package com.petcare.pet.service.impl;
 
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.petcare.common.event.DataChangedEvent;
+import com.petcare.common.util.TimestampIds;
+import com.petcare.common.web.BusinessException;
 import com.petcare.finance.model.Income;
 import com.petcare.finance.mapper.IncomeMapper;
+import com.petcare.finance.service.FinanceMonthService;
+import com.petcare.finance.service.IncomePaymentService;
 import com.petcare.pet.mapper.PetMapper;
 import com.petcare.pet.model.Pet;
+import com.petcare.pet.model.vo.PetBatchResult;
+import com.petcare.pet.model.vo.DailyCapacityCount;
+import com.petcare.pet.model.vo.PetListFilter;
+import com.petcare.pet.model.vo.PetListResponse;
+import com.petcare.pet.model.vo.PetListTotals;
+import com.petcare.pet.model.vo.PetStatusChange;
+import com.petcare.pet.service.CapacityAdmissionService;
+import com.petcare.pet.service.PetArchiveService;
 import com.petcare.pet.service.PetService;
+import com.petcare.system.service.AuditLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PetServiceImpl extends ServiceImpl<PetMapper, Pet> implements PetService {
 
-    private final IncomeMapper incomeMapper;
+    private static final Logger log = LoggerFactory.getLogger(PetServiceImpl.class);
+
+    // 批量入住/离店单次最多处理的宠物数
+    private static final int MAX_BATCH_SIZE = 200;
 
-    public PetServiceImpl(IncomeMapper incomeMapper) {
+    private final IncomeMapper incomeMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CapacityAdmissionService capacityAdmissionService;
+    private final IncomePaymentService incomePaymentService;
+    private final FinanceMonthService financeMonthService;
+    private final AuditLogService auditLogService;
+    private final PetArchiveService petArchiveService;
+
+    public PetServiceImpl(IncomeMapper incomeMapper, ApplicationEventPublisher eventPublisher,
+                          CapacityAdmissionService capacityAdmissionService, IncomePaymentService incomePaymentService,
+                          FinanceMonthService financeMonthService, AuditLogService auditLogService,
+                          PetArchiveService petArchiveService) {
         this.incomeMapper = incomeMapper;
+        this.eventPublisher = eventPublisher;
+        this.capacityAdmissionService = capacityAdmissionService;
+        this.incomePaymentService = incomePaymentService;
+        this.financeMonthService = financeMonthService;
+        this.auditLogService = auditLogService;
+        this.petArchiveService = petArchiveService;
+    }
+
+    @Override
+    public Pet getWithIncome(Long id) {
+        return baseMapper.selectWithIncome(id);
+    }
+
+    @Override
+    public PetListResponse listPage(PetListFilter filter, long page, long size, boolean withTotals) {
+        // 需要汇总时记录数随汇总一并返回，不再单独计数
+        PetListTotals totals = withTotals ? baseMapper.selectListTotals(filter) : null;
+        long total = totals != null ? totals.getPetCount() : baseMapper.countList(filter);
+        Page<Pet> p = Page.of(page, size, total);
+        if (total > p.offset()) {
+            // 与分页插件一致，size 为负数时不分页
+            p.setRecords(baseMapper.selectListPage(filter, p.getSize() < 0 ? null : p.getSize(), p.offset()));
+        }
+        return new PetListResponse(p, totals);
+    }
+
+    @Override
+    public List<Pet> listOverlapping(LocalDate from, LocalDate to) {
+        LocalDate historyFrom = petArchiveService.historyStartBound(from, to);
+        return historyFrom == null ? baseMapper.selectOverlapping(from, to)
+                : baseMapper.selectOverlappingWithHistory(from, to, historyFrom);
+    }
+
+    @Override
+    public List<Pet> listOverlappingAfter(LocalDate from, LocalDate to, long afterId, int limit) {
+        LocalDate historyFrom = petArchiveService.historyStartBound(from, to);
+        return historyFrom == null ? baseMapper.selectOverlappingAfter(from, to, afterId, limit)
+                : baseMapper.selectOverlappingAfterWithHistory(from, to, historyFrom, afterId, limit);
+    }
+
+    @Override
+    public List<Pet> listActiveOverlapping(LocalDate from, LocalDate to) {
+        return baseMapper.selectActiveOverlapping(from, to);
     }
 
     @Override
-    public boolean checkIn(Long id) {
-        Pet pet = getById(id);
-        if (pet == null) return false;
-        pet.setStatus("checkedIn");
-        return updateById(pet);
+    public List<DailyCapacityCount> countActiveByDate(LocalDate from, LocalDate to) {
+        return baseMapper.countActiveByDate(from, to);
+    }
+
+    @Override
+    public List<Pet> listEndingFrom(LocalDate date) {
+        LocalDate historyFrom = petArchiveService.historyStartBound(date, null);
+        return historyFrom == null ? baseMapper.selectEndingFrom(date) : baseMapper.selectEndingFromWithHistory(date, historyFrom);
+    }
+
+    @Override
+    public LocalDate earliestStartDate() {
+        LocalDate hot = baseMapper.selectEarliestStartDate();
+        LocalDate archived = petArchiveService.earliestStartDate();
+        if (hot == null || archived == null) {
+            return hot != null ? hot : archived;
+        }
+        return archived.isBefore(hot) ? archived : hot;
     }
 
     @Override
     @Transactional
-    public boolean checkOutAndCreateIncome(Long id) {
-        Pet pet = getById(id);
-        if (pet == null) return false;
-        // 按过夜天数计算费用，例如：20-23号 = 3个晚上
-        long overnightDays = Math.max(0, ChronoUnit.DAYS.between(pet.getStartDate(), pet.getEndDate()));
-        BigDecimal total = pet.getDailyFee().multiply(BigDecimal.valueOf(overnightDays))
-                .add(pet.getOtherFee() != null ? pet.getOtherFee() : BigDecimal.ZERO);
+    public Pet checkIn(Long id) {
+        // 已离店的订单重新入住会再次占用容量，与修改状态相同先经过容量准入
+        Pet existing = getById(id);
+        if (existing == null) return null;
+        Pet admitted = null;
+        if (!isOccupying(existing.getStatus())) {
+            capacityAdmissionService.admit(id, existing.getStartDate(), existing.getEndDate());
+            admitted = existing;
+        }
+        PetStatusChange pet = baseMapper.updateStatus(id, "checkedIn", LocalDateTime.now());
+        if (pet == null) return null;
+        admitIfChangedMeanwhile(pet, admitted);
+        auditStatusChange(id, pet.getPreviousStatus(), "checkedIn");
+        publishPetsChanged(id);
+        return pet;
+    }
 
-        // 如果该宠物已有收入记录，改为更新而不是再次插入，避免重复记录
-        com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<Income> qw =
-                new com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<>();
-        qw.eq(Income::getPetId, pet.getId());
-        Income existing = incomeMapper.selectOne(qw);
+    @Override
+    @Transactional
+    public boolean removeById(Serializable id) {
+        // 删除已结账月份的订单会改变该月报表
+        Pet existing = getById(id);
         if (existing != null) {
-            existing.setDailyFee(pet.getDailyFee());
-            existing.setOtherFee(pet.getOtherFee());
-            if (pet.getTotalFee() != null) {
-                existing.setTotalFee(pet.getTotalFee());
-            }
-            existing.setDaysStayed((int) overnightDays);
-            existing.setTotalAmount(total);
-            existing.setRemark(pet.getRemark());
-            existing.setUpdatedAt(LocalDateTime.now());
-            incomeMapper.updateById(existing);
-        } else {
-            Income income = new Income();
-            income.setId(System.currentTimeMillis());
-            income.setPetId(pet.getId());
-            income.setDailyFee(pet.getDailyFee());
-            income.setOtherFee(pet.getOtherFee());
-            income.setTotalFee(pet.getTotalFee());
-            income.setDaysStayed((int) overnightDays);
-            income.setTotalAmount(total);
-            income.setSettledAmount(BigDecimal.ZERO);
-            income.setRemark(pet.getRemark());
-            income.setCreatedAt(LocalDateTime.now());
-            income.setUpdatedAt(LocalDateTime.now());
-            incomeMapper.insert(income);
+            financeMonthService.checkWritable(existing.getStartDate(), existing.getEndDate());
         }
-        // 离店：更新宠物状态为 checkedOut
-        pet.setStatus("checkedOut");
-        updateById(pet);
-        return true;
+        boolean removed = super.removeById(id);
+        if (removed && id instanceof Long) {
+            auditLogService.record(DataChangedEvent.TABLE_PETS, id, AuditLogService.Action.DELETE, existing, null);
+            eventPublisher.publishEvent(DataChangedEvent.petDeleted((Long) id));
+        }
+        return removed;
+    }
+
+    @Override
+    @Transactional
+    public Pet checkOutAndCreateIncome(Long id) {
+        // 离店：更新宠物状态为 checkedOut，同时取回计费所需的字段
+        PetStatusChange pet = baseMapper.updateStatus(id, "checkedOut", LocalDateTime.now());
+        if (pet == null) return null;
+        // 离店会结清收入，所在月份须可写；拒绝时整个事务回滚，状态修改一并撤销
+        financeMonthService.checkWritable(pet.getStartDate(), pet.getEndDate());
+        // 如果该宠物已有收入记录，改为更新而不是再次插入，避免重复记录
+        Pet settled = baseMapper.settleCheckout(checkoutIncome(pet));
+        auditStatusChange(id, pet.getPreviousStatus(), "checkedOut");
+        publishPetsChanged(id);
+        return settled;
+    }
+
+    @Override
+    @Transactional
+    public PetBatchResult checkInBatch(List<Long> ids) {
+        Set<Long> distinctIds = distinctBatchIds(ids);
+        // 已离店的订单重新入住前整批准入，容量已满的不修改状态并在结果中返回原因
+        Map<Long, Pet> admitted = listByIds(distinctIds).stream()
+                .filter(pet -> !isOccupying(pet.getStatus()))
+                .collect(Collectors.toMap(Pet::getId, Function.identity()));
+        Map<Long, String> rejections = capacityAdmissionService.admitAll(new ArrayList<>(admitted.values()));
+        Set<Long> toUpdate = new LinkedHashSet<>(distinctIds);
+        toUpdate.removeAll(rejections.keySet());
+
+        // 一条语句完成状态修改并取回收入汇总
+        List<PetStatusChange> changed = toUpdate.isEmpty() ? List.of()
+                : baseMapper.updateStatusBatch(toUpdate, "checkedIn", LocalDateTime.now());
+        changed.forEach(pet -> admitIfChangedMeanwhile(pet, admitted.get(pet.getId())));
+        changed.forEach(pet -> auditStatusChange(pet.getId(), pet.getPreviousStatus(), "checkedIn"));
+        PetBatchResult result = batchResult(toUpdate, changed);
+        rejections.forEach((id, message) -> result.getRejected().add(new PetBatchResult.Rejection(id, message)));
+        return result;
+    }
+
+    /**
+     * 入住前按读到的记录准入；加锁修改时的原状态或日期与读到的不同（期间被并发修改）时按实际记录补做准入，
+     * 容量已满时抛出 BusinessException，整个事务回滚
+     */
+    private void admitIfChangedMeanwhile(PetStatusChange pet, Pet admitted) {
+        if (!isOccupying(pet.getPreviousStatus()) && (admitted == null
+                || !Objects.equals(admitted.getStartDate(), pet.getStartDate())
+                || !Objects.equals(admitted.getEndDate(), pet.getEndDate()))) {
+            capacityAdmissionService.admit(pet.getId(), pet.getStartDate(), pet.getEndDate());
+        }
+    }
+
+    @Override
+    @Transactional
+    public PetBatchResult checkOutBatch(List<Long> ids) {
+        Set<Long> distinctIds = distinctBatchIds(ids);
+        List<PetStatusChange> changed = baseMapper.updateStatusBatch(distinctIds, "checkedOut", LocalDateTime.now());
+        if (changed.isEmpty()) {
+            return batchResult(distinctIds, List.of());
+        }
+        // 任一宠物涉及已结账月份时整批回滚
+        changed.forEach(pet -> financeMonthService.checkWritable(pet.getStartDate(), pet.getEndDate()));
+        // 与单个离店相同的计费规则，所有收入记录一条语句更新或新建
+        List<Income> incomes = changed.stream().map(PetServiceImpl::checkoutIncome).collect(Collectors.toList());
+        List<Pet> settled = baseMapper.settleCheckoutBatch(incomes);
+        changed.forEach(pet -> auditStatusChange(pet.getId(), pet.getPreviousStatus(), "checkedOut"));
+        return batchResult(distinctIds, settled);
     }
 
     @Override
     @Transactional
-    public boolean savePetWithIncome(Pet pet) {
-        // 1. 保存宠物信息
+    public Pet savePetWithIncome(Pet pet) {
+        // 1. 校验宠物信息
         if (pet.getId() == null) {
-            pet.setId(System.currentTimeMillis()); // 生成唯一ID
+            pet.setId(TimestampIds.next()); // 生成唯一ID
+        }
+        financeMonthService.checkWritable(pet.getStartDate(), pet.getEndDate());
+        // 预约或入住状态占用容量，写入前校验每一天是否还有空位
+        if (pet.getStatus() == null || isOccupying(pet.getStatus())) {
+            capacityAdmissionService.admit(pet.getId(), pet.getStartDate(), pet.getEndDate());
         }
         pet.setCreatedAt(LocalDateTime.now());
         pet.setUpdatedAt(LocalDateTime.now());
-        boolean petSaved = save(pet);
-        
-        if (!petSaved) {
-            return false;
-        }
 
         // 2. 自动计算总金额并创建收入记录（若已存在则不再重复创建，交由后续更新逻辑维护）
-        BigDecimal totalAmount;
-        long overnightDays = Math.max(0, ChronoUnit.DAYS.between(pet.getStartDate(), pet.getEndDate()));
-        
-        // 如果前端传入了totalFee，则使用totalFee + 其他费用
-        if (pet.getTotalFee() != null) {
-            totalAmount = pet.getTotalFee().add(pet.getOtherFee() != null ? pet.getOtherFee() : BigDecimal.ZERO);
-        } else {
-            // 否则按过夜天数计算费用，例如：20-23号 = 3个晚上
-            totalAmount = pet.getDailyFee().multiply(BigDecimal.valueOf(overnightDays)).add(pet.getOtherFee() != null ? pet.getOtherFee() : BigDecimal.ZERO);
-        }
+        // 如果前端传入了totalFee，则使用totalFee + 其他费用，否则按过夜天数计算费用
+        long overnightDays = IncomeFeeRules.overnightDays(pet.getStartDate(), pet.getEndDate());
+        BigDecimal totalAmount = IncomeFeeRules.bookingTotalAmount(pet, overnightDays);
 
         Income income = new Income();
-        income.setId(System.currentTimeMillis() + 1); // 确保与宠物ID不同
+        income.setId(TimestampIds.next()); // 与宠物ID及并发请求生成的ID均不同
         income.setPetId(pet.getId());
         income.setDailyFee(pet.getDailyFee());
         income.setOtherFee(pet.getOtherFee());
@@ -118,30 +264,38 @@ public class PetServiceImpl extends ServiceImpl<PetMapper, Pet> implements PetSe
         income.setCreatedAt(LocalDateTime.now());
         income.setUpdatedAt(LocalDateTime.now());
 
-        // 检查是否已存在该宠物的收入记录，避免重复插入
-        com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<Income> qw =
-                new com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<>();
-        qw.eq(Income::getPetId, pet.getId());
-        Income existed = incomeMapper.selectOne(qw);
-        if (existed == null) {
-            // 仅当不存在时插入
-            int result = incomeMapper.insert(income);
-            return result > 0;
-        }
-        return true;
+        // 3. 宠物与收入记录在一条语句内写入，直接返回带收入汇总的记录
+        Pet saved = baseMapper.insertWithIncome(pet, income);
+        auditLogService.record(DataChangedEvent.TABLE_PETS, pet.getId(), AuditLogService.Action.CREATE, null, pet);
+        publishPetsChanged(pet.getId());
+        return saved;
     }
 
     @Override
     @Transactional
     public boolean updatePetWithIncome(Pet pet) {
-        System.out.println("=== updatePetWithIncome 开始 ===");
-        System.out.println("宠物ID: " + pet.getId());
-        System.out.println("totalFee: " + pet.getTotalFee());
-        System.out.println("dailyFee: " + pet.getDailyFee());
-        System.out.println("otherFee: " + pet.getOtherFee());
-        System.out.println("startDate: " + pet.getStartDate());
-        System.out.println("endDate: " + pet.getEndDate());
+        log.debug("修改宠物 {}: totalFee={}, dailyFee={}, otherFee={}, startDate={}, endDate={}", pet.getId(),
+                pet.getTotalFee(), pet.getDailyFee(), pet.getOtherFee(), pet.getStartDate(), pet.getEndDate());
         
+        // 0. 修改日期或重新变为占用状态时校验容量，仅修改备注、费用等不受容量限制
+        Pet existingPet = getById(pet.getId());
+        if (existingPet == null) {
+            return false;
+        }
+        LocalDate newStart = pet.getStartDate() != null ? pet.getStartDate() : existingPet.getStartDate();
+        LocalDate newEnd = pet.getEndDate() != null ? pet.getEndDate() : existingPet.getEndDate();
+        String newStatus = pet.getStatus() != null ? pet.getStatus() : existingPet.getStatus();
+        // 月度报表包含订单的姓名、日期、费用与已结算金额，修改这些字段时原区间与新区间涉及的月份都需要可写
+        if (pet.getName() != null || pet.getStartDate() != null || pet.getEndDate() != null || pet.getDailyFee() != null
+                || pet.getOtherFee() != null || pet.getTotalFee() != null || pet.getInputSettledAmount() != null) {
+            financeMonthService.checkWritable(existingPet.getStartDate(), existingPet.getEndDate());
+            financeMonthService.checkWritable(newStart, newEnd);
+        }
+        if (isOccupying(newStatus) && (!isOccupying(existingPet.getStatus())
+                || !Objects.equals(newStart, existingPet.getStartDate()) || !Objects.equals(newEnd, existingPet.getEndDate()))) {
+            capacityAdmissionService.admit(pet.getId(), newStart, newEnd);
+        }
+
         // 1. 更新宠物信息
         pet.setUpdatedAt(LocalDateTime.now());
         boolean petUpdated = updateById(pet);
@@ -149,6 +303,8 @@ public class PetServiceImpl extends ServiceImpl<PetMapper, Pet> implements PetSe
         if (!petUpdated) {
             return false;
         }
+        auditLogService.record(DataChangedEvent.TABLE_PETS, pet.getId(), AuditLogService.Action.UPDATE, existingPet, pet);
+        publishPetsChanged(pet.getId());
 
         // 2. 查找并更新对应的收入记录
         com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<Income> queryWrapper = 
@@ -159,13 +315,17 @@ public class PetServiceImpl extends ServiceImpl<PetMapper, Pet> implements PetSe
         if (!existingIncomes.isEmpty()) {
             // 如果有多个收入记录，使用第一个（通常应该只有一个）
             Income existingIncome = existingIncomes.get(0);
+            BigDecimal currentSettled = existingIncome.getSettledAmount() != null ? existingIncome.getSettledAmount() : BigDecimal.ZERO;
+            // 需要调整到的已结算金额，null 表示不调整
+            BigDecimal targetSettled = pet.getInputSettledAmount();
             // 3. 重新计算总金额并更新收入记录
             // 需求：如果传了totalFee，优先使用；否则用(日均费用 × 天数 + 其他费用)
             // 触发重算的条件：传入了 totalFee 或者 (dailyFee/otherFee 任一非空) 或者 传入了新的起止日期
             boolean hasDateFields = pet.getStartDate() != null && pet.getEndDate() != null;
             boolean hasTotalFee = pet.getTotalFee() != null;
             boolean feeChanged = pet.getDailyFee() != null || pet.getOtherFee() != null;
-            System.out.println("条件判断 - hasDateFields: " + hasDateFields + ", hasTotalFee: " + hasTotalFee + ", feeChanged: " + feeChanged);
+            log.debug("宠物 {} 收入重算条件: hasDateFields={}, hasTotalFee={}, feeChanged={}",
+                    pet.getId(), hasDateFields, hasTotalFee, feeChanged);
 
             if (hasTotalFee || hasDateFields || feeChanged) {
                 BigDecimal totalAmount;
@@ -183,18 +343,18 @@ public class PetServiceImpl extends ServiceImpl<PetMapper, Pet> implements PetSe
                 }
 
                 if (hasTotalFee) {
-                    System.out.println("使用totalFee计算: " + pet.getTotalFee() + " + " + (useOtherFee != null ? useOtherFee : BigDecimal.ZERO));
+                    log.debug("宠物 {} 使用totalFee计算: {} + {}", pet.getId(), pet.getTotalFee(), useOtherFee);
                     totalAmount = pet.getTotalFee().add(useOtherFee != null ? useOtherFee : BigDecimal.ZERO);
                     // 显式记录原始总价
                     existingIncome.setTotalFee(pet.getTotalFee());
                 } else {
-                    System.out.println("使用日均费用计算: " + useDailyFee + " × " + overnightDays + " + " + (useOtherFee != null ? useOtherFee : BigDecimal.ZERO));
+                    log.debug("宠物 {} 使用日均费用计算: {} × {} + {}", pet.getId(), useDailyFee, overnightDays, useOtherFee);
                     totalAmount = (useDailyFee != null ? useDailyFee : BigDecimal.ZERO)
                             .multiply(BigDecimal.valueOf(overnightDays))
                             .add(useOtherFee != null ? useOtherFee : BigDecimal.ZERO);
                 }
 
-                System.out.println("最终计算的总金额: " + totalAmount);
+                log.debug("宠物 {} 最终计算的总金额: {}", pet.getId(), totalAmount);
 
                 // 回写字段
                 if (pet.getDailyFee() != null) {
@@ -208,22 +368,14 @@ public class PetServiceImpl extends ServiceImpl<PetMapper, Pet> implements PetSe
                 }
                 existingIncome.setTotalAmount(totalAmount);
                 // 保障数据库约束：已结算金额不得大于总金额
-                if (pet.getInputSettledAmount() == null) {
-                    BigDecimal currentSettled = existingIncome.getSettledAmount();
-                    if (currentSettled != null && currentSettled.compareTo(totalAmount) > 0) {
-                        existingIncome.setSettledAmount(totalAmount);
-                        System.out.println("自动纠正已结算金额以满足约束: settled=" + currentSettled + ", total=" + totalAmount);
-                    }
+                if (targetSettled == null && currentSettled.compareTo(totalAmount) > 0) {
+                    targetSettled = totalAmount;
+                    log.info("宠物 {} 自动纠正已结算金额以满足约束: settled={}, total={}", pet.getId(), currentSettled, totalAmount);
                 }
                 if (pet.getRemark() != null) {
                     existingIncome.setRemark(pet.getRemark());
                 }
                 existingIncome.setUpdatedAt(LocalDateTime.now());
-
-                if (pet.getInputSettledAmount() != null) {
-                    existingIncome.setSettledAmount(pet.getInputSettledAmount());
-                    System.out.println("更新已收入金额: " + pet.getInputSettledAmount());
-                }
             } else {
                 // 不触发重算，仅同步可变更的非关键字段
                 if (pet.getDailyFee() != null) {
@@ -236,14 +388,21 @@ public class PetServiceImpl extends ServiceImpl<PetMapper, Pet> implements PetSe
                     existingIncome.setRemark(pet.getRemark());
                 }
                 existingIncome.setUpdatedAt(LocalDateTime.now());
-                if (pet.getInputSettledAmount() != null) {
-                    existingIncome.setSettledAmount(pet.getInputSettledAmount());
-                    System.out.println("更新已收入金额: " + pet.getInputSettledAmount());
-                }
             }
 
-            // 4. 更新收入记录
+            // 4. 更新收入记录；已结算金额不随 updateById 写入，差额追加为收款流水。
+            // 下调（含因总金额下调而纠正）在更新总金额之前，上调在之后，保证任何时刻都满足约束
+            boolean lowering = targetSettled != null && targetSettled.compareTo(currentSettled) < 0;
+            if (lowering) {
+                incomePaymentService.settleTo(existingIncome, targetSettled, "修改订单调整已结算金额");
+            }
             int result = incomeMapper.updateById(existingIncome);
+            if (targetSettled != null && !lowering) {
+                incomePaymentService.settleTo(existingIncome, targetSettled, "修改订单调整已结算金额");
+            }
+            if (targetSettled != null) {
+                log.debug("宠物 {} 更新已收入金额: {}", pet.getId(), targetSettled);
+            }
             return result > 0;
         } else {
             // 如果没有找到对应的收入记录，创建一个新的
@@ -263,7 +422,7 @@ public class PetServiceImpl extends ServiceImpl<PetMapper, Pet> implements PetSe
                 }
 
                 Income newIncome = new Income();
-                newIncome.setId(System.currentTimeMillis() + 2); // 确保ID唯一
+                newIncome.setId(TimestampIds.next()); // 确保ID唯一
                 newIncome.setPetId(pet.getId());
                 newIncome.setDailyFee(pet.getDailyFee());
                 newIncome.setOtherFee(pet.getOtherFee());
@@ -285,61 +444,158 @@ public class PetServiceImpl extends ServiceImpl<PetMapper, Pet> implements PetSe
 
     @Override
     @Transactional
-    public boolean syncAllPetsToIncome() {
-        // 1. 查询所有宠物
-        java.util.List<Pet> allPets = list();
-        
+    public int syncAllPetsToIncome() {
+        // 热表中的所有宠物（已归档的订单均已离店结算，不再同步）
+        List<Pet> allPets = list();
+        Map<Long, Income> incomesByPet = new HashMap<>();
+        for (Income income : incomeMapper.selectList(null)) {
+            // 与离店结算一致，每只宠物以最早的一条收入记录为准
+            incomesByPet.merge(income.getPetId(), income, (a, b) -> a.getId() < b.getId() ? a : b);
+        }
+
+        List<Long> changedIds = new ArrayList<>();
+        int skipped = 0;
         for (Pet pet : allPets) {
-            // 2. 检查是否已存在对应的收入记录
-            com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<Income> queryWrapper = 
-                new com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<>();
-            queryWrapper.eq(Income::getPetId, pet.getId());
-            Income existingIncome = incomeMapper.selectOne(queryWrapper);
-
-            if (existingIncome == null) {
-                // 3. 如果没有收入记录，创建一个新的
-                BigDecimal totalAmount;
-                long overnightDays = Math.max(0, ChronoUnit.DAYS.between(pet.getStartDate(), pet.getEndDate()));
-                
-                // 如果前端传入了totalFee，则使用totalFee + 其他费用
-                if (pet.getTotalFee() != null) {
-                    totalAmount = pet.getTotalFee().add(pet.getOtherFee() != null ? pet.getOtherFee() : BigDecimal.ZERO);
-                } else {
-                    // 否则按过夜天数计算费用，例如：20-23号 = 3个晚上
-                    totalAmount = pet.getDailyFee().multiply(BigDecimal.valueOf(overnightDays)).add(pet.getOtherFee() != null ? pet.getOtherFee() : BigDecimal.ZERO);
-                }
+            Income existing = incomesByPet.get(pet.getId());
+            Income synced = syncedIncome(pet, existing);
+            if (existing != null && sameIncome(existing, synced)) {
+                continue;
+            }
+            if (existing != null && existing.getSettledAmount() != null
+                    && existing.getSettledAmount().compareTo(synced.getTotalAmount()) > 0) {
+                log.warn("宠物 {} 的已结算金额 {} 超过重新计算的总金额 {}，跳过同步", pet.getId(),
+                        existing.getSettledAmount(), synced.getTotalAmount());
+                skipped++;
+                continue;
+            }
+            try {
+                financeMonthService.checkWritable(pet.getStartDate(), pet.getEndDate());
+            } catch (BusinessException e) {
+                log.warn("宠物 {} 涉及已结账月份，跳过同步: {}", pet.getId(), e.getMessage());
+                skipped++;
+                continue;
+            }
+            if (existing == null) {
+                incomeMapper.insert(synced);
+                auditLogService.record(DataChangedEvent.TABLE_INCOMES, synced.getId(), AuditLogService.Action.CREATE, null, synced);
+            } else {
+                incomeMapper.updateById(synced);
+                auditLogService.record(DataChangedEvent.TABLE_INCOMES, synced.getId(), AuditLogService.Action.UPDATE, existing, synced);
+            }
+            changedIds.add(pet.getId());
+        }
+        // 只通知收入记录实际变化的宠物，客户端不必重新下载全部数据
+        if (!changedIds.isEmpty()) {
+            eventPublisher.publishEvent(DataChangedEvent.pets(changedIds));
+        }
+        if (skipped > 0) {
+            log.warn("收入记录同步跳过 {} 条", skipped);
+        }
+        return changedIds.size();
+    }
 
-                Income newIncome = new Income();
-                newIncome.setId(System.currentTimeMillis() + pet.getId()); // 确保ID唯一
-                newIncome.setPetId(pet.getId());
-                newIncome.setDailyFee(pet.getDailyFee());
-                newIncome.setOtherFee(pet.getOtherFee());
-                newIncome.setDaysStayed((int) overnightDays);
-                newIncome.setTotalAmount(totalAmount);
-                newIncome.setSettledAmount(BigDecimal.ZERO);
-                newIncome.setRemark(pet.getRemark());
-                newIncome.setCreatedAt(LocalDateTime.now());
-                newIncome.setUpdatedAt(LocalDateTime.now());
+    /**
+     * 按宠物当前的日期与费用计算的收入记录：已记录一口价（total_fee）时按一口价 + 其他费用，
+     * 否则按 日均费用 × 过夜天数 + 其他费用；已结算金额不变
+     */
+    private static Income syncedIncome(Pet pet, Income existing) {
+        long overnightDays = IncomeFeeRules.overnightDays(pet.getStartDate(), pet.getEndDate());
+        BigDecimal totalFee = existing != null ? existing.getTotalFee() : null;
+        BigDecimal otherFee = pet.getOtherFee() != null ? pet.getOtherFee() : BigDecimal.ZERO;
+        BigDecimal base = totalFee != null ? totalFee
+                : (pet.getDailyFee() != null ? pet.getDailyFee() : BigDecimal.ZERO).multiply(BigDecimal.valueOf(overnightDays));
 
-                incomeMapper.insert(newIncome);
-            } else {
-                // 4. 如果存在收入记录，重新计算并更新（按过夜收费）
-                // 按过夜天数计算费用，例如：20-23号 = 3个晚上
+        Income income = new Income();
+        income.setId(existing != null ? existing.getId() : TimestampIds.next());
+        income.setPetId(pet.getId());
+        income.setDailyFee(pet.getDailyFee());
+        income.setOtherFee(pet.getOtherFee());
+        income.setTotalFee(totalFee);
+        income.setDaysStayed((int) overnightDays);
+        income.setTotalAmount(base.add(otherFee));
+        income.setSettledAmount(existing != null ? existing.getSettledAmount() : BigDecimal.ZERO);
+        income.setRemark(pet.getRemark());
+        income.setCreatedAt(existing != null ? existing.getCreatedAt() : LocalDateTime.now());
+        income.setUpdatedAt(LocalDateTime.now());
+        return income;
+    }
+
+    private static boolean sameIncome(Income a, Income b) {
+        return sameAmount(a.getDailyFee(), b.getDailyFee()) && sameAmount(a.getOtherFee(), b.getOtherFee())
+                && sameAmount(a.getTotalAmount(), b.getTotalAmount()) && Objects.equals(a.getDaysStayed(), b.getDaysStayed())
+                && Objects.equals(a.getRemark(), b.getRemark());
+    }
+
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    /**
+     * 离店收入：按过夜天数计算费用，例如：20-23号 = 3个晚上
+     */
+    private static Income checkoutIncome(Pet pet) {
         long overnightDays = Math.max(0, ChronoUnit.DAYS.between(pet.getStartDate(), pet.getEndDate()));
-                BigDecimal totalAmount = pet.getDailyFee().multiply(BigDecimal.valueOf(overnightDays)).add(pet.getOtherFee());
+        BigDecimal total = pet.getDailyFee().multiply(BigDecimal.valueOf(overnightDays))
+                .add(pet.getOtherFee() != null ? pet.getOtherFee() : BigDecimal.ZERO);
+        Income income = new Income();
+        income.setId(TimestampIds.next());
+        income.setPetId(pet.getId());
+        income.setDailyFee(pet.getDailyFee());
+        income.setOtherFee(pet.getOtherFee());
+        income.setDaysStayed((int) overnightDays);
+        income.setTotalAmount(total);
+        income.setRemark(pet.getRemark());
+        income.setCreatedAt(LocalDateTime.now());
+        income.setUpdatedAt(LocalDateTime.now());
+        return income;
+    }
 
-                existingIncome.setDailyFee(pet.getDailyFee());
-                existingIncome.setOtherFee(pet.getOtherFee());
-                existingIncome.setDaysStayed((int) overnightDays);
-                existingIncome.setTotalAmount(totalAmount);
-                existingIncome.setRemark(pet.getRemark());
-                existingIncome.setUpdatedAt(LocalDateTime.now());
+    private static Set<Long> distinctBatchIds(List<Long> ids) {
+        Set<Long> distinctIds = ids == null ? new LinkedHashSet<>()
+                : ids.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (distinctIds.isEmpty()) {
+            throw new BusinessException("请选择要处理的宠物");
+        }
+        if (distinctIds.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException("一次最多处理 " + MAX_BATCH_SIZE + " 只宠物");
+        }
+        return distinctIds;
+    }
 
-                incomeMapper.updateById(existingIncome);
+    /**
+     * 按请求顺序整理结果，并通知订阅方这些宠物已变更
+     */
+    private PetBatchResult batchResult(Set<Long> requestedIds, List<? extends Pet> pets) {
+        Map<Long, Pet> byId = pets.stream().collect(Collectors.toMap(Pet::getId, Function.identity()));
+        PetBatchResult result = new PetBatchResult();
+        for (Long id : requestedIds) {
+            Pet pet = byId.get(id);
+            if (pet != null) {
+                result.getPets().add(pet);
+            } else {
+                result.getNotFoundIds().add(id);
             }
         }
-        return true;
+        result.setUpdatedCount(result.getPets().size());
+        if (!byId.isEmpty()) {
+            eventPublisher.publishEvent(DataChangedEvent.pets(new ArrayList<>(byId.keySet())));
+        }
+        return result;
+    }
+
+    private static boolean isOccupying(String status) {
+        return "booked".equals(status) || "checkedIn".equals(status);
     }
-}
 
+    private void auditStatusChange(Long id, String previousStatus, String status) {
+        auditLogService.record(DataChangedEvent.TABLE_PETS, id, AuditLogService.Action.UPDATE,
+                Collections.singletonMap("status", previousStatus), Collections.singletonMap("status", status));
+    }
 
+    /**
+     * 通知订阅方宠物记录已变更，事务内发布时在提交后才会被处理
+     */
+    private void publishPetsChanged(Long id) {
+        eventPublisher.publishEvent(DataChangedEvent.pets(List.of(id)));
+    }
+}
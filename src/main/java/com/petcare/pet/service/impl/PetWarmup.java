@@ -0,0 +1,76 @@
+package com.petcare.pet.service.impl;
+
+import com.petcare.common.startup.Warmup;
+import com.petcare.pet.model.Pet;
+import com.petcare.pet.model.vo.PetListFilter;
+import com.petcare.pet.service.PetService;
+import com.petcare.system.service.SettingService;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预约与容量预热
+ * 列表、容量相关的 Mapper 语句各执行一次；再在合成预约上构建区间索引，重复按月统计每日容量，
+ * 容量日历（/api/pets/capacity/month）的计算路径在接收流量前完成 JIT 编译
+ */
+@Component
+@Order(1)
+public class PetWarmup implements Warmup {
+
+    private static final int SYNTHETIC_BOOKINGS = 200;
+
+    private final PetService petService;
+    private final SettingService settingService;
+
+    public PetWarmup(PetService petService, SettingService settingService) {
+        this.petService = petService;
+        this.settingService = settingService;
+    }
+
+    @Override
+    public void warmUp(int iterations) {
+        YearMonth month = YearMonth.now();
+        LocalDate monthStart = month.atDay(1);
+        LocalDate monthEnd = month.atEndOfMonth();
+
+        PetListFilter filter = new PetListFilter();
+        petService.listPage(filter, 1, 10, true);
+        filter.setStatuses("booked,checkedIn");
+        petService.listPage(filter, 1, 10, true);
+        petService.listActiveOverlapping(monthStart, monthStart);
+        petService.countActiveByDate(monthStart, monthEnd);
+        petService.listOverlappingAfter(monthStart, monthEnd, Long.MIN_VALUE, 1);
+        // 只为执行语句，该日期之后没有订单
+        petService.listEndingFrom(monthEnd.plusYears(100));
+        petService.earliestStartDate();
+        settingService.getMaxCapacity();
+
+        BookingIntervalIndex index = BookingIntervalIndex.build(syntheticBookings(monthStart));
+        for (int i = 0; i < iterations; i++) {
+            YearMonth current = month.plusMonths(i % 3);
+            index.countByDate(current.atDay(1), current.atEndOfMonth());
+        }
+    }
+
+    /**
+     * 从 start 前半个月起约三个月内的合成预约，预约与在住交替
+     */
+    private static List<Pet> syntheticBookings(LocalDate start) {
+        List<Pet> bookings = new ArrayList<>(SYNTHETIC_BOOKINGS);
+        for (int i = 0; i < SYNTHETIC_BOOKINGS; i++) {
+            Pet pet = new Pet();
+            pet.setId((long) i);
+            pet.setName("预热" + i);
+            pet.setStatus(i % 2 == 0 ? "booked" : "checkedIn");
+            pet.setStartDate(start.minusDays(15).plusDays(i * 7L % 90));
+            pet.setEndDate(pet.getStartDate().plusDays(1 + i % 10));
+            bookings.add(pet);
+        }
+        return bookings;
+    }
+}
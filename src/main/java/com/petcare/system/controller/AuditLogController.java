@@ -0,0 +1,43 @@
+package com.petcare.system.controller;
+
+import com.petcare.common.web.ApiResponse;
+import com.petcare.system.model.AuditLog;
+import com.petcare.system.service.AuditLogService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 操作审计接口
+ * 查询预约、成本与配置的修改记录
+ */
+@Tag(name = "操作审计", description = "预约、成本与配置的修改记录")
+@RestController
+@RequestMapping("/api/audit-logs")
+public class AuditLogController {
+
+    private static final int MAX_LIMIT = 500;
+
+    private final AuditLogService auditLogService;
+
+    public AuditLogController(AuditLogService auditLogService) {
+        this.auditLogService = auditLogService;
+    }
+
+    @Operation(summary = "查询修改记录", description = "按修改时间倒序返回字段级的修改前后差异；记录由后台批量写入，修改后约 1 秒内可查到")
+    @GetMapping
+    @Transactional(readOnly = true)
+    public ApiResponse<List<AuditLog>> list(
+            @Parameter(description = "表名：pets、costs、settings", example = "pets") @RequestParam(required = false) String table,
+            @Parameter(description = "行主键（宠物ID、成本ID或配置键）", example = "1710000000001") @RequestParam(required = false) String key,
+            @Parameter(description = "最多返回条数（1-500）", example = "50") @RequestParam(defaultValue = "50") int limit) {
+        return ApiResponse.success(auditLogService.list(table, key, Math.max(1, Math.min(limit, MAX_LIMIT))));
+    }
+}
@@ -0,0 +1,42 @@
+package com.petcare.system.controller;
+
+import com.petcare.common.web.ApiResponse;
+import com.petcare.system.model.vo.ChangeFeedResponse;
+import com.petcare.system.service.ChangeLogService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 增量同步接口
+ * 小程序本地缓存数据后，只拉取自上次同步以来变更的宠物、收入、成本与配置
+ */
+@Tag(name = "增量同步", description = "按变更序号拉取增量数据")
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeController {
+
+    private static final int MAX_LIMIT = 2000;
+
+    private final ChangeLogService changeLogService;
+
+    public ChangeController(ChangeLogService changeLogService) {
+        this.changeLogService = changeLogService;
+    }
+
+    @Operation(summary = "拉取增量变更", description = "返回 since 之后变更的宠物（含收入记录）、成本、配置及删除墓碑。首次同步不传 since："
+            + "返回 resetRequired=true 与当前 nextToken，客户端保存 nextToken 后通过列表接口加载全量数据，之后每次携带上次的 nextToken 拉取；"
+            + "hasMore=true 时继续拉取")
+    @GetMapping
+    @Transactional(readOnly = true)
+    public ApiResponse<ChangeFeedResponse> changes(
+            @Parameter(description = "上次同步返回的 nextToken", example = "1024") @RequestParam(required = false) Long since,
+            @Parameter(description = "单次最多读取的变更日志条数（1-2000）", example = "500") @RequestParam(defaultValue = "500") int limit) {
+        return ApiResponse.success(changeLogService.changesSince(since, Math.max(1, Math.min(limit, MAX_LIMIT))));
+    }
+}
@@ -0,0 +1,49 @@
+package com.petcare.system.controller;
+
+import com.petcare.common.job.JobScheduler;
+import com.petcare.common.job.JobStatus;
+import com.petcare.common.web.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 后台任务管理接口
+ * 状态为处理请求的实例上的记录；手动触发同样先获取集群锁，其他实例正在执行时结果为 skipped
+ */
+@Tag(name = "后台任务", description = "查看与手动触发后台任务")
+@RestController
+@RequestMapping("/api/admin/jobs")
+public class JobController {
+
+    private final JobScheduler jobScheduler;
+
+    public JobController(JobScheduler jobScheduler) {
+        this.jobScheduler = jobScheduler;
+    }
+
+    @Operation(summary = "任务列表", description = "返回全部后台任务在本实例上的执行状态")
+    @GetMapping
+    public ApiResponse<List<JobStatus>> list() {
+        return ApiResponse.success(jobScheduler.list());
+    }
+
+    @Operation(summary = "任务状态", description = "返回指定任务在本实例上的执行状态")
+    @GetMapping("/{name}")
+    public ApiResponse<JobStatus> status(@Parameter(description = "任务名称", example = "income-sync") @PathVariable String name) {
+        return ApiResponse.success(jobScheduler.status(name));
+    }
+
+    @Operation(summary = "手动触发任务", description = "在后台线程执行任务并立即返回，之后通过任务状态接口查看结果")
+    @PostMapping("/{name}/run")
+    public ApiResponse<JobStatus> run(@Parameter(description = "任务名称", example = "income-sync") @PathVariable String name) {
+        return ApiResponse.success(jobScheduler.trigger(name));
+    }
+}
@@ -1,14 +1,12 @@
 package com.petcare.system.controller;
 
 import com.petcare.common.web.ApiResponse;
-import com.petcare.system.mapper.SettingMapper;
 import com.petcare.system.model.Setting;
+import com.petcare.system.service.SettingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
-
 /**
  * 系统配置管理接口
  * 提供系统配置的增删改查功能
@@ -17,20 +15,16 @@ import java.time.LocalDateTime;
 @RestController
 @RequestMapping("/api/settings")
 public class SettingController {
-    private final SettingMapper settingMapper;
+    private final SettingService settingService;
 
-    public SettingController(SettingMapper settingMapper) {
-        this.settingMapper = settingMapper;
+    public SettingController(SettingService settingService) {
+        this.settingService = settingService;
     }
 
     @Operation(summary = "更新配置", description = "修改现有配置项，系统自动设置更新时间")
     @PutMapping
     public ApiResponse<Boolean> update(@RequestBody Setting setting) {
-        // 自动设置更新时间
-        setting.setUpdatedAt(LocalDateTime.now());
-        // 使用自定义的更新方法，正确处理key字段
-        int result = settingMapper.updateSetting(setting);
-        return ApiResponse.success(result > 0);
+        return ApiResponse.success(settingService.updateSetting(setting));
     }
 }
 
@@ -0,0 +1,9 @@
+package com.petcare.system.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.petcare.system.model.AuditLog;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface AuditLogMapper extends BaseMapper<AuditLog> {
+}
@@ -0,0 +1,22 @@
+package com.petcare.system.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.petcare.system.model.ChangeLog;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+@Mapper
+public interface ChangeLogMapper extends BaseMapper<ChangeLog> {
+
+    @Select("SELECT coalesce(max(seq), 0) FROM change_log")
+    long selectLatestSeq();
+
+    @Select("SELECT min(seq) FROM change_log")
+    Long selectMinSeq();
+
+    @Select("SELECT seq, table_name, row_key, op, changed_at FROM change_log WHERE seq > #{since} ORDER BY seq LIMIT #{limit}")
+    List<ChangeLog> selectSince(@Param("since") long since, @Param("limit") int limit);
+}
@@ -3,9 +3,13 @@ package com.petcare.system.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.petcare.system.model.Setting;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
+import java.util.List;
+
 @Mapper
 public interface SettingMapper extends BaseMapper<Setting> {
     
@@ -14,4 +18,8 @@ public interface SettingMapper extends BaseMapper<Setting> {
     
     @Select("SELECT \"key\", value, updated_at FROM settings WHERE \"key\" = #{key}")
     Setting selectByKey(String key);
+
+    @Select("<script>SELECT \"key\", value, updated_at FROM settings WHERE \"key\" IN " +
+            "<foreach collection='keys' item='k' open='(' separator=',' close=')'>#{k}</foreach></script>")
+    List<Setting> selectByKeys(@Param("keys") Collection<String> keys);
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.petcare.system.model;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 操作审计日志实体，只追加不修改
+ */
+@Data
+@TableName("audit_log")
+@Schema(description = "操作审计日志")
+public class AuditLog {
+    @TableId(type = IdType.AUTO)
+    @Schema(description = "日志ID", example = "2048")
+    private Long id;
+
+    @Schema(description = "修改的表", example = "pets")
+    private String tableName;
+
+    @Schema(description = "修改行主键", example = "1710000000001")
+    private String rowKey;
+
+    @Schema(description = "操作类型", example = "UPDATE", allowableValues = {"CREATE", "UPDATE", "DELETE"})
+    private String action;
+
+    @Schema(description = "字段差异（JSON），如 {\"dailyFee\":{\"before\":100,\"after\":120}}")
+    private String changes;
+
+    @Schema(description = "操作人：请求头 X-Operator，未传时为客户端地址，后台任务为 system", example = "店长")
+    private String operator;
+
+    @Schema(description = "修改时间（事务提交时间）", example = "2025-09-12 10:30:00")
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,33 @@
+package com.petcare.system.model;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 变更日志实体，只追加不修改
+ */
+@Data
+@TableName("change_log")
+@Schema(description = "变更日志")
+public class ChangeLog {
+    @TableId(type = IdType.AUTO)
+    @Schema(description = "变更序号，按提交顺序单调递增", example = "1024")
+    private Long seq;
+
+    @Schema(description = "变更的表", example = "pets")
+    private String tableName;
+
+    @Schema(description = "变更行主键", example = "1710000000001")
+    private String rowKey;
+
+    @Schema(description = "变更类型", example = "UPSERT", allowableValues = {"UPSERT", "DELETE"})
+    private String op;
+
+    @Schema(description = "变更时间", example = "2025-09-12 10:30:00")
+    private LocalDateTime changedAt;
+}
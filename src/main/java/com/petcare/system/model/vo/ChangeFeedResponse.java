@@ -0,0 +1,61 @@
+package com.petcare.system.model.vo;
+
+import com.petcare.finance.model.Cost;
+import com.petcare.finance.model.Income;
+import com.petcare.pet.model.Pet;
+import com.petcare.system.model.Setting;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量同步结果
+ * 同一行在区间内多次变更只返回最新状态；删除的行以墓碑（tombstones）返回
+ */
+@Data
+@Schema(description = "增量同步结果")
+public class ChangeFeedResponse {
+
+    @Schema(description = "下次请求携带的 since 值", example = "1024")
+    private long nextToken;
+
+    @Schema(description = "是否还有未返回的变更，为 true 时应立即用 nextToken 继续拉取", example = "false")
+    private boolean hasMore;
+
+    @Schema(description = "是否需要全量同步：首次同步或 since 已失效时为 true，客户端应保存 nextToken 后通过列表接口重新加载全部数据", example = "false")
+    private boolean resetRequired;
+
+    @Schema(description = "新增或修改的宠物（含寄养天数、总金额、已入账金额）")
+    private List<Pet> pets = new ArrayList<>();
+
+    @Schema(description = "变更宠物对应的收入记录")
+    private List<Income> incomes = new ArrayList<>();
+
+    @Schema(description = "新增或修改的成本记录")
+    private List<Cost> costs = new ArrayList<>();
+
+    @Schema(description = "修改的系统配置")
+    private List<Setting> settings = new ArrayList<>();
+
+    @Schema(description = "已删除的记录")
+    private List<Tombstone> tombstones = new ArrayList<>();
+
+    /**
+     * 删除墓碑
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "删除墓碑")
+    public static class Tombstone {
+        @Schema(description = "表名", example = "pets")
+        private String table;
+
+        @Schema(description = "被删除行的主键", example = "1710000000001")
+        private String key;
+    }
+}
@@ -0,0 +1,27 @@
+package com.petcare.system.service;
+
+import com.petcare.system.model.AuditLog;
+
+import java.util.List;
+
+/**
+ * 操作审计
+ * 写路径调用 record 只把修改前后的实体放入内存队列，字段差异的计算与入库由后台线程批量完成，不占用请求时间
+ */
+public interface AuditLogService {
+
+    enum Action {
+        CREATE, UPDATE, DELETE
+    }
+
+    /**
+     * 记录一次修改：新增时 before 为空，删除时 after 为空；修改时 after 中为空的字段视为未修改。
+     * 在事务内调用时提交后才入队，回滚不记录；队列已满时按配置等待或丢弃，不抛出异常
+     */
+    void record(String table, Object key, Action action, Object before, Object after);
+
+    /**
+     * 按修改顺序倒序查询，table、key 为空时不过滤
+     */
+    List<AuditLog> list(String table, String key, int limit);
+}
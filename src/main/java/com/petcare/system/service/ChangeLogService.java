@@ -0,0 +1,13 @@
+package com.petcare.system.service;
+
+import com.petcare.system.model.vo.ChangeFeedResponse;
+
+/**
+ * 增量同步变更日志
+ */
+public interface ChangeLogService {
+    /**
+     * 查询 since 之后的变更，最多 limit 条日志；since 为空表示首次同步
+     */
+    ChangeFeedResponse changesSince(Long since, int limit);
+}
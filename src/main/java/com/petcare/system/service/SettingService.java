@@ -4,6 +4,14 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.petcare.system.model.Setting;
 
 public interface SettingService extends IService<Setting> {
-}
-
+    /**
+     * 按配置键更新配置值，自动设置更新时间
+     */
+    boolean updateSetting(Setting setting);
 
+    /**
+     * 最大容量配置（max_capacity），读取失败或未配置时返回默认值10。
+     * 结果带缓存，配置变更（含其他实例的变更）后失效；失效通知断开期间缓存仅保留数秒
+     */
+    int getMaxCapacity();
+}
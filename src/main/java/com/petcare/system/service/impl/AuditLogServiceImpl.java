@@ -0,0 +1,358 @@
+package com.petcare.system.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.petcare.common.datasource.MigrationTable;
+import com.petcare.common.web.BusinessException;
+import com.petcare.system.mapper.AuditLogMapper;
+import com.petcare.system.model.AuditLog;
+import com.petcare.system.service.AuditLogService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 操作审计实现
+ * 队列为 ConcurrentLinkedQueue（无锁），容量由 CAS 计数控制：入队前先占一个名额，占不到即为队列已满，
+ * 此时按 petcare.audit.overflow 丢弃（drop）或等待写入线程腾出空间（block，最多 block-timeout-ms 后丢弃）。
+ * 写入线程每 flush-interval-ms 或队列积压达到 batch-size 时取出一批，计算字段差异后批量插入 audit_log；
+ * 写入失败或未建表时丢弃该批并计数，不重试，避免拖垮数据库
+ */
+@Service
+public class AuditLogServiceImpl implements AuditLogService, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogServiceImpl.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO audit_log (table_name, row_key, action, changes, operator, changed_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // 时间戳由写路径维护，不记为业务修改
+    private static final Set<String> IGNORED_FIELDS = Set.of("createdAt", "updatedAt");
+
+    private static final int MAX_OPERATOR_LENGTH = 64;
+    private static final long WARN_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MigrationTable auditLogTable;
+    private final AuditLogMapper auditLogMapper;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final boolean blockWhenFull;
+    private final long blockTimeoutNanos;
+
+    private final ConcurrentLinkedQueue<PendingAudit> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+
+    private volatile boolean running;
+    private volatile Thread writerThread;
+    private volatile long lastDropWarnAt;
+
+    public AuditLogServiceImpl(JdbcTemplate jdbcTemplate, AuditLogMapper auditLogMapper, ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${petcare.audit.enabled:true}") boolean enabled,
+                               @Value("${petcare.audit.queue-capacity:10000}") int capacity,
+                               @Value("${petcare.audit.batch-size:200}") int batchSize,
+                               @Value("${petcare.audit.flush-interval-ms:500}") long flushIntervalMillis,
+                               @Value("${petcare.audit.overflow:drop}") String overflow,
+                               @Value("${petcare.audit.block-timeout-ms:50}") long blockTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditLogTable = new MigrationTable(jdbcTemplate, "audit_log", "004_audit_log.sql", "操作审计不入库");
+        this.auditLogMapper = auditLogMapper;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(10, flushIntervalMillis));
+        this.blockWhenFull = "block".equalsIgnoreCase(overflow.trim());
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, blockTimeoutMillis));
+        this.written = Counter.builder("petcare.audit.events").tag("result", "written")
+                .description("已写入的审计日志条数").register(meterRegistry);
+        this.dropped = Counter.builder("petcare.audit.events").tag("result", "dropped")
+                .description("队列已满被丢弃的审计日志条数").register(meterRegistry);
+        this.failed = Counter.builder("petcare.audit.events").tag("result", "failed")
+                .description("写入失败或未建表被丢弃的审计日志条数").register(meterRegistry);
+        Gauge.builder("petcare.audit.queue.size", queued, AtomicInteger::get)
+                .description("等待写入的审计日志条数").register(meterRegistry);
+    }
+
+    @Override
+    public void record(String table, Object key, Action action, Object before, Object after) {
+        if (!enabled) {
+            return;
+        }
+        // 调用方之后可能继续修改实体，先转成树固定当前值；差异计算与入库留给写入线程
+        JsonNode beforeTree = before != null ? objectMapper.valueToTree(before) : null;
+        JsonNode afterTree = after != null ? objectMapper.valueToTree(after) : null;
+        String operator = currentOperator();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 事务回滚的修改不记录
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(new PendingAudit(table, String.valueOf(key), action, beforeTree, afterTree, operator, LocalDateTime.now()));
+                }
+            });
+        } else {
+            enqueue(new PendingAudit(table, String.valueOf(key), action, beforeTree, afterTree, operator, LocalDateTime.now()));
+        }
+    }
+
+    @Override
+    public List<AuditLog> list(String table, String key, int limit) {
+        if (!auditLogTable.isAvailable()) {
+            throw new BusinessException("操作审计未启用：请先执行 db/migration/004_audit_log.sql");
+        }
+        return auditLogMapper.selectList(new LambdaQueryWrapper<AuditLog>()
+                .eq(StringUtils.hasText(table), AuditLog::getTableName, table)
+                .eq(StringUtils.hasText(key), AuditLog::getRowKey, key)
+                .orderByDesc(AuditLog::getId)
+                .last("LIMIT " + limit));
+    }
+
+    private void enqueue(PendingAudit entry) {
+        if (tryReserve()) {
+            queue.offer(entry);
+            if (queued.get() >= batchSize) {
+                LockSupport.unpark(writerThread);
+            }
+            return;
+        }
+        if (blockWhenFull && running) {
+            // 背压：唤醒写入线程并短暂等待空位，超时仍满则丢弃
+            long deadline = System.nanoTime() + blockTimeoutNanos;
+            while (System.nanoTime() < deadline) {
+                LockSupport.unpark(writerThread);
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(200));
+                if (tryReserve()) {
+                    queue.offer(entry);
+                    return;
+                }
+            }
+        }
+        dropped.increment();
+        long now = System.currentTimeMillis();
+        if (now - lastDropWarnAt > WARN_INTERVAL_MILLIS) {
+            lastDropWarnAt = now;
+            log.warn("审计日志队列已满（容量 {}），丢弃 {} {} 的 {} 记录", capacity, entry.table, entry.key, entry.action);
+        }
+    }
+
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = queued.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!queued.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void writeLoop() {
+        while (running || !queue.isEmpty()) {
+            List<PendingAudit> batch = drain();
+            if (batch.isEmpty()) {
+                if (running) {
+                    LockSupport.parkNanos(flushIntervalNanos);
+                }
+                continue;
+            }
+            write(batch);
+        }
+    }
+
+    private List<PendingAudit> drain() {
+        List<PendingAudit> batch = new ArrayList<>(Math.min(batchSize, queued.get()));
+        PendingAudit entry;
+        while (batch.size() < batchSize && (entry = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(entry);
+        }
+        return batch;
+    }
+
+    private void write(List<PendingAudit> batch) {
+        try {
+            if (!auditLogTable.isAvailable()) {
+                failed.increment(batch.size());
+                return;
+            }
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            for (PendingAudit entry : batch) {
+                ObjectNode changes = diff(entry);
+                // 修改后与修改前完全相同（如重复提交）时不记录
+                if (entry.action == Action.UPDATE && changes.isEmpty()) {
+                    continue;
+                }
+                rows.add(new Object[]{entry.table, entry.key, entry.action.name(), objectMapper.writeValueAsString(changes),
+                        entry.operator, Timestamp.valueOf(entry.changedAt)});
+            }
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            }
+            written.increment(rows.size());
+        } catch (Exception e) {
+            failed.increment(batch.size());
+            log.warn("审计日志写入失败，丢弃 {} 条: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 新增记录所有非空字段的 after，删除记录所有非空字段的 before，修改只记录 after 中非空且与 before 不同的字段
+     */
+    private ObjectNode diff(PendingAudit entry) {
+        JsonNode before = entry.before != null ? entry.before : objectMapper.createObjectNode();
+        JsonNode after = entry.after != null ? entry.after : objectMapper.createObjectNode();
+        ObjectNode changes = objectMapper.createObjectNode();
+        JsonNode source = entry.action == Action.DELETE ? before : after;
+        Iterator<Map.Entry<String, JsonNode>> fields = source.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            JsonNode value = field.getValue();
+            if (IGNORED_FIELDS.contains(name) || value.isNull()) {
+                continue;
+            }
+            JsonNode previous = before.path(name);
+            if (entry.action == Action.UPDATE && sameValue(previous, value)) {
+                continue;
+            }
+            ObjectNode change = changes.putObject(name);
+            if (entry.action != Action.CREATE) {
+                change.set("before", previous.isMissingNode() ? objectMapper.nullNode() : previous);
+            }
+            if (entry.action != Action.DELETE) {
+                change.set("after", value);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * 金额按数值比较，100 与 100.00 视为相同
+     */
+    private static boolean sameValue(JsonNode a, JsonNode b) {
+        if (a.isNumber() && b.isNumber()) {
+            return a.decimalValue().compareTo(b.decimalValue()) == 0;
+        }
+        if (a.isTextual() && b.isNumber() || a.isNumber() && b.isTextual()) {
+            try {
+                return new BigDecimal(a.asText()).compareTo(new BigDecimal(b.asText())) == 0;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return a.equals(b);
+    }
+
+    /**
+     * 请求头 X-Operator 优先，其次客户端地址；不在请求内（后台任务）时为 system
+     */
+    private static String currentOperator() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return "system";
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        String operator = request.getHeader("X-Operator");
+        if (!StringUtils.hasText(operator)) {
+            operator = request.getRemoteAddr();
+        }
+        return operator != null && operator.length() > MAX_OPERATOR_LENGTH ? operator.substring(0, MAX_OPERATOR_LENGTH) : operator;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::writeLoop, "petcare-audit-writer");
+        thread.setDaemon(true);
+        writerThread = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        // 停止接收后写完队列中剩余的记录
+        running = false;
+        Thread thread = writerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 在 Web 服务器之后停止、连接池关闭之前停止，停机时处理中的请求产生的记录仍能写入
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private static final class PendingAudit {
+        private final String table;
+        private final String key;
+        private final Action action;
+        private final JsonNode before;
+        private final JsonNode after;
+        private final String operator;
+        private final LocalDateTime changedAt;
+
+        private PendingAudit(String table, String key, Action action, JsonNode before, JsonNode after,
+                             String operator, LocalDateTime changedAt) {
+            this.table = table;
+            this.key = key;
+            this.action = action;
+            this.before = before;
+            this.after = after;
+            this.operator = operator;
+            this.changedAt = changedAt;
+        }
+    }
+}
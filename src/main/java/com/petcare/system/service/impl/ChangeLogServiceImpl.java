@@ -0,0 +1,201 @@
+package com.petcare.system.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.petcare.common.datasource.MigrationTable;
+import com.petcare.common.event.DataChangedEvent;
+import com.petcare.common.web.BusinessException;
+import com.petcare.finance.mapper.CostMapper;
+import com.petcare.finance.mapper.IncomeMapper;
+import com.petcare.finance.model.Cost;
+import com.petcare.finance.model.Income;
+import com.petcare.pet.mapper.PetMapper;
+import com.petcare.pet.model.Pet;
+import com.petcare.system.mapper.ChangeLogMapper;
+import com.petcare.system.mapper.SettingMapper;
+import com.petcare.system.model.ChangeLog;
+import com.petcare.system.model.vo.ChangeFeedResponse;
+import com.petcare.system.service.ChangeLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 变更日志实现
+ * 写入：监听 DataChangedEvent，在业务事务提交前于同一事务内追加日志（无事务时单独开启事务）。
+ * 追加前先获取全局事务级咨询锁，保证 seq 的分配顺序与提交顺序一致：
+ * 读到 seq = n 时，所有 seq < n 的日志都已提交，客户端按 since 拉取不会漏掉后提交的小序号。
+ * 读取：按 seq 取一段日志，同一行只保留最后一次变更，再按主键回读各表当前数据
+ */
+@Service
+public class ChangeLogServiceImpl implements ChangeLogService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogServiceImpl.class);
+
+    // 变更日志追加锁（单 bigint 键，与容量准入的双整数键互不冲突）
+    private static final long APPEND_LOCK_KEY = 0x5043_4348_4C4FL;
+
+    // 客户端同步的表；其他表（如结账快照）的变更只用于失效缓存，不写变更日志
+    private static final Set<String> SYNC_TABLES =
+            Set.of(DataChangedEvent.TABLE_PETS, DataChangedEvent.TABLE_COSTS, DataChangedEvent.TABLE_SETTINGS);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO change_log (table_name, row_key, op, changed_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MigrationTable changeLogTable;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeLogMapper changeLogMapper;
+    private final PetMapper petMapper;
+    private final IncomeMapper incomeMapper;
+    private final CostMapper costMapper;
+    private final SettingMapper settingMapper;
+
+    public ChangeLogServiceImpl(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                ChangeLogMapper changeLogMapper, PetMapper petMapper, IncomeMapper incomeMapper,
+                                CostMapper costMapper, SettingMapper settingMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeLogTable = new MigrationTable(jdbcTemplate, "change_log", "001_change_log.sql", "增量同步未启用");
+        this.transactionTemplate = transactionTemplate;
+        this.changeLogMapper = changeLogMapper;
+        this.petMapper = petMapper;
+        this.incomeMapper = incomeMapper;
+        this.costMapper = costMapper;
+        this.settingMapper = settingMapper;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        if (event.isRemote() || event.getKeys().isEmpty() || !SYNC_TABLES.contains(event.getTable())
+                || !changeLogTable.isAvailable()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = event.getKeys().stream()
+                .map(key -> new Object[]{event.getTable(), key, event.getOp().name(), now})
+                .collect(Collectors.toList());
+        // 处于业务事务中时加入该事务，锁持有到提交；否则单独开启事务
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT count(pg_advisory_xact_lock(?))", Long.class, APPEND_LOCK_KEY);
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        });
+    }
+
+    @Override
+    public ChangeFeedResponse changesSince(Long since, int limit) {
+        if (!changeLogTable.isAvailable()) {
+            throw new BusinessException("增量同步未启用：请先执行 db/migration/001_change_log.sql");
+        }
+        ChangeFeedResponse response = new ChangeFeedResponse();
+        long latest = changeLogMapper.selectLatestSeq();
+        Long oldest = changeLogMapper.selectMinSeq();
+        // 首次同步（未传 since）、token 超前（换库）或早于已清理的日志时，客户端需要全量同步
+        if (since == null || since < 0 || since > latest || (oldest != null && since < oldest - 1)) {
+            response.setResetRequired(true);
+            response.setNextToken(latest);
+            return response;
+        }
+
+        List<ChangeLog> entries = changeLogMapper.selectSince(since, limit + 1);
+        response.setHasMore(entries.size() > limit);
+        if (entries.size() > limit) {
+            entries = entries.subList(0, limit);
+        }
+        response.setNextToken(entries.isEmpty() ? since : entries.get(entries.size() - 1).getSeq());
+
+        // 同一行只保留最后一次变更
+        Map<String, Map<String, String>> latestOps = new HashMap<>();
+        for (ChangeLog entry : entries) {
+            latestOps.computeIfAbsent(entry.getTableName(), t -> new LinkedHashMap<>()).put(entry.getRowKey(), entry.getOp());
+        }
+        for (Map.Entry<String, Map<String, String>> table : latestOps.entrySet()) {
+            List<String> upserts = new ArrayList<>();
+            table.getValue().forEach((key, op) -> {
+                if (DataChangedEvent.Op.DELETE.name().equals(op)) {
+                    response.getTombstones().add(new ChangeFeedResponse.Tombstone(table.getKey(), key));
+                } else {
+                    upserts.add(key);
+                }
+            });
+            if (!upserts.isEmpty()) {
+                loadCurrentRows(table.getKey(), upserts, response);
+            }
+        }
+        return response;
+    }
+
+    private void loadCurrentRows(String table, List<String> keys, ChangeFeedResponse response) {
+        switch (table) {
+            case DataChangedEvent.TABLE_PETS: {
+                List<Long> ids = keys.stream().map(Long::valueOf).collect(Collectors.toList());
+                List<Pet> pets = petMapper.selectBatchIds(ids);
+                List<Income> incomes = incomeMapper.selectList(new LambdaQueryWrapper<Income>().in(Income::getPetId, ids));
+                fillAmounts(pets, incomes);
+                response.getPets().addAll(pets);
+                response.getIncomes().addAll(incomes);
+                addMissingAsTombstones(table, keys, pets, pet -> String.valueOf(pet.getId()), response);
+                break;
+            }
+            case DataChangedEvent.TABLE_COSTS: {
+                List<Cost> costs = costMapper.selectBatchIds(keys.stream().map(Long::valueOf).collect(Collectors.toList()));
+                response.getCosts().addAll(costs);
+                addMissingAsTombstones(table, keys, costs, cost -> String.valueOf(cost.getId()), response);
+                break;
+            }
+            case DataChangedEvent.TABLE_SETTINGS:
+                response.getSettings().addAll(settingMapper.selectByKeys(keys));
+                break;
+            default:
+                log.warn("变更日志中存在未知的表: {}", table);
+        }
+    }
+
+    /**
+     * 日志记为修改但行已不存在（之后被删除且删除日志不在本次区间内）时按删除返回
+     */
+    private static <T> void addMissingAsTombstones(String table, List<String> keys, List<T> found,
+                                                   Function<T, String> keyOf, ChangeFeedResponse response) {
+        Set<String> foundKeys = found.stream().map(keyOf).collect(Collectors.toSet());
+        keys.stream()
+                .filter(key -> !foundKeys.contains(key))
+                .forEach(key -> response.getTombstones().add(new ChangeFeedResponse.Tombstone(table, key)));
+    }
+
+    /**
+     * 与宠物详情接口一致：寄养天数按过夜计算，总金额与已入账金额取收入记录之和，寄养费用取第一条非空 totalFee
+     */
+    private static void fillAmounts(List<Pet> pets, List<Income> incomes) {
+        Map<Long, List<Income>> byPet = incomes.stream().collect(Collectors.groupingBy(Income::getPetId));
+        for (Pet pet : pets) {
+            if (pet.getStartDate() != null && pet.getEndDate() != null) {
+                pet.setStayDays((int) Math.max(0, ChronoUnit.DAYS.between(pet.getStartDate(), pet.getEndDate())));
+            } else {
+                pet.setStayDays(0);
+            }
+            List<Income> own = byPet.getOrDefault(pet.getId(), List.of());
+            pet.setTotalAmount(own.stream()
+                    .map(i -> i.getTotalAmount() != null ? i.getTotalAmount() : BigDecimal.ZERO)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add));
+            pet.setSettledAmount(own.stream()
+                    .map(i -> i.getSettledAmount() != null ? i.getSettledAmount() : BigDecimal.ZERO)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add));
+            pet.setTotalFee(own.stream().map(Income::getTotalFee).filter(fee -> fee != null).findFirst().orElse(null));
+        }
+    }
+}
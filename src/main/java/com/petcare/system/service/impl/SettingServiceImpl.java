@@ -1,13 +1,108 @@
 package com.petcare.system.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.petcare.common.event.DataChangedEvent;
+import com.petcare.common.event.InvalidationBus;
 import com.petcare.system.mapper.SettingMapper;
 import com.petcare.system.model.Setting;
+import com.petcare.system.service.AuditLogService;
 import com.petcare.system.service.SettingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class SettingServiceImpl extends ServiceImpl<SettingMapper, Setting> implements SettingService {
-}
 
+    private static final Logger log = LoggerFactory.getLogger(SettingServiceImpl.class);
+
+    private static final String MAX_CAPACITY_KEY = "max_capacity";
+    private static final int DEFAULT_MAX_CAPACITY = 10;
+
+    // 失效通知正常时依赖通知失效，有效期仅作兜底；断开期间缩短为数秒，限制读到其他实例旧配置的时间
+    private static final long CONNECTED_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long DISCONNECTED_TTL_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final InvalidationBus invalidationBus;
+    private final AuditLogService auditLogService;
+
+    private volatile CachedValue maxCapacity;
+    // 每次失效递增；读取期间发生失效时不缓存读到的旧值
+    private final AtomicLong generation = new AtomicLong();
 
+    public SettingServiceImpl(ApplicationEventPublisher eventPublisher, InvalidationBus invalidationBus,
+                              AuditLogService auditLogService) {
+        this.eventPublisher = eventPublisher;
+        this.invalidationBus = invalidationBus;
+        this.auditLogService = auditLogService;
+    }
+
+    @Override
+    @Transactional
+    public boolean updateSetting(Setting setting) {
+        // 自动设置更新时间
+        setting.setUpdatedAt(LocalDateTime.now());
+        Setting previous = baseMapper.selectByKey(setting.getKey());
+        // 使用自定义的更新方法，正确处理key字段
+        boolean updated = baseMapper.updateSetting(setting) > 0;
+        if (updated) {
+            auditLogService.record(DataChangedEvent.TABLE_SETTINGS, setting.getKey(), AuditLogService.Action.UPDATE, previous, setting);
+            eventPublisher.publishEvent(DataChangedEvent.setting(setting.getKey()));
+        }
+        return updated;
+    }
+
+    @Override
+    public int getMaxCapacity() {
+        CachedValue cached = maxCapacity;
+        long ttl = invalidationBus.isConnected() ? CONNECTED_TTL_MILLIS : DISCONNECTED_TTL_MILLIS;
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.loadedAt < ttl) {
+            return cached.value;
+        }
+        long loadGeneration = generation.get();
+        int value = DEFAULT_MAX_CAPACITY;
+        try {
+            // 使用自定义查询方法，避免key字段的SQL语法问题
+            Setting setting = baseMapper.selectByKey(MAX_CAPACITY_KEY);
+            if (setting != null && setting.getValue() != null) {
+                value = Integer.parseInt(setting.getValue());
+            }
+        } catch (Exception e) {
+            // 读取失败时返回默认值但不缓存，下次重新读取
+            log.warn("获取最大容量配置失败", e);
+            return value;
+        }
+        if (generation.get() == loadGeneration) {
+            maxCapacity = new CachedValue(value, now);
+        }
+        return value;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        if (DataChangedEvent.TABLE_SETTINGS.equals(event.getTable())
+                && (event.getKeys().isEmpty() || event.getKeys().contains(MAX_CAPACITY_KEY))) {
+            generation.incrementAndGet();
+            maxCapacity = null;
+        }
+    }
+
+    private static final class CachedValue {
+        private final int value;
+        private final long loadedAt;
+
+        private CachedValue(int value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
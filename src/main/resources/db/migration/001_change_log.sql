@@ -0,0 +1,10 @@
+-- 增量同步变更日志：写路径在事务提交前追加，客户端按 seq 拉取 /api/changes?since=<token>
+CREATE TABLE IF NOT EXISTS change_log (
+    seq         BIGSERIAL PRIMARY KEY,
+    table_name  VARCHAR(32) NOT NULL,
+    row_key     VARCHAR(64) NOT NULL,
+    op          VARCHAR(8)  NOT NULL,
+    changed_at  TIMESTAMP   NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_change_log_changed_at ON change_log (changed_at);
@@ -0,0 +1,17 @@
+-- 收款流水：只追加不修改；incomes.settled_amount 为流水累计值，与流水在同一事务内原子累加
+CREATE TABLE IF NOT EXISTS income_payments (
+    id         BIGSERIAL PRIMARY KEY,
+    income_id  BIGINT         NOT NULL,
+    amount     NUMERIC(12, 2) NOT NULL,
+    remark     VARCHAR(255),
+    paid_at    TIMESTAMP      NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_income_payments_income_id ON income_payments (income_id, id);
+
+-- 建表前已有的已结算金额记为期初流水；重复执行时跳过已有流水的收入记录
+INSERT INTO income_payments (income_id, amount, remark, paid_at)
+SELECT i.id, i.settled_amount, '期初余额', coalesce(i.updated_at, now())
+FROM incomes i
+WHERE i.settled_amount <> 0
+  AND NOT EXISTS (SELECT 1 FROM income_payments p WHERE p.income_id = i.id);
@@ -0,0 +1,10 @@
+-- 已结账月份的报表快照：结账时计算一次月度统计、月度订单统计与订单详情，gzip 压缩后的 JSON 存为一行
+-- 结账后月度报表直接读取快照；涉及已结账月份的写入按 petcare.finance.closed-month-writes 拒绝或重开该月
+CREATE TABLE IF NOT EXISTS finance_month_snapshots (
+    month        VARCHAR(7) PRIMARY KEY,
+    payload      BYTEA      NOT NULL,
+    raw_bytes    INTEGER    NOT NULL,
+    -- 月度订单统计单独存一份（该月无过夜订单时为空），汇总各月时无需解压完整快照
+    order_stats  TEXT,
+    closed_at    TIMESTAMP  NOT NULL DEFAULT now()
+);
@@ -0,0 +1,13 @@
+-- 操作审计：预约、成本与配置的每次修改记录修改前后的字段差异，由后台线程批量写入
+CREATE TABLE IF NOT EXISTS audit_log (
+    id          BIGSERIAL PRIMARY KEY,
+    table_name  VARCHAR(32) NOT NULL,
+    row_key     VARCHAR(64) NOT NULL,
+    action      VARCHAR(8)  NOT NULL,
+    changes     TEXT        NOT NULL,
+    operator    VARCHAR(64),
+    changed_at  TIMESTAMP   NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_audit_log_row ON audit_log (table_name, row_key, id);
+CREATE INDEX IF NOT EXISTS idx_audit_log_changed_at ON audit_log (changed_at);
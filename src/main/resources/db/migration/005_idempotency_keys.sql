@@ -0,0 +1,11 @@
+-- Idempotency-Key 执行记录（可选）：多实例部署时设置 petcare.idempotency.shared=true，同一个 key 在各实例间只执行一次
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idem_key     VARCHAR(400) PRIMARY KEY,
+    fingerprint  VARCHAR(64)  NOT NULL,
+    status       INTEGER,
+    content_type VARCHAR(100),
+    body         BYTEA,
+    created_at   TIMESTAMP    NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys (created_at);
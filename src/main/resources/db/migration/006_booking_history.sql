@@ -0,0 +1,56 @@
+-- 历史订单归档：已离店且结束日期早于归档期限的订单及其收入记录从 pets、incomes 移入以下分区表，热表只保留近期数据
+-- 两张表均按订单开始日期（start_date）按月分区，分区由归档任务按需创建（pets_history_yyyymm、incomes_history_yyyymm）
+CREATE TABLE IF NOT EXISTS pets_history (
+    id           BIGINT       NOT NULL,
+    name         VARCHAR(64)  NOT NULL,
+    breed        VARCHAR(64),
+    gender       VARCHAR(16),
+    age          INTEGER,
+    neutered     VARCHAR(16),
+    start_date   DATE         NOT NULL,
+    end_date     DATE         NOT NULL,
+    daily_fee    NUMERIC(10, 2),
+    other_fee    NUMERIC(10, 2),
+    remark       VARCHAR(255),
+    status       VARCHAR(16)  NOT NULL,
+    created_at   TIMESTAMP,
+    updated_at   TIMESTAMP,
+    archived_at  TIMESTAMP    NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, start_date)
+) PARTITION BY RANGE (start_date);
+
+CREATE INDEX IF NOT EXISTS idx_pets_history_start_end ON pets_history (start_date, end_date);
+
+-- start_date 取自所属订单，与 pets_history 按同一月份分区
+CREATE TABLE IF NOT EXISTS incomes_history (
+    id              BIGINT         NOT NULL,
+    pet_id          BIGINT         NOT NULL,
+    start_date      DATE           NOT NULL,
+    daily_fee       NUMERIC(10, 2),
+    other_fee       NUMERIC(10, 2),
+    total_fee       NUMERIC(10, 2),
+    total_amount    NUMERIC(12, 2) NOT NULL DEFAULT 0,
+    days_stayed     INTEGER,
+    settled_amount  NUMERIC(12, 2) NOT NULL DEFAULT 0,
+    remark          VARCHAR(255),
+    created_at      TIMESTAMP,
+    updated_at      TIMESTAMP,
+    archived_at     TIMESTAMP      NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, start_date)
+) PARTITION BY RANGE (start_date);
+
+CREATE INDEX IF NOT EXISTS idx_incomes_history_pet_id ON incomes_history (pet_id);
+
+-- 每个分区每次归档一行：报表据此判断查询范围是否涉及历史分区，总收入直接累加已归档金额，无需扫描历史表
+CREATE TABLE IF NOT EXISTS history_archive_runs (
+    id              BIGSERIAL      PRIMARY KEY,
+    partition_month VARCHAR(7)     NOT NULL,
+    cutoff          DATE           NOT NULL,
+    pet_count       INTEGER        NOT NULL,
+    income_count    INTEGER        NOT NULL,
+    min_start_date  DATE,
+    max_end_date    DATE,
+    max_stay_days   INTEGER,
+    income_total    NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    archived_at     TIMESTAMP      NOT NULL DEFAULT now()
+);
@@ -0,0 +1,61 @@
+-- 参考表结构（PostgreSQL）
+-- 根据实体类整理，用于本地开发与压测环境建库；后续结构变更按序号放在 db/migration 目录下
+
+CREATE TABLE IF NOT EXISTS pets (
+    id          BIGINT PRIMARY KEY,
+    name        VARCHAR(64)  NOT NULL,
+    breed       VARCHAR(64),
+    gender      VARCHAR(16),
+    age         INTEGER,
+    neutered    VARCHAR(16),
+    start_date  DATE         NOT NULL,
+    end_date    DATE         NOT NULL,
+    daily_fee   NUMERIC(10, 2),
+    other_fee   NUMERIC(10, 2),
+    remark      VARCHAR(255),
+    status      VARCHAR(16)  NOT NULL DEFAULT 'booked',
+    created_at  TIMESTAMP,
+    updated_at  TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_pets_start_end ON pets (start_date, end_date);
+CREATE INDEX IF NOT EXISTS idx_pets_status ON pets (status);
+
+CREATE TABLE IF NOT EXISTS incomes (
+    id              BIGINT PRIMARY KEY,
+    pet_id          BIGINT         NOT NULL,
+    daily_fee       NUMERIC(10, 2),
+    other_fee       NUMERIC(10, 2),
+    total_fee       NUMERIC(10, 2),
+    total_amount    NUMERIC(12, 2) NOT NULL DEFAULT 0,
+    days_stayed     INTEGER,
+    settled_amount  NUMERIC(12, 2) NOT NULL DEFAULT 0,
+    remark          VARCHAR(255),
+    created_at      TIMESTAMP,
+    updated_at      TIMESTAMP,
+    CONSTRAINT chk_incomes_settled CHECK (settled_amount <= total_amount)
+);
+
+CREATE INDEX IF NOT EXISTS idx_incomes_pet_id ON incomes (pet_id);
+
+CREATE TABLE IF NOT EXISTS costs (
+    id               BIGSERIAL PRIMARY KEY,
+    water_fee        NUMERIC(10, 2),
+    electricity_fee  NUMERIC(10, 2),
+    rent_fee         NUMERIC(10, 2),
+    other_fee        NUMERIC(10, 2),
+    total_cost       NUMERIC(12, 2),
+    cost_month       VARCHAR(7),
+    created_at       TIMESTAMP DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_costs_cost_month ON costs (cost_month);
+
+CREATE TABLE IF NOT EXISTS settings (
+    "key"       VARCHAR(64) PRIMARY KEY,
+    value       VARCHAR(255),
+    updated_at  TIMESTAMP
+);
+
+INSERT INTO settings ("key", value, updated_at) VALUES ('max_capacity', '10', now())
+ON CONFLICT ("key") DO NOTHING;
@@ -0,0 +1,91 @@
+package com.petcare.common.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 请求合并发生在进入舱壁之前：相同请求只占用一个排队位置，全部等待方放弃后排队中的计算不再执行
+ */
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight singleFlight = new SingleFlight(meterRegistry);
+    // 1 个线程、1 个排队位置
+    private final Bulkhead bulkhead = new Bulkhead("test", 1, 1, 60_000, 1, meterRegistry);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        bulkhead.shutdown();
+    }
+
+    @Test
+    void duplicatesShareOneQueuedTask() throws Exception {
+        occupyThread();
+        AtomicInteger executions = new AtomicInteger();
+        List<CompletableFuture<Integer>> waiters = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            waiters.add(singleFlight.execute("report", "2025-09",
+                    () -> bulkhead.execute(executions::incrementAndGet)));
+        }
+
+        // 唯一的排队位置已被合并后的计算占用，其他参数的请求被拒绝
+        assertThatThrownBy(() -> singleFlight.execute("report", "2025-10", () -> bulkhead.execute(() -> 0)))
+                .isInstanceOf(BulkheadFullException.class);
+
+        release.countDown();
+        for (CompletableFuture<Integer> waiter : waiters) {
+            assertThat(waiter.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+        }
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("petcare.singleflight.calls").tag("result", "coalesced").counter().count())
+                .isEqualTo(19);
+    }
+
+    @Test
+    void queuedTaskIsDroppedOnlyAfterAllWaitersCancel() throws Exception {
+        occupyThread();
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<Integer> first = singleFlight.execute("report", "", () -> bulkhead.execute(executions::incrementAndGet));
+        CompletableFuture<Integer> second = singleFlight.execute("report", "", () -> bulkhead.execute(executions::incrementAndGet));
+
+        first.cancel(false);
+        assertThat(second.isDone()).isFalse();
+        second.cancel(false);
+
+        // 排队位置已释放，新的计算可以进入
+        CompletableFuture<Integer> next = singleFlight.execute("report", "", () -> bulkhead.execute(() -> 42));
+        release.countDown();
+        assertThat(next.get(10, TimeUnit.SECONDS)).isEqualTo(42);
+        assertThat(executions.get()).isZero();
+    }
+
+    /**
+     * 占住舱壁唯一的线程，直到 release
+     */
+    private void occupyThread() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        bulkhead.execute(() -> {
+            running.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+}
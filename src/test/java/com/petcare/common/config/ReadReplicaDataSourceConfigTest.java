@@ -0,0 +1,40 @@
+package com.petcare.common.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 副本连接池默认使用较短的获取连接超时，副本不可用时尽快回退主库；显式配置的值优先
+ * 连接池按需建立连接，这里不需要真实数据库
+ */
+class ReadReplicaDataSourceConfigTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withUserConfiguration(Properties.class, ReadReplicaDataSourceConfig.class)
+            .withPropertyValues("spring.datasource.url=jdbc:postgresql://primary:5432/pawpaw",
+                    "petcare.datasource.replica.url=jdbc:postgresql://replica:5432/pawpaw");
+
+    @Test
+    void replicaUsesShortConnectionTimeoutByDefault() {
+        runner.run(context -> assertThat(context.getBean("replicaDataSource", HikariDataSource.class)
+                .getConnectionTimeout()).isEqualTo(ReadReplicaDataSourceConfig.REPLICA_CONNECTION_TIMEOUT_MS));
+    }
+
+    @Test
+    void configuredConnectionTimeoutWins() {
+        runner.withPropertyValues("petcare.datasource.replica.hikari.connection-timeout=1500")
+                .run(context -> assertThat(context.getBean("replicaDataSource", HikariDataSource.class)
+                        .getConnectionTimeout()).isEqualTo(1500));
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(DataSourceProperties.class)
+    static class Properties {
+    }
+}
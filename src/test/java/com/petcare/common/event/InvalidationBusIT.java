@@ -0,0 +1,55 @@
+package com.petcare.common.event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.AppInstance;
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import com.petcare.support.TestDatabase;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 跨实例失效
+ * 实例 B 先缓存容量配置与预约索引；之后经实例 A 修改最大容量并新增预约，
+ * B 应在数秒内（远小于容量配置缓存有效期）查询到新的最大容量与新预约，且索引与数据库一致
+ */
+class InvalidationBusIT extends IntegrationTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Test
+    void otherInstanceSeesChangesWithinSeconds() throws Exception {
+        // 合成数据与其他测试的预约之外的日期
+        LocalDate date = DATA.lastMonth().atEndOfMonth().plusYears(1).plusDays(60);
+        String capacityPath = "/api/pets/capacity?date=" + date;
+        int newCapacity = DATA.maxCapacity() + 1;
+
+        try (AppInstance nodeB = AppInstance.start(TestDatabase.SHARED)) {
+            nodeB.api().getData(capacityPath);
+
+            ApiClient.data(api.put("/api/settings", Map.of("key", "max_capacity", "value", String.valueOf(newCapacity))));
+            ApiClient.data(api.post("/api/pets", Map.of("name", "跨实例", "startDate", date.toString(),
+                    "endDate", date.plusDays(1).toString(), "dailyFee", 100, "otherFee", 0, "status", "booked")));
+
+            JsonNode capacity;
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            do {
+                capacity = nodeB.api().getData(capacityPath);
+                if (capacity.path("maxCapacity").asInt() == newCapacity && capacity.path("bookedPetNames").toString().contains("跨实例")) {
+                    break;
+                }
+                Thread.sleep(50);
+            } while (System.currentTimeMillis() < deadline);
+
+            assertThat(capacity.path("maxCapacity").asInt()).isEqualTo(newCapacity);
+            assertThat(capacity.path("bookedPetNames").toString()).contains("跨实例");
+            assertThat(nodeB.api().getData("/api/pets/index/check").path("consistent").asBoolean()).isTrue();
+        } finally {
+            api.put("/api/settings", Map.of("key", "max_capacity", "value", String.valueOf(DATA.maxCapacity())));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.petcare.common.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 过滤器读出请求体后交给后续处理的输入流支持异步读取（ReadListener）
+ */
+class IdempotencyFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IdempotencyFilter filter = new IdempotencyFilter(
+            new IdempotencyStore(null, meterRegistry, false, 10, 60, 1000), new ObjectMapper(), meterRegistry, true, 1024);
+
+    @Test
+    void cachedBodySupportsReadListener() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/pets");
+        request.addHeader(IdempotencyFilter.HEADER, "key-1");
+        request.setContent("{\"name\":\"异步\"}".getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> events = new ArrayList<>();
+
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest req, ServletResponse res) throws IOException {
+                ServletInputStream in = req.getInputStream();
+                in.setReadListener(new ReadListener() {
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        events.add("available");
+                        while (in.isReady() && !in.isFinished()) {
+                            read.write(in.read());
+                        }
+                    }
+
+                    @Override
+                    public void onAllDataRead() {
+                        events.add("allRead");
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        events.add("error");
+                    }
+                });
+            }
+        };
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(events).containsExactly("available", "allRead");
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo("{\"name\":\"异步\"}");
+    }
+
+    @Test
+    void readListenerErrorsAreReported() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/pets/1/checkin");
+        request.addHeader(IdempotencyFilter.HEADER, "key-2");
+        List<Throwable> errors = new ArrayList<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest req, ServletResponse res) throws IOException {
+                req.getInputStream().setReadListener(new ReadListener() {
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        throw new IOException("读取失败");
+                    }
+
+                    @Override
+                    public void onAllDataRead() {
+                        errors.add(new AssertionError("不应读完"));
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        errors.add(t);
+                    }
+                });
+            }
+        });
+
+        assertThat(errors).singleElement().extracting(Throwable::getMessage).isEqualTo("读取失败");
+    }
+}
@@ -0,0 +1,122 @@
+package com.petcare.common.idempotency;
+
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Idempotency-Key
+ * 1. 同一个 key 并发提交新增预约：只新增一条，所有请求得到相同的响应，重复请求标记为重放；
+ * 2. 带 key 重试离店：重放不执行任何 SQL；
+ * 3. 同一个 key 换了请求体：返回 422；
+ * 4. 批量导入不做幂等处理，请求体不读入内存；预约写入的请求体超过上限时返回 413
+ */
+class IdempotencyIT extends IntegrationTest {
+
+    private static final int CONCURRENT_RETRIES = 20;
+
+    @Test
+    void concurrentRetriesCreateOnce() throws Exception {
+        String name = uniqueName();
+        Map<String, Object> body = booking(name, DATA.lastMonth().atEndOfMonth().plusYears(2));
+        String key = UUID.randomUUID().toString();
+
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENT_RETRIES);
+        List<Future<ResponseEntity<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_RETRIES; i++) {
+            futures.add(pool.submit(() -> {
+                startSignal.await();
+                return send(HttpMethod.POST, "/api/pets", body, key);
+            }));
+        }
+        startSignal.countDown();
+        List<ResponseEntity<String>> responses = new ArrayList<>();
+        for (Future<ResponseEntity<String>> future : futures) {
+            responses.add(future.get());
+        }
+        pool.shutdown();
+
+        String first = responses.get(0).getBody();
+        ApiClient.data(ApiClient.json(first));
+        assertThat(responses).extracting(ResponseEntity::getBody).containsOnly(first);
+        assertThat(responses.stream().filter(IdempotencyIT::isReplayed).count()).isEqualTo(CONCURRENT_RETRIES - 1);
+        assertThat(countPets(name)).isEqualTo(1);
+
+        ResponseEntity<String> mismatch = send(HttpMethod.POST, "/api/pets", booking(name + "-改", DATA.lastMonth().atEndOfMonth().plusYears(2)), key);
+        assertThat(mismatch.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @Test
+    void retriedCheckoutIsReplayedWithoutSql() {
+        String id = ApiClient.data(api.post("/api/pets", booking(uniqueName(), DATA.lastMonth().atEndOfMonth().plusYears(2).plusDays(5))))
+                .path("id").asText();
+        String key = UUID.randomUUID().toString();
+        ResponseEntity<String> checkout = send(HttpMethod.POST, "/api/pets/" + id + "/checkout", null, key);
+        long before = sqlStatements.count();
+        ResponseEntity<String> retry = send(HttpMethod.POST, "/api/pets/" + id + "/checkout", null, key);
+
+        assertThat(sqlStatements.count() - before).isZero();
+        ApiClient.data(ApiClient.json(checkout.getBody()));
+        assertThat(retry.getBody()).isEqualTo(checkout.getBody());
+        assertThat(isReplayed(retry)).isTrue();
+    }
+
+    @Test
+    void importIsNotBufferedAndOversizedBodyIsRejected() {
+        String key = UUID.randomUUID().toString();
+        ResponseEntity<String> first = send(HttpMethod.POST, "/api/pets/import", List.of(), key);
+        ResponseEntity<String> second = send(HttpMethod.POST, "/api/pets/import", List.of(), key);
+        ApiClient.data(ApiClient.json(first.getBody()));
+        ApiClient.data(ApiClient.json(second.getBody()));
+        assertThat(isReplayed(second)).isFalse();
+
+        String name = uniqueName();
+        Map<String, Object> body = new HashMap<>(booking(name, DATA.lastMonth().atEndOfMonth().plusYears(2).plusDays(10)));
+        body.put("remark", "备".repeat(30_000));
+        ResponseEntity<String> tooLarge = send(HttpMethod.POST, "/api/pets", body, UUID.randomUUID().toString());
+        assertThat(tooLarge.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        assertThat(countPets(name)).isZero();
+    }
+
+    private ResponseEntity<String> send(HttpMethod method, String path, Object body, String key) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Idempotency-Key", key);
+        return api.exchange(method, path, body, headers);
+    }
+
+    static Map<String, Object> booking(String name, LocalDate date) {
+        return Map.of("name", name, "startDate", date.toString(), "endDate", date.plusDays(2).toString(),
+                "dailyFee", 100, "otherFee", 0, "status", "booked");
+    }
+
+    static String uniqueName() {
+        return "幂等-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    static boolean isReplayed(ResponseEntity<String> response) {
+        return response.getHeaders().containsKey("Idempotent-Replayed");
+    }
+
+    private int countPets(String name) {
+        Integer count = db.queryForObject("SELECT count(*) FROM pets WHERE name = ?", Integer.class, name);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,39 @@
+package com.petcare.common.idempotency;
+
+import com.petcare.support.AppInstance;
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import com.petcare.support.TestDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 两个实例共享 idempotency_keys 表：实例 A 执行过的 key 在实例 B 上直接重放，不再新增
+ */
+class SharedIdempotencyIT extends IntegrationTest {
+
+    @Test
+    void keyExecutedOnOneInstanceIsReplayedOnAnother() {
+        String name = IdempotencyIT.uniqueName();
+        Map<String, Object> body = IdempotencyIT.booking(name, DATA.lastMonth().atEndOfMonth().plusYears(2).plusDays(10));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Idempotency-Key", UUID.randomUUID().toString());
+
+        try (AppInstance nodeB = AppInstance.start(TestDatabase.SHARED)) {
+            ResponseEntity<String> onA = api.exchange(HttpMethod.POST, "/api/pets", body, headers);
+            ResponseEntity<String> onB = nodeB.api().exchange(HttpMethod.POST, "/api/pets", body, headers);
+
+            ApiClient.data(ApiClient.json(onA.getBody()));
+            assertThat(onB.getBody()).isEqualTo(onA.getBody());
+            assertThat(IdempotencyIT.isReplayed(onB)).isTrue();
+            assertThat(db.queryForObject("SELECT count(*) FROM pets WHERE name = ?", Integer.class, name)).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.petcare.common.job;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import com.petcare.support.TestDatabase;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 后台任务集群互斥
+ * 另一个会话（相当于其他实例）持有任务锁时手动触发，结果为 skipped；锁释放后再次触发执行成功
+ */
+class ClusterLockIT extends IntegrationTest {
+
+    private static final String JOB = "income-sync";
+    // 与 PostgresClusterLock 的命名空间一致
+    private static final int LOCK_NAMESPACE = 0x4A4F4253;
+    private static final long TIMEOUT_MILLIS = 120_000;
+
+    @Test
+    void jobIsSkippedWhileAnotherSessionHoldsTheLock() throws Exception {
+        try (Connection otherInstance = TestDatabase.dataSource(TestDatabase.SHARED).getConnection()) {
+            assertThat(lock(otherInstance, "SELECT pg_try_advisory_lock(?, ?)")).isTrue();
+            try {
+                assertThat(runAndAwait().path("lastResult").asText()).isEqualTo("skipped");
+            } finally {
+                lock(otherInstance, "SELECT pg_advisory_unlock(?, ?)");
+            }
+        }
+        assertThat(runAndAwait().path("lastResult").asText()).isEqualTo("success");
+    }
+
+    private JsonNode runAndAwait() throws InterruptedException {
+        String previous = api.getData("/api/admin/jobs/" + JOB).path("lastFinishedAt").asText();
+        ApiClient.data(api.post("/api/admin/jobs/" + JOB + "/run", null));
+        JsonNode status;
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        do {
+            status = api.getData("/api/admin/jobs/" + JOB);
+            if (!status.path("running").asBoolean() && !status.path("lastFinishedAt").asText().equals(previous)) {
+                break;
+            }
+            Thread.sleep(100);
+        } while (System.currentTimeMillis() < deadline);
+        return status;
+    }
+
+    private static boolean lock(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, LOCK_NAMESPACE);
+            ps.setInt(2, JOB.hashCode());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
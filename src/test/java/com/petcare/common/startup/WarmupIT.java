@@ -0,0 +1,70 @@
+package com.petcare.common.startup;
+
+import com.petcare.support.ApiClient;
+import com.petcare.support.AppInstance;
+import com.petcare.support.TestData;
+import com.petcare.support.TestDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ServerSocket;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 启动预热
+ * 开启预热的实例启动过程中轮询 /actuator/health/readiness：预热期间返回 503，预热完成后为 UP，之后首批接口请求全部成功
+ */
+class WarmupIT {
+
+    private static final long READY_TIMEOUT_MILLIS = 120_000;
+
+    @Test
+    void readinessIsDownUntilWarmupCompletes() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        ApiClient api = new ApiClient("http://localhost:" + port);
+        // start 在全部 ApplicationRunner 结束后才返回，期间 Web 服务器已在监听
+        CompletableFuture<AppInstance> starting = CompletableFuture.supplyAsync(() -> AppInstance.start(TestDatabase.SHARED,
+                "--server.port=" + port, "--petcare.startup.warmup.enabled=true"));
+        try {
+            int notReady = 0;
+            boolean ready = false;
+            long deadline = System.currentTimeMillis() + READY_TIMEOUT_MILLIS;
+            while (!ready && System.currentTimeMillis() < deadline) {
+                try {
+                    ResponseEntity<String> readiness = api.get("/actuator/health/readiness");
+                    if (readiness.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+                        notReady++;
+                    }
+                    ready = readiness.getStatusCode() == HttpStatus.OK
+                            && "UP".equals(ApiClient.json(readiness.getBody()).path("status").asText());
+                } catch (ResourceAccessException e) {
+                    // 端口尚未监听
+                    assertThat(starting).isNotCompletedExceptionally();
+                }
+                Thread.sleep(20);
+            }
+
+            assertThat(ready).isTrue();
+            assertThat(notReady).isPositive();
+            // 上线后最先到达的通常是本月的列表、容量日历与财务统计
+            YearMonth month = TestData.DEFAULT.lastMonth();
+            for (String path : List.of("/api/pets?page=1&size=10", "/api/pets/capacity/month?month=" + month,
+                    "/api/finance/monthly-stats?month=" + month, "/api/finance/monthly-orders-detail?month=" + month,
+                    "/api/finance/total-stats")) {
+                api.getData(path);
+            }
+        } finally {
+            starting.get(READY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).close();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.petcare.common.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 列式响应格式
+ * 月容量日历与月度订单统计分别以逐行格式、format=columnar、Accept 列式类型请求：三者数据一致，Accept 协商时响应类型为列式类型
+ */
+class ColumnarFormatIT extends IntegrationTest {
+
+    @Test
+    void capacityCalendarColumnsMatchRows() {
+        YearMonth month = DATA.lastMonth();
+        String path = "/api/pets/capacity/month?month=" + month;
+        TreeMap<LocalDate, JsonNode> days = new TreeMap<>();
+        api.getData(path).path("days").forEach(day -> days.put(LocalDate.parse(day.path("date").asText()), day));
+        assertThat(days).hasSize(month.lengthOfMonth());
+
+        for (JsonNode columns : columnarResponses(path, "&format=columnar")) {
+            assertThat(columns.path("startDate").asText()).isEqualTo(month.atDay(1).toString());
+            for (String field : List.of("bookedCount", "checkedInCount", "availableCount")) {
+                List<Long> expected = days.values().stream().map(day -> day.path(field).asLong()).toList();
+                assertThat(longs(columns.path(field))).as(field).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void monthlyOrdersColumnsMatchRows() {
+        String path = "/api/finance/monthly-orders";
+        TreeMap<YearMonth, JsonNode> months = new TreeMap<>();
+        api.getData(path).forEach(row -> months.put(YearMonth.parse(row.path("month").asText()), row));
+        assertThat(months).isNotEmpty();
+
+        for (JsonNode columns : columnarResponses(path, "?format=columnar")) {
+            assertThat(columns.path("startMonth").asText()).isEqualTo(months.firstKey().toString());
+            // 列式格式覆盖第一个到最后一个月，中间没有订单的月份各项为 0
+            List<JsonNode> filled = new ArrayList<>();
+            for (YearMonth m = months.firstKey(); !m.isAfter(months.lastKey()); m = m.plusMonths(1)) {
+                filled.add(months.get(m));
+            }
+            assertThat(longs(columns.path("orderCount")))
+                    .isEqualTo(filled.stream().map(row -> row == null ? 0L : row.path("orderCount").asLong()).toList());
+            for (String field : List.of("totalIncome", "totalCost", "totalProfit")) {
+                List<BigDecimal> expected = filled.stream()
+                        .map(row -> row == null ? BigDecimal.ZERO : row.path(field).decimalValue()).toList();
+                assertThat(decimals(columns.path(field))).as(field).usingElementComparator(BigDecimal::compareTo).isEqualTo(expected);
+            }
+        }
+    }
+
+    /**
+     * 分别以查询参数与 Accept 请求列式格式，返回两个响应的 data
+     */
+    private List<JsonNode> columnarResponses(String path, String formatParam) {
+        HttpHeaders accept = new HttpHeaders();
+        accept.set(HttpHeaders.ACCEPT, ResponseFormat.COLUMNAR_MEDIA_TYPE);
+        ResponseEntity<String> negotiated = api.exchange(HttpMethod.GET, path, null, accept);
+        assertThat(negotiated.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE)).startsWith(ResponseFormat.COLUMNAR_MEDIA_TYPE);
+        return List.of(api.getData(path + formatParam), ApiClient.data(ApiClient.json(negotiated.getBody())));
+    }
+
+    private static List<Long> longs(JsonNode array) {
+        List<Long> values = new ArrayList<>();
+        array.forEach(value -> values.add(value.asLong()));
+        return values;
+    }
+
+    private static List<BigDecimal> decimals(JsonNode array) {
+        List<BigDecimal> values = new ArrayList<>();
+        array.forEach(value -> values.add(value.decimalValue()));
+        return values;
+    }
+}
@@ -0,0 +1,75 @@
+package com.petcare.finance;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 成本分析
+ * 区间（含一个没有成本的月份）内每月的记录数与各项成本和逐月查询 /api/costs 后汇总的结果一致，
+ * 较上月增减与区间合计自洽，整个区间只执行一条 SQL；开始月份晚于结束月份时返回业务错误
+ */
+class CostAnalyticsIT extends IntegrationTest {
+
+    private static final List<String> FIELDS = List.of("waterFee", "electricityFee", "rentFee", "otherCostFee", "totalCost");
+    private static final List<String> COST_FIELDS = List.of("waterFee", "electricityFee", "rentFee", "otherFee", "totalCost");
+
+    @Test
+    void analyticsMatchesPerMonthCosts() {
+        YearMonth from = DATA.firstMonth().minusMonths(1);
+        YearMonth to = DATA.lastMonth();
+
+        long before = sqlStatements.count();
+        JsonNode analytics = api.getData("/api/costs/analytics?from=" + from + "&to=" + to);
+        assertThat(sqlStatements.count() - before).isEqualTo(1);
+
+        JsonNode months = analytics.path("months");
+        assertThat(months).hasSize(DATA.months() + 1);
+        Map<String, BigDecimal> previous = zeros();
+        Map<String, BigDecimal> total = zeros();
+        YearMonth month = from;
+        for (JsonNode stats : months) {
+            JsonNode costs = api.getData("/api/costs?costMonth=" + month);
+            assertThat(stats.path("month").asText()).isEqualTo(month.toString());
+            assertThat(stats.path("recordCount").asInt()).isEqualTo(costs.size());
+            for (int i = 0; i < FIELDS.size(); i++) {
+                String field = FIELDS.get(i);
+                BigDecimal expected = BigDecimal.ZERO;
+                for (JsonNode cost : costs) {
+                    expected = expected.add(cost.path(COST_FIELDS.get(i)).decimalValue());
+                }
+                BigDecimal value = stats.path("costs").path(field).decimalValue();
+                assertThat(value).as(month + " " + field).isEqualByComparingTo(expected);
+                // 第一个月没有成本，上一个月同样按 0 比较
+                assertThat(stats.path("change").path(field).decimalValue()).isEqualByComparingTo(value.subtract(previous.get(field)));
+                previous.put(field, value);
+                total.merge(field, value, BigDecimal::add);
+            }
+            month = month.plusMonths(1);
+        }
+        for (String field : FIELDS) {
+            assertThat(analytics.path("total").path(field).decimalValue()).as(field).isEqualByComparingTo(total.get(field));
+        }
+    }
+
+    @Test
+    void reversedRangeIsRejected() {
+        JsonNode response = api.getJson("/api/costs/analytics?from=" + DATA.lastMonth() + "&to=" + DATA.firstMonth());
+
+        assertThat(response.path("code").asInt()).isNotZero();
+    }
+
+    private static Map<String, BigDecimal> zeros() {
+        Map<String, BigDecimal> values = new HashMap<>();
+        FIELDS.forEach(field -> values.put(field, BigDecimal.ZERO));
+        return values;
+    }
+}
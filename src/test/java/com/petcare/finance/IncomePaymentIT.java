@@ -0,0 +1,115 @@
+package com.petcare.finance;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 收款流水
+ * 1. 月度统计的已入账金额（数据库分组汇总）与按订单逐条分摊的结果一致；
+ * 2. 多个客户端同时对少数几条收入记录登记收款与冲正，结束后每条记录的已结算金额 = 初始值 + 流水之和，且在 [0, 总金额] 内
+ */
+class IncomePaymentIT extends IntegrationTest {
+
+    private static final int INCOMES = 5;
+    private static final int REQUESTS = 400;
+    private static final int CLIENTS = 16;
+
+    @Test
+    void monthlySettledMatchesProratedOrders() {
+        YearMonth month = DATA.lastMonth().minusMonths(1);
+        JsonNode stats = api.getData("/api/finance/monthly-stats?month=" + month);
+
+        assertThat(stats.path("settledAmount").decimalValue()).isEqualByComparingTo(proratedSettled(month));
+    }
+
+    @Test
+    void concurrentPaymentsKeepSettledAmountConsistent() throws Exception {
+        List<Long> ids = db.queryForList("SELECT id FROM incomes WHERE total_amount > 500 "
+                + "AND settled_amount BETWEEN 100 AND total_amount - 100 ORDER BY id LIMIT " + INCOMES, Long.class);
+        assertThat(ids).hasSize(INCOMES);
+        Map<Long, BigDecimal> initial = new HashMap<>();
+        ids.forEach(id -> initial.put(id, db.queryForObject("SELECT settled_amount FROM incomes WHERE id = ?", BigDecimal.class, id)));
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<String> unexpected = new CopyOnWriteArrayList<>();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            pool.submit(() -> {
+                startSignal.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long id = ids.get(random.nextInt(ids.size()));
+                // 约两成为冲正
+                int amount = random.nextInt(10) < 2 ? -(1 + random.nextInt(50)) : 1 + random.nextInt(80);
+                JsonNode response = api.post("/api/incomes/" + id + "/payments", Map.of("amount", amount, "remark", "并发收款"));
+                if (response.path("code").asInt() == 0) {
+                    accepted.incrementAndGet();
+                } else if (response.path("message").asText().contains("已结算金额需在")) {
+                    rejected.incrementAndGet();
+                } else {
+                    unexpected.add(response.toString());
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(unexpected).isEmpty();
+        assertThat(accepted.get()).isPositive();
+        for (Long id : ids) {
+            Map<String, Object> income = db.queryForMap("SELECT settled_amount, total_amount, "
+                    + "(SELECT coalesce(sum(amount), 0) FROM income_payments WHERE income_id = ?) AS ledger "
+                    + "FROM incomes WHERE id = ?", id, id);
+            BigDecimal settled = (BigDecimal) income.get("settled_amount");
+            assertThat(settled).as("收入记录 %d", id)
+                    .isEqualByComparingTo(initial.get(id).add((BigDecimal) income.get("ledger")))
+                    .isBetween(BigDecimal.ZERO, (BigDecimal) income.get("total_amount"));
+        }
+    }
+
+    /**
+     * 与改造前的逐条计算一致：比例保留4位（四舍五入），不足一晚的订单不参与分摊
+     */
+    private BigDecimal proratedSettled(YearMonth month) {
+        LocalDate monthStart = month.atDay(1);
+        LocalDate monthEnd = month.atEndOfMonth();
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map<String, Object> row : db.queryForList("SELECT p.start_date, p.end_date, i.settled_amount FROM pets p "
+                + "JOIN incomes i ON i.pet_id = p.id WHERE p.start_date <= ?::date AND p.end_date >= ?::date", monthEnd, monthStart)) {
+            LocalDate start = ((Date) row.get("start_date")).toLocalDate();
+            LocalDate end = ((Date) row.get("end_date")).toLocalDate();
+            long orderDays = ChronoUnit.DAYS.between(start, end);
+            if (orderDays == 0) {
+                continue;
+            }
+            long daysInMonth = ChronoUnit.DAYS.between(start.isBefore(monthStart) ? monthStart : start,
+                    end.isAfter(monthEnd) ? monthEnd : end);
+            BigDecimal ratio = BigDecimal.valueOf(daysInMonth).divide(BigDecimal.valueOf(orderDays), 4, RoundingMode.HALF_UP);
+            total = total.add(((BigDecimal) row.get("settled_amount")).multiply(ratio));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,102 @@
+package com.petcare.finance;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 月度结账
+ * 1. 结账前后三个月度报表接口（含流式订单详情）的响应逐字节一致，结账后涉及该月的成本与订单写入、离店与费用修改被拒绝；
+ * 2. 并发写入成本的同时结账：快照中的成本 = 结束后数据库中该月成本之和（结账前提交的写入全部计入，之后的全部被拒绝）。
+ * 每个测试结束后重开月份，不影响其他测试
+ */
+class MonthCloseIT extends IntegrationTest {
+
+    private static final int CONCURRENT_WRITES = 200;
+    private static final int CLIENTS = 16;
+    private static final YearMonth MONTH = DATA.lastMonth().minusMonths(2);
+    private static final YearMonth CONCURRENT_MONTH = DATA.lastMonth().minusMonths(3);
+
+    @AfterEach
+    void reopen() {
+        api.delete("/api/finance/months/" + MONTH + "/close");
+        api.delete("/api/finance/months/" + CONCURRENT_MONTH + "/close");
+    }
+
+    @Test
+    void snapshotMatchesComputedReportsAndRejectsWrites() {
+        List<String> paths = List.of(
+                "/api/finance/monthly-stats?month=" + MONTH,
+                "/api/finance/monthly-orders-detail?month=" + MONTH,
+                "/api/finance/monthly-orders");
+        List<String> computed = paths.stream().map(api::getBody).toList();
+
+        ApiClient.data(api.post("/api/finance/months/" + MONTH + "/close", null));
+
+        assertThat(paths.stream().map(api::getBody).toList()).isEqualTo(computed);
+        assertThat(api.getBody("/api/finance/monthly-orders-detail/stream?month=" + MONTH)).isEqualTo(computed.get(1));
+        JsonNode cost = api.post("/api/costs", Map.of("costMonth", MONTH.toString(), "waterFee", 10,
+                "electricityFee", 0, "rentFee", 0, "otherFee", 0));
+        assertThat(cost.path("message").asText()).contains("已结账");
+        JsonNode pet = api.post("/api/pets", Map.of("name", "补录", "startDate", MONTH.atDay(3).toString(),
+                "endDate", MONTH.atDay(5).toString(), "dailyFee", 100, "otherFee", 0, "status", "booked"));
+        assertThat(pet.path("message").asText()).contains("已结账");
+
+        List<Map<String, Object>> existing = db.queryForList("SELECT id, status FROM pets WHERE start_date >= ?::date "
+                + "AND end_date <= ?::date ORDER BY id LIMIT 2", MONTH.atDay(1), MONTH.atEndOfMonth());
+        assertThat(existing).hasSize(2);
+        long id = (Long) existing.get(0).get("id");
+        assertThat(api.post("/api/pets/" + id + "/checkout", null).path("message").asText()).contains("已结账");
+        assertThat(api.post("/api/pets/batch/checkout", List.of(existing.get(0).get("id"), existing.get(1).get("id")))
+                .path("message").asText()).contains("已结账");
+        assertThat(api.put("/api/pets", Map.of("id", id, "totalFee", 999)).path("message").asText()).contains("已结账");
+        // 被拒绝的写入整体回滚
+        assertThat(db.queryForList("SELECT id, status FROM pets WHERE id IN (?, ?) ORDER BY id",
+                existing.get(0).get("id"), existing.get(1).get("id"))).isEqualTo(existing);
+        assertThat(paths.stream().map(api::getBody).toList()).isEqualTo(computed);
+    }
+
+    @Test
+    void closeDuringConcurrentWritesKeepsSnapshotConsistent() throws Exception {
+        List<String> unexpected = new CopyOnWriteArrayList<>();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        for (int i = 0; i < CONCURRENT_WRITES; i++) {
+            pool.submit(() -> {
+                startSignal.await();
+                JsonNode response = api.post("/api/costs", Map.of("costMonth", CONCURRENT_MONTH.toString(), "waterFee", 1,
+                        "electricityFee", 0, "rentFee", 0, "otherFee", 0));
+                if (response.path("code").asInt() != 0 && !response.path("message").asText().contains("已结账")) {
+                    unexpected.add(response.toString());
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        // 写入进行中结账
+        Thread.sleep(20);
+        ApiClient.data(api.post("/api/finance/months/" + CONCURRENT_MONTH + "/close", null));
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(unexpected).isEmpty();
+        BigDecimal database = db.queryForObject("SELECT coalesce(sum(total_cost), 0) FROM costs WHERE cost_month = ?",
+                BigDecimal.class, CONCURRENT_MONTH.toString());
+        JsonNode stats = api.getData("/api/finance/monthly-stats?month=" + CONCURRENT_MONTH);
+        assertThat(stats.path("totalCost").decimalValue()).isEqualByComparingTo(database);
+    }
+}
@@ -0,0 +1,84 @@
+package com.petcare.finance;
+
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 报表舱壁
+ * 以远超报表线程与队列的并发持续请求流式订单详情：超出队列的报表请求返回 503 且带 Retry-After，
+ * 同时进行的预约类请求（列表、容量）全部成功
+ */
+class ReportBulkheadIT extends IntegrationTest {
+
+    private static final int REPORT_CLIENTS = 80;
+    private static final long DURATION_MILLIS = 5_000;
+
+    @Test
+    void reportsAreShedWhileBookingsSucceed() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger served = new AtomicInteger();
+        AtomicInteger shed = new AtomicInteger();
+        List<String> unexpected = new CopyOnWriteArrayList<>();
+        ExecutorService reports = Executors.newFixedThreadPool(REPORT_CLIENTS);
+        CountDownLatch started = new CountDownLatch(REPORT_CLIENTS);
+        for (int i = 0; i < REPORT_CLIENTS; i++) {
+            reports.submit(() -> {
+                started.countDown();
+                while (running.get()) {
+                    YearMonth month = DATA.firstMonth().plusMonths(ThreadLocalRandom.current().nextInt(DATA.months()));
+                    ResponseEntity<String> response = api.get("/api/finance/monthly-orders-detail/stream?month=" + month);
+                    if (response.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE
+                            && response.getHeaders().containsKey(HttpHeaders.RETRY_AFTER)) {
+                        shed.incrementAndGet();
+                        // 不按 Retry-After 整秒等待，稍作退避后继续施压
+                        Thread.sleep(100);
+                    } else if (response.getStatusCode() == HttpStatus.OK && ApiClient.json(response.getBody()).path("code").asInt() == 0) {
+                        served.incrementAndGet();
+                    } else {
+                        unexpected.add(response.getStatusCode() + " " + response.getHeaders() + " " + response.getBody());
+                    }
+                }
+                return null;
+            });
+        }
+        started.await();
+
+        int bookings = 0;
+        long deadline = System.currentTimeMillis() + DURATION_MILLIS;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.currentTimeMillis() < deadline) {
+            LocalDate date = DATA.firstMonth().atDay(1).plusDays(random.nextInt(DATA.months() * 28));
+            String path = random.nextBoolean() ? "/api/pets?page=1&size=10" : "/api/pets/capacity?date=" + date;
+            ResponseEntity<String> response = api.get(path);
+            assertThat(response.getStatusCode()).as(path).isEqualTo(HttpStatus.OK);
+            assertThat(ApiClient.json(response.getBody()).path("code").asInt()).as(path).isZero();
+            bookings++;
+        }
+        running.set(false);
+        reports.shutdown();
+        assertThat(reports.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(bookings).isPositive();
+        assertThat(unexpected).isEmpty();
+        assertThat(served.get()).isPositive();
+        assertThat(shed.get()).isPositive();
+    }
+}
@@ -0,0 +1,40 @@
+package com.petcare.finance;
+
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 财务响应缓存
+ * 依赖的表未变更时重复请求命中缓存，不执行 SQL；新增该月成本后同一请求重新计算，总成本包含新增的金额
+ */
+class ResponseCacheIT extends IntegrationTest {
+
+    @Test
+    void repeatedRequestIsServedFromCacheUntilCostsChange() {
+        String path = "/api/finance/monthly-stats?month=" + DATA.lastMonth();
+        String first = api.getBody(path);
+        long before = sqlStatements.count();
+        String second = api.getBody(path);
+
+        assertThat(sqlStatements.count() - before).isZero();
+        assertThat(second).isEqualTo(first);
+
+        ApiClient.data(api.post("/api/costs", Map.of("costMonth", DATA.lastMonth().toString(), "waterFee", 7,
+                "electricityFee", 0, "rentFee", 0, "otherFee", 0)));
+        before = sqlStatements.count();
+        BigDecimal totalCost = api.getData(path).path("totalCost").decimalValue();
+
+        assertThat(sqlStatements.count() - before).isPositive();
+        assertThat(totalCost).isEqualByComparingTo(totalCost(first).add(BigDecimal.valueOf(7)));
+    }
+
+    private static BigDecimal totalCost(String response) {
+        return ApiClient.data(ApiClient.json(response)).path("totalCost").decimalValue();
+    }
+}
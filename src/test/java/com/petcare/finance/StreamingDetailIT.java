@@ -0,0 +1,34 @@
+package com.petcare.finance;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 流式订单详情
+ * 流式接口与普通接口的响应逐字节一致；测试配置的批量较小（20 条），订单分多批读取
+ */
+class StreamingDetailIT extends IntegrationTest {
+
+    private static final int BATCH_SIZE = 20;
+
+    @Test
+    void streamMatchesBufferedResponse() {
+        YearMonth month = DATA.lastMonth().minusMonths(1);
+        String detail = api.getBody("/api/finance/monthly-orders-detail?month=" + month);
+        long before = sqlStatements.count();
+        String streamed = api.getBody("/api/finance/monthly-orders-detail/stream?month=" + month);
+        long statements = sqlStatements.count() - before;
+
+        JsonNode data = ApiClient.data(ApiClient.json(streamed));
+        int orders = data.path("orders").size();
+        assertThat(orders).isGreaterThan(BATCH_SIZE);
+        assertThat(streamed).isEqualTo(detail);
+        assertThat(statements).isGreaterThanOrEqualTo(orders / BATCH_SIZE + 1);
+    }
+}
@@ -0,0 +1,29 @@
+package com.petcare.finance.mapper;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.petcare.finance.model.Cost;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 固定文本语句与条件构造器拼接的查询结果一致
+ */
+class CostMapperIT extends IntegrationTest {
+
+    @Autowired
+    private CostMapper costMapper;
+
+    @Test
+    void selectByMonthMatchesWrapperQuery() {
+        String month = DATA.lastMonth().minusMonths(1).toString();
+        List<Cost> expected = costMapper.selectList(new LambdaQueryWrapper<Cost>().eq(Cost::getCostMonth, month));
+
+        assertThat(expected).isNotEmpty();
+        assertThat(costMapper.selectByMonth(month)).containsExactlyInAnyOrderElementsOf(expected);
+    }
+}
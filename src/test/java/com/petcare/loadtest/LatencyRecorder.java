@@ -0,0 +1,41 @@
+package com.petcare.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * 单个接口的延迟样本（纳秒），按需扩容，线程安全
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int size;
+    private int errors;
+
+    synchronized void record(long nanos, boolean ok) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+        if (!ok) {
+            errors++;
+        }
+    }
+
+    synchronized Summary summarize() {
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        return new Summary(size, errors, percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+                size > 0 ? sorted[size - 1] / 1_000_000.0 : 0);
+    }
+
+    private static double percentile(long[] sorted, int p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    record Summary(int count, int errors, double p50, double p95, double p99, double max) {
+    }
+}
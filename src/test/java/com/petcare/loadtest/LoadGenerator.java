@@ -0,0 +1,167 @@
+package com.petcare.loadtest;
+
+import com.petcare.support.SqlStatementCounter;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 按接近生产的比例回放预约、容量与财务接口请求
+ */
+final class LoadGenerator {
+
+    private final String baseUrl;
+    private final LoadTestConfig config;
+    private final HttpClient client;
+    private final List<Operation> operations = new ArrayList<>();
+    private final int totalWeight;
+    private final AtomicLong nextPetId = new AtomicLong(9_000_000_000_000L);
+
+    LoadGenerator(String baseUrl, LoadTestConfig config) {
+        this.baseUrl = baseUrl;
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(4))
+                .build();
+
+        operations.add(new Operation("GET /api/pets", 20, r -> get("/api/pets?page=1&size=10")));
+        operations.add(new Operation("GET /api/pets?statuses", 10, r -> get("/api/pets?page=1&size=20&statuses=booked,checkedIn")));
+        operations.add(new Operation("GET /api/pets/capacity", 20, r -> get("/api/pets/capacity?date=" + randomDate(r))));
+        operations.add(new Operation("GET /api/pets/capacity/month", 15, r -> get("/api/pets/capacity/month?month=" + randomMonth(r))));
+        operations.add(new Operation("GET /api/finance/monthly-stats", 8, r -> get("/api/finance/monthly-stats?month=" + randomMonth(r))));
+        operations.add(new Operation("GET /api/finance/monthly-orders-detail", 8, r -> get("/api/finance/monthly-orders-detail?month=" + randomMonth(r))));
+        operations.add(new Operation("GET /api/finance/monthly-orders", 4, r -> get("/api/finance/monthly-orders")));
+        operations.add(new Operation("GET /api/finance/total-stats", 5, r -> get("/api/finance/total-stats")));
+        operations.add(new Operation("POST /api/pets", 5, this::createBooking));
+        this.totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+    }
+
+    /**
+     * 逐个接口串行请求一次，按前后语句数之差得到每个接口单次请求执行的 SQL 数
+     */
+    Map<String, Long> profileStatements(SqlStatementCounter counter) throws Exception {
+        Map<String, Long> perEndpoint = new LinkedHashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (Operation operation : operations) {
+            long before = counter.count();
+            client.send(operation.request.apply(random), HttpResponse.BodyHandlers.discarding());
+            perEndpoint.put(operation.name, counter.count() - before);
+        }
+        return perEndpoint;
+    }
+
+    /**
+     * 多个客户端并发循环请求：预热结束后清空样本，再统计 duration 秒
+     */
+    Result run(SqlStatementCounter counter) throws InterruptedException {
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        operations.forEach(op -> recorders.put(op.name, new LatencyRecorder()));
+        Map<String, LatencyRecorder> warmupRecorders = new LinkedHashMap<>();
+        operations.forEach(op -> warmupRecorders.put(op.name, new LatencyRecorder()));
+
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+        long[] measuredFrom = new long[2];
+
+        ExecutorService pool = Executors.newFixedThreadPool(config.clients);
+        for (int i = 0; i < config.clients; i++) {
+            pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    Operation operation = pick(random);
+                    boolean ok;
+                    long begin = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(operation.request.apply(random), HttpResponse.BodyHandlers.ofString());
+                        ok = response.statusCode() == 200 && response.body().startsWith("{\"code\":0");
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    long elapsed = System.nanoTime() - begin;
+                    (now < warmupEnd ? warmupRecorders : recorders).get(operation.name).record(elapsed, ok);
+                }
+            });
+        }
+
+        Thread.sleep(Math.max(0, TimeUnit.NANOSECONDS.toMillis(warmupEnd - System.nanoTime())));
+        measuredFrom[0] = counter.count();
+        measuredFrom[1] = System.nanoTime();
+        pool.shutdown();
+        pool.awaitTermination(config.durationSeconds + 60L, TimeUnit.SECONDS);
+        long statements = counter.count() - measuredFrom[0];
+        double seconds = (System.nanoTime() - measuredFrom[1]) / 1_000_000_000.0;
+
+        Map<String, LatencyRecorder.Summary> summaries = new LinkedHashMap<>();
+        recorders.forEach((name, recorder) -> summaries.put(name, recorder.summarize()));
+        return new Result(summaries, statements, seconds);
+    }
+
+    /**
+     * 单次 GET 请求并返回响应体，用于压测结束后的检查
+     */
+    String fetch(String path) throws Exception {
+        return client.send(get(path), HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private Operation pick(ThreadLocalRandom random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            ticket -= operation.weight;
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        return operations.get(0);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(60)).GET().build();
+    }
+
+    private HttpRequest createBooking(ThreadLocalRandom random) {
+        // 放在合成数据之后的半年内，避免合成数据已占满容量导致新增被准入控制拒绝
+        LocalDate start = config.lastMonth.atEndOfMonth().plusDays(30 + random.nextInt(180));
+        LocalDate end = start.plusDays(1 + random.nextInt(7));
+        String body = "{\"id\":" + nextPetId.incrementAndGet() + ",\"name\":\"压测\",\"breed\":\"柯基\",\"startDate\":\"" + start
+                + "\",\"endDate\":\"" + end + "\",\"dailyFee\":120,\"otherFee\":20,\"status\":\"booked\"}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/pets"))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private LocalDate randomDate(ThreadLocalRandom random) {
+        LocalDate from = config.firstMonth.atDay(1);
+        int days = (int) ChronoUnit.DAYS.between(from, config.lastMonth.atEndOfMonth());
+        return from.plusDays(random.nextInt(days + 1));
+    }
+
+    private YearMonth randomMonth(ThreadLocalRandom random) {
+        return config.firstMonth.plusMonths(random.nextInt(config.months));
+    }
+
+    private record Operation(String name, int weight, Function<ThreadLocalRandom, HttpRequest> request) {
+    }
+
+    record Result(Map<String, LatencyRecorder.Summary> summaries, long statements, double seconds) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.petcare.loadtest;
+
+import com.petcare.support.TestData;
+
+import java.time.YearMonth;
+
+/**
+ * 压测参数，均可通过 -D 系统属性覆盖，例如：
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.pets=20000 -Dloadtest.clients=64
+ */
+final class LoadTestConfig {
+
+    /** 生成的宠物订单数 */
+    final int pets = Integer.getInteger("loadtest.pets", 5000);
+    /** 订单分布的月份数（截至当前月） */
+    final int months = Integer.getInteger("loadtest.months", 24);
+    /** 每月生成的成本记录数 */
+    final int costsPerMonth = Integer.getInteger("loadtest.costs-per-month", 3);
+    /** 最大容量配置 */
+    final int maxCapacity = Integer.getInteger("loadtest.max-capacity", 20);
+    /** 并发客户端数 */
+    final int clients = Integer.getInteger("loadtest.clients", 32);
+    /** 预热时长（秒），预热期间的请求不计入统计 */
+    final int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+    /** 统计时长（秒） */
+    final int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 30);
+    /** 固定语句对比中每条查询的预热与计时执行次数，计时次数为 0 时跳过对比 */
+    final int sqlWarmup = Integer.getInteger("loadtest.sql-warmup", 100);
+    final int sqlIterations = Integer.getInteger("loadtest.sql-iterations", 1000);
+    /** 是否保留生产配置中的 MyBatis 标准输出 SQL 日志 */
+    final boolean sqlLog = Boolean.getBoolean("loadtest.sql-log");
+    /** 随机数种子，保证多次压测数据一致 */
+    final long seed = Long.getLong("loadtest.seed", 42L);
+
+    final TestData data = new TestData(pets, months, costsPerMonth, maxCapacity, seed);
+    final YearMonth lastMonth = data.lastMonth();
+    final YearMonth firstMonth = data.firstMonth();
+
+    @Override
+    public String toString() {
+        return data + ", clients=" + clients + ", warmup=" + warmupSeconds + "s, duration=" + durationSeconds + "s"
+                + ", sqlIterations=" + sqlIterations + ", sqlLog=" + sqlLog;
+    }
+}
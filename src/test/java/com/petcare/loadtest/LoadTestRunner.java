@@ -0,0 +1,96 @@
+package com.petcare.loadtest;
+
+import com.petcare.PetcareAdminApplication;
+import com.petcare.support.SqlStatementCounter;
+import com.petcare.support.TestDatabase;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测入口
+ * 启动嵌入式 PostgreSQL 并写入合成数据，以生产配置（连接池大小等）启动应用，
+ * 并发回放请求后输出各接口 p50/p95/p99 延迟、吞吐量与每请求 SQL 语句数，
+ * 最后对比条件构造器与固定文本语句执行同一查询的耗时。
+ * 功能正确性由 src/test 下的集成测试（mvn verify）覆盖，这里只产生负载与统计
+ */
+public final class LoadTestRunner {
+
+    private static final List<String> FINANCE_ENDPOINTS =
+            List.of("monthly-stats", "total-stats", "monthly-orders", "monthly-orders-detail");
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = new LoadTestConfig();
+        System.out.println("压测参数: " + config);
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            TestDatabase.createSchema(postgres.getPostgresDatabase());
+            long seedBegin = System.currentTimeMillis();
+            TestDatabase.seed(postgres.getPostgresDatabase(), config.data);
+            System.out.printf("合成数据写入完成，耗时 %d ms%n", System.currentTimeMillis() - seedBegin);
+
+            SqlStatementCounter counter = new SqlStatementCounter();
+            // 以命令行参数传入，优先级高于 application.yml
+            List<String> appArgs = new ArrayList<>(List.of(
+                    "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + TestDatabase.URL_OPTIONS,
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=postgres",
+                    "--server.port=0",
+                    "--logging.file.name=",
+                    "--logging.level.root=WARN",
+                    "--logging.level.com.petcare=WARN",
+                    "--spring.main.banner-mode=off"));
+            if (!config.sqlLog) {
+                appArgs.add("--mybatis-plus.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl");
+            }
+            SpringApplicationBuilder builder = new SpringApplicationBuilder(PetcareAdminApplication.class)
+                    .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(counter));
+
+            try (ConfigurableApplicationContext context = builder.run(appArgs.toArray(new String[0]))) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                LoadGenerator generator = new LoadGenerator("http://localhost:" + port, config);
+
+                Map<String, Long> statementsPerEndpoint = generator.profileStatements(counter);
+                LoadGenerator.Result result = generator.run(counter);
+                print(statementsPerEndpoint, result);
+                // 财务接口并发请求合并与响应缓存命中情况
+                System.out.println("财务统计实际执行: " + generator.fetch("/actuator/metrics/petcare.singleflight.calls?tag=result:executed"));
+                System.out.println("财务统计合并请求: " + generator.fetch("/actuator/metrics/petcare.singleflight.calls?tag=result:coalesced"));
+                for (String name : FINANCE_ENDPOINTS) {
+                    System.out.println("财务响应缓存命中率 " + name + ": "
+                            + generator.fetch("/actuator/metrics/petcare.response.cache.hit.ratio?tag=name:" + name));
+                }
+                if (config.sqlIterations > 0) {
+                    new StaticSqlBenchmark(config).run(context);
+                }
+            }
+        }
+        // 客户端线程池等非守护线程不会自行结束
+        System.exit(0);
+    }
+
+    private static void print(Map<String, Long> statementsPerEndpoint, LoadGenerator.Result result) {
+        System.out.println();
+        System.out.printf("%-40s %8s %6s %9s %9s %9s %9s %6s%n", "接口", "请求数", "错误", "p50(ms)", "p95(ms)", "p99(ms)", "max(ms)", "SQL数");
+        long total = 0;
+        long errors = 0;
+        for (Map.Entry<String, LatencyRecorder.Summary> entry : result.summaries().entrySet()) {
+            LatencyRecorder.Summary s = entry.getValue();
+            total += s.count();
+            errors += s.errors();
+            System.out.printf("%-40s %8d %6d %9.1f %9.1f %9.1f %9.1f %6d%n", entry.getKey(), s.count(), s.errors(),
+                    s.p50(), s.p95(), s.p99(), s.max(), statementsPerEndpoint.getOrDefault(entry.getKey(), 0L));
+        }
+        System.out.println();
+        System.out.printf("总请求数 %d，错误 %d，统计时长 %.1f s，吞吐量 %.1f req/s%n", total, errors, result.seconds(), total / result.seconds());
+        System.out.printf("SQL 语句总数 %d，平均每请求 %.2f 条%n", result.statements(), total > 0 ? (double) result.statements() / total : 0);
+    }
+}
@@ -0,0 +1,68 @@
+package com.petcare.loadtest;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.petcare.finance.mapper.CostMapper;
+import com.petcare.finance.model.Cost;
+import com.petcare.pet.mapper.PetMapper;
+import com.petcare.pet.model.Pet;
+import org.springframework.context.ApplicationContext;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 固定文本语句与条件构造器耗时对比
+ * 同一查询分别由 LambdaQueryWrapper 拼接与固定文本语句执行，输出单次平均耗时与返回行数。
+ * 两者结果一致由 PetMapperIT / CostMapperIT 校验，这里只计时
+ */
+final class StaticSqlBenchmark {
+
+    private final LoadTestConfig config;
+
+    StaticSqlBenchmark(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    void run(ApplicationContext context) {
+        PetMapper petMapper = context.getBean(PetMapper.class);
+        CostMapper costMapper = context.getBean(CostMapper.class);
+        YearMonth month = config.lastMonth.minusMonths(1);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.atEndOfMonth();
+
+        System.out.println();
+        System.out.printf("%-24s %8s %16s %14s%n", "固定语句对比", "行数", "条件构造器(µs)", "固定语句(µs)");
+        compare("月内订单", () -> petMapper.selectList(new LambdaQueryWrapper<Pet>()
+                        .le(Pet::getStartDate, to)
+                        .ge(Pet::getEndDate, from)),
+                () -> petMapper.selectOverlapping(from, to));
+        compare("月内预约与在住", () -> petMapper.selectList(new LambdaQueryWrapper<Pet>()
+                        .le(Pet::getStartDate, to)
+                        .ge(Pet::getEndDate, from)
+                        .in(Pet::getStatus, List.of("booked", "checkedIn"))),
+                () -> petMapper.selectActiveOverlapping(from, to));
+        compare("月度成本", () -> costMapper.selectList(new LambdaQueryWrapper<Cost>()
+                        .eq(Cost::getCostMonth, month.toString())),
+                () -> costMapper.selectByMonth(month.toString()));
+    }
+
+    private void compare(String name, Supplier<List<?>> wrapper, Supplier<List<?>> fixed) {
+        int rows = fixed.get().size();
+        double wrapperMicros = averageMicros(wrapper);
+        double fixedMicros = averageMicros(fixed);
+        System.out.printf("%-24s %8d %16.1f %14.1f%n", name, rows, wrapperMicros, fixedMicros);
+    }
+
+    private double averageMicros(Supplier<?> query) {
+        for (int i = 0; i < config.sqlWarmup; i++) {
+            query.get();
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < config.sqlIterations; i++) {
+            query.get();
+        }
+        return (System.nanoTime() - begin) / 1_000.0 / config.sqlIterations;
+    }
+}
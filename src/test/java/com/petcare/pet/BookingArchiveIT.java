@@ -0,0 +1,90 @@
+package com.petcare.pet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.ApiClient;
+import com.petcare.support.AppInstance;
+import com.petcare.support.TestData;
+import com.petcare.support.TestDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 历史订单归档
+ * 归档前后：总体统计、月度订单统计，以及已归档月份、跨归档边界月份与近期月份的月度统计和订单详情（含流式）逐字节一致；
+ * 订单与收入记录只从热表移到历史表，总数不变、按月建出分区；之后首次查询近期月份不访问历史分区，查询已归档月份才访问。
+ * 归档会移走共用库中的合成数据，因此使用单独的测试库与实例
+ */
+class BookingArchiveIT {
+
+    private static final String DATABASE = "petcare_archive";
+    private static final String JOB = "booking-archive";
+    private static final int HORIZON_MONTHS = 12;
+    private static final long TIMEOUT_MILLIS = 120_000;
+    private static final TestData DATA = TestData.DEFAULT;
+
+    private final JdbcTemplate db = new JdbcTemplate(TestDatabase.dataSource(DATABASE));
+
+    @Test
+    void archiveKeepsReportsAndMovesOldOrders() throws Exception {
+        YearMonth cutoff = YearMonth.now().minusMonths(HORIZON_MONTHS);
+        List<String> paths = new ArrayList<>(List.of("/api/finance/total-stats", "/api/finance/monthly-orders"));
+        for (YearMonth month : List.of(DATA.firstMonth().plusMonths(2), cutoff.minusMonths(1), DATA.lastMonth().minusMonths(1))) {
+            paths.add("/api/finance/monthly-stats?month=" + month);
+            paths.add("/api/finance/monthly-orders-detail?month=" + month);
+            paths.add("/api/finance/monthly-orders-detail/stream?month=" + month);
+        }
+
+        try (AppInstance app = AppInstance.start(DATABASE, "--petcare.jobs.booking-archive.horizon-months=" + HORIZON_MONTHS)) {
+            ApiClient api = app.api();
+            List<String> before = paths.stream().map(api::getBody).toList();
+            Map<String, Object> countsBefore = counts();
+
+            String previous = api.getData("/api/admin/jobs/" + JOB).path("lastFinishedAt").asText();
+            ApiClient.data(api.post("/api/admin/jobs/" + JOB + "/run", null));
+            JsonNode status;
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            do {
+                Thread.sleep(100);
+                status = api.getData("/api/admin/jobs/" + JOB);
+            } while ((status.path("running").asBoolean() || status.path("lastFinishedAt").asText().equals(previous))
+                    && System.currentTimeMillis() < deadline);
+            assertThat(status.path("lastResult").asText()).as(status.toString()).isEqualTo("success");
+
+            Map<String, Object> countsAfter = counts();
+            assertThat(count(countsAfter, "pets_history")).isPositive();
+            assertThat(count(countsAfter, "partitions")).isPositive();
+            assertThat(count(countsAfter, "pets") + count(countsAfter, "pets_history")).isEqualTo(count(countsBefore, "pets"));
+            assertThat(count(countsAfter, "incomes") + count(countsAfter, "incomes_history")).isEqualTo(count(countsBefore, "incomes"));
+            assertThat(paths.stream().map(api::getBody).toList()).isEqualTo(before);
+
+            // 未请求过的月份，不命中响应缓存
+            double historyQueries = historyQueries(api);
+            api.getData("/api/finance/monthly-stats?month=" + DATA.lastMonth());
+            assertThat(historyQueries(api)).isEqualTo(historyQueries);
+            api.getData("/api/finance/monthly-stats?month=" + DATA.firstMonth().plusMonths(4));
+            assertThat(historyQueries(api)).isGreaterThan(historyQueries);
+        }
+    }
+
+    private Map<String, Object> counts() {
+        return db.queryForMap("SELECT (SELECT count(*) FROM pets) AS pets, (SELECT count(*) FROM incomes) AS incomes, "
+                + "(SELECT count(*) FROM pets_history) AS pets_history, (SELECT count(*) FROM incomes_history) AS incomes_history, "
+                + "(SELECT count(*) FROM pg_inherits WHERE inhparent = 'pets_history'::regclass) AS partitions");
+    }
+
+    private static long count(Map<String, Object> counts, String name) {
+        return ((Number) counts.get(name)).longValue();
+    }
+
+    private static double historyQueries(ApiClient api) {
+        JsonNode measurements = api.getJson("/actuator/metrics/petcare.history.queries?tag=scope:history").path("measurements");
+        return measurements.isEmpty() ? 0 : measurements.get(0).path("value").asDouble();
+    }
+}
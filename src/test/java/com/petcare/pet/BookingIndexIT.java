@@ -0,0 +1,39 @@
+package com.petcare.pet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 预约索引一致性检查与修复
+ * 绕过应用直接写库造成差异：GET 检查只报告差异、不修改索引，POST 修复后检查结果一致，容量查询计入该预约
+ */
+class BookingIndexIT extends IntegrationTest {
+
+    @Test
+    void checkIsReadOnlyAndRepairIsExplicit() {
+        // 合成数据之后八年的日期，其他测试不写入
+        LocalDate start = DATA.lastMonth().atEndOfMonth().plusYears(8);
+        long id = 9_900_000_000_000L;
+        db.update("INSERT INTO pets (id, name, start_date, end_date, daily_fee, status) VALUES (?, '直接写库', ?::date, ?::date, 100, 'booked')",
+                id, start, start.plusDays(2));
+
+        for (int i = 0; i < 2; i++) {
+            JsonNode check = api.getData("/api/pets/index/check");
+            assertThat(check.path("consistent").asBoolean()).isFalse();
+            assertThat(check.path("repaired").asBoolean()).isFalse();
+            assertThat(check.path("missingIds").toString()).contains(Long.toString(id));
+        }
+        assertThat(api.getData("/api/pets/capacity?date=" + start).path("bookedCount").asInt()).isZero();
+
+        JsonNode repair = ApiClient.data(api.post("/api/pets/index/repair", null));
+        assertThat(repair.path("repaired").asBoolean()).isTrue();
+        assertThat(api.getData("/api/pets/index/check").path("consistent").asBoolean()).isTrue();
+        assertThat(api.getData("/api/pets/capacity?date=" + start).path("bookedCount").asInt()).isEqualTo(1);
+    }
+}
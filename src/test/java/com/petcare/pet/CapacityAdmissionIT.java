@@ -0,0 +1,200 @@
+package com.petcare.pet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 容量准入
+ * 在没有任何预约的远期窗口内，多个客户端同时发起相互重叠的新增与改期请求（或批量导入与单条新增），
+ * 结束后按天统计数据库中的占用（闭区间，结束日期当天也占用），任一天不超过 max_capacity，且内存预约索引与数据库一致；
+ * 已离店的宠物重新入住同样经过准入
+ */
+class CapacityAdmissionIT extends IntegrationTest {
+
+    private static final int REQUESTS = 200;
+    private static final int CLIENTS = 16;
+    private static final int WINDOW_DAYS = 10;
+
+    private static final int IMPORT_ROWS = 20;
+
+    private final AtomicLong nextPetId = new AtomicLong(9_500_000_000_000L);
+    private final List<Long> admittedIds = new CopyOnWriteArrayList<>();
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final List<String> unexpected = new CopyOnWriteArrayList<>();
+
+    @Test
+    void concurrentWritesNeverExceedCapacity() throws Exception {
+        // 合成数据截至当前月末，之后一年再往后的窗口内没有任何预约
+        LocalDate windowStart = DATA.lastMonth().atEndOfMonth().plusYears(1);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            pool.submit(() -> {
+                startSignal.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                // 约三成请求为已准入预约的改期
+                if (!admittedIds.isEmpty() && random.nextInt(10) < 3) {
+                    reschedule(admittedIds.get(random.nextInt(admittedIds.size())), windowStart, random);
+                } else {
+                    create(windowStart, random);
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(unexpected).isEmpty();
+        assertThat(admitted.get()).isPositive();
+        assertThat(rejected.get()).isPositive();
+        assertThat(maxDailyOccupancy(windowStart, windowStart.plusDays(WINDOW_DAYS + 4L))).isLessThanOrEqualTo(DATA.maxCapacity());
+        assertThat(api.getData("/api/pets/index/check").path("consistent").asBoolean()).isTrue();
+    }
+
+    @Test
+    void concurrentImportsAndCreatesDoNotDeadlock() throws Exception {
+        // 合成数据之后九年的窗口，其他测试不写入；ID 与上一个用例错开
+        LocalDate windowStart = DATA.lastMonth().atEndOfMonth().plusYears(9);
+        nextPetId.set(9_510_000_000_000L);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        for (int i = 0; i < REQUESTS / 4; i++) {
+            boolean importing = i % 2 == 0;
+            pool.submit(() -> {
+                startSignal.await();
+                if (importing) {
+                    importDescending(windowStart, ThreadLocalRandom.current());
+                } else {
+                    create(windowStart, ThreadLocalRandom.current());
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+
+        // 死锁会以整块写入失败或接口报错的形式出现在 unexpected 中
+        assertThat(unexpected).isEmpty();
+        assertThat(admitted.get()).isPositive();
+        assertThat(rejected.get()).isPositive();
+        assertThat(maxDailyOccupancy(windowStart, windowStart.plusDays(WINDOW_DAYS + 4L))).isLessThanOrEqualTo(DATA.maxCapacity());
+        assertThat(api.getData("/api/pets/index/check").path("consistent").asBoolean()).isTrue();
+    }
+
+    @Test
+    void checkingInACheckedOutPetIsAdmitted() {
+        // 合成数据之后十年的日期，其他测试不写入
+        LocalDate start = DATA.lastMonth().atEndOfMonth().plusYears(10);
+        long id = 9_520_000_000_000L;
+        // 先离店的两只宠物不再占用容量，之后其他预约占满它们原来的日期
+        long full = id;
+        long free = id + 1;
+        ApiClient.data(book(full, start, start.plusDays(2)));
+        ApiClient.data(book(free, start.plusDays(5), start.plusDays(6)));
+        ApiClient.data(api.post("/api/pets/batch/checkout", List.of(full, free)));
+        for (int i = 0; i < DATA.maxCapacity(); i++) {
+            ApiClient.data(book(id + 2 + i, start, start.plusDays(2)));
+        }
+
+        assertThat(api.post("/api/pets/" + full + "/checkin", null).path("message").asText()).contains("容量已满");
+        JsonNode batch = ApiClient.data(api.post("/api/pets/batch/checkin", List.of(full, free)));
+        assertThat(batch.path("updatedCount").asInt()).isEqualTo(1);
+        assertThat(batch.path("pets").get(0).path("id").asLong()).isEqualTo(free);
+        assertThat(batch.path("notFoundIds")).isEmpty();
+        assertThat(batch.path("rejected").get(0).path("petId").asLong()).isEqualTo(full);
+        assertThat(batch.path("rejected").get(0).path("message").asText()).contains("容量已满");
+
+        assertThat(db.queryForObject("SELECT status FROM pets WHERE id = ?", String.class, full)).isEqualTo("checkedOut");
+        assertThat(maxDailyOccupancy(start, start.plusDays(2))).isEqualTo(DATA.maxCapacity());
+    }
+
+    private JsonNode book(long id, LocalDate start, LocalDate end) {
+        return api.post("/api/pets", Map.of("id", id, "name", "入住准入", "startDate", start.toString(),
+                "endDate", end.toString(), "dailyFee", 100, "status", "booked"));
+    }
+
+    /**
+     * 文件内的行按开始日期倒序排列，逐行加锁时会与单条新增以相反顺序争抢同一批日期
+     */
+    private void importDescending(LocalDate windowStart, ThreadLocalRandom random) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < IMPORT_ROWS; i++) {
+            LocalDate start = windowStart.plusDays(WINDOW_DAYS - 1 - (long) i * WINDOW_DAYS / IMPORT_ROWS);
+            rows.add(Map.of("id", nextPetId.incrementAndGet(), "name", "导入准入", "startDate", start.toString(),
+                    "endDate", start.plusDays(1 + random.nextInt(4)).toString(), "dailyFee", 100, "status", "booked"));
+        }
+        JsonNode response = api.post("/api/pets/import", rows);
+        if (response.path("code").asInt() != 0) {
+            unexpected.add(response.toString());
+            return;
+        }
+        JsonNode result = response.path("data");
+        admitted.addAndGet(result.path("importedRows").asInt());
+        for (JsonNode error : result.path("errors")) {
+            if (error.path("message").asText().contains("容量已满")) {
+                rejected.incrementAndGet();
+            } else {
+                unexpected.add(error.toString());
+            }
+        }
+    }
+
+    private void create(LocalDate windowStart, ThreadLocalRandom random) {
+        long id = nextPetId.incrementAndGet();
+        LocalDate start = windowStart.plusDays(random.nextInt(WINDOW_DAYS));
+        LocalDate end = start.plusDays(1 + random.nextInt(4));
+        JsonNode response = api.post("/api/pets", Map.of("id", id, "name", "准入", "startDate", start.toString(),
+                "endDate", end.toString(), "dailyFee", 100, "otherFee", 0, "status", "booked"));
+        if (record(response)) {
+            admittedIds.add(id);
+        }
+    }
+
+    private void reschedule(long id, LocalDate windowStart, ThreadLocalRandom random) {
+        LocalDate start = windowStart.plusDays(random.nextInt(WINDOW_DAYS));
+        LocalDate end = start.plusDays(1 + random.nextInt(4));
+        record(api.put("/api/pets", Map.of("id", id, "startDate", start.toString(), "endDate", end.toString())));
+    }
+
+    private boolean record(JsonNode response) {
+        if (response.path("code").asInt() == 0) {
+            admitted.incrementAndGet();
+            return true;
+        }
+        if (response.path("message").asText().contains("容量已满")) {
+            rejected.incrementAndGet();
+        } else {
+            unexpected.add(response.toString());
+        }
+        return false;
+    }
+
+    private int maxDailyOccupancy(LocalDate from, LocalDate to) {
+        Integer max = db.queryForObject("SELECT coalesce(max(c), 0) FROM (SELECT count(p.id) AS c "
+                + "FROM generate_series(?::date, ?::date, interval '1 day') AS d "
+                + "LEFT JOIN pets p ON p.status IN ('booked', 'checkedIn') "
+                + "AND p.start_date <= d::date AND p.end_date >= d::date "
+                + "GROUP BY d) s", Integer.class, from, to);
+        return max == null ? 0 : max;
+    }
+}
@@ -0,0 +1,49 @@
+package com.petcare.pet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 容量占用规则
+ * 预约占用 [start_date, end_date] 闭区间内的每一天，结束日期当天也算在店内；
+ * 单日与按月容量查询、数据库回退语句和容量准入使用同一规则
+ */
+class CapacityRuleIT extends IntegrationTest {
+
+    @Test
+    void endDateIsOccupiedForQueriesAndAdmission() {
+        // 合成数据之后七年的月份，其他测试不写入
+        YearMonth month = DATA.lastMonth().plusYears(7);
+        LocalDate day = month.atDay(10);
+        long id = 9_700_000_000_000L;
+        for (int i = 0; i < DATA.maxCapacity(); i++) {
+            ApiClient.data(book(id + i, day.minusDays(2), day));
+        }
+
+        assertThat(api.getData("/api/pets/capacity?date=" + day).path("bookedCount").asInt()).isEqualTo(DATA.maxCapacity());
+        assertThat(api.getData("/api/pets/capacity?date=" + day.plusDays(1)).path("bookedCount").asInt()).isZero();
+        for (JsonNode item : api.getData("/api/pets/capacity/month?month=" + month).path("days")) {
+            LocalDate date = LocalDate.parse(item.path("date").asText());
+            int expected = !date.isBefore(day.minusDays(2)) && !date.isAfter(day) ? DATA.maxCapacity() : 0;
+            assertThat(item.path("bookedCount").asInt()).as(date.toString()).isEqualTo(expected);
+        }
+
+        // 结束日期当天已满：当天开始的预约被拒绝，次日开始的预约正常写入
+        JsonNode sameDay = book(id + DATA.maxCapacity(), day, day.plusDays(1));
+        assertThat(sameDay.path("message").asText()).contains("容量已满").contains(day.toString());
+        ApiClient.data(book(id + DATA.maxCapacity() + 1, day.plusDays(1), day.plusDays(2)));
+    }
+
+    private JsonNode book(long id, LocalDate start, LocalDate end) {
+        return api.post("/api/pets", Map.of("id", id, "name", "规则" + id, "startDate", start.toString(),
+                "endDate", end.toString(), "dailyFee", 100, "status", "booked"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.petcare.pet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 批量导入
+ * 同一块内超过最大容量的预约逐行报错，其余行照常写入，已离店的行不受容量限制；
+ * 写入时被其他事务抢先写入同一ID的行报错，且不写收入记录
+ */
+class PetImportIT extends IntegrationTest {
+
+    @Test
+    void overCapacityRowsAreReportedAsRowErrors() {
+        // 合成数据之后六年的窗口，其他测试不写入
+        LocalDate start = DATA.lastMonth().atEndOfMonth().plusYears(6);
+        LocalDate end = start.plusDays(2);
+        int overflow = 5;
+        int checkedOut = 3;
+        long firstId = 9_600_000_000_000L;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < DATA.maxCapacity() + overflow + checkedOut; i++) {
+            String status = i < DATA.maxCapacity() + overflow ? "booked" : "checkedOut";
+            rows.add(Map.of("id", firstId + i, "name", "导入" + i, "startDate", start.toString(),
+                    "endDate", end.toString(), "dailyFee", 100, "status", status));
+        }
+
+        JsonNode result = ApiClient.data(api.post("/api/pets/import", rows));
+
+        assertThat(result.path("importedRows").asInt()).isEqualTo(DATA.maxCapacity() + checkedOut);
+        assertThat(result.path("failedRows").asInt()).isEqualTo(overflow);
+        for (JsonNode error : result.path("errors")) {
+            assertThat(error.path("message").asText()).contains("容量已满");
+        }
+        Integer occupying = db.queryForObject("SELECT count(*) FROM pets WHERE start_date = ?::date "
+                + "AND status IN ('booked', 'checkedIn')", Integer.class, start);
+        assertThat(occupying).isEqualTo(DATA.maxCapacity());
+        Integer incomes = db.queryForObject("SELECT count(*) FROM incomes i JOIN pets p ON p.id = i.pet_id "
+                + "WHERE p.start_date = ?::date", Integer.class, start);
+        assertThat(incomes).isEqualTo(DATA.maxCapacity() + checkedOut);
+    }
+
+    @Test
+    void rowSkippedByConcurrentInsertGetsNoIncome() throws Exception {
+        LocalDate start = DATA.lastMonth().atEndOfMonth().plusYears(6).plusDays(20);
+        long contestedId = 9_610_000_000_000L;
+        // 已离店的订单不进入预约索引，直接写库不影响其他测试的索引一致性检查
+        List<Map<String, Object>> rows = List.of(
+                Map.of("id", contestedId, "name", "抢先写入", "startDate", start.toString(),
+                        "endDate", start.plusDays(2).toString(), "dailyFee", 100, "status", "checkedOut"),
+                Map.of("id", contestedId + 1, "name", "正常写入", "startDate", start.toString(),
+                        "endDate", start.plusDays(2).toString(), "dailyFee", 100, "status", "checkedOut"));
+
+        JsonNode result;
+        try (Connection other = db.getDataSource().getConnection()) {
+            // 另一个事务写入同一ID但暂不提交：导入查不到该ID，写入时等待该事务结束
+            other.setAutoCommit(false);
+            try (Statement statement = other.createStatement()) {
+                statement.executeUpdate("INSERT INTO pets (id, name, start_date, end_date, daily_fee, status) VALUES ("
+                        + contestedId + ", '其他事务', '" + start + "', '" + start.plusDays(1) + "', 50, 'checkedOut')");
+            }
+            CompletableFuture<JsonNode> importing = CompletableFuture.supplyAsync(() -> api.post("/api/pets/import", rows));
+            awaitBlockedInsert();
+            other.commit();
+            result = ApiClient.data(importing.get(30, TimeUnit.SECONDS));
+        }
+
+        assertThat(result.path("importedRows").asInt()).isEqualTo(1);
+        assertThat(result.path("errors").get(0).path("petId").asLong()).isEqualTo(contestedId);
+        assertThat(result.path("errors").get(0).path("message").asText()).contains("宠物ID已存在");
+        assertThat(db.queryForObject("SELECT count(*) FROM incomes WHERE pet_id = ?", Integer.class, contestedId)).isZero();
+        assertThat(db.queryForObject("SELECT count(*) FROM incomes WHERE pet_id = ?", Integer.class, contestedId + 1)).isEqualTo(1);
+    }
+
+    private void awaitBlockedInsert() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            Integer waiting = db.queryForObject("SELECT count(*) FROM pg_stat_activity "
+                    + "WHERE wait_event_type = 'Lock' AND query LIKE 'INSERT INTO pets%'", Integer.class);
+            if (waiting != null && waiting > 0) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("导入未等待另一事务的写入");
+    }
+}
@@ -0,0 +1,44 @@
+package com.petcare.pet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 宠物列表汇总
+ * 列表接口返回的统计为筛选条件下全部记录的汇总（与直接查询数据库一致），而不是当前页；withTotals=false 时不返回统计
+ */
+class PetListTotalsIT extends IntegrationTest {
+
+    private static final LocalDate FROM = DATA.lastMonth().minusMonths(5).atDay(1);
+    private static final LocalDate TO = DATA.lastMonth().atEndOfMonth();
+    private static final String FILTER = "statuses=booked,checkedOut&startDate=" + FROM + "&endDate=" + TO;
+
+    @Test
+    void totalsCoverAllMatchingRows() {
+        JsonNode page = api.getData("/api/pets?page=1&size=10&" + FILTER);
+        String matching = "SELECT id FROM pets WHERE status IN ('booked', 'checkedOut') AND start_date >= ?::date AND end_date <= ?::date";
+        Map<String, Object> expected = db.queryForMap("SELECT "
+                + "(SELECT coalesce(sum(end_date - start_date), 0) FROM pets WHERE id IN (" + matching + ")) AS stay_days, "
+                + "(SELECT coalesce(sum(total_amount), 0) FROM incomes WHERE pet_id IN (" + matching + ")) AS amount, "
+                + "(SELECT coalesce(sum(settled_amount), 0) FROM incomes WHERE pet_id IN (" + matching + ")) AS settled",
+                FROM, TO, FROM, TO, FROM, TO);
+
+        assertThat(page.path("records").path("records").size()).isLessThanOrEqualTo(10);
+        assertThat(page.path("totalStayDays").asLong()).isEqualTo(((Number) expected.get("stay_days")).longValue());
+        assertThat(page.path("totalAmount").decimalValue()).isEqualByComparingTo(expected.get("amount").toString());
+        assertThat(page.path("totalSettledAmount").decimalValue()).isEqualByComparingTo(expected.get("settled").toString());
+    }
+
+    @Test
+    void totalsAreSkippedWhenNotRequested() {
+        JsonNode page = api.getData("/api/pets?page=1&size=10&withTotals=false&" + FILTER);
+
+        assertThat(page.path("totalStayDays").isNull()).isTrue();
+    }
+}
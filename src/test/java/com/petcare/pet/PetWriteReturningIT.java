@@ -0,0 +1,89 @@
+package com.petcare.pet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 写入返回
+ * 新增、修改、入住、离店的响应直接取自写入语句的 RETURNING 结果，应与随后 GET /api/pets/{id} 返回的记录（含寄养天数与收入汇总）完全一致；
+ * 批量入住、离店同样逐条与重新查询的结果比对，并校验离店金额 = 每日费用 × 过夜天数 + 其他费用
+ */
+class PetWriteReturningIT extends IntegrationTest {
+
+    private static final int BATCH_PETS = 20;
+    private static final long MISSING_ID = 1L;
+
+    @Test
+    void singleWritesReturnStoredRecord() {
+        LocalDate start = LocalDate.now().plusYears(4);
+        JsonNode created = ApiClient.data(api.post("/api/pets", Map.of("name", "写入返回", "startDate", start.toString(),
+                "endDate", start.plusDays(3).toString(), "dailyFee", 100, "otherFee", 20, "totalFee", 280, "status", "booked")));
+        String id = created.path("id").asText();
+        assertThat(created).isEqualTo(current(id));
+
+        JsonNode updated = ApiClient.data(api.put("/api/pets", Map.of("id", Long.parseLong(id), "remark", "改备注", "inputSettledAmount", 50)));
+        assertThat(updated).isEqualTo(current(id));
+
+        JsonNode checkedIn = ApiClient.data(api.post("/api/pets/" + id + "/checkin", null));
+        assertThat(checkedIn).isEqualTo(current(id));
+
+        JsonNode checkedOut = ApiClient.data(api.post("/api/pets/" + id + "/checkout", null));
+        assertThat(checkedOut).isEqualTo(current(id));
+        assertThat(checkedOut.path("status").asText()).isEqualTo("checkedOut");
+        assertThat(checkedOut.path("settledAmount").decimalValue()).isEqualByComparingTo("50");
+
+        api.delete("/api/pets/" + id);
+    }
+
+    @Test
+    void batchWritesReturnStoredRecords() {
+        // 每只宠物错开日期，不受单日容量限制
+        LocalDate start = LocalDate.now().plusYears(5);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < BATCH_PETS; i++) {
+            LocalDate day = start.plusDays(i * 5L);
+            ids.add(ApiClient.data(api.post("/api/pets", Map.of("name", "批量" + i, "startDate", day.toString(),
+                    "endDate", day.plusDays(2).toString(), "dailyFee", 100 + i, "otherFee", 10, "status", "booked"))).path("id").asLong());
+        }
+        List<Long> body = new ArrayList<>(ids);
+        body.add(MISSING_ID);
+
+        assertBatchMatches(ApiClient.data(api.post("/api/pets/batch/checkin", body)), ids);
+        JsonNode checkedOut = ApiClient.data(api.post("/api/pets/batch/checkout", body));
+        assertBatchMatches(checkedOut, ids);
+        for (JsonNode pet : checkedOut.path("pets")) {
+            // 2 晚 × 每日费用 + 其他费用 10
+            BigDecimal dailyFee = pet.path("dailyFee").decimalValue();
+            assertThat(pet.path("totalAmount").decimalValue()).isEqualByComparingTo(dailyFee.multiply(BigDecimal.valueOf(2)).add(BigDecimal.TEN));
+        }
+
+        ids.forEach(id -> api.delete("/api/pets/" + id));
+    }
+
+    private void assertBatchMatches(JsonNode result, List<Long> ids) {
+        assertThat(result.path("updatedCount").asInt()).isEqualTo(ids.size());
+        assertThat(result.path("notFoundIds")).hasSize(1);
+        assertThat(result.path("notFoundIds").get(0).asLong()).isEqualTo(MISSING_ID);
+        Map<Long, JsonNode> returned = new HashMap<>();
+        result.path("pets").forEach(pet -> returned.put(pet.path("id").asLong(), pet));
+        assertThat(returned).containsOnlyKeys(ids);
+        for (Long id : ids) {
+            assertThat(returned.get(id)).isEqualTo(current(String.valueOf(id)));
+        }
+    }
+
+    private JsonNode current(String id) {
+        return api.getData("/api/pets/" + id);
+    }
+}
@@ -0,0 +1,70 @@
+package com.petcare.pet.mapper;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.pet.model.Pet;
+import com.petcare.pet.model.vo.DailyCapacityCount;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 固定文本语句与条件构造器拼接的查询结果一致；按日期分组计数的容量语句（索引未就绪时的回退路径）与容量接口（内存索引）的每日数量一致
+ */
+class PetMapperIT extends IntegrationTest {
+
+    private static final YearMonth MONTH = DATA.lastMonth().minusMonths(1);
+
+    @Autowired
+    private PetMapper petMapper;
+
+    @Test
+    void selectOverlappingMatchesWrapperQuery() {
+        LocalDate from = MONTH.atDay(1);
+        LocalDate to = MONTH.atEndOfMonth();
+        List<Pet> expected = petMapper.selectList(new LambdaQueryWrapper<Pet>()
+                .le(Pet::getStartDate, to)
+                .ge(Pet::getEndDate, from));
+
+        assertThat(expected).isNotEmpty();
+        assertThat(petMapper.selectOverlapping(from, to)).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    void selectActiveOverlappingMatchesWrapperQuery() {
+        LocalDate from = DATA.lastMonth().atDay(1);
+        LocalDate to = DATA.lastMonth().atEndOfMonth();
+        List<Pet> expected = petMapper.selectList(new LambdaQueryWrapper<Pet>()
+                .le(Pet::getStartDate, to)
+                .ge(Pet::getEndDate, from)
+                .in(Pet::getStatus, List.of("booked", "checkedIn")));
+
+        assertThat(petMapper.selectActiveOverlapping(from, to)).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    void countActiveByDateMatchesCapacityCalendar() {
+        YearMonth month = DATA.lastMonth();
+        List<DailyCapacityCount> counts = petMapper.countActiveByDate(month.atDay(1), month.atEndOfMonth());
+        Map<String, String> expected = new HashMap<>();
+        for (DailyCapacityCount count : counts) {
+            expected.put(count.getDate().toString(), count.getBookedCount() + "/" + count.getCheckedInCount());
+        }
+
+        Map<String, String> actual = new HashMap<>();
+        for (JsonNode day : api.getData("/api/pets/capacity/month?month=" + month).path("days")) {
+            actual.put(day.path("date").asText(), day.path("bookedCount").asLong() + "/" + day.path("checkedInCount").asLong());
+        }
+
+        assertThat(counts).hasSize(month.lengthOfMonth());
+        assertThat(actual).isEqualTo(expected);
+    }
+}
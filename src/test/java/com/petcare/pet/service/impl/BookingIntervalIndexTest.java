@@ -0,0 +1,122 @@
+package com.petcare.pet.service.impl;
+
+import com.petcare.pet.model.Pet;
+import com.petcare.pet.model.vo.DailyCapacityCount;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 增量维护的索引与按全部预约逐条计算的结果一致，包括增量超过上限后的重建
+ */
+class BookingIntervalIndexTest {
+
+    private static final LocalDate BASE = LocalDate.of(2025, 1, 1);
+
+    private final Random random = new Random(42);
+    private final Map<Long, Pet> bookings = new HashMap<>();
+
+    @Test
+    void incrementalChangesMatchFullScan() {
+        for (long id = 1; id <= 500; id++) {
+            bookings.put(id, randomBooking(id));
+        }
+        BookingIntervalIndex index = BookingIntervalIndex.build(bookings.values());
+
+        for (int round = 0; round < 100; round++) {
+            Map<Long, Pet> changed = new HashMap<>();
+            for (int i = 0; i < 10; i++) {
+                long id = 1 + random.nextInt(600);
+                Pet pet = random.nextInt(4) == 0 ? null : randomBooking(id);
+                if (pet != null) {
+                    bookings.put(id, pet);
+                } else {
+                    bookings.remove(id);
+                }
+                changed.put(id, pet);
+            }
+            index = index.withChanges(changed, bookings.values());
+
+            LocalDate from = BASE.plusDays(random.nextInt(90));
+            LocalDate to = from.plusDays(random.nextInt(10));
+            assertThat(ids(index.overlapping(from, to))).isEqualTo(ids(expectedOverlapping(from, to)));
+            assertThat(index.countByDate(from, to)).isEqualTo(expectedCounts(from, to));
+        }
+    }
+
+    @Test
+    void endDateIsOccupied() {
+        bookings.put(1L, booking(1L, BASE, BASE.plusDays(2), "booked"));
+        bookings.put(2L, booking(2L, BASE.plusDays(2), BASE.plusDays(2), "checkedIn"));
+        BookingIntervalIndex index = BookingIntervalIndex.build(bookings.values());
+
+        assertThat(ids(index.overlapping(BASE.plusDays(2), BASE.plusDays(2)))).containsExactly(1L, 2L);
+        assertThat(ids(index.overlapping(BASE.plusDays(3), BASE.plusDays(3)))).isEmpty();
+        assertThat(index.countByDate(BASE.plusDays(2), BASE.plusDays(3))).containsExactly(
+                new DailyCapacityCount(BASE.plusDays(2), 1, 1), new DailyCapacityCount(BASE.plusDays(3), 0, 0));
+    }
+
+    private Pet randomBooking(long id) {
+        LocalDate start = BASE.plusDays(random.nextInt(100));
+        return booking(id, start, start.plusDays(random.nextInt(6)), random.nextBoolean() ? "booked" : "checkedIn");
+    }
+
+    private static Pet booking(long id, LocalDate start, LocalDate end, String status) {
+        Pet pet = new Pet();
+        pet.setId(id);
+        pet.setName("宠物" + id);
+        pet.setStatus(status);
+        pet.setStartDate(start);
+        pet.setEndDate(end);
+        return pet;
+    }
+
+    private List<Pet> expectedOverlapping(LocalDate from, LocalDate to) {
+        List<Pet> result = new ArrayList<>();
+        for (Pet pet : bookings.values()) {
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                if (occupies(pet, day)) {
+                    result.add(pet);
+                    break;
+                }
+            }
+        }
+        result.sort((a, b) -> a.getStartDate().equals(b.getStartDate())
+                ? a.getId().compareTo(b.getId()) : a.getStartDate().compareTo(b.getStartDate()));
+        return result;
+    }
+
+    private List<DailyCapacityCount> expectedCounts(LocalDate from, LocalDate to) {
+        List<DailyCapacityCount> counts = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            long booked = 0;
+            long checkedIn = 0;
+            for (Pet pet : bookings.values()) {
+                if (occupies(pet, day)) {
+                    if ("booked".equals(pet.getStatus())) {
+                        booked++;
+                    } else {
+                        checkedIn++;
+                    }
+                }
+            }
+            counts.add(new DailyCapacityCount(day, booked, checkedIn));
+        }
+        return counts;
+    }
+
+    private static boolean occupies(Pet pet, LocalDate day) {
+        return !day.isBefore(pet.getStartDate()) && !day.isAfter(pet.getEndDate());
+    }
+
+    private static List<Long> ids(List<Pet> pets) {
+        return pets.stream().map(Pet::getId).toList();
+    }
+}
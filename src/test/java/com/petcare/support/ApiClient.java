@@ -0,0 +1,108 @@
+package com.petcare.support;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 测试用 HTTP 客户端：请求体由 Jackson 序列化，响应保留原文（用于逐字节比较）并可解析为 JsonNode
+ * 金额按 BigDecimal 解析，避免 double 精度影响比较
+ */
+public final class ApiClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    private final String baseUrl;
+    private final TestRestTemplate rest;
+
+    public ApiClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.rest = new TestRestTemplate(new RestTemplateBuilder().rootUri(baseUrl));
+    }
+
+    public String baseUrl() {
+        return baseUrl;
+    }
+
+    public ResponseEntity<String> exchange(HttpMethod method, String path, Object body, HttpHeaders headers) {
+        HttpHeaders requestHeaders = new HttpHeaders();
+        if (headers != null) {
+            requestHeaders.addAll(headers);
+        }
+        String content = null;
+        if (body != null) {
+            requestHeaders.setContentType(MediaType.APPLICATION_JSON);
+            content = body instanceof String text ? text : write(body);
+        }
+        return rest.exchange(path, method, new HttpEntity<>(content, requestHeaders), String.class);
+    }
+
+    public ResponseEntity<String> get(String path) {
+        return exchange(HttpMethod.GET, path, null, null);
+    }
+
+    /**
+     * GET 并返回响应体原文
+     */
+    public String getBody(String path) {
+        return get(path).getBody();
+    }
+
+    public JsonNode getJson(String path) {
+        return json(getBody(path));
+    }
+
+    public JsonNode post(String path, Object body) {
+        return json(exchange(HttpMethod.POST, path, body, null).getBody());
+    }
+
+    public JsonNode put(String path, Object body) {
+        return json(exchange(HttpMethod.PUT, path, body, null).getBody());
+    }
+
+    public JsonNode delete(String path) {
+        return json(exchange(HttpMethod.DELETE, path, null, null).getBody());
+    }
+
+    /**
+     * GET 并断言业务成功，返回 data
+     */
+    public JsonNode getData(String path) {
+        return data(getJson(path));
+    }
+
+    /**
+     * 断言统一响应的 code 为 0，返回 data
+     */
+    public static JsonNode data(JsonNode response) {
+        assertEquals(0, response.path("code").asInt(-1), () -> "业务失败: " + response);
+        return response.path("data");
+    }
+
+    public static JsonNode json(String body) {
+        try {
+            return MAPPER.readTree(body == null ? "" : body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("响应不是 JSON: " + body, e);
+        }
+    }
+
+    public static String write(Object value) {
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.petcare.support;
+
+import com.petcare.PetcareAdminApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在测试进程内另外启动的应用实例，用于多实例与启动过程相关的测试
+ */
+public final class AppInstance implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final ApiClient api;
+
+    private AppInstance(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.api = new ApiClient("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+    }
+
+    /**
+     * 以 it 配置连接指定测试库启动，extraArgs 为额外的命令行参数，例如 --server.port=8081
+     */
+    public static AppInstance start(String database, String... extraArgs) {
+        return new AppInstance(new SpringApplicationBuilder(PetcareAdminApplication.class).run(args(database, extraArgs)));
+    }
+
+    /**
+     * 启动参数：随机端口（extraArgs 可覆盖）、it 配置与指定测试库
+     */
+    public static String[] args(String database, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(extraArgs));
+        // 同名参数重复出现时会被拼成逗号分隔的值，只补充 extraArgs 未指定的
+        for (String arg : List.of("--server.port=0", "--spring.profiles.active=it",
+                "--spring.datasource.url=" + TestDatabase.jdbcUrl(database))) {
+            String name = arg.substring(0, arg.indexOf('=') + 1);
+            if (args.stream().noneMatch(a -> a.startsWith(name))) {
+                args.add(arg);
+            }
+        }
+        return args.toArray(new String[0]);
+    }
+
+    public ApiClient api() {
+        return api;
+    }
+
+    public ConfigurableApplicationContext context() {
+        return context;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
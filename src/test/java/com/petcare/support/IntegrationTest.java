@@ -0,0 +1,43 @@
+package com.petcare.support;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * 集成测试基类：应用连接共用的测试库（{@link TestDatabase#SHARED}），各测试类共用同一个应用上下文。
+ * 共用库中的写入应放在合成数据之后的远期日期，或在测试结束时恢复，避免影响其他测试
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("it")
+@Import(SqlStatementCounter.class)
+public abstract class IntegrationTest {
+
+    protected static final TestData DATA = TestData.DEFAULT;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    protected SqlStatementCounter sqlStatements;
+
+    protected ApiClient api;
+    protected JdbcTemplate db;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> TestDatabase.jdbcUrl(TestDatabase.SHARED));
+    }
+
+    @BeforeEach
+    void connect() {
+        api = new ApiClient("http://localhost:" + port);
+        db = new JdbcTemplate(TestDatabase.dataSource(TestDatabase.SHARED));
+    }
+}
@@ -0,0 +1,79 @@
+package com.petcare.support;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计应用执行的 SQL 语句数
+ * 包装名为 dataSource 的 Bean：每次 prepareStatement/prepareCall 计一条，普通 Statement 按 execute 次数计。
+ * 集成测试通过 @Import 注册为 Bean，压测入口通过初始化器添加
+ */
+public final class SqlStatementCounter implements BeanPostProcessor {
+
+    private final LongAdder statements = new LongAdder();
+
+    public long count() {
+        return statements.sum();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                return result instanceof Connection connection ? wrapConnection(connection) : result;
+            });
+        }
+        return bean;
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            String name = method.getName();
+            if (name.equals("prepareStatement") || name.equals("prepareCall")) {
+                statements.increment();
+            }
+            Object result = invoke(target, method, args);
+            if (name.equals("createStatement") && result instanceof Statement statement) {
+                return wrapStatement(statement);
+            }
+            return result;
+        });
+    }
+
+    private Statement wrapStatement(Statement statement) {
+        return proxy(Statement.class, statement, (target, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                statements.increment();
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private interface Handler<T> {
+        Object handle(T target, Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+        InvocationHandler ih = (p, method, args) -> handler.handle(target, method, args);
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, ih);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.petcare.support;
+
+import java.time.YearMonth;
+
+/**
+ * 合成数据规模：订单分布在截至当前月的 months 个月内，每单一条收入记录
+ *
+ * @param pets          订单数
+ * @param months        订单分布的月份数（截至当前月）
+ * @param costsPerMonth 每月成本记录数
+ * @param maxCapacity   最大容量配置
+ * @param seed          随机数种子，保证多次生成的数据一致
+ */
+public record TestData(int pets, int months, int costsPerMonth, int maxCapacity, long seed) {
+
+    /** 集成测试使用的数据规模 */
+    public static final TestData DEFAULT = new TestData(2000, 24, 3, 20, 42L);
+
+    public YearMonth lastMonth() {
+        return YearMonth.now();
+    }
+
+    public YearMonth firstMonth() {
+        return lastMonth().minusMonths(months - 1L);
+    }
+
+    @Override
+    public String toString() {
+        return "pets=" + pets + ", months=" + months + " (" + firstMonth() + " ~ " + lastMonth() + ")"
+                + ", costsPerMonth=" + costsPerMonth + ", maxCapacity=" + maxCapacity;
+    }
+}
@@ -0,0 +1,217 @@
+package com.petcare.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.StreamUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 测试库：建表（db/schema.sql 及 db/migration 下的脚本）并生成合成数据
+ * 集成测试共用一个嵌入式 PostgreSQL，首次使用时启动并按 {@link TestData#DEFAULT} 写入模板库，
+ * 之后每个库名从模板复制一份，需要独占数据的测试使用单独的库名
+ */
+public final class TestDatabase {
+
+    /** 集成测试共用的库 */
+    public static final String SHARED = "petcare";
+    /** 与生产配置一致的连接参数 */
+    public static final String URL_OPTIONS = "&prepareThreshold=0&preferQueryMode=simple&reWriteBatchedInserts=true";
+
+    private static final String TEMPLATE = "petcare_template";
+    private static final String[] NAMES = {"小豆", "团团", "可乐", "布丁", "奶茶", "旺财", "米粒", "花卷", "豆包", "年糕"};
+    private static final String[] BREEDS = {"柯基", "柴犬", "泰迪", "金毛", "英短", "布偶", "美短", "比熊"};
+
+    private static EmbeddedPostgres postgres;
+    private static final Set<String> databases = new HashSet<>();
+
+    private TestDatabase() {
+    }
+
+    /**
+     * 指定库的 JDBC 地址，库不存在时从模板复制
+     */
+    public static synchronized String jdbcUrl(String database) {
+        EmbeddedPostgres server = server();
+        if (databases.add(database)) {
+            try (Connection conn = server.getPostgresDatabase().getConnection(); Statement st = conn.createStatement()) {
+                st.execute("CREATE DATABASE " + database + " TEMPLATE " + TEMPLATE);
+            } catch (SQLException e) {
+                databases.remove(database);
+                throw new IllegalStateException("创建测试库 " + database + " 失败", e);
+            }
+        }
+        return server.getJdbcUrl("postgres", database) + URL_OPTIONS;
+    }
+
+    /**
+     * 直连指定库的数据源（不经过应用的连接池），用于准备数据与核对结果
+     */
+    public static DataSource dataSource(String database) {
+        jdbcUrl(database);
+        return server().getDatabase("postgres", database);
+    }
+
+    private static EmbeddedPostgres server() {
+        if (postgres == null) {
+            try {
+                EmbeddedPostgres server = EmbeddedPostgres.builder().start();
+                try (Connection conn = server.getPostgresDatabase().getConnection(); Statement st = conn.createStatement()) {
+                    st.execute("CREATE DATABASE " + TEMPLATE);
+                }
+                DataSource template = server.getDatabase("postgres", TEMPLATE);
+                createSchema(template);
+                seed(template, TestData.DEFAULT);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        server.close();
+                    } catch (IOException ignored) {
+                        // 进程退出时的清理，失败无需处理
+                    }
+                }));
+                postgres = server;
+            } catch (IOException | SQLException e) {
+                throw new IllegalStateException("启动嵌入式 PostgreSQL 失败", e);
+            }
+        }
+        return postgres;
+    }
+
+    public static void createSchema(DataSource dataSource) throws IOException, SQLException {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        try (Connection conn = dataSource.getConnection(); Statement st = conn.createStatement()) {
+            st.execute(read(resolver.getResource("classpath:db/schema.sql")));
+            Resource[] migrations = resolver.getResources("classpath*:db/migration/*.sql");
+            Arrays.sort(migrations, Comparator.comparing(Resource::getFilename));
+            for (Resource migration : migrations) {
+                // 整个脚本一次提交，由驱动负责拆分语句，兼容函数体中的 $$ 引号
+                st.execute(read(migration));
+            }
+        }
+    }
+
+    private static String read(Resource resource) throws IOException {
+        return StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 生成订单、收入、成本与容量配置。订单按日期决定状态：已结束为 checkedOut，进行中为 checkedIn，未开始为 booked
+     */
+    public static void seed(DataSource dataSource, TestData data) throws SQLException {
+        Random random = new Random(data.seed());
+        LocalDate rangeStart = data.firstMonth().atDay(1);
+        int rangeDays = (int) ChronoUnit.DAYS.between(rangeStart, data.lastMonth().atEndOfMonth());
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pets = conn.prepareStatement(
+                    "INSERT INTO pets (id, name, breed, gender, age, neutered, start_date, end_date, daily_fee, other_fee, remark, status, created_at, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                 PreparedStatement incomes = conn.prepareStatement(
+                    "INSERT INTO incomes (id, pet_id, daily_fee, other_fee, total_fee, total_amount, days_stayed, settled_amount, remark, created_at, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= data.pets(); i++) {
+                    long id = 1_000_000L + i;
+                    LocalDate start = rangeStart.plusDays(random.nextInt(rangeDays));
+                    LocalDate end = start.plusDays(1 + random.nextInt(14));
+                    BigDecimal dailyFee = BigDecimal.valueOf(80 + random.nextInt(121));
+                    BigDecimal otherFee = BigDecimal.valueOf(random.nextInt(51));
+                    String status = end.isBefore(today) ? "checkedOut" : (start.isAfter(today) ? "booked" : "checkedIn");
+                    Timestamp created = Timestamp.valueOf(now);
+
+                    pets.setLong(1, id);
+                    pets.setString(2, NAMES[random.nextInt(NAMES.length)]);
+                    pets.setString(3, BREEDS[random.nextInt(BREEDS.length)]);
+                    pets.setString(4, random.nextBoolean() ? "弟弟" : "妹妹");
+                    pets.setInt(5, 1 + random.nextInt(12));
+                    pets.setString(6, random.nextBoolean() ? "已绝育" : "未绝育");
+                    pets.setDate(7, Date.valueOf(start));
+                    pets.setDate(8, Date.valueOf(end));
+                    pets.setBigDecimal(9, dailyFee);
+                    pets.setBigDecimal(10, otherFee);
+                    pets.setString(11, "测试数据");
+                    pets.setString(12, status);
+                    pets.setTimestamp(13, created);
+                    pets.setTimestamp(14, created);
+                    pets.addBatch();
+
+                    long nights = ChronoUnit.DAYS.between(start, end);
+                    BigDecimal total = dailyFee.multiply(BigDecimal.valueOf(nights)).add(otherFee);
+                    BigDecimal settled = "checkedOut".equals(status) ? total
+                            : total.multiply(BigDecimal.valueOf(random.nextInt(101))).divide(BigDecimal.valueOf(100), 2, RoundingMode.DOWN);
+                    incomes.setLong(1, id);
+                    incomes.setLong(2, id);
+                    incomes.setBigDecimal(3, dailyFee);
+                    incomes.setBigDecimal(4, otherFee);
+                    incomes.setBigDecimal(5, null);
+                    incomes.setBigDecimal(6, total);
+                    incomes.setInt(7, (int) nights);
+                    incomes.setBigDecimal(8, settled);
+                    incomes.setString(9, "测试数据");
+                    incomes.setTimestamp(10, created);
+                    incomes.setTimestamp(11, created);
+                    incomes.addBatch();
+
+                    if (i % 1000 == 0) {
+                        pets.executeBatch();
+                        incomes.executeBatch();
+                    }
+                }
+                pets.executeBatch();
+                incomes.executeBatch();
+            }
+
+            try (PreparedStatement costs = conn.prepareStatement(
+                    "INSERT INTO costs (water_fee, electricity_fee, rent_fee, other_fee, total_cost, cost_month, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (YearMonth month = data.firstMonth(); !month.isAfter(data.lastMonth()); month = month.plusMonths(1)) {
+                    for (int i = 0; i < data.costsPerMonth(); i++) {
+                        BigDecimal water = BigDecimal.valueOf(50 + random.nextInt(100));
+                        BigDecimal electricity = BigDecimal.valueOf(100 + random.nextInt(300));
+                        BigDecimal rent = i == 0 ? BigDecimal.valueOf(3000) : BigDecimal.ZERO;
+                        BigDecimal other = BigDecimal.valueOf(random.nextInt(200));
+                        costs.setBigDecimal(1, water);
+                        costs.setBigDecimal(2, electricity);
+                        costs.setBigDecimal(3, rent);
+                        costs.setBigDecimal(4, other);
+                        costs.setBigDecimal(5, water.add(electricity).add(rent).add(other));
+                        costs.setString(6, month.toString());
+                        costs.setTimestamp(7, Timestamp.valueOf(now));
+                        costs.addBatch();
+                    }
+                }
+                costs.executeBatch();
+            }
+
+            try (PreparedStatement setting = conn.prepareStatement("UPDATE settings SET value = ? WHERE \"key\" = 'max_capacity'")) {
+                setting.setString(1, String.valueOf(data.maxCapacity()));
+                setting.executeUpdate();
+            }
+            conn.commit();
+        }
+        try (Connection conn = dataSource.getConnection(); Statement st = conn.createStatement()) {
+            st.execute("ANALYZE");
+        }
+    }
+}
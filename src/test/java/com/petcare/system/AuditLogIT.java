@@ -0,0 +1,121 @@
+package com.petcare.system;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 操作审计
+ * 新增一条预约后多个客户端并发修改其备注（各带不同的 X-Operator），
+ * 审计日志在数秒内写入：1 条新增 + 每次修改 1 条，每条修改都记录了备注的修改后值与操作人；
+ * 批量导入的订单与收款入账同样留下审计记录
+ */
+class AuditLogIT extends IntegrationTest {
+
+    private static final int UPDATES = 100;
+    private static final int CLIENTS = 16;
+    private static final long WAIT_MILLIS = 10_000;
+
+    @Test
+    void concurrentUpdatesAreAuditedWithOperator() throws Exception {
+        // 远期日期，不占用合成数据所在月份的容量
+        LocalDate start = LocalDate.now().plusYears(3);
+        String id = ApiClient.data(api.post("/api/pets", Map.of("name", "审计", "startDate", start.toString(),
+                "endDate", start.plusDays(2).toString(), "dailyFee", 100, "otherFee", 0, "status", "booked"))).path("id").asText();
+
+        List<String> unexpected = new CopyOnWriteArrayList<>();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        for (int i = 0; i < UPDATES; i++) {
+            int n = i;
+            pool.submit(() -> {
+                startSignal.await();
+                HttpHeaders headers = new HttpHeaders();
+                headers.set("X-Operator", "client-" + n);
+                JsonNode response = ApiClient.json(api.exchange(HttpMethod.PUT, "/api/pets",
+                        Map.of("id", Long.parseLong(id), "remark", "修改-" + n), headers).getBody());
+                if (response.path("code").asInt() != 0) {
+                    unexpected.add(response.toString());
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        assertThat(unexpected).isEmpty();
+
+        // 审计日志由后台批量写入
+        Map<String, Integer> actions = new HashMap<>();
+        Map<String, String> remarkByOperator = new HashMap<>();
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        do {
+            actions.clear();
+            remarkByOperator.clear();
+            for (JsonNode log : api.getData("/api/audit-logs?table=pets&key=" + id + "&limit=500")) {
+                actions.merge(log.path("action").asText(), 1, Integer::sum);
+                if ("UPDATE".equals(log.path("action").asText())) {
+                    remarkByOperator.put(log.path("operator").asText(),
+                            ApiClient.json(log.path("changes").asText()).path("remark").path("after").asText());
+                }
+            }
+            if (actions.getOrDefault("UPDATE", 0) == UPDATES) {
+                break;
+            }
+            Thread.sleep(100);
+        } while (System.currentTimeMillis() < deadline);
+
+        assertThat(actions).containsEntry("CREATE", 1).containsEntry("UPDATE", UPDATES);
+        for (int i = 0; i < UPDATES; i++) {
+            assertThat(remarkByOperator).containsEntry("client-" + i, "修改-" + i);
+        }
+        api.delete("/api/pets/" + id);
+    }
+
+    @Test
+    void importAndPaymentAreAudited() throws Exception {
+        LocalDate start = LocalDate.now().plusYears(3).plusMonths(1);
+        long petId = 9_800_000_000_000L;
+        JsonNode imported = ApiClient.data(api.post("/api/pets/import", List.of(Map.of("id", petId, "name", "审计导入",
+                "startDate", start.toString(), "endDate", start.plusDays(2).toString(), "dailyFee", 100, "status", "booked"))));
+        assertThat(imported.path("importedRows").asInt()).isEqualTo(1);
+        Long incomeId = db.queryForObject("SELECT id FROM incomes WHERE pet_id = ?", Long.class, petId);
+        ApiClient.data(api.post("/api/incomes/" + incomeId + "/payments", Map.of("amount", 50, "remark", "审计收款")));
+
+        JsonNode created = awaitAuditLog("pets", petId);
+        assertThat(created.path("action").asText()).isEqualTo("CREATE");
+        assertThat(ApiClient.json(created.path("changes").asText()).path("name").path("after").asText()).isEqualTo("审计导入");
+        JsonNode settled = ApiClient.json(awaitAuditLog("incomes", incomeId).path("changes").asText()).path("settledAmount");
+        assertThat(settled.path("before").decimalValue()).isEqualByComparingTo("0");
+        assertThat(settled.path("after").decimalValue()).isEqualByComparingTo("50");
+    }
+
+    private JsonNode awaitAuditLog(String table, long key) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        JsonNode logs;
+        do {
+            logs = api.getData("/api/audit-logs?table=" + table + "&key=" + key + "&limit=10");
+            if (!logs.isEmpty()) {
+                break;
+            }
+            Thread.sleep(100);
+        } while (System.currentTimeMillis() < deadline);
+        assertThat(logs).hasSize(1);
+        return logs.get(0);
+    }
+}
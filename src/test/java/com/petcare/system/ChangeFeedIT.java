@@ -0,0 +1,121 @@
+package com.petcare.system;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petcare.support.ApiClient;
+import com.petcare.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 增量同步
+ * nextToken 随新增、修改推进并返回行的最新状态，删除以墓碑返回；
+ * 未传 since、since 超前或早于已清理的日志时要求全量同步；hasMore 分页拉取不漏行
+ */
+class ChangeFeedIT extends IntegrationTest {
+
+    // 合成数据之后十一年的日期，其他测试不写入
+    private static final LocalDate START = LocalDate.now().plusYears(11);
+
+    @Test
+    void tokenAdvancesAcrossCreateUpdateAndDelete() {
+        JsonNode first = api.getData("/api/changes");
+        assertThat(first.path("resetRequired").asBoolean()).isTrue();
+        long token = first.path("nextToken").asLong();
+
+        String id = create("同步");
+        JsonNode created = api.getData("/api/changes?since=" + token);
+        assertThat(created.path("resetRequired").asBoolean()).isFalse();
+        assertThat(created.path("nextToken").asLong()).isGreaterThan(token);
+        assertThat(pet(created, id)).isNotNull();
+        token = created.path("nextToken").asLong();
+
+        ApiClient.data(api.put("/api/pets", Map.of("id", Long.parseLong(id), "remark", "已修改")));
+        JsonNode updated = api.getData("/api/changes?since=" + token);
+        assertThat(updated.path("nextToken").asLong()).isGreaterThan(token);
+        assertThat(pet(updated, id).path("remark").asText()).isEqualTo("已修改");
+        token = updated.path("nextToken").asLong();
+
+        ApiClient.data(api.delete("/api/pets/" + id));
+        JsonNode deleted = api.getData("/api/changes?since=" + token);
+        assertThat(deleted.path("nextToken").asLong()).isGreaterThan(token);
+        assertThat(pet(deleted, id)).isNull();
+        assertThat(tombstones(deleted)).contains("pets:" + id);
+
+        // 已是最新时 nextToken 不变，没有变更
+        token = deleted.path("nextToken").asLong();
+        JsonNode empty = api.getData("/api/changes?since=" + token);
+        assertThat(empty.path("nextToken").asLong()).isEqualTo(token);
+        assertThat(empty.path("hasMore").asBoolean()).isFalse();
+    }
+
+    @Test
+    void hasMorePagesThroughEveryChange() {
+        long token = api.getData("/api/changes").path("nextToken").asLong();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(create("分页" + i));
+        }
+
+        Set<String> seen = new HashSet<>();
+        int pages = 0;
+        JsonNode page;
+        do {
+            page = api.getData("/api/changes?limit=1&since=" + token);
+            assertThat(page.path("resetRequired").asBoolean()).isFalse();
+            assertThat(page.path("nextToken").asLong()).isGreaterThan(token);
+            token = page.path("nextToken").asLong();
+            page.path("pets").forEach(pet -> seen.add(pet.path("id").asText()));
+            pages++;
+        } while (page.path("hasMore").asBoolean());
+
+        assertThat(pages).isGreaterThanOrEqualTo(ids.size());
+        assertThat(seen).containsAll(ids);
+        ids.forEach(id -> ApiClient.data(api.delete("/api/pets/" + id)));
+    }
+
+    @Test
+    void staleOrUnknownTokenRequiresReset() {
+        String id = create("清理");
+        long latest = api.getData("/api/changes").path("nextToken").asLong();
+
+        assertThat(api.getData("/api/changes?since=" + (latest + 1000)).path("resetRequired").asBoolean()).isTrue();
+
+        // 模拟按保留期清理：只留下最新一条日志
+        db.update("DELETE FROM change_log WHERE seq < ?", latest);
+        JsonNode stale = api.getData("/api/changes?since=" + (latest - 2));
+        assertThat(stale.path("resetRequired").asBoolean()).isTrue();
+        assertThat(stale.path("nextToken").asLong()).isEqualTo(latest);
+        // 恰好接在最早一条之前的 token 仍可继续增量同步
+        assertThat(api.getData("/api/changes?since=" + (latest - 1)).path("resetRequired").asBoolean()).isFalse();
+
+        ApiClient.data(api.delete("/api/pets/" + id));
+    }
+
+    private String create(String name) {
+        return ApiClient.data(api.post("/api/pets", Map.of("name", name, "startDate", START.toString(),
+                "endDate", START.plusDays(2).toString(), "dailyFee", 100, "otherFee", 0, "status", "booked"))).path("id").asText();
+    }
+
+    private static JsonNode pet(JsonNode feed, String id) {
+        for (JsonNode pet : feed.path("pets")) {
+            if (pet.path("id").asText().equals(id)) {
+                return pet;
+            }
+        }
+        return null;
+    }
+
+    private static Set<String> tombstones(JsonNode feed) {
+        Set<String> keys = new HashSet<>();
+        feed.path("tombstones").forEach(t -> keys.add(t.path("table").asText() + ":" + t.path("key").asText()));
+        return keys;
+    }
+}